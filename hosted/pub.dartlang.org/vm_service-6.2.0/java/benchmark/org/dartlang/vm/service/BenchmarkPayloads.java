@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service;
+
+import com.google.gson.JsonObject;
+import org.dartlang.vm.service.fake.FakePayloads;
+import org.dartlang.vm.service.internal.RequestSink;
+
+import java.util.function.IntFunction;
+
+/**
+ * The payloads measured by the benchmarks, built with {@link FakePayloads}. A payload is named by
+ * its response type, followed for the types whose size varies by an underscore and its
+ * approximate size in JSON, such as {@code CpuSamples_10MB}.
+ */
+final class BenchmarkPayloads {
+  private BenchmarkPayloads() {
+  }
+
+  /**
+   * Return the result with the given payload name.
+   */
+  static JsonObject result(String payload) {
+    int separator = payload.indexOf('_');
+    String type = separator < 0 ? payload : payload.substring(0, separator);
+    long size = separator < 0 ? 0 : parseSize(payload.substring(separator + 1));
+    switch (type) {
+      case "Success":
+        return FakePayloads.success();
+      case "VM":
+        return FakePayloads.vm("vm", 4);
+      case "Instance":
+        return scaled(size, new IntFunction<JsonObject>() {
+          @Override
+          public JsonObject apply(int count) {
+            return FakePayloads.listInstance(count);
+          }
+        });
+      case "CpuSamples":
+        return scaled(size, new IntFunction<JsonObject>() {
+          @Override
+          public JsonObject apply(int count) {
+            return FakePayloads.cpuSamples(count, Math.max(1, count / 20), 64, 1);
+          }
+        });
+      case "SourceReport":
+        return scaled(size, new IntFunction<JsonObject>() {
+          @Override
+          public JsonObject apply(int count) {
+            return FakePayloads.sourceReport(count, 50, 1);
+          }
+        });
+      default:
+        throw new IllegalArgumentException("Unknown payload: " + payload);
+    }
+  }
+
+  /**
+   * Return a {@link VmService} that is not connected to a VM and discards its requests.
+   */
+  static VmService createService() {
+    VmService vmService = new VmService();
+    vmService.requestSink = new RequestSink() {
+      @Override
+      public void add(JsonObject request) {
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+    return vmService;
+  }
+
+  /**
+   * Return the payload built with the count that brings its JSON close to the given size. The
+   * count is estimated from two small payloads, then corrected once for the numbers in the
+   * payload growing longer with the count.
+   */
+  private static JsonObject scaled(long size, IntFunction<JsonObject> factory) {
+    long size100 = factory.apply(100).toString().length();
+    long size200 = factory.apply(200).toString().length();
+    long unitSize = Math.max(1, (size200 - size100) / 100);
+    long fixedSize = Math.max(0, size100 - 100 * unitSize);
+    int count = (int) Math.min(Math.max(1, (size - fixedSize) / unitSize), Integer.MAX_VALUE);
+    JsonObject payload = factory.apply(count);
+    long actualSize = payload.toString().length();
+    if (count > 200 && Math.abs(actualSize - size) > size / 10) {
+      payload = factory.apply((int) Math.max(1, count * (double) size / actualSize));
+    }
+    return payload;
+  }
+
+  private static long parseSize(String size) {
+    long unit = 1;
+    String digits = size;
+    if (size.endsWith("KB")) {
+      unit = 1024;
+      digits = size.substring(0, size.length() - 2);
+    } else if (size.endsWith("MB")) {
+      unit = 1024 * 1024;
+      digits = size.substring(0, size.length() - 2);
+    }
+    return Long.parseLong(digits) * unit;
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service;
+
+import com.google.gson.JsonObject;
+import org.dartlang.vm.service.element.CpuSample;
+import org.dartlang.vm.service.element.CpuSamples;
+import org.dartlang.vm.service.element.Instance;
+import org.dartlang.vm.service.element.InstanceRef;
+import org.dartlang.vm.service.element.SourceReport;
+import org.dartlang.vm.service.element.SourceReportCoverage;
+import org.dartlang.vm.service.element.SourceReportRange;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of reading decoded responses through the generated element accessors. Each
+ * invocation wraps the decoded JSON in a new element, so that the lists and arrays memoized by the
+ * element are built again. The {@code Boxed} benchmarks read the same values through the
+ * {@code List<Integer>} accessors, for comparison with the primitive array accessors.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ElementAccessorBenchmark {
+  @Param({"1KB", "1MB", "50MB"})
+  public String size;
+
+  private JsonObject instance;
+  private JsonObject cpuSamples;
+  private JsonObject sourceReport;
+
+  @Setup
+  public void setup() {
+    instance = BenchmarkPayloads.result("Instance_" + size);
+    cpuSamples = BenchmarkPayloads.result("CpuSamples_" + size);
+    sourceReport = BenchmarkPayloads.result("SourceReport_" + size);
+  }
+
+  @Benchmark
+  public long instanceElements() {
+    long length = 0;
+    for (InstanceRef element : new Instance(instance).getElements()) {
+      length += element.getValueAsString().length();
+    }
+    return length;
+  }
+
+  @Benchmark
+  public long cpuSampleStacks() {
+    long sum = 0;
+    for (CpuSample sample : new CpuSamples(cpuSamples).getSamples()) {
+      for (int function : sample.getStackAsArray()) {
+        sum += function;
+      }
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public long cpuSampleStacksBoxed() {
+    long sum = 0;
+    for (CpuSample sample : new CpuSamples(cpuSamples).getSamples()) {
+      for (Integer function : sample.getStack()) {
+        sum += function;
+      }
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public long sourceReportHits() {
+    long sum = 0;
+    for (SourceReportRange range : new SourceReport(sourceReport).getRanges()) {
+      SourceReportCoverage coverage = range.getCoverage();
+      if (coverage != null) {
+        for (int position : coverage.getHitsAsArray()) {
+          sum += position;
+        }
+      }
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public long sourceReportHitsBoxed() {
+    long sum = 0;
+    for (SourceReportRange range : new SourceReport(sourceReport).getRanges()) {
+      SourceReportCoverage coverage = range.getCoverage();
+      if (coverage != null) {
+        for (Integer position : coverage.getHits()) {
+          sum += position;
+        }
+      }
+    }
+    return sum;
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.dartlang.vm.service.element.Event;
+import org.dartlang.vm.service.fake.FakePayloads;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of delivering an event to a number of listeners, from the decoded
+ * notification with {@link #processNotification} and from the text of the message with
+ * {@link #processMessage}. Each listener reads the kind of the event.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventFanOutBenchmark {
+  @Param({"1", "8", "64"})
+  public int listeners;
+
+  private VmService vmService;
+  private JsonObject notification;
+  private String message;
+
+  @Setup
+  public void setup(final Blackhole blackhole) {
+    vmService = BenchmarkPayloads.createService();
+    for (int i = 0; i < listeners; i++) {
+      vmService.addVmServiceListener(new VmServiceListener() {
+        @Override
+        public void connectionOpened() {
+        }
+
+        @Override
+        public void received(String streamId, Event event) {
+          blackhole.consume(event.getKind());
+        }
+
+        @Override
+        public void connectionClosed() {
+        }
+      });
+    }
+    JsonObject params = new JsonObject();
+    params.addProperty("streamId", VmService.DEBUG_STREAM_ID);
+    params.add("event", FakePayloads.event("PauseBreakpoint", 1, 1000));
+    JsonObject json = new JsonObject();
+    json.addProperty("jsonrpc", "2.0");
+    json.addProperty("method", "streamNotify");
+    json.add("params", params);
+    message = json.toString();
+    notification = new JsonParser().parse(message).getAsJsonObject();
+  }
+
+  @Benchmark
+  public void processNotification() {
+    vmService.processNotification(notification);
+  }
+
+  @Benchmark
+  public void processMessage() {
+    vmService.processMessage(message);
+  }
+}
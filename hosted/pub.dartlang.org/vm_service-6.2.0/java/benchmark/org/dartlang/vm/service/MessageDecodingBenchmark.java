@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service;
+
+import com.google.gson.JsonObject;
+import org.dartlang.vm.service.element.Response;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of {@link VmServiceBase#processTextMessage} for responses from tiny to 50 MB:
+ * the UTF-8 encoded message, as received by the NIO transport, is decoded, matched with its request
+ * and used to complete the future waiting for it. The result precedes the id, as in the messages of
+ * the VM.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class MessageDecodingBenchmark {
+  @Param({"Success", "VM", "Instance_1MB", "CpuSamples_1KB", "CpuSamples_1MB", "CpuSamples_50MB",
+      "SourceReport_1MB", "SourceReport_50MB"})
+  public String payload;
+
+  private VmService vmService;
+
+  private static final int ID_DIGITS = 10;
+
+  /**
+   * The encoded response, whose id is the last {@link #ID_DIGITS} digits before {@link #idEnd}.
+   */
+  private byte[] response;
+  private int idEnd;
+
+  @Setup
+  public void setup() {
+    vmService = BenchmarkPayloads.createService();
+    String text = "{\"jsonrpc\":\"2.0\",\"result\":" + BenchmarkPayloads.result(payload)
+        + ",\"id\":\"" + String.format("%0" + ID_DIGITS + "d", 0) + "\"}";
+    response = text.getBytes(StandardCharsets.UTF_8);
+    idEnd = response.length - 2;
+  }
+
+  @Benchmark
+  public Response processMessage() {
+    ResponseFuture<Response> future = new ResponseFuture<>(Response.class);
+    PendingRequest pending = vmService.request("getObject", new JsonObject(), future);
+    // Give the response the id of its request without copying the rest of it
+    int id = pending.getId();
+    for (int i = idEnd - 1; i >= idEnd - ID_DIGITS; i--) {
+      response[i] = (byte) ('0' + id % 10);
+      id /= 10;
+    }
+    vmService.processTextMessage(ByteBuffer.wrap(response));
+    return future.getNow(null);
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service;
+
+import com.google.gson.JsonObject;
+import de.roderick.weberknecht.WebSocket;
+import org.dartlang.vm.service.internal.TransportRequestSink;
+import org.dartlang.vm.service.internal.WebSocketRequestSink;
+import org.dartlang.vm.service.transport.TransportConnection;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of serializing requests in {@link WebSocketRequestSink} and
+ * {@link TransportRequestSink}, one at a time or as a JSON-RPC batch. The serialized requests are
+ * consumed rather than sent.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestSerializationBenchmark {
+  @Param({"getVersion", "getObject", "evaluate"})
+  public String method;
+
+  @Param({"1", "100"})
+  public int batchSize;
+
+  private List<JsonObject> requests;
+  private WebSocketRequestSink webSocketSink;
+  private TransportRequestSink transportSink;
+
+  @Setup
+  public void setup(final Blackhole blackhole) throws Exception {
+    requests = new ArrayList<>(batchSize);
+    for (int id = 1; id <= batchSize; id++) {
+      JsonObject params = new JsonObject();
+      switch (method) {
+        case "getObject":
+          params.addProperty("isolateId", "isolates/1234567890");
+          params.addProperty("objectId", "objects/" + id);
+          break;
+        case "evaluate":
+          params.addProperty("isolateId", "isolates/1234567890");
+          params.addProperty("targetId", "objects/" + id);
+          params.addProperty("expression", "items.where((item) => item.isVisible).map((item) => "
+              + "'${item.name}: ${item.value}').join('\\n')");
+          break;
+        default:
+          break;
+      }
+      JsonObject request = new JsonObject();
+      request.addProperty("jsonrpc", "2.0");
+      request.addProperty("id", id);
+      request.addProperty("method", method);
+      request.add("params", params);
+      requests.add(request);
+    }
+    webSocketSink = new WebSocketRequestSink(new WebSocket(new URI("ws://127.0.0.1:8181/ws")) {
+      @Override
+      public void send(String data) {
+        blackhole.consume(data);
+      }
+    });
+    transportSink = new TransportRequestSink(new TransportConnection() {
+      @Override
+      public void send(String message) {
+        blackhole.consume(message);
+      }
+
+      @Override
+      public void close() {
+      }
+    });
+  }
+
+  @Benchmark
+  public void webSocketSink() {
+    webSocketSink.addAll(requests);
+  }
+
+  @Benchmark
+  public void transportSink() {
+    transportSink.addAll(requests);
+  }
+}
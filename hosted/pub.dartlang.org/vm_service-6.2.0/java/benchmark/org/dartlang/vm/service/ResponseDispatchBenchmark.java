@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.dartlang.vm.service.consumer.Consumer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of forwarding a decoded response to its consumer.
+ * <p>
+ * {@link #forwarderTable} is the current path, where the {@link ResponseForwarder} is selected
+ * when the request is sent. {@link #consumerTypeCascade} reproduces the previous generated
+ * {@code forwardResponse}, which tested the consumer against every consumer interface in
+ * alphabetical order before matching the response type.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseDispatchBenchmark {
+  /**
+   * Methods near the start, middle and end of the alphabetical consumer cascade.
+   */
+  @Param({"addBreakpoint", "getObject", "getVersion"})
+  public String method;
+
+  private PendingRequest pending;
+  private List<ResponseForwarder> cascade;
+  private Consumer consumer;
+  private String responseType;
+  private JsonObject json;
+  private VmService vmService;
+
+  @Setup
+  public void setup(final Blackhole blackhole) {
+    vmService = new VmService();
+    ResponseForwarder forwarder = vmService.getResponseForwarder(method);
+    consumer = (Consumer) Proxy.newProxyInstance(getClass().getClassLoader(),
+        new Class<?>[]{forwarder.getConsumerClass()}, new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method m, Object[] args) {
+            blackhole.consume(args);
+            return null;
+          }
+        });
+    pending = new PendingRequest(vmService, 1, method, consumer, forwarder);
+
+    cascade = new ArrayList<>(vmService.getResponseForwarders());
+    Collections.sort(cascade, new Comparator<ResponseForwarder>() {
+      @Override
+      public int compare(ResponseForwarder f1, ResponseForwarder f2) {
+        return f1.getConsumerClass().getSimpleName().compareTo(f2.getConsumerClass().getSimpleName());
+      }
+    });
+
+    switch (method) {
+      case "addBreakpoint":
+        responseType = "Breakpoint";
+        break;
+      case "getObject":
+        responseType = "Instance";
+        break;
+      default:
+        responseType = "Version";
+    }
+    json = new JsonParser().parse("{\"type\":\"" + responseType + "\",\"id\":\"objects/1\"}").getAsJsonObject();
+  }
+
+  @Benchmark
+  public void forwarderTable() {
+    vmService.forwardResponse(pending, responseType, json);
+  }
+
+  @Benchmark
+  public void consumerTypeCascade() {
+    for (ResponseForwarder each : cascade) {
+      if (each.accepts(consumer)) {
+        each.forward(consumer, responseType, json);
+        return;
+      }
+    }
+  }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service;
+
+import com.google.gson.JsonObject;
+import org.dartlang.vm.service.consumer.Consumer;
+import org.dartlang.vm.service.internal.TimerWheel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A handle to a request that has been sent to the VM but not yet answered.
+ */
+public class PendingRequest {
+  private final VmServiceBase service;
+  private final int id;
+  private final String method;
+  final Consumer consumer;
+
+  /**
+   * The forwarder selected for {@link #consumer} when the request was sent, or {@code null}.
+   */
+  final ResponseForwarder forwarder;
+
+  /**
+   * The deadline armed for this request, or {@code null} if the request does not time out.
+   */
+  volatile TimerWheel.Timeout timeout;
+
+  /**
+   * The value of {@link System#nanoTime()} when the request was created.
+   */
+  final long sentNanos = System.nanoTime();
+
+  /**
+   * The request that was sent to the VM and whose response is shared with this request, or
+   * {@code null} if this request was sent itself.
+   */
+  final PendingRequest leader;
+
+  /**
+   * The method and parameters identifying requests that may share the response to this request,
+   * or {@code null} if the response is not shared.
+   */
+  final VmServiceBase.RequestKey dedupKey;
+
+  /**
+   * The request to send again if the connection is re-established before the response has been
+   * received, or {@code null} if the request has side effects and fails instead.
+   */
+  JsonObject replay;
+
+  /**
+   * The requests sharing the response to this request, or {@code null} if there are none.
+   * Guarded by {@code this}.
+   */
+  private List<PendingRequest> followers;
+
+  /**
+   * {@code true} once the response to this request has been received or the request has failed,
+   * after which no more requests may share its response. Guarded by {@code this}.
+   */
+  private boolean completed;
+
+  /**
+   * {@code true} if this request was cancelled while other requests were still sharing its
+   * response, so that only its own consumer is not notified. Guarded by {@code this}.
+   */
+  private boolean cancelled;
+
+  PendingRequest(VmServiceBase service, int id, String method, Consumer consumer,
+                 ResponseForwarder forwarder) {
+    this(service, id, method, consumer, forwarder, null, null);
+  }
+
+  PendingRequest(VmServiceBase service, int id, String method, Consumer consumer,
+                 ResponseForwarder forwarder, VmServiceBase.RequestKey dedupKey,
+                 PendingRequest leader) {
+    this.service = service;
+    this.id = id;
+    this.method = method;
+    this.consumer = consumer;
+    this.forwarder = forwarder;
+    this.dedupKey = dedupKey;
+    this.leader = leader;
+  }
+
+  /**
+   * Stop waiting for the response to this request. The consumer is not notified, and a response
+   * received later is ignored.
+   *
+   * @return {@code true} if the request was still pending
+   */
+  public boolean cancel() {
+    return service.cancelRequest(this);
+  }
+
+  /**
+   * Return the id sent with this request. A request that shares the response to an identical
+   * request already in flight returns the id of that request.
+   */
+  public int getId() {
+    return id;
+  }
+
+  /**
+   * Return the name of the requested method.
+   */
+  public String getMethod() {
+    return method;
+  }
+
+  /**
+   * Return {@code true} if this request has been answered, has failed or has been cancelled.
+   */
+  public boolean isDone() {
+    return !service.isPending(this);
+  }
+
+  /**
+   * Share the response to this request with the given request.
+   *
+   * @return {@code false} if this request has already been answered or has failed
+   */
+  synchronized boolean addFollower(PendingRequest follower) {
+    if (completed) {
+      return false;
+    }
+    if (followers == null) {
+      followers = new ArrayList<>(2);
+    }
+    followers.add(follower);
+    return true;
+  }
+
+  synchronized boolean removeFollower(PendingRequest follower) {
+    return followers != null && followers.remove(follower);
+  }
+
+  synchronized boolean hasFollower(PendingRequest follower) {
+    return followers != null && followers.contains(follower);
+  }
+
+  /**
+   * Mark this request as cancelled if other requests still share its response. Otherwise stop
+   * sharing its response with requests made later.
+   *
+   * @return {@code false} if no request shares the response, in which case the request should be
+   * removed from the requests in flight
+   */
+  synchronized boolean cancelIfShared() {
+    if (followers == null || followers.isEmpty()) {
+      completed = true;
+      return false;
+    }
+    cancelled = true;
+    return true;
+  }
+
+  synchronized boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * Mark this request as answered or failed, and return the requests whose consumers should be
+   * notified: this request unless it was cancelled, followed by the requests sharing its response.
+   */
+  synchronized List<PendingRequest> complete() {
+    completed = true;
+    if (followers == null) {
+      return cancelled ? Collections.<PendingRequest>emptyList() : Collections.singletonList(this);
+    }
+    List<PendingRequest> result = new ArrayList<>(followers.size() + 1);
+    if (!cancelled) {
+      result.add(this);
+    }
+    for (PendingRequest follower : followers) {
+      follower.cancelTimeout();
+    }
+    result.addAll(followers);
+    followers = null;
+    return result;
+  }
+
+  void cancelTimeout() {
+    TimerWheel.Timeout t = timeout;
+    if (t != null) {
+      t.cancel();
+    }
+  }
+}
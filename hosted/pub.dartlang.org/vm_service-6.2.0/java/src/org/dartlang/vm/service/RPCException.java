@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service;
+
+import org.dartlang.vm.service.element.RPCError;
+
+/**
+ * {@link RPCException} is used to complete the futures returned by the <code>...Async</code>
+ * methods of {@link VmService} when the request fails.
+ */
+public class RPCException extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
+  private final RPCError error;
+
+  public RPCException(RPCError error) {
+    super(error.getMessage());
+    this.error = error;
+  }
+
+  /**
+   * Return the error returned by the VM, or created by this client, for the failed request.
+   */
+  public RPCError getError() {
+    return error;
+  }
+}
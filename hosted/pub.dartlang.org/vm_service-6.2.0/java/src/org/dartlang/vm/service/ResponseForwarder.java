@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service;
+
+import com.google.gson.JsonObject;
+import org.dartlang.vm.service.consumer.Consumer;
+
+/**
+ * Forwards responses to consumers of one generated {@link Consumer} type. The forwarder for a
+ * request is selected once when the request is sent, so that forwarding the response takes a
+ * single lookup on the response type.
+ */
+abstract class ResponseForwarder {
+  private final Class<? extends Consumer> consumerClass;
+
+  ResponseForwarder(Class<? extends Consumer> consumerClass) {
+    this.consumerClass = consumerClass;
+  }
+
+  Class<? extends Consumer> getConsumerClass() {
+    return consumerClass;
+  }
+
+  /**
+   * Return {@code true} if the given consumer can be passed to {@link #forward}.
+   */
+  boolean accepts(Consumer consumer) {
+    return consumerClass.isInstance(consumer);
+  }
+
+  /**
+   * Forward the response to the consumer. Return {@code false} if the response type is not one
+   * that the consumer accepts.
+   */
+  abstract boolean forward(Consumer consumer, String responseType, JsonObject json);
+}
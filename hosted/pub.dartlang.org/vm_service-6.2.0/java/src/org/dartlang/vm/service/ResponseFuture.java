@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service;
+
+import com.google.gson.JsonObject;
+import org.dartlang.vm.service.consumer.Consumer;
+import org.dartlang.vm.service.element.RPCError;
+import org.dartlang.vm.service.element.Response;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A {@link Consumer} used by the <code>...Async</code> methods of {@link VmService} to complete a
+ * {@link CompletableFuture} with the response to a request.
+ */
+class ResponseFuture<T> extends CompletableFuture<T> implements Consumer {
+  /**
+   * The expected type of the response. {@link JsonObject} indicates that the raw JSON result should
+   * be used, as is the case for service extensions.
+   */
+  private final Class<T> responseClass;
+
+  /**
+   * The request this future is waiting on, used to stop waiting when this future is cancelled.
+   */
+  private volatile PendingRequest request;
+
+  ResponseFuture(Class<T> responseClass) {
+    this.responseClass = responseClass;
+  }
+
+  void setRequest(PendingRequest request) {
+    this.request = request;
+    if (isCancelled()) {
+      request.cancel();
+    }
+  }
+
+  @Override
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    boolean result = super.cancel(mayInterruptIfRunning);
+    PendingRequest r = request;
+    if (result && r != null) {
+      r.cancel();
+    }
+    return result;
+  }
+
+  /**
+   * Return {@code true} if this future is completed with the raw JSON result rather than a
+   * {@link Response}.
+   */
+  boolean isRawJson() {
+    return responseClass == JsonObject.class;
+  }
+
+  @Override
+  public void onError(RPCError error) {
+    completeExceptionally(new RPCException(error));
+  }
+
+  /**
+   * Complete this future with the given result.
+   */
+  void received(String responseType, JsonObject json) {
+    if (isRawJson()) {
+      complete(responseClass.cast(json));
+      return;
+    }
+    Response response = VmService.createResponse(responseType, json);
+    if (response == null) {
+      response = new Response(json);
+    }
+    if (responseClass.isInstance(response)) {
+      complete(responseClass.cast(response));
+    } else {
+      onError(RPCError.unexpected(responseClass.getSimpleName(), response));
+    }
+  }
+}
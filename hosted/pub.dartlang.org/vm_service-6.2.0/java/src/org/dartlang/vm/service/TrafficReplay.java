@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import org.dartlang.vm.service.element.Response;
+import org.dartlang.vm.service.internal.RequestSink;
+import org.dartlang.vm.service.internal.VmServiceConst;
+import org.dartlang.vm.service.transport.TrafficRecording;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays the traffic of a {@link TrafficRecording} through a {@link VmService}, to profile or
+ * measure the decoding and dispatching of real workloads without a VM.
+ * <p>
+ * The requests that were sent are made again, in the order they were sent, and the messages that
+ * were received are given to the service in the order they were received, with
+ * {@link VmServiceBase#processMessage} and {@link VmServiceBase#processBinaryMessage}. Each
+ * request is made with a future that is completed with the {@link Response} decoded for its type,
+ * and events are delivered to the listeners of the service. Since the replayed requests get new
+ * ids, the ids of the recorded responses are rewritten when the recording is loaded, so that
+ * replaying measures the same work as the recorded session.
+ */
+public class TrafficReplay {
+  /**
+   * A request to make, or a message to process, after a delay.
+   */
+  private static class Step {
+    final long delayMicros;
+    final JsonObject request;
+    final String text;
+    final byte[] data;
+
+    Step(long delayMicros, JsonObject request, String text, byte[] data) {
+      this.delayMicros = delayMicros;
+      this.request = request;
+      this.text = text;
+      this.data = data;
+    }
+  }
+
+  /**
+   * Load the recording in the given file.
+   */
+  public static TrafficReplay load(Path file) throws IOException {
+    return new TrafficReplay(TrafficRecording.read(file));
+  }
+
+  private final List<Step> steps = new ArrayList<>();
+  private final int requestCount;
+  private long receivedBytes;
+
+  public TrafficReplay(TrafficRecording recording) {
+    JsonParser parser = new JsonParser();
+    // The ids of the replayed requests, which are numbered from 1 in the order the requests are
+    // made, keyed by the ids of the recorded requests of the current session
+    Map<String, Integer> ids = new HashMap<>();
+    int lastId = 0;
+    long lastMicros = 0;
+    for (TrafficRecording.Record record : recording.getRecords()) {
+      long delay = record.getTimeMicros() - lastMicros;
+      switch (record.getKind()) {
+        case SESSION:
+          // The ids of the requests of another session start again from 1
+          ids = new HashMap<>();
+          lastMicros = 0;
+          break;
+        case CONNECTED:
+          lastMicros = 0;
+          break;
+        case SENT:
+          for (JsonObject request : parseRequests(parser, record.getText())) {
+            String recordedId = request.get(VmServiceConst.ID).getAsString();
+            // A request is sent again when the connection is re-established
+            if (!ids.containsKey(recordedId)) {
+              ids.put(recordedId, ++lastId);
+              steps.add(new Step(delay, request, null, null));
+              delay = 0;
+            }
+          }
+          lastMicros = record.getTimeMicros();
+          break;
+        case RECEIVED:
+          steps.add(new Step(delay, null, rewriteIds(parser, record.getText(), ids), null));
+          receivedBytes += record.getSize();
+          lastMicros = record.getTimeMicros();
+          break;
+        case RECEIVED_BINARY:
+          ByteBuffer data = record.getData();
+          byte[] bytes = new byte[data.remaining()];
+          data.get(bytes);
+          steps.add(new Step(delay, null, null, bytes));
+          receivedBytes += bytes.length;
+          lastMicros = record.getTimeMicros();
+          break;
+        default:
+          lastMicros = record.getTimeMicros();
+          break;
+      }
+    }
+    requestCount = lastId;
+  }
+
+  /**
+   * The number of requests made by {@link #replay}.
+   */
+  public int getRequestCount() {
+    return requestCount;
+  }
+
+  /**
+   * The number of messages processed by {@link #replay}.
+   */
+  public int getMessageCount() {
+    return steps.size() - requestCount;
+  }
+
+  /**
+   * The number of bytes of the messages processed by {@link #replay}, as they were received.
+   */
+  public long getReceivedBytes() {
+    return receivedBytes;
+  }
+
+  /**
+   * Return a service that is not connected to a VM, whose requests are discarded, to be passed to
+   * {@link #replay}. Add listeners to the service to receive the replayed events.
+   */
+  public VmService createService() {
+    VmService service = new VmService();
+    service.setRequestDeduplication(false);
+    service.requestSink = new RequestSink() {
+      @Override
+      public void add(JsonObject request) {
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+    return service;
+  }
+
+  /**
+   * Make the recorded requests and process the recorded messages with the given service, which
+   * must have been returned by {@link #createService()} and not used for other requests, since the
+   * ids of the responses are those of the requests it makes. Messages are processed on the calling
+   * thread, with the delays between them that were recorded if {@code originalSpeed} is
+   * {@code true}, or as fast as possible otherwise.
+   *
+   * @return the futures of the requests, in the order they were made. A future that is not done
+   * was not answered in the recording.
+   */
+  public List<CompletableFuture<Response>> replay(VmService service, boolean originalSpeed) {
+    List<CompletableFuture<Response>> responses = new ArrayList<>(requestCount);
+    long nextNanos = System.nanoTime();
+    for (Step step : steps) {
+      if (originalSpeed && step.delayMicros > 0) {
+        nextNanos += step.delayMicros * 1000;
+        long wait;
+        while ((wait = nextNanos - System.nanoTime()) > 0) {
+          LockSupport.parkNanos(wait);
+        }
+      }
+      if (step.request != null) {
+        JsonObject params = step.request.getAsJsonObject(VmServiceConst.PARAMS);
+        responses.add(service.requestAsync(step.request.get(VmServiceConst.METHOD).getAsString(),
+            params != null ? params : new JsonObject(), Response.class));
+      } else if (step.text != null) {
+        service.processMessage(step.text);
+      } else {
+        service.processBinaryMessage(ByteBuffer.wrap(step.data));
+      }
+    }
+    return responses;
+  }
+
+  /**
+   * Return the requests in the given message sent to the VM, ignoring responses to requests from
+   * the VM.
+   */
+  private static List<JsonObject> parseRequests(JsonParser parser, String message) {
+    JsonElement json;
+    try {
+      json = parser.parse(message);
+    } catch (RuntimeException e) {
+      return Collections.emptyList();
+    }
+    List<JsonObject> requests = new ArrayList<>();
+    if (json.isJsonArray()) {
+      for (JsonElement each : json.getAsJsonArray()) {
+        addRequest(each, requests);
+      }
+    } else {
+      addRequest(json, requests);
+    }
+    return requests;
+  }
+
+  private static void addRequest(JsonElement json, List<JsonObject> requests) {
+    if (json.isJsonObject() && json.getAsJsonObject().has(VmServiceConst.METHOD)
+        && json.getAsJsonObject().has(VmServiceConst.ID)) {
+      requests.add(json.getAsJsonObject());
+    }
+  }
+
+  /**
+   * Return the given message received from the VM with the ids of the responses it contains
+   * replaced by those of the replayed requests. The ids of responses to requests that were not
+   * recorded are replaced with 0, which is never the id of a request.
+   */
+  private static String rewriteIds(JsonParser parser, String message, Map<String, Integer> ids) {
+    JsonElement json;
+    try {
+      json = parser.parse(message);
+    } catch (RuntimeException e) {
+      return message;
+    }
+    boolean rewritten = false;
+    if (json.isJsonArray()) {
+      JsonArray batch = json.getAsJsonArray();
+      for (JsonElement each : batch) {
+        rewritten |= rewriteId(each, ids);
+      }
+    } else {
+      rewritten = rewriteId(json, ids);
+    }
+    return rewritten ? json.toString() : message;
+  }
+
+  private static boolean rewriteId(JsonElement json, Map<String, Integer> ids) {
+    if (!json.isJsonObject()) {
+      return false;
+    }
+    JsonObject response = json.getAsJsonObject();
+    if (response.has(VmServiceConst.METHOD) || !response.has(VmServiceConst.ID)) {
+      return false;
+    }
+    Integer id = ids.get(response.get(VmServiceConst.ID).getAsString());
+    response.add(VmServiceConst.ID, new JsonPrimitive(id != null ? id : 0));
+    return true;
+  }
+}
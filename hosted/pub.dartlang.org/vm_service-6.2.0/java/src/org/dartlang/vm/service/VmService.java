@@ -18,8 +18,11 @@ package org.dartlang.vm.service;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import org.dartlang.vm.service.consumer.*;
 import org.dartlang.vm.service.element.*;
 
@@ -47,6 +50,10 @@ import org.dartlang.vm.service.element.*;
  * Calls to {@link VmService} should not be nested.
  * More specifically, you should not make any calls to {@link VmService}
  * from within any {@link Consumer} method.
+ * <br/>
+ * Each RPC is also available as an <code>...Async</code> method returning a
+ * {@link CompletableFuture}, which is completed with the response or completed
+ * exceptionally with an {@link RPCException}.
  */
 @SuppressWarnings({"WeakerAccess", "unused"})
 public class VmService extends VmServiceBase {
@@ -83,6 +90,12 @@ public class VmService extends VmServiceBase {
    */
   public static final int versionMinor = 44;
 
+  /**
+   * The {@link ResponseForwarder} for each method, used to forward a response to its consumer with
+   * a single lookup.
+   */
+  private static final Map<String, ResponseForwarder> responseForwarders = createResponseForwarders();
+
   /**
    * The [addBreakpoint] RPC is used to add a breakpoint at a specific line of some script.
    */
@@ -107,6 +120,32 @@ public class VmService extends VmServiceBase {
     request("addBreakpoint", params, consumer);
   }
 
+  /**
+   * The [addBreakpoint] RPC is used to add a breakpoint at a specific line of some script.
+   * @return a future completed with one of {@link Breakpoint} or {@link Sentinel}
+   */
+  public CompletableFuture<Response> addBreakpointAsync(String isolateId, String scriptId, int line) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    params.addProperty("scriptId", scriptId);
+    params.addProperty("line", line);
+    return requestAsync("addBreakpoint", params, Response.class);
+  }
+
+  /**
+   * The [addBreakpoint] RPC is used to add a breakpoint at a specific line of some script.
+   * @param column This parameter is optional and may be null.
+   * @return a future completed with one of {@link Breakpoint} or {@link Sentinel}
+   */
+  public CompletableFuture<Response> addBreakpointAsync(String isolateId, String scriptId, int line, Integer column) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    params.addProperty("scriptId", scriptId);
+    params.addProperty("line", line);
+    if (column != null) params.addProperty("column", column);
+    return requestAsync("addBreakpoint", params, Response.class);
+  }
+
   /**
    * The [addBreakpointAtEntry] RPC is used to add a breakpoint at the entrypoint of some function.
    */
@@ -117,6 +156,17 @@ public class VmService extends VmServiceBase {
     request("addBreakpointAtEntry", params, consumer);
   }
 
+  /**
+   * The [addBreakpointAtEntry] RPC is used to add a breakpoint at the entrypoint of some function.
+   * @return a future completed with one of {@link Breakpoint} or {@link Sentinel}
+   */
+  public CompletableFuture<Response> addBreakpointAtEntryAsync(String isolateId, String functionId) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    params.addProperty("functionId", functionId);
+    return requestAsync("addBreakpointAtEntry", params, Response.class);
+  }
+
   /**
    * The [addBreakpoint] RPC is used to add a breakpoint at a specific line of some script. This
    * RPC is useful when a script has not yet been assigned an id, for example, if a script is in a
@@ -145,6 +195,36 @@ public class VmService extends VmServiceBase {
     request("addBreakpointWithScriptUri", params, consumer);
   }
 
+  /**
+   * The [addBreakpoint] RPC is used to add a breakpoint at a specific line of some script. This
+   * RPC is useful when a script has not yet been assigned an id, for example, if a script is in a
+   * deferred library which has not yet been loaded.
+   * @return a future completed with one of {@link Breakpoint} or {@link Sentinel}
+   */
+  public CompletableFuture<Response> addBreakpointWithScriptUriAsync(String isolateId, String scriptUri, int line) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    params.addProperty("scriptUri", scriptUri);
+    params.addProperty("line", line);
+    return requestAsync("addBreakpointWithScriptUri", params, Response.class);
+  }
+
+  /**
+   * The [addBreakpoint] RPC is used to add a breakpoint at a specific line of some script. This
+   * RPC is useful when a script has not yet been assigned an id, for example, if a script is in a
+   * deferred library which has not yet been loaded.
+   * @param column This parameter is optional and may be null.
+   * @return a future completed with one of {@link Breakpoint} or {@link Sentinel}
+   */
+  public CompletableFuture<Response> addBreakpointWithScriptUriAsync(String isolateId, String scriptUri, int line, Integer column) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    params.addProperty("scriptUri", scriptUri);
+    params.addProperty("line", line);
+    if (column != null) params.addProperty("column", column);
+    return requestAsync("addBreakpointWithScriptUri", params, Response.class);
+  }
+
   /**
    * Clears all CPU profiling samples.
    */
@@ -154,6 +234,16 @@ public class VmService extends VmServiceBase {
     request("clearCpuSamples", params, consumer);
   }
 
+  /**
+   * Clears all CPU profiling samples.
+   * @return a future completed with one of {@link Sentinel} or {@link Success}
+   */
+  public CompletableFuture<Response> clearCpuSamplesAsync(String isolateId) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    return requestAsync("clearCpuSamples", params, Response.class);
+  }
+
   /**
    * Clears all VM timeline events.
    */
@@ -162,6 +252,14 @@ public class VmService extends VmServiceBase {
     request("clearVMTimeline", params, consumer);
   }
 
+  /**
+   * Clears all VM timeline events.
+   */
+  public CompletableFuture<Success> clearVMTimelineAsync() {
+    final JsonObject params = new JsonObject();
+    return requestAsync("clearVMTimeline", params, Success.class);
+  }
+
   /**
    * The [evaluate] RPC is used to evaluate an expression in the context of some target.
    */
@@ -188,6 +286,36 @@ public class VmService extends VmServiceBase {
     request("evaluate", params, consumer);
   }
 
+  /**
+   * The [evaluate] RPC is used to evaluate an expression in the context of some target.
+   * @return a future completed with one of {@link ErrorRef}, {@link InstanceRef} or {@link
+   * Sentinel}
+   */
+  public CompletableFuture<Response> evaluateAsync(String isolateId, String targetId, String expression) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    params.addProperty("targetId", targetId);
+    params.addProperty("expression", expression);
+    return requestAsync("evaluate", params, Response.class);
+  }
+
+  /**
+   * The [evaluate] RPC is used to evaluate an expression in the context of some target.
+   * @param scope This parameter is optional and may be null.
+   * @param disableBreakpoints This parameter is optional and may be null.
+   * @return a future completed with one of {@link ErrorRef}, {@link InstanceRef} or {@link
+   * Sentinel}
+   */
+  public CompletableFuture<Response> evaluateAsync(String isolateId, String targetId, String expression, Map<String, String> scope, Boolean disableBreakpoints) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    params.addProperty("targetId", targetId);
+    params.addProperty("expression", expression);
+    if (scope != null) params.add("scope", convertMapToJsonObject(scope));
+    if (disableBreakpoints != null) params.addProperty("disableBreakpoints", disableBreakpoints);
+    return requestAsync("evaluate", params, Response.class);
+  }
+
   /**
    * The [evaluateInFrame] RPC is used to evaluate an expression in the context of a particular
    * stack frame. [frameIndex] is the index of the desired Frame, with an index of [0] indicating
@@ -218,6 +346,40 @@ public class VmService extends VmServiceBase {
     request("evaluateInFrame", params, consumer);
   }
 
+  /**
+   * The [evaluateInFrame] RPC is used to evaluate an expression in the context of a particular
+   * stack frame. [frameIndex] is the index of the desired Frame, with an index of [0] indicating
+   * the top (most recent) frame.
+   * @return a future completed with one of {@link ErrorRef}, {@link InstanceRef} or {@link
+   * Sentinel}
+   */
+  public CompletableFuture<Response> evaluateInFrameAsync(String isolateId, int frameIndex, String expression) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    params.addProperty("frameIndex", frameIndex);
+    params.addProperty("expression", expression);
+    return requestAsync("evaluateInFrame", params, Response.class);
+  }
+
+  /**
+   * The [evaluateInFrame] RPC is used to evaluate an expression in the context of a particular
+   * stack frame. [frameIndex] is the index of the desired Frame, with an index of [0] indicating
+   * the top (most recent) frame.
+   * @param scope This parameter is optional and may be null.
+   * @param disableBreakpoints This parameter is optional and may be null.
+   * @return a future completed with one of {@link ErrorRef}, {@link InstanceRef} or {@link
+   * Sentinel}
+   */
+  public CompletableFuture<Response> evaluateInFrameAsync(String isolateId, int frameIndex, String expression, Map<String, String> scope, Boolean disableBreakpoints) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    params.addProperty("frameIndex", frameIndex);
+    params.addProperty("expression", expression);
+    if (scope != null) params.add("scope", convertMapToJsonObject(scope));
+    if (disableBreakpoints != null) params.addProperty("disableBreakpoints", disableBreakpoints);
+    return requestAsync("evaluateInFrame", params, Response.class);
+  }
+
   /**
    * The [getAllocationProfile] RPC is used to retrieve allocation information for a given isolate.
    * @param reset This parameter is optional and may be null.
@@ -240,6 +402,30 @@ public class VmService extends VmServiceBase {
     request("getAllocationProfile", params, consumer);
   }
 
+  /**
+   * The [getAllocationProfile] RPC is used to retrieve allocation information for a given isolate.
+   * @return a future completed with one of {@link AllocationProfile} or {@link Sentinel}
+   */
+  public CompletableFuture<Response> getAllocationProfileAsync(String isolateId) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    return requestAsync("getAllocationProfile", params, Response.class);
+  }
+
+  /**
+   * The [getAllocationProfile] RPC is used to retrieve allocation information for a given isolate.
+   * @param reset This parameter is optional and may be null.
+   * @param gc This parameter is optional and may be null.
+   * @return a future completed with one of {@link AllocationProfile} or {@link Sentinel}
+   */
+  public CompletableFuture<Response> getAllocationProfileAsync(String isolateId, Boolean reset, Boolean gc) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    if (reset != null) params.addProperty("reset", reset);
+    if (gc != null) params.addProperty("gc", gc);
+    return requestAsync("getAllocationProfile", params, Response.class);
+  }
+
   /**
    * The [getAllocationTraces] RPC allows for the retrieval of allocation traces for objects of a
    * specific set of types (see setTraceClassAllocation). Only samples collected in the time range
@@ -270,6 +456,36 @@ public class VmService extends VmServiceBase {
     request("getAllocationTraces", params, consumer);
   }
 
+  /**
+   * The [getAllocationTraces] RPC allows for the retrieval of allocation traces for objects of a
+   * specific set of types (see setTraceClassAllocation). Only samples collected in the time range
+   * <code>[timeOriginMicros, timeOriginMicros + timeExtentMicros]</code>[timeOriginMicros,
+   * timeOriginMicros + timeExtentMicros] will be reported.
+   */
+  public CompletableFuture<CpuSamples> getAllocationTracesAsync(String isolateId) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    return requestAsync("getAllocationTraces", params, CpuSamples.class);
+  }
+
+  /**
+   * The [getAllocationTraces] RPC allows for the retrieval of allocation traces for objects of a
+   * specific set of types (see setTraceClassAllocation). Only samples collected in the time range
+   * <code>[timeOriginMicros, timeOriginMicros + timeExtentMicros]</code>[timeOriginMicros,
+   * timeOriginMicros + timeExtentMicros] will be reported.
+   * @param timeOriginMicros This parameter is optional and may be null.
+   * @param timeExtentMicros This parameter is optional and may be null.
+   * @param classId This parameter is optional and may be null.
+   */
+  public CompletableFuture<CpuSamples> getAllocationTracesAsync(String isolateId, Integer timeOriginMicros, Integer timeExtentMicros, String classId) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    if (timeOriginMicros != null) params.addProperty("timeOriginMicros", timeOriginMicros);
+    if (timeExtentMicros != null) params.addProperty("timeExtentMicros", timeExtentMicros);
+    if (classId != null) params.addProperty("classId", classId);
+    return requestAsync("getAllocationTraces", params, CpuSamples.class);
+  }
+
   /**
    * The [getClassList] RPC is used to retrieve a [ClassList] containing all classes for an isolate
    * based on the isolate's [isolateId].
@@ -280,6 +496,17 @@ public class VmService extends VmServiceBase {
     request("getClassList", params, consumer);
   }
 
+  /**
+   * The [getClassList] RPC is used to retrieve a [ClassList] containing all classes for an isolate
+   * based on the isolate's [isolateId].
+   * @return a future completed with one of {@link ClassList} or {@link Sentinel}
+   */
+  public CompletableFuture<Response> getClassListAsync(String isolateId) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    return requestAsync("getClassList", params, Response.class);
+  }
+
   /**
    * The [getCpuSamples] RPC is used to retrieve samples collected by the CPU profiler. Only
    * samples collected in the time range <code>[timeOriginMicros, timeOriginMicros +
@@ -294,6 +521,21 @@ public class VmService extends VmServiceBase {
     request("getCpuSamples", params, consumer);
   }
 
+  /**
+   * The [getCpuSamples] RPC is used to retrieve samples collected by the CPU profiler. Only
+   * samples collected in the time range <code>[timeOriginMicros, timeOriginMicros +
+   * timeExtentMicros]</code>[timeOriginMicros, timeOriginMicros + timeExtentMicros] will be
+   * reported.
+   * @return a future completed with one of {@link CpuSamples} or {@link Sentinel}
+   */
+  public CompletableFuture<Response> getCpuSamplesAsync(String isolateId, int timeOriginMicros, int timeExtentMicros) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    params.addProperty("timeOriginMicros", timeOriginMicros);
+    params.addProperty("timeExtentMicros", timeExtentMicros);
+    return requestAsync("getCpuSamples", params, Response.class);
+  }
+
   /**
    * The [getFlagList] RPC returns a list of all command line flags in the VM along with their
    * current values.
@@ -303,6 +545,15 @@ public class VmService extends VmServiceBase {
     request("getFlagList", params, consumer);
   }
 
+  /**
+   * The [getFlagList] RPC returns a list of all command line flags in the VM along with their
+   * current values.
+   */
+  public CompletableFuture<FlagList> getFlagListAsync() {
+    final JsonObject params = new JsonObject();
+    return requestAsync("getFlagList", params, FlagList.class);
+  }
+
   /**
    * Returns a set of inbound references to the object specified by [targetId]. Up to [limit]
    * references will be returned.
@@ -315,6 +566,19 @@ public class VmService extends VmServiceBase {
     request("getInboundReferences", params, consumer);
   }
 
+  /**
+   * Returns a set of inbound references to the object specified by [targetId]. Up to [limit]
+   * references will be returned.
+   * @return a future completed with one of {@link InboundReferences} or {@link Sentinel}
+   */
+  public CompletableFuture<Response> getInboundReferencesAsync(String isolateId, String targetId, int limit) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    params.addProperty("targetId", targetId);
+    params.addProperty("limit", limit);
+    return requestAsync("getInboundReferences", params, Response.class);
+  }
+
   /**
    * The [getInstances] RPC is used to retrieve a set of instances which are of a specific class.
    * This does not include instances of subclasses of the given class.
@@ -327,6 +591,19 @@ public class VmService extends VmServiceBase {
     request("getInstances", params, consumer);
   }
 
+  /**
+   * The [getInstances] RPC is used to retrieve a set of instances which are of a specific class.
+   * This does not include instances of subclasses of the given class.
+   * @return a future completed with one of {@link InstanceSet} or {@link Sentinel}
+   */
+  public CompletableFuture<Response> getInstancesAsync(String isolateId, String objectId, int limit) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    params.addProperty("objectId", objectId);
+    params.addProperty("limit", limit);
+    return requestAsync("getInstances", params, Response.class);
+  }
+
   /**
    * The [getIsolate] RPC is used to lookup an [Isolate] object by its [id].
    */
@@ -336,6 +613,16 @@ public class VmService extends VmServiceBase {
     request("getIsolate", params, consumer);
   }
 
+  /**
+   * The [getIsolate] RPC is used to lookup an [Isolate] object by its [id].
+   * @return a future completed with one of {@link Isolate} or {@link Sentinel}
+   */
+  public CompletableFuture<Response> getIsolateAsync(String isolateId) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    return requestAsync("getIsolate", params, Response.class);
+  }
+
   /**
    * The [getIsolateGroup] RPC is used to lookup an [IsolateGroup] object by its [id].
    */
@@ -345,6 +632,16 @@ public class VmService extends VmServiceBase {
     request("getIsolateGroup", params, consumer);
   }
 
+  /**
+   * The [getIsolateGroup] RPC is used to lookup an [IsolateGroup] object by its [id].
+   * @return a future completed with one of {@link IsolateGroup} or {@link Sentinel}
+   */
+  public CompletableFuture<Response> getIsolateGroupAsync(String isolateGroupId) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateGroupId", isolateGroupId);
+    return requestAsync("getIsolateGroup", params, Response.class);
+  }
+
   /**
    * The [getIsolateGroupMemoryUsage] RPC is used to lookup an isolate group's memory usage
    * statistics by its [id].
@@ -355,6 +652,17 @@ public class VmService extends VmServiceBase {
     request("getIsolateGroupMemoryUsage", params, consumer);
   }
 
+  /**
+   * The [getIsolateGroupMemoryUsage] RPC is used to lookup an isolate group's memory usage
+   * statistics by its [id].
+   * @return a future completed with one of {@link MemoryUsage} or {@link Sentinel}
+   */
+  public CompletableFuture<Response> getIsolateGroupMemoryUsageAsync(String isolateGroupId) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateGroupId", isolateGroupId);
+    return requestAsync("getIsolateGroupMemoryUsage", params, Response.class);
+  }
+
   /**
    * The [getMemoryUsage] RPC is used to lookup an isolate's memory usage statistics by its [id].
    */
@@ -364,6 +672,16 @@ public class VmService extends VmServiceBase {
     request("getMemoryUsage", params, consumer);
   }
 
+  /**
+   * The [getMemoryUsage] RPC is used to lookup an isolate's memory usage statistics by its [id].
+   * @return a future completed with one of {@link MemoryUsage} or {@link Sentinel}
+   */
+  public CompletableFuture<Response> getMemoryUsageAsync(String isolateId) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    return requestAsync("getMemoryUsage", params, Response.class);
+  }
+
   /**
    * The [getObject] RPC is used to lookup an [object] from some isolate by its [id].
    */
@@ -389,27 +707,71 @@ public class VmService extends VmServiceBase {
   }
 
   /**
-   * The [getPorts] RPC is used to retrieve the list of <code>ReceivePort</code>ReceivePort
-   * instances for a given isolate.
+   * The [getObject] RPC is used to lookup an [object] from some isolate by its [id].
+   * @return a future completed with one of {@link Obj} or {@link Sentinel}
    */
-  public void getPorts(String isolateId, PortListConsumer consumer) {
+  public CompletableFuture<Response> getObjectAsync(String isolateId, String objectId) {
     final JsonObject params = new JsonObject();
     params.addProperty("isolateId", isolateId);
-    request("getPorts", params, consumer);
+    params.addProperty("objectId", objectId);
+    return requestAsync("getObject", params, Response.class);
   }
 
   /**
-   * Returns a description of major uses of memory known to the VM.
+   * The [getObject] RPC is used to lookup an [object] from some isolate by its [id].
+   * @param offset This parameter is optional and may be null.
+   * @param count This parameter is optional and may be null.
+   * @return a future completed with one of {@link Obj} or {@link Sentinel}
    */
-  public void getProcessMemoryUsage(ProcessMemoryUsageConsumer consumer) {
+  public CompletableFuture<Response> getObjectAsync(String isolateId, String objectId, Integer offset, Integer count) {
     final JsonObject params = new JsonObject();
-    request("getProcessMemoryUsage", params, consumer);
+    params.addProperty("isolateId", isolateId);
+    params.addProperty("objectId", objectId);
+    if (offset != null) params.addProperty("offset", offset);
+    if (count != null) params.addProperty("count", count);
+    return requestAsync("getObject", params, Response.class);
   }
 
   /**
-   * The [getRetainingPath] RPC is used to lookup a path from an object specified by [targetId] to
-   * a GC root (i.e., the object which is preventing this object from being garbage collected).
-   */
+   * The [getPorts] RPC is used to retrieve the list of <code>ReceivePort</code>ReceivePort
+   * instances for a given isolate.
+   */
+  public void getPorts(String isolateId, PortListConsumer consumer) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    request("getPorts", params, consumer);
+  }
+
+  /**
+   * The [getPorts] RPC is used to retrieve the list of <code>ReceivePort</code>ReceivePort
+   * instances for a given isolate.
+   */
+  public CompletableFuture<PortList> getPortsAsync(String isolateId) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    return requestAsync("getPorts", params, PortList.class);
+  }
+
+  /**
+   * Returns a description of major uses of memory known to the VM.
+   */
+  public void getProcessMemoryUsage(ProcessMemoryUsageConsumer consumer) {
+    final JsonObject params = new JsonObject();
+    request("getProcessMemoryUsage", params, consumer);
+  }
+
+  /**
+   * Returns a description of major uses of memory known to the VM.
+   */
+  public CompletableFuture<ProcessMemoryUsage> getProcessMemoryUsageAsync() {
+    final JsonObject params = new JsonObject();
+    return requestAsync("getProcessMemoryUsage", params, ProcessMemoryUsage.class);
+  }
+
+  /**
+   * The [getRetainingPath] RPC is used to lookup a path from an object specified by [targetId] to
+   * a GC root (i.e., the object which is preventing this object from being garbage collected).
+   */
   public void getRetainingPath(String isolateId, String targetId, int limit, GetRetainingPathConsumer consumer) {
     final JsonObject params = new JsonObject();
     params.addProperty("isolateId", isolateId);
@@ -418,6 +780,19 @@ public class VmService extends VmServiceBase {
     request("getRetainingPath", params, consumer);
   }
 
+  /**
+   * The [getRetainingPath] RPC is used to lookup a path from an object specified by [targetId] to
+   * a GC root (i.e., the object which is preventing this object from being garbage collected).
+   * @return a future completed with one of {@link RetainingPath} or {@link Sentinel}
+   */
+  public CompletableFuture<Response> getRetainingPathAsync(String isolateId, String targetId, int limit) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    params.addProperty("targetId", targetId);
+    params.addProperty("limit", limit);
+    return requestAsync("getRetainingPath", params, Response.class);
+  }
+
   /**
    * The [getScripts] RPC is used to retrieve a [ScriptList] containing all scripts for an isolate
    * based on the isolate's [isolateId].
@@ -428,6 +803,17 @@ public class VmService extends VmServiceBase {
     request("getScripts", params, consumer);
   }
 
+  /**
+   * The [getScripts] RPC is used to retrieve a [ScriptList] containing all scripts for an isolate
+   * based on the isolate's [isolateId].
+   * @return a future completed with one of {@link ScriptList} or {@link Sentinel}
+   */
+  public CompletableFuture<Response> getScriptsAsync(String isolateId) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    return requestAsync("getScripts", params, Response.class);
+  }
+
   /**
    * The [getSourceReport] RPC is used to generate a set of reports tied to source locations in an
    * isolate.
@@ -458,6 +844,38 @@ public class VmService extends VmServiceBase {
     request("getSourceReport", params, consumer);
   }
 
+  /**
+   * The [getSourceReport] RPC is used to generate a set of reports tied to source locations in an
+   * isolate.
+   * @return a future completed with one of {@link Sentinel} or {@link SourceReport}
+   */
+  public CompletableFuture<Response> getSourceReportAsync(String isolateId, List<SourceReportKind> reports) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    params.add("reports", convertIterableToJsonArray(reports));
+    return requestAsync("getSourceReport", params, Response.class);
+  }
+
+  /**
+   * The [getSourceReport] RPC is used to generate a set of reports tied to source locations in an
+   * isolate.
+   * @param scriptId This parameter is optional and may be null.
+   * @param tokenPos This parameter is optional and may be null.
+   * @param endTokenPos This parameter is optional and may be null.
+   * @param forceCompile This parameter is optional and may be null.
+   * @return a future completed with one of {@link Sentinel} or {@link SourceReport}
+   */
+  public CompletableFuture<Response> getSourceReportAsync(String isolateId, List<SourceReportKind> reports, String scriptId, Integer tokenPos, Integer endTokenPos, Boolean forceCompile) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    params.add("reports", convertIterableToJsonArray(reports));
+    if (scriptId != null) params.addProperty("scriptId", scriptId);
+    if (tokenPos != null) params.addProperty("tokenPos", tokenPos);
+    if (endTokenPos != null) params.addProperty("endTokenPos", endTokenPos);
+    if (forceCompile != null) params.addProperty("forceCompile", forceCompile);
+    return requestAsync("getSourceReport", params, Response.class);
+  }
+
   /**
    * The [getStack] RPC is used to retrieve the current execution stack and message queue for an
    * isolate. The isolate does not need to be paused.
@@ -480,6 +898,30 @@ public class VmService extends VmServiceBase {
     request("getStack", params, consumer);
   }
 
+  /**
+   * The [getStack] RPC is used to retrieve the current execution stack and message queue for an
+   * isolate. The isolate does not need to be paused.
+   * @return a future completed with one of {@link Sentinel} or {@link Stack}
+   */
+  public CompletableFuture<Response> getStackAsync(String isolateId) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    return requestAsync("getStack", params, Response.class);
+  }
+
+  /**
+   * The [getStack] RPC is used to retrieve the current execution stack and message queue for an
+   * isolate. The isolate does not need to be paused.
+   * @param limit This parameter is optional and may be null.
+   * @return a future completed with one of {@link Sentinel} or {@link Stack}
+   */
+  public CompletableFuture<Response> getStackAsync(String isolateId, Integer limit) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    if (limit != null) params.addProperty("limit", limit);
+    return requestAsync("getStack", params, Response.class);
+  }
+
   /**
    * The [getSupportedProtocols] RPC is used to determine which protocols are supported by the
    * current server.
@@ -489,6 +931,15 @@ public class VmService extends VmServiceBase {
     request("getSupportedProtocols", params, consumer);
   }
 
+  /**
+   * The [getSupportedProtocols] RPC is used to determine which protocols are supported by the
+   * current server.
+   */
+  public CompletableFuture<ProtocolList> getSupportedProtocolsAsync() {
+    final JsonObject params = new JsonObject();
+    return requestAsync("getSupportedProtocols", params, ProtocolList.class);
+  }
+
   /**
    * The [getVM] RPC returns global information about a Dart virtual machine.
    */
@@ -497,6 +948,14 @@ public class VmService extends VmServiceBase {
     request("getVM", params, consumer);
   }
 
+  /**
+   * The [getVM] RPC returns global information about a Dart virtual machine.
+   */
+  public CompletableFuture<VM> getVMAsync() {
+    final JsonObject params = new JsonObject();
+    return requestAsync("getVM", params, VM.class);
+  }
+
   /**
    * The [getVMTimeline] RPC is used to retrieve an object which contains VM timeline events.
    * @param timeOriginMicros This parameter is optional and may be null.
@@ -517,6 +976,26 @@ public class VmService extends VmServiceBase {
     request("getVMTimeline", params, consumer);
   }
 
+  /**
+   * The [getVMTimeline] RPC is used to retrieve an object which contains VM timeline events.
+   */
+  public CompletableFuture<Timeline> getVMTimelineAsync() {
+    final JsonObject params = new JsonObject();
+    return requestAsync("getVMTimeline", params, Timeline.class);
+  }
+
+  /**
+   * The [getVMTimeline] RPC is used to retrieve an object which contains VM timeline events.
+   * @param timeOriginMicros This parameter is optional and may be null.
+   * @param timeExtentMicros This parameter is optional and may be null.
+   */
+  public CompletableFuture<Timeline> getVMTimelineAsync(Integer timeOriginMicros, Integer timeExtentMicros) {
+    final JsonObject params = new JsonObject();
+    if (timeOriginMicros != null) params.addProperty("timeOriginMicros", timeOriginMicros);
+    if (timeExtentMicros != null) params.addProperty("timeExtentMicros", timeExtentMicros);
+    return requestAsync("getVMTimeline", params, Timeline.class);
+  }
+
   /**
    * The [getVMTimelineFlags] RPC returns information about the current VM timeline configuration.
    */
@@ -525,6 +1004,14 @@ public class VmService extends VmServiceBase {
     request("getVMTimelineFlags", params, consumer);
   }
 
+  /**
+   * The [getVMTimelineFlags] RPC returns information about the current VM timeline configuration.
+   */
+  public CompletableFuture<TimelineFlags> getVMTimelineFlagsAsync() {
+    final JsonObject params = new JsonObject();
+    return requestAsync("getVMTimelineFlags", params, TimelineFlags.class);
+  }
+
   /**
    * The [getVMTimelineMicros] RPC returns the current time stamp from the clock used by the
    * timeline, similar to <code>Timeline.now</code>Timeline.now in
@@ -536,6 +1023,17 @@ public class VmService extends VmServiceBase {
     request("getVMTimelineMicros", params, consumer);
   }
 
+  /**
+   * The [getVMTimelineMicros] RPC returns the current time stamp from the clock used by the
+   * timeline, similar to <code>Timeline.now</code>Timeline.now in
+   * <code>dart:developer</code>dart:developer and
+   * <code>Dart_TimelineGetMicros</code>Dart_TimelineGetMicros in the VM embedding API.
+   */
+  public CompletableFuture<Timestamp> getVMTimelineMicrosAsync() {
+    final JsonObject params = new JsonObject();
+    return requestAsync("getVMTimelineMicros", params, Timestamp.class);
+  }
+
   /**
    * The [getVersion] RPC is used to determine what version of the Service Protocol is served by a
    * VM.
@@ -545,6 +1043,15 @@ public class VmService extends VmServiceBase {
     request("getVersion", params, consumer);
   }
 
+  /**
+   * The [getVersion] RPC is used to determine what version of the Service Protocol is served by a
+   * VM.
+   */
+  public CompletableFuture<Version> getVersionAsync() {
+    final JsonObject params = new JsonObject();
+    return requestAsync("getVersion", params, Version.class);
+  }
+
   /**
    * The [invoke] RPC is used to perform regular method invocation on some receiver, as if by
    * dart:mirror's ObjectMirror.invoke. Note this does not provide a way to perform getter, setter
@@ -575,6 +1082,40 @@ public class VmService extends VmServiceBase {
     request("invoke", params, consumer);
   }
 
+  /**
+   * The [invoke] RPC is used to perform regular method invocation on some receiver, as if by
+   * dart:mirror's ObjectMirror.invoke. Note this does not provide a way to perform getter, setter
+   * or constructor invocation.
+   * @return a future completed with one of {@link ErrorRef}, {@link InstanceRef} or {@link
+   * Sentinel}
+   */
+  public CompletableFuture<Response> invokeAsync(String isolateId, String targetId, String selector, List<String> argumentIds) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    params.addProperty("targetId", targetId);
+    params.addProperty("selector", selector);
+    params.add("argumentIds", convertIterableToJsonArray(argumentIds));
+    return requestAsync("invoke", params, Response.class);
+  }
+
+  /**
+   * The [invoke] RPC is used to perform regular method invocation on some receiver, as if by
+   * dart:mirror's ObjectMirror.invoke. Note this does not provide a way to perform getter, setter
+   * or constructor invocation.
+   * @param disableBreakpoints This parameter is optional and may be null.
+   * @return a future completed with one of {@link ErrorRef}, {@link InstanceRef} or {@link
+   * Sentinel}
+   */
+  public CompletableFuture<Response> invokeAsync(String isolateId, String targetId, String selector, List<String> argumentIds, Boolean disableBreakpoints) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    params.addProperty("targetId", targetId);
+    params.addProperty("selector", selector);
+    params.add("argumentIds", convertIterableToJsonArray(argumentIds));
+    if (disableBreakpoints != null) params.addProperty("disableBreakpoints", disableBreakpoints);
+    return requestAsync("invoke", params, Response.class);
+  }
+
   /**
    * The [kill] RPC is used to kill an isolate as if by dart:isolate's
    * <code>Isolate.kill(IMMEDIATE)</code>Isolate.kill(IMMEDIATE).
@@ -585,6 +1126,17 @@ public class VmService extends VmServiceBase {
     request("kill", params, consumer);
   }
 
+  /**
+   * The [kill] RPC is used to kill an isolate as if by dart:isolate's
+   * <code>Isolate.kill(IMMEDIATE)</code>Isolate.kill(IMMEDIATE).
+   * @return a future completed with one of {@link Sentinel} or {@link Success}
+   */
+  public CompletableFuture<Response> killAsync(String isolateId) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    return requestAsync("kill", params, Response.class);
+  }
+
   /**
    * The [pause] RPC is used to interrupt a running isolate. The RPC enqueues the interrupt request
    * and potentially returns before the isolate is paused.
@@ -595,6 +1147,17 @@ public class VmService extends VmServiceBase {
     request("pause", params, consumer);
   }
 
+  /**
+   * The [pause] RPC is used to interrupt a running isolate. The RPC enqueues the interrupt request
+   * and potentially returns before the isolate is paused.
+   * @return a future completed with one of {@link Sentinel} or {@link Success}
+   */
+  public CompletableFuture<Response> pauseAsync(String isolateId) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    return requestAsync("pause", params, Response.class);
+  }
+
   /**
    * Registers a service that can be invoked by other VM service clients, where
    * <code>service</code>service is the name of the service to advertise and
@@ -607,6 +1170,18 @@ public class VmService extends VmServiceBase {
     request("registerService", params, consumer);
   }
 
+  /**
+   * Registers a service that can be invoked by other VM service clients, where
+   * <code>service</code>service is the name of the service to advertise and
+   * <code>alias</code>alias is an alternative name for the registered service.
+   */
+  public CompletableFuture<Success> registerServiceAsync(String service, String alias) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("service", service);
+    params.addProperty("alias", alias);
+    return requestAsync("registerService", params, Success.class);
+  }
+
   /**
    * The [reloadSources] RPC is used to perform a hot reload of an Isolate's sources.
    * @param force This parameter is optional and may be null.
@@ -633,6 +1208,34 @@ public class VmService extends VmServiceBase {
     request("reloadSources", params, consumer);
   }
 
+  /**
+   * The [reloadSources] RPC is used to perform a hot reload of an Isolate's sources.
+   * @return a future completed with one of {@link ReloadReport} or {@link Sentinel}
+   */
+  public CompletableFuture<Response> reloadSourcesAsync(String isolateId) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    return requestAsync("reloadSources", params, Response.class);
+  }
+
+  /**
+   * The [reloadSources] RPC is used to perform a hot reload of an Isolate's sources.
+   * @param force This parameter is optional and may be null.
+   * @param pause This parameter is optional and may be null.
+   * @param rootLibUri This parameter is optional and may be null.
+   * @param packagesUri This parameter is optional and may be null.
+   * @return a future completed with one of {@link ReloadReport} or {@link Sentinel}
+   */
+  public CompletableFuture<Response> reloadSourcesAsync(String isolateId, Boolean force, Boolean pause, String rootLibUri, String packagesUri) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    if (force != null) params.addProperty("force", force);
+    if (pause != null) params.addProperty("pause", pause);
+    if (rootLibUri != null) params.addProperty("rootLibUri", rootLibUri);
+    if (packagesUri != null) params.addProperty("packagesUri", packagesUri);
+    return requestAsync("reloadSources", params, Response.class);
+  }
+
   /**
    * The [removeBreakpoint] RPC is used to remove a breakpoint by its [id].
    */
@@ -643,6 +1246,17 @@ public class VmService extends VmServiceBase {
     request("removeBreakpoint", params, consumer);
   }
 
+  /**
+   * The [removeBreakpoint] RPC is used to remove a breakpoint by its [id].
+   * @return a future completed with one of {@link Sentinel} or {@link Success}
+   */
+  public CompletableFuture<Response> removeBreakpointAsync(String isolateId, String breakpointId) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    params.addProperty("breakpointId", breakpointId);
+    return requestAsync("removeBreakpoint", params, Response.class);
+  }
+
   /**
    * Requests a dump of the Dart heap of the given isolate.
    */
@@ -652,6 +1266,16 @@ public class VmService extends VmServiceBase {
     request("requestHeapSnapshot", params, consumer);
   }
 
+  /**
+   * Requests a dump of the Dart heap of the given isolate.
+   * @return a future completed with one of {@link Sentinel} or {@link Success}
+   */
+  public CompletableFuture<Response> requestHeapSnapshotAsync(String isolateId) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    return requestAsync("requestHeapSnapshot", params, Response.class);
+  }
+
   /**
    * The [resume] RPC is used to resume execution of a paused isolate.
    */
@@ -675,6 +1299,31 @@ public class VmService extends VmServiceBase {
     request("resume", params, consumer);
   }
 
+  /**
+   * The [resume] RPC is used to resume execution of a paused isolate.
+   * @return a future completed with one of {@link Sentinel} or {@link Success}
+   */
+  public CompletableFuture<Response> resumeAsync(String isolateId) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    return requestAsync("resume", params, Response.class);
+  }
+
+  /**
+   * The [resume] RPC is used to resume execution of a paused isolate.
+   * @param step A [StepOption] indicates which form of stepping is requested in a resume RPC. This
+   * parameter is optional and may be null.
+   * @param frameIndex This parameter is optional and may be null.
+   * @return a future completed with one of {@link Sentinel} or {@link Success}
+   */
+  public CompletableFuture<Response> resumeAsync(String isolateId, StepOption step, Integer frameIndex) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    if (step != null) params.addProperty("step", step.name());
+    if (frameIndex != null) params.addProperty("frameIndex", frameIndex);
+    return requestAsync("resume", params, Response.class);
+  }
+
   /**
    * The [setExceptionPauseMode] RPC is used to control if an isolate pauses when an exception is
    * thrown.
@@ -688,6 +1337,20 @@ public class VmService extends VmServiceBase {
     request("setExceptionPauseMode", params, consumer);
   }
 
+  /**
+   * The [setExceptionPauseMode] RPC is used to control if an isolate pauses when an exception is
+   * thrown.
+   * @param mode An [ExceptionPauseMode] indicates how the isolate pauses when an exception is
+   * thrown.
+   * @return a future completed with one of {@link Sentinel} or {@link Success}
+   */
+  public CompletableFuture<Response> setExceptionPauseModeAsync(String isolateId, ExceptionPauseMode mode) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    params.addProperty("mode", mode.name());
+    return requestAsync("setExceptionPauseMode", params, Response.class);
+  }
+
   /**
    * The [setFlag] RPC is used to set a VM flag at runtime. Returns an error if the named flag does
    * not exist, the flag may not be set at runtime, or the value is of the wrong type for the flag.
@@ -699,6 +1362,18 @@ public class VmService extends VmServiceBase {
     request("setFlag", params, consumer);
   }
 
+  /**
+   * The [setFlag] RPC is used to set a VM flag at runtime. Returns an error if the named flag does
+   * not exist, the flag may not be set at runtime, or the value is of the wrong type for the flag.
+   * @return a future completed with one of {@link ErrorObj} or {@link Success}
+   */
+  public CompletableFuture<Response> setFlagAsync(String name, String value) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("name", name);
+    params.addProperty("value", value);
+    return requestAsync("setFlag", params, Response.class);
+  }
+
   /**
    * The [setLibraryDebuggable] RPC is used to enable or disable whether breakpoints and stepping
    * work for a given library.
@@ -711,6 +1386,19 @@ public class VmService extends VmServiceBase {
     request("setLibraryDebuggable", params, consumer);
   }
 
+  /**
+   * The [setLibraryDebuggable] RPC is used to enable or disable whether breakpoints and stepping
+   * work for a given library.
+   * @return a future completed with one of {@link Sentinel} or {@link Success}
+   */
+  public CompletableFuture<Response> setLibraryDebuggableAsync(String isolateId, String libraryId, boolean isDebuggable) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    params.addProperty("libraryId", libraryId);
+    params.addProperty("isDebuggable", isDebuggable);
+    return requestAsync("setLibraryDebuggable", params, Response.class);
+  }
+
   /**
    * The [setName] RPC is used to change the debugging name for an isolate.
    */
@@ -721,6 +1409,17 @@ public class VmService extends VmServiceBase {
     request("setName", params, consumer);
   }
 
+  /**
+   * The [setName] RPC is used to change the debugging name for an isolate.
+   * @return a future completed with one of {@link Sentinel} or {@link Success}
+   */
+  public CompletableFuture<Response> setNameAsync(String isolateId, String name) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    params.addProperty("name", name);
+    return requestAsync("setName", params, Response.class);
+  }
+
   /**
    * The [setTraceClassAllocation] RPC allows for enabling or disabling allocation tracing for a
    * specific type of object. Allocation traces can be retrieved with the [getAllocationTraces]
@@ -734,6 +1433,20 @@ public class VmService extends VmServiceBase {
     request("setTraceClassAllocation", params, consumer);
   }
 
+  /**
+   * The [setTraceClassAllocation] RPC allows for enabling or disabling allocation tracing for a
+   * specific type of object. Allocation traces can be retrieved with the [getAllocationTraces]
+   * RPC.
+   * @return a future completed with one of {@link Sentinel} or {@link Success}
+   */
+  public CompletableFuture<Response> setTraceClassAllocationAsync(String isolateId, String classId, boolean enable) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    params.addProperty("classId", classId);
+    params.addProperty("enable", enable);
+    return requestAsync("setTraceClassAllocation", params, Response.class);
+  }
+
   /**
    * The [setVMName] RPC is used to change the debugging name for the vm.
    */
@@ -743,6 +1456,15 @@ public class VmService extends VmServiceBase {
     request("setVMName", params, consumer);
   }
 
+  /**
+   * The [setVMName] RPC is used to change the debugging name for the vm.
+   */
+  public CompletableFuture<Success> setVMNameAsync(String name) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("name", name);
+    return requestAsync("setVMName", params, Success.class);
+  }
+
   /**
    * The [setVMTimelineFlags] RPC is used to set which timeline streams are enabled.
    */
@@ -752,6 +1474,15 @@ public class VmService extends VmServiceBase {
     request("setVMTimelineFlags", params, consumer);
   }
 
+  /**
+   * The [setVMTimelineFlags] RPC is used to set which timeline streams are enabled.
+   */
+  public CompletableFuture<Success> setVMTimelineFlagsAsync(List<String> recordedStreams) {
+    final JsonObject params = new JsonObject();
+    params.add("recordedStreams", convertIterableToJsonArray(recordedStreams));
+    return requestAsync("setVMTimelineFlags", params, Success.class);
+  }
+
   /**
    * The [streamCancel] RPC cancels a stream subscription in the VM.
    */
@@ -761,6 +1492,15 @@ public class VmService extends VmServiceBase {
     request("streamCancel", params, consumer);
   }
 
+  /**
+   * The [streamCancel] RPC cancels a stream subscription in the VM.
+   */
+  public CompletableFuture<Success> streamCancelAsync(String streamId) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("streamId", streamId);
+    return requestAsync("streamCancel", params, Success.class);
+  }
+
   /**
    * The [streamListen] RPC subscribes to a stream in the VM. Once subscribed, the client will
    * begin receiving events from the stream.
@@ -771,6 +1511,16 @@ public class VmService extends VmServiceBase {
     request("streamListen", params, consumer);
   }
 
+  /**
+   * The [streamListen] RPC subscribes to a stream in the VM. Once subscribed, the client will
+   * begin receiving events from the stream.
+   */
+  public CompletableFuture<Success> streamListenAsync(String streamId) {
+    final JsonObject params = new JsonObject();
+    params.addProperty("streamId", streamId);
+    return requestAsync("streamListen", params, Success.class);
+  }
+
   private JsonArray convertIterableToJsonArray(Iterable list) {
     JsonArray arr = new JsonArray();
     for (Object element : list) {
@@ -787,466 +1537,819 @@ public class VmService extends VmServiceBase {
     return obj;
   }
 
-  @Override
-  void forwardResponse(Consumer consumer, String responseType, JsonObject json) {
-    if (consumer instanceof AddBreakpointAtEntryConsumer) {
-      if (responseType.equals("Breakpoint")) {
-        ((AddBreakpointAtEntryConsumer) consumer).received(new Breakpoint(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((AddBreakpointAtEntryConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof AddBreakpointConsumer) {
-      if (responseType.equals("Breakpoint")) {
-        ((AddBreakpointConsumer) consumer).received(new Breakpoint(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((AddBreakpointConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof AddBreakpointWithScriptUriConsumer) {
-      if (responseType.equals("Breakpoint")) {
-        ((AddBreakpointWithScriptUriConsumer) consumer).received(new Breakpoint(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((AddBreakpointWithScriptUriConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof ClearCpuSamplesConsumer) {
-      if (responseType.equals("Sentinel")) {
-        ((ClearCpuSamplesConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-      if (responseType.equals("Success")) {
-        ((ClearCpuSamplesConsumer) consumer).received(new Success(json));
-        return;
-      }
-    }
-    if (consumer instanceof CpuSamplesConsumer) {
-      if (responseType.equals("CpuSamples")) {
-        ((CpuSamplesConsumer) consumer).received(new CpuSamples(json));
-        return;
-      }
-    }
-    if (consumer instanceof EvaluateConsumer) {
-      if (responseType.equals("@Error")) {
-        ((EvaluateConsumer) consumer).received(new ErrorRef(json));
-        return;
-      }
-      if (responseType.equals("@Instance")) {
-        ((EvaluateConsumer) consumer).received(new InstanceRef(json));
-        return;
-      }
-      if (responseType.equals("@Null")) {
-        ((EvaluateConsumer) consumer).received(new NullRef(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((EvaluateConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof EvaluateInFrameConsumer) {
-      if (responseType.equals("@Error")) {
-        ((EvaluateInFrameConsumer) consumer).received(new ErrorRef(json));
-        return;
-      }
-      if (responseType.equals("@Instance")) {
-        ((EvaluateInFrameConsumer) consumer).received(new InstanceRef(json));
-        return;
-      }
-      if (responseType.equals("@Null")) {
-        ((EvaluateInFrameConsumer) consumer).received(new NullRef(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((EvaluateInFrameConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof FlagListConsumer) {
-      if (responseType.equals("FlagList")) {
-        ((FlagListConsumer) consumer).received(new FlagList(json));
-        return;
-      }
-    }
-    if (consumer instanceof GetAllocationProfileConsumer) {
-      if (responseType.equals("AllocationProfile")) {
-        ((GetAllocationProfileConsumer) consumer).received(new AllocationProfile(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((GetAllocationProfileConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof GetClassListConsumer) {
-      if (responseType.equals("ClassList")) {
-        ((GetClassListConsumer) consumer).received(new ClassList(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((GetClassListConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof GetCpuSamplesConsumer) {
-      if (responseType.equals("CpuSamples")) {
-        ((GetCpuSamplesConsumer) consumer).received(new CpuSamples(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((GetCpuSamplesConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof GetInboundReferencesConsumer) {
-      if (responseType.equals("InboundReferences")) {
-        ((GetInboundReferencesConsumer) consumer).received(new InboundReferences(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((GetInboundReferencesConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof GetInstancesConsumer) {
-      if (responseType.equals("InstanceSet")) {
-        ((GetInstancesConsumer) consumer).received(new InstanceSet(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((GetInstancesConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof GetIsolateConsumer) {
-      if (responseType.equals("Isolate")) {
-        ((GetIsolateConsumer) consumer).received(new Isolate(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((GetIsolateConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof GetIsolateGroupConsumer) {
-      if (responseType.equals("IsolateGroup")) {
-        ((GetIsolateGroupConsumer) consumer).received(new IsolateGroup(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((GetIsolateGroupConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof GetIsolateGroupMemoryUsageConsumer) {
-      if (responseType.equals("MemoryUsage")) {
-        ((GetIsolateGroupMemoryUsageConsumer) consumer).received(new MemoryUsage(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((GetIsolateGroupMemoryUsageConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof GetMemoryUsageConsumer) {
-      if (responseType.equals("MemoryUsage")) {
-        ((GetMemoryUsageConsumer) consumer).received(new MemoryUsage(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((GetMemoryUsageConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof GetObjectConsumer) {
-      if (responseType.equals("Breakpoint")) {
-        ((GetObjectConsumer) consumer).received(new Breakpoint(json));
-        return;
-      }
-      if (responseType.equals("Class")) {
-        ((GetObjectConsumer) consumer).received(new ClassObj(json));
-        return;
-      }
-      if (responseType.equals("Context")) {
-        ((GetObjectConsumer) consumer).received(new Context(json));
-        return;
-      }
-      if (responseType.equals("Error")) {
-        ((GetObjectConsumer) consumer).received(new ErrorObj(json));
-        return;
-      }
-      if (responseType.equals("Field")) {
-        ((GetObjectConsumer) consumer).received(new Field(json));
-        return;
-      }
-      if (responseType.equals("Function")) {
-        ((GetObjectConsumer) consumer).received(new Func(json));
-        return;
-      }
-      if (responseType.equals("Instance")) {
-        ((GetObjectConsumer) consumer).received(new Instance(json));
-        return;
-      }
-      if (responseType.equals("Library")) {
-        ((GetObjectConsumer) consumer).received(new Library(json));
-        return;
-      }
-      if (responseType.equals("Null")) {
-        ((GetObjectConsumer) consumer).received(new Null(json));
-        return;
-      }
-      if (responseType.equals("Object")) {
-        ((GetObjectConsumer) consumer).received(new Obj(json));
-        return;
-      }
-      if (responseType.equals("Script")) {
-        ((GetObjectConsumer) consumer).received(new Script(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((GetObjectConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-      if (responseType.equals("TypeArguments")) {
-        ((GetObjectConsumer) consumer).received(new TypeArguments(json));
-        return;
-      }
-    }
-    if (consumer instanceof GetRetainingPathConsumer) {
-      if (responseType.equals("RetainingPath")) {
-        ((GetRetainingPathConsumer) consumer).received(new RetainingPath(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((GetRetainingPathConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof GetScriptsConsumer) {
-      if (responseType.equals("ScriptList")) {
-        ((GetScriptsConsumer) consumer).received(new ScriptList(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((GetScriptsConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof GetSourceReportConsumer) {
-      if (responseType.equals("Sentinel")) {
-        ((GetSourceReportConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-      if (responseType.equals("SourceReport")) {
-        ((GetSourceReportConsumer) consumer).received(new SourceReport(json));
-        return;
-      }
-    }
-    if (consumer instanceof GetStackConsumer) {
-      if (responseType.equals("Sentinel")) {
-        ((GetStackConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-      if (responseType.equals("Stack")) {
-        ((GetStackConsumer) consumer).received(new Stack(json));
-        return;
-      }
-    }
-    if (consumer instanceof InvokeConsumer) {
-      if (responseType.equals("@Error")) {
-        ((InvokeConsumer) consumer).received(new ErrorRef(json));
-        return;
-      }
-      if (responseType.equals("@Instance")) {
-        ((InvokeConsumer) consumer).received(new InstanceRef(json));
-        return;
-      }
-      if (responseType.equals("@Null")) {
-        ((InvokeConsumer) consumer).received(new NullRef(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((InvokeConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof KillConsumer) {
-      if (responseType.equals("Sentinel")) {
-        ((KillConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-      if (responseType.equals("Success")) {
-        ((KillConsumer) consumer).received(new Success(json));
-        return;
-      }
-    }
-    if (consumer instanceof PauseConsumer) {
-      if (responseType.equals("Sentinel")) {
-        ((PauseConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-      if (responseType.equals("Success")) {
-        ((PauseConsumer) consumer).received(new Success(json));
-        return;
-      }
-    }
-    if (consumer instanceof PortListConsumer) {
-      if (responseType.equals("PortList")) {
-        ((PortListConsumer) consumer).received(new PortList(json));
-        return;
-      }
-    }
-    if (consumer instanceof ProcessMemoryUsageConsumer) {
-      if (responseType.equals("ProcessMemoryUsage")) {
-        ((ProcessMemoryUsageConsumer) consumer).received(new ProcessMemoryUsage(json));
-        return;
-      }
-    }
-    if (consumer instanceof ProtocolListConsumer) {
-      if (responseType.equals("ProtocolList")) {
-        ((ProtocolListConsumer) consumer).received(new ProtocolList(json));
-        return;
-      }
-    }
-    if (consumer instanceof ReloadSourcesConsumer) {
-      if (responseType.equals("ReloadReport")) {
-        ((ReloadSourcesConsumer) consumer).received(new ReloadReport(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((ReloadSourcesConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof RemoveBreakpointConsumer) {
-      if (responseType.equals("Sentinel")) {
-        ((RemoveBreakpointConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-      if (responseType.equals("Success")) {
-        ((RemoveBreakpointConsumer) consumer).received(new Success(json));
-        return;
-      }
-    }
-    if (consumer instanceof RequestHeapSnapshotConsumer) {
-      if (responseType.equals("Sentinel")) {
-        ((RequestHeapSnapshotConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-      if (responseType.equals("Success")) {
-        ((RequestHeapSnapshotConsumer) consumer).received(new Success(json));
-        return;
-      }
-    }
-    if (consumer instanceof ResumeConsumer) {
-      if (responseType.equals("Sentinel")) {
-        ((ResumeConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-      if (responseType.equals("Success")) {
-        ((ResumeConsumer) consumer).received(new Success(json));
-        return;
-      }
-    }
-    if (consumer instanceof SetExceptionPauseModeConsumer) {
-      if (responseType.equals("Sentinel")) {
-        ((SetExceptionPauseModeConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-      if (responseType.equals("Success")) {
-        ((SetExceptionPauseModeConsumer) consumer).received(new Success(json));
-        return;
-      }
-    }
-    if (consumer instanceof SetFlagConsumer) {
-      if (responseType.equals("Error")) {
-        ((SetFlagConsumer) consumer).received(new ErrorObj(json));
-        return;
-      }
-      if (responseType.equals("Success")) {
-        ((SetFlagConsumer) consumer).received(new Success(json));
-        return;
-      }
-    }
-    if (consumer instanceof SetLibraryDebuggableConsumer) {
-      if (responseType.equals("Sentinel")) {
-        ((SetLibraryDebuggableConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-      if (responseType.equals("Success")) {
-        ((SetLibraryDebuggableConsumer) consumer).received(new Success(json));
-        return;
-      }
-    }
-    if (consumer instanceof SetNameConsumer) {
-      if (responseType.equals("Sentinel")) {
-        ((SetNameConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-      if (responseType.equals("Success")) {
-        ((SetNameConsumer) consumer).received(new Success(json));
-        return;
-      }
-    }
-    if (consumer instanceof SetTraceClassAllocationConsumer) {
-      if (responseType.equals("Sentinel")) {
-        ((SetTraceClassAllocationConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-      if (responseType.equals("Success")) {
-        ((SetTraceClassAllocationConsumer) consumer).received(new Success(json));
-        return;
-      }
-    }
-    if (consumer instanceof SuccessConsumer) {
-      if (responseType.equals("Success")) {
-        ((SuccessConsumer) consumer).received(new Success(json));
-        return;
-      }
-    }
-    if (consumer instanceof TimelineConsumer) {
-      if (responseType.equals("Timeline")) {
-        ((TimelineConsumer) consumer).received(new Timeline(json));
-        return;
-      }
-    }
-    if (consumer instanceof TimelineFlagsConsumer) {
-      if (responseType.equals("TimelineFlags")) {
-        ((TimelineFlagsConsumer) consumer).received(new TimelineFlags(json));
-        return;
-      }
-    }
-    if (consumer instanceof TimestampConsumer) {
-      if (responseType.equals("Timestamp")) {
-        ((TimestampConsumer) consumer).received(new Timestamp(json));
-        return;
-      }
-    }
-    if (consumer instanceof VMConsumer) {
-      if (responseType.equals("VM")) {
-        ((VMConsumer) consumer).received(new VM(json));
-        return;
-      }
-    }
-    if (consumer instanceof VersionConsumer) {
-      if (responseType.equals("Version")) {
-        ((VersionConsumer) consumer).received(new Version(json));
-        return;
-      }
-    }
-    if (consumer instanceof ServiceExtensionConsumer) {
-      ((ServiceExtensionConsumer) consumer).received(json);
-      return;
+  /**
+   * Return a new element of the given response type, or {@code null} if the type is unknown to
+   * this client.
+   */
+  static Response createResponse(String responseType, JsonObject json) {
+    switch (responseType) {
+      case "@Error":
+        return new ErrorRef(json);
+      case "@Instance":
+        return new InstanceRef(json);
+      case "@Null":
+        return new NullRef(json);
+      case "AllocationProfile":
+        return new AllocationProfile(json);
+      case "Breakpoint":
+        return new Breakpoint(json);
+      case "Class":
+        return new ClassObj(json);
+      case "ClassList":
+        return new ClassList(json);
+      case "Context":
+        return new Context(json);
+      case "CpuSamples":
+        return new CpuSamples(json);
+      case "Error":
+        return new ErrorObj(json);
+      case "Field":
+        return new Field(json);
+      case "FlagList":
+        return new FlagList(json);
+      case "Function":
+        return new Func(json);
+      case "InboundReferences":
+        return new InboundReferences(json);
+      case "Instance":
+        return new Instance(json);
+      case "InstanceSet":
+        return new InstanceSet(json);
+      case "Isolate":
+        return new Isolate(json);
+      case "IsolateGroup":
+        return new IsolateGroup(json);
+      case "Library":
+        return new Library(json);
+      case "MemoryUsage":
+        return new MemoryUsage(json);
+      case "Null":
+        return new Null(json);
+      case "Object":
+        return new Obj(json);
+      case "PortList":
+        return new PortList(json);
+      case "ProcessMemoryUsage":
+        return new ProcessMemoryUsage(json);
+      case "ProtocolList":
+        return new ProtocolList(json);
+      case "ReloadReport":
+        return new ReloadReport(json);
+      case "RetainingPath":
+        return new RetainingPath(json);
+      case "Script":
+        return new Script(json);
+      case "ScriptList":
+        return new ScriptList(json);
+      case "Sentinel":
+        return new Sentinel(json);
+      case "SourceReport":
+        return new SourceReport(json);
+      case "Stack":
+        return new Stack(json);
+      case "Success":
+        return new Success(json);
+      case "Timeline":
+        return new Timeline(json);
+      case "TimelineFlags":
+        return new TimelineFlags(json);
+      case "Timestamp":
+        return new Timestamp(json);
+      case "TypeArguments":
+        return new TypeArguments(json);
+      case "VM":
+        return new VM(json);
+      case "Version":
+        return new Version(json);
+      default:
+        return null;
     }
-    logUnknownResponse(consumer, json);
+  }
+
+  private static Map<String, ResponseForwarder> createResponseForwarders() {
+    final Map<String, ResponseForwarder> forwarders = new HashMap<>();
+    ResponseForwarder forwarder;
+    forwarder = new ResponseForwarder(AddBreakpointAtEntryConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "Breakpoint":
+            ((AddBreakpointAtEntryConsumer) consumer).received(new Breakpoint(json));
+            return true;
+          case "Sentinel":
+            ((AddBreakpointAtEntryConsumer) consumer).received(new Sentinel(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("addBreakpointAtEntry", forwarder);
+    forwarder = new ResponseForwarder(AddBreakpointConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "Breakpoint":
+            ((AddBreakpointConsumer) consumer).received(new Breakpoint(json));
+            return true;
+          case "Sentinel":
+            ((AddBreakpointConsumer) consumer).received(new Sentinel(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("addBreakpoint", forwarder);
+    forwarder = new ResponseForwarder(AddBreakpointWithScriptUriConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "Breakpoint":
+            ((AddBreakpointWithScriptUriConsumer) consumer).received(new Breakpoint(json));
+            return true;
+          case "Sentinel":
+            ((AddBreakpointWithScriptUriConsumer) consumer).received(new Sentinel(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("addBreakpointWithScriptUri", forwarder);
+    forwarder = new ResponseForwarder(ClearCpuSamplesConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "Sentinel":
+            ((ClearCpuSamplesConsumer) consumer).received(new Sentinel(json));
+            return true;
+          case "Success":
+            ((ClearCpuSamplesConsumer) consumer).received(new Success(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("clearCpuSamples", forwarder);
+    forwarder = new ResponseForwarder(CpuSamplesConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "CpuSamples":
+            ((CpuSamplesConsumer) consumer).received(new CpuSamples(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("getAllocationTraces", forwarder);
+    forwarder = new ResponseForwarder(EvaluateConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "@Error":
+            ((EvaluateConsumer) consumer).received(new ErrorRef(json));
+            return true;
+          case "@Instance":
+            ((EvaluateConsumer) consumer).received(new InstanceRef(json));
+            return true;
+          case "@Null":
+            ((EvaluateConsumer) consumer).received(new NullRef(json));
+            return true;
+          case "Sentinel":
+            ((EvaluateConsumer) consumer).received(new Sentinel(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("evaluate", forwarder);
+    forwarder = new ResponseForwarder(EvaluateInFrameConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "@Error":
+            ((EvaluateInFrameConsumer) consumer).received(new ErrorRef(json));
+            return true;
+          case "@Instance":
+            ((EvaluateInFrameConsumer) consumer).received(new InstanceRef(json));
+            return true;
+          case "@Null":
+            ((EvaluateInFrameConsumer) consumer).received(new NullRef(json));
+            return true;
+          case "Sentinel":
+            ((EvaluateInFrameConsumer) consumer).received(new Sentinel(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("evaluateInFrame", forwarder);
+    forwarder = new ResponseForwarder(FlagListConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "FlagList":
+            ((FlagListConsumer) consumer).received(new FlagList(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("getFlagList", forwarder);
+    forwarder = new ResponseForwarder(GetAllocationProfileConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "AllocationProfile":
+            ((GetAllocationProfileConsumer) consumer).received(new AllocationProfile(json));
+            return true;
+          case "Sentinel":
+            ((GetAllocationProfileConsumer) consumer).received(new Sentinel(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("getAllocationProfile", forwarder);
+    forwarder = new ResponseForwarder(GetClassListConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "ClassList":
+            ((GetClassListConsumer) consumer).received(new ClassList(json));
+            return true;
+          case "Sentinel":
+            ((GetClassListConsumer) consumer).received(new Sentinel(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("getClassList", forwarder);
+    forwarder = new ResponseForwarder(GetCpuSamplesConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "CpuSamples":
+            ((GetCpuSamplesConsumer) consumer).received(new CpuSamples(json));
+            return true;
+          case "Sentinel":
+            ((GetCpuSamplesConsumer) consumer).received(new Sentinel(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("getCpuSamples", forwarder);
+    forwarder = new ResponseForwarder(GetInboundReferencesConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "InboundReferences":
+            ((GetInboundReferencesConsumer) consumer).received(new InboundReferences(json));
+            return true;
+          case "Sentinel":
+            ((GetInboundReferencesConsumer) consumer).received(new Sentinel(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("getInboundReferences", forwarder);
+    forwarder = new ResponseForwarder(GetInstancesConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "InstanceSet":
+            ((GetInstancesConsumer) consumer).received(new InstanceSet(json));
+            return true;
+          case "Sentinel":
+            ((GetInstancesConsumer) consumer).received(new Sentinel(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("getInstances", forwarder);
+    forwarder = new ResponseForwarder(GetIsolateConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "Isolate":
+            ((GetIsolateConsumer) consumer).received(new Isolate(json));
+            return true;
+          case "Sentinel":
+            ((GetIsolateConsumer) consumer).received(new Sentinel(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("getIsolate", forwarder);
+    forwarder = new ResponseForwarder(GetIsolateGroupConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "IsolateGroup":
+            ((GetIsolateGroupConsumer) consumer).received(new IsolateGroup(json));
+            return true;
+          case "Sentinel":
+            ((GetIsolateGroupConsumer) consumer).received(new Sentinel(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("getIsolateGroup", forwarder);
+    forwarder = new ResponseForwarder(GetIsolateGroupMemoryUsageConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "MemoryUsage":
+            ((GetIsolateGroupMemoryUsageConsumer) consumer).received(new MemoryUsage(json));
+            return true;
+          case "Sentinel":
+            ((GetIsolateGroupMemoryUsageConsumer) consumer).received(new Sentinel(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("getIsolateGroupMemoryUsage", forwarder);
+    forwarder = new ResponseForwarder(GetMemoryUsageConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "MemoryUsage":
+            ((GetMemoryUsageConsumer) consumer).received(new MemoryUsage(json));
+            return true;
+          case "Sentinel":
+            ((GetMemoryUsageConsumer) consumer).received(new Sentinel(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("getMemoryUsage", forwarder);
+    forwarder = new ResponseForwarder(GetObjectConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "Breakpoint":
+            ((GetObjectConsumer) consumer).received(new Breakpoint(json));
+            return true;
+          case "Class":
+            ((GetObjectConsumer) consumer).received(new ClassObj(json));
+            return true;
+          case "Context":
+            ((GetObjectConsumer) consumer).received(new Context(json));
+            return true;
+          case "Error":
+            ((GetObjectConsumer) consumer).received(new ErrorObj(json));
+            return true;
+          case "Field":
+            ((GetObjectConsumer) consumer).received(new Field(json));
+            return true;
+          case "Function":
+            ((GetObjectConsumer) consumer).received(new Func(json));
+            return true;
+          case "Instance":
+            ((GetObjectConsumer) consumer).received(new Instance(json));
+            return true;
+          case "Library":
+            ((GetObjectConsumer) consumer).received(new Library(json));
+            return true;
+          case "Null":
+            ((GetObjectConsumer) consumer).received(new Null(json));
+            return true;
+          case "Object":
+            ((GetObjectConsumer) consumer).received(new Obj(json));
+            return true;
+          case "Script":
+            ((GetObjectConsumer) consumer).received(new Script(json));
+            return true;
+          case "Sentinel":
+            ((GetObjectConsumer) consumer).received(new Sentinel(json));
+            return true;
+          case "TypeArguments":
+            ((GetObjectConsumer) consumer).received(new TypeArguments(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("getObject", forwarder);
+    forwarder = new ResponseForwarder(GetRetainingPathConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "RetainingPath":
+            ((GetRetainingPathConsumer) consumer).received(new RetainingPath(json));
+            return true;
+          case "Sentinel":
+            ((GetRetainingPathConsumer) consumer).received(new Sentinel(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("getRetainingPath", forwarder);
+    forwarder = new ResponseForwarder(GetScriptsConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "ScriptList":
+            ((GetScriptsConsumer) consumer).received(new ScriptList(json));
+            return true;
+          case "Sentinel":
+            ((GetScriptsConsumer) consumer).received(new Sentinel(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("getScripts", forwarder);
+    forwarder = new ResponseForwarder(GetSourceReportConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "Sentinel":
+            ((GetSourceReportConsumer) consumer).received(new Sentinel(json));
+            return true;
+          case "SourceReport":
+            ((GetSourceReportConsumer) consumer).received(new SourceReport(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("getSourceReport", forwarder);
+    forwarder = new ResponseForwarder(GetStackConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "Sentinel":
+            ((GetStackConsumer) consumer).received(new Sentinel(json));
+            return true;
+          case "Stack":
+            ((GetStackConsumer) consumer).received(new Stack(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("getStack", forwarder);
+    forwarder = new ResponseForwarder(InvokeConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "@Error":
+            ((InvokeConsumer) consumer).received(new ErrorRef(json));
+            return true;
+          case "@Instance":
+            ((InvokeConsumer) consumer).received(new InstanceRef(json));
+            return true;
+          case "@Null":
+            ((InvokeConsumer) consumer).received(new NullRef(json));
+            return true;
+          case "Sentinel":
+            ((InvokeConsumer) consumer).received(new Sentinel(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("invoke", forwarder);
+    forwarder = new ResponseForwarder(KillConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "Sentinel":
+            ((KillConsumer) consumer).received(new Sentinel(json));
+            return true;
+          case "Success":
+            ((KillConsumer) consumer).received(new Success(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("kill", forwarder);
+    forwarder = new ResponseForwarder(PauseConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "Sentinel":
+            ((PauseConsumer) consumer).received(new Sentinel(json));
+            return true;
+          case "Success":
+            ((PauseConsumer) consumer).received(new Success(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("pause", forwarder);
+    forwarder = new ResponseForwarder(PortListConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "PortList":
+            ((PortListConsumer) consumer).received(new PortList(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("getPorts", forwarder);
+    forwarder = new ResponseForwarder(ProcessMemoryUsageConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "ProcessMemoryUsage":
+            ((ProcessMemoryUsageConsumer) consumer).received(new ProcessMemoryUsage(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("getProcessMemoryUsage", forwarder);
+    forwarder = new ResponseForwarder(ProtocolListConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "ProtocolList":
+            ((ProtocolListConsumer) consumer).received(new ProtocolList(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("getSupportedProtocols", forwarder);
+    forwarder = new ResponseForwarder(ReloadSourcesConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "ReloadReport":
+            ((ReloadSourcesConsumer) consumer).received(new ReloadReport(json));
+            return true;
+          case "Sentinel":
+            ((ReloadSourcesConsumer) consumer).received(new Sentinel(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("reloadSources", forwarder);
+    forwarder = new ResponseForwarder(RemoveBreakpointConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "Sentinel":
+            ((RemoveBreakpointConsumer) consumer).received(new Sentinel(json));
+            return true;
+          case "Success":
+            ((RemoveBreakpointConsumer) consumer).received(new Success(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("removeBreakpoint", forwarder);
+    forwarder = new ResponseForwarder(RequestHeapSnapshotConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "Sentinel":
+            ((RequestHeapSnapshotConsumer) consumer).received(new Sentinel(json));
+            return true;
+          case "Success":
+            ((RequestHeapSnapshotConsumer) consumer).received(new Success(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("requestHeapSnapshot", forwarder);
+    forwarder = new ResponseForwarder(ResumeConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "Sentinel":
+            ((ResumeConsumer) consumer).received(new Sentinel(json));
+            return true;
+          case "Success":
+            ((ResumeConsumer) consumer).received(new Success(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("resume", forwarder);
+    forwarder = new ResponseForwarder(SetExceptionPauseModeConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "Sentinel":
+            ((SetExceptionPauseModeConsumer) consumer).received(new Sentinel(json));
+            return true;
+          case "Success":
+            ((SetExceptionPauseModeConsumer) consumer).received(new Success(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("setExceptionPauseMode", forwarder);
+    forwarder = new ResponseForwarder(SetFlagConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "Error":
+            ((SetFlagConsumer) consumer).received(new ErrorObj(json));
+            return true;
+          case "Success":
+            ((SetFlagConsumer) consumer).received(new Success(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("setFlag", forwarder);
+    forwarder = new ResponseForwarder(SetLibraryDebuggableConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "Sentinel":
+            ((SetLibraryDebuggableConsumer) consumer).received(new Sentinel(json));
+            return true;
+          case "Success":
+            ((SetLibraryDebuggableConsumer) consumer).received(new Success(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("setLibraryDebuggable", forwarder);
+    forwarder = new ResponseForwarder(SetNameConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "Sentinel":
+            ((SetNameConsumer) consumer).received(new Sentinel(json));
+            return true;
+          case "Success":
+            ((SetNameConsumer) consumer).received(new Success(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("setName", forwarder);
+    forwarder = new ResponseForwarder(SetTraceClassAllocationConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "Sentinel":
+            ((SetTraceClassAllocationConsumer) consumer).received(new Sentinel(json));
+            return true;
+          case "Success":
+            ((SetTraceClassAllocationConsumer) consumer).received(new Success(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("setTraceClassAllocation", forwarder);
+    forwarder = new ResponseForwarder(SuccessConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "Success":
+            ((SuccessConsumer) consumer).received(new Success(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("clearVMTimeline", forwarder);
+    forwarders.put("registerService", forwarder);
+    forwarders.put("setVMName", forwarder);
+    forwarders.put("setVMTimelineFlags", forwarder);
+    forwarders.put("streamCancel", forwarder);
+    forwarders.put("streamListen", forwarder);
+    forwarder = new ResponseForwarder(TimelineConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "Timeline":
+            ((TimelineConsumer) consumer).received(new Timeline(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("getVMTimeline", forwarder);
+    forwarder = new ResponseForwarder(TimelineFlagsConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "TimelineFlags":
+            ((TimelineFlagsConsumer) consumer).received(new TimelineFlags(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("getVMTimelineFlags", forwarder);
+    forwarder = new ResponseForwarder(TimestampConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "Timestamp":
+            ((TimestampConsumer) consumer).received(new Timestamp(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("getVMTimelineMicros", forwarder);
+    forwarder = new ResponseForwarder(VMConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "VM":
+            ((VMConsumer) consumer).received(new VM(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("getVM", forwarder);
+    forwarder = new ResponseForwarder(VersionConsumer.class) {
+      @Override
+      boolean forward(Consumer consumer, String responseType, JsonObject json) {
+        switch (responseType) {
+          case "Version":
+            ((VersionConsumer) consumer).received(new Version(json));
+            return true;
+          default:
+            return false;
+        }
+      }
+    };
+    forwarders.put("getVersion", forwarder);
+    return forwarders;
+  }
+
+  @Override
+  ResponseForwarder getResponseForwarder(String method) {
+    return responseForwarders.get(method);
+  }
+
+  @Override
+  Collection<ResponseForwarder> getResponseForwarders() {
+    return responseForwarders.values();
   }
 }
@@ -13,30 +13,62 @@
  */
 package org.dartlang.vm.service;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
-import de.roderick.weberknecht.WebSocket;
-import de.roderick.weberknecht.WebSocketEventHandler;
-import de.roderick.weberknecht.WebSocketException;
-import de.roderick.weberknecht.WebSocketMessage;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import org.dartlang.vm.service.consumer.*;
 import org.dartlang.vm.service.element.*;
+import org.dartlang.vm.service.internal.BlockingRequestSink;
+import org.dartlang.vm.service.internal.CoalescingRequestSink;
+import org.dartlang.vm.service.internal.EventDispatcher;
+import org.dartlang.vm.service.internal.MessageText;
+import org.dartlang.vm.service.internal.PendingRequestTable;
 import org.dartlang.vm.service.internal.RequestSink;
+import org.dartlang.vm.service.internal.ResponseSink;
+import org.dartlang.vm.service.internal.TimerWheel;
+import org.dartlang.vm.service.internal.TransportRequestSink;
 import org.dartlang.vm.service.internal.VmServiceConst;
 import org.dartlang.vm.service.internal.WebSocketRequestSink;
 import org.dartlang.vm.service.logging.Logging;
+import org.dartlang.vm.service.metrics.VmServiceMetrics;
+import org.dartlang.vm.service.transport.Transport;
+import org.dartlang.vm.service.transport.TransportConnection;
+import org.dartlang.vm.service.transport.TransportHandler;
+import org.dartlang.vm.service.transport.WeberknechtTransport;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * Internal {@link VmService} base class containing non-generated code.
@@ -49,6 +81,120 @@ abstract class VmServiceBase implements VmServiceConst {
    * @return an API object for interacting with the VM service (not {@code null}).
    */
   public static VmService connect(final String url) throws IOException {
+    return connect(url, new WeberknechtTransport());
+  }
+
+  /**
+   * Connect to the VM observatory service via the specified URI, using the given transport, such
+   * as {@link org.dartlang.vm.service.transport.NioWebSocketTransport#getDefault()}.
+   *
+   * @return an API object for interacting with the VM service (not {@code null}).
+   */
+  public static VmService connect(final String url, Transport transport) throws IOException {
+    final VmService vmService = new VmService();
+    TransportConnection connection = openConnection(url, transport, vmService, 0);
+    TransportRequestSink base = new TransportRequestSink(connection);
+    base.setMetrics(vmService.getMetrics());
+    BlockingRequestSink blockingSink = new BlockingRequestSink(base);
+    blockingSink.toPassthroughSink();
+    vmService.startSession(url, transport, blockingSink, base);
+
+    // Check protocol version
+    final CountDownLatch latch = new CountDownLatch(1);
+    final String[] errMsg = new String[1];
+    vmService.getVersion(new VersionConsumer() {
+      @Override
+      public void onError(RPCError error) {
+        String msg = "Failed to determine protocol version: " + error.getCode() + "\n  message: "
+            + error.getMessage() + "\n  details: " + error.getDetails();
+        Logging.getLogger().logInformation(msg);
+        errMsg[0] = msg;
+      }
+
+      @Override
+      public void received(Version version) {
+        vmService.runtimeVersion = version;
+
+        latch.countDown();
+      }
+    });
+
+    try {
+      if (!latch.await(5, TimeUnit.SECONDS)) {
+        throw new IOException("Failed to determine protocol version");
+      }
+      if (errMsg[0] != null) {
+        throw new IOException(errMsg[0]);
+      }
+    } catch (InterruptedException e) {
+      throw new RuntimeException("Interrupted while waiting for response", e);
+    }
+
+    return vmService;
+  }
+
+  /**
+   * Start connecting to the VM observatory service via the specified URI and return at once.
+   * Requests made before the protocol version of the VM has been determined are queued, and sent
+   * once it has, or failed if the connection cannot be established. Use {@link #whenConnected()} to
+   * wait for the connection.
+   *
+   * @return an API object for interacting with the VM service (not {@code null}).
+   */
+  public static VmService connectAsync(final String url) {
+    return connectAsync(url, new WeberknechtTransport());
+  }
+
+  /**
+   * Start connecting to the VM observatory service via the specified URI, using the given
+   * transport, and return at once. See {@link #connectAsync(String)}.
+   *
+   * @return an API object for interacting with the VM service (not {@code null}).
+   */
+  public static VmService connectAsync(final String url, final Transport transport) {
+    return connectAsync(url, transport, null);
+  }
+
+  /**
+   * Start connecting to the VM observatory service via the specified URI, using the given
+   * transport, and return at once. The service is given to {@code configure} before the
+   * connection is opened, so that listeners and metrics are in place before any message is
+   * exchanged. See {@link #connectAsync(String)}.
+   *
+   * @return an API object for interacting with the VM service (not {@code null}).
+   */
+  public static VmService connectAsync(final String url, final Transport transport,
+      java.util.function.Consumer<VmService> configure) {
+    final VmService vmService = new VmService();
+    final TransportRequestSink base = new TransportRequestSink();
+    base.setMetrics(vmService.getMetrics());
+    final BlockingRequestSink blockingSink = new BlockingRequestSink(base);
+    vmService.startSession(url, transport, blockingSink, base);
+    vmService.connected = new CompletableFuture<>();
+    if (configure != null) {
+      configure.accept(vmService);
+    }
+    getConnectExecutor().execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          base.setConnection(openConnection(url, transport, vmService, 0));
+        } catch (IOException | RuntimeException e) {
+          vmService.connectFailed(blockingSink, e);
+          return;
+        }
+        vmService.negotiateVersion(blockingSink);
+      }
+    });
+    return vmService;
+  }
+
+  /**
+   * Open a connection to the given URL whose messages are processed by the given service. The
+   * generation identifies the connection when it is closed, and is 0 for the first connection.
+   */
+  private static TransportConnection openConnection(final String url, Transport transport,
+      final VmService vmService, final int generation) throws IOException {
     // Validate URL
     URI uri;
     try {
@@ -61,29 +207,50 @@ abstract class VmServiceBase implements VmServiceConst {
       throw new IOException("Unsupported URL scheme: " + wsScheme);
     }
 
-    // Create web socket and observatory
-    WebSocket webSocket;
-    try {
-      webSocket = new WebSocket(uri);
-    } catch (WebSocketException e) {
-      throw new IOException("Failed to create websocket: " + url, e);
-    }
-    final VmService vmService = new VmService();
-
-    // Setup event handler for forwarding responses
-    webSocket.setEventHandler(new WebSocketEventHandler() {
+    // Establish the connection, forwarding responses
+    return transport.connect(uri, new TransportHandler() {
       @Override
       public void onClose() {
         Logging.getLogger().logInformation("VM connection closed: " + url);
 
-        vmService.connectionClosed();
+        vmService.transportClosed(generation);
+      }
+
+      @Override
+      public void onText(String text) {
+        if (Logging.getLogger().isInformationEnabled()) {
+          Logging.getLogger().logInformation("VM message: " + text);
+        }
+        VmServiceMetrics metrics = vmService.getMetrics();
+        if (metrics != VmServiceMetrics.NULL) {
+          metrics.bytesReceived(VmServiceMetrics.encodedLength(text));
+        }
+        try {
+          vmService.processMessage(text);
+        } catch (Exception e) {
+          Logging.getLogger().logError(e.getMessage(), e);
+        }
+      }
+
+      @Override
+      public void onText(ByteBuffer utf8) {
+        if (Logging.getLogger().isInformationEnabled()) {
+          Logging.getLogger().logInformation(
+              "VM message: " + StandardCharsets.UTF_8.decode(utf8.duplicate()));
+        }
+        vmService.getMetrics().bytesReceived(utf8.remaining());
+        try {
+          vmService.processTextMessage(utf8);
+        } catch (Exception e) {
+          Logging.getLogger().logError(e.getMessage(), e);
+        }
       }
 
       @Override
-      public void onMessage(WebSocketMessage message) {
-        Logging.getLogger().logInformation("VM message: " + message.getText());
+      public void onBinary(ByteBuffer message) {
+        vmService.getMetrics().bytesReceived(message.remaining());
         try {
-          vmService.processMessage(message.getText());
+          vmService.processBinaryMessage(message);
         } catch (Exception e) {
           Logging.getLogger().logError(e.getMessage(), e);
         }
@@ -95,148 +262,727 @@ abstract class VmServiceBase implements VmServiceConst {
 
         Logging.getLogger().logInformation("VM connection open: " + url);
       }
+    });
+  }
 
-      @Override
-      public void onPing() {
-      }
+  /**
+   * Connect to the VM observatory service on the given local port.
+   *
+   * @return an API object for interacting with the VM service (not {@code null}).
+   *
+   * @deprecated prefer the Url based constructor {@link VmServiceBase#connect}
+   */
+  @Deprecated
+  public static VmService localConnect(int port) throws IOException {
+    return connect("ws://localhost:" + port + "/ws");
+  }
+
+  /**
+   * The number of milliseconds to wait for the protocol version of the VM when connecting.
+   */
+  private static final long VERSION_TIMEOUT_MILLIS = 5000;
+
+  /**
+   * The threads establishing the connections made by {@link #connectAsync(String, Transport)}.
+   */
+  private static ExecutorService connectExecutor;
+
+  private static synchronized ExecutorService getConnectExecutor() {
+    if (connectExecutor == null) {
+      connectExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "VM service connect");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    return connectExecutor;
+  }
+
+  /**
+   * A mapping between request ids and the {@link PendingRequest} holding the {@link Consumer} that
+   * was passed when the request was made. Accessed without locking by the requesting threads, the
+   * thread processing responses and the timer thread.
+   */
+  private final PendingRequestTable<PendingRequest> pendingRequests = new PendingRequestTable<>();
+
+  /**
+   * The timer used to fail requests that are not answered in time.
+   */
+  private final TimerWheel timer = TimerWheel.getDefault();
+
+  /**
+   * The default number of milliseconds to wait for a response, or 0 to wait indefinitely.
+   */
+  private volatile long requestTimeoutMillis;
+
+  /**
+   * The number of requests that causes a batch to be sent without waiting for more.
+   */
+  private static final int MAX_BATCH_SIZE = 1000;
+
+  /**
+   * The methods that have no side effects in the VM, so that identical requests in flight at the
+   * same time can share one response.
+   */
+  private static final Set<String> IDEMPOTENT_METHODS = ImmutableSet.of("getAllocationTraces",
+      "getClassList", "getCpuSamples", "getFlagList", "getInboundReferences", "getIsolate",
+      "getIsolateGroup", "getIsolateGroupMemoryUsage", "getMemoryUsage", "getObject", "getPorts",
+      "getProcessMemoryUsage", "getRetainingPath", "getScripts", "getSourceReport", "getStack",
+      "getSupportedProtocols", "getVM", "getVMTimeline", "getVMTimelineFlags",
+      "getVMTimelineMicros", "getVersion");
+
+  /**
+   * The requests for {@link #IDEMPOTENT_METHODS} that have been sent but not yet answered, keyed by
+   * method and parameters.
+   */
+  private final Map<RequestKey, PendingRequest> inFlightRequests = new ConcurrentHashMap<>();
+
+  private volatile boolean deduplicateRequests = true;
+
+  /**
+   * The unique ID for the next request.
+   */
+  private final AtomicInteger nextId = new AtomicInteger();
+
+  /**
+   * The objects to which {@link Event}s from the VM are forwarded. The array is replaced rather
+   * than modified, so that it can be iterated without a copy or a lock for each event.
+   */
+  private volatile VmServiceListener[] vmListeners = new VmServiceListener[0];
 
+  /**
+   * The dispatchers used to deliver the events of streams that are not delivered on the thread
+   * receiving messages, keyed by stream id.
+   */
+  private final Map<String, StreamDispatch> eventDispatchers = new ConcurrentHashMap<>();
+
+  /**
+   * A list of objects to which {@link Event}s from the VM are forwarded.
+   */
+  private final Map<String, RemoteServiceRunner> remoteServiceRunners = Maps.newHashMap();
+
+  /**
+   * The parser used to decode the members of each message.
+   */
+  private static final JsonParser jsonParser = new JsonParser();
+
+  /**
+   * The channel through which observatory requests are made.
+   */
+  volatile RequestSink requestSink;
+
+  Version runtimeVersion;
+
+  /**
+   * The future completed once the connection made by {@link #connectAsync(String, Transport)} has
+   * been established, or {@code null} if the service was connected by other means.
+   */
+  volatile CompletableFuture<VmService> connected;
+
+  /**
+   * The URL and transport of the connection, used to re-establish it, or {@code null} if the
+   * service was connected by other means. Guarded by {@code this}.
+   */
+  private String url;
+  private Transport transport;
+
+  /**
+   * The sink that queues requests while the connection is being established or re-established,
+   * and the sink below it that sends them over the connection. Guarded by {@code this}.
+   */
+  private BlockingRequestSink sessionSink;
+  private TransportRequestSink transportSink;
+
+  /**
+   * The streams for which {@code streamListen} has been requested and not cancelled, which are
+   * listened to again when the connection is re-established.
+   */
+  private final Set<String> listenedStreams = ConcurrentHashMap.newKeySet();
+
+  /**
+   * The delays before the first and the last attempts to re-establish a lost connection, in
+   * milliseconds, or 0 if a lost connection is not re-established. Guarded by {@code this}.
+   */
+  private long reconnectMinDelayMillis;
+  private long reconnectMaxDelayMillis;
+
+  /**
+   * The delay before the next attempt to re-establish the connection. Guarded by {@code this}.
+   */
+  private long reconnectDelayMillis;
+
+  /**
+   * {@code true} while the connection is being re-established. Guarded by {@code this}.
+   */
+  private boolean reconnecting;
+
+  /**
+   * {@code true} once {@link #disconnect()} has been called. Guarded by {@code this}.
+   */
+  private boolean disconnecting;
+
+  /**
+   * Incremented for each attempt to re-establish the connection, so that the callbacks of the
+   * connections of previous attempts are ignored. Guarded by {@code this}.
+   */
+  private int connectionGeneration;
+
+  /**
+   * The receiver of measurements of the traffic of this service.
+   */
+  private volatile VmServiceMetrics metrics = VmServiceMetrics.NULL;
+
+  /**
+   * Add a listener to receive {@link Event}s from the VM.
+   */
+  public synchronized void addVmServiceListener(VmServiceListener listener) {
+    VmServiceListener[] listeners = Arrays.copyOf(vmListeners, vmListeners.length + 1);
+    listeners[listeners.length - 1] = listener;
+    vmListeners = listeners;
+  }
+
+  /**
+   * Remove the given listener from the VM.
+   */
+  public synchronized void removeVmServiceListener(VmServiceListener listener) {
+    List<VmServiceListener> listeners = new ArrayList<>(Arrays.asList(vmListeners));
+    if (listeners.remove(listener)) {
+      vmListeners = listeners.toArray(new VmServiceListener[listeners.size()]);
+    }
+  }
+
+  /**
+   * Deliver the events of the given stream to the listeners on a dedicated thread, through a queue
+   * that holds up to {@code capacity} events, rather than on the thread receiving messages. This
+   * keeps a flood of events, or a slow listener, from delaying responses to requests. Events of
+   * different streams may then be delivered out of order.
+   *
+   * @param policy what to do with an event received while the queue is full. With
+   *               {@link EventDispatcher.OverflowPolicy#COALESCE}, an event replaces the most
+   *               recent queued event of the same kind for the same isolate. Pause, resume,
+   *               breakpoint and write events are never replaced or discarded: while only they
+   *               are queued, other events are discarded and they wait for space.
+   */
+  public void setEventDispatch(String streamId, int capacity, EventDispatcher.OverflowPolicy policy) {
+    setEventDispatch(streamId, capacity, policy, new Function<Event, Object>() {
       @Override
-      public void onPong() {
+      public Object apply(Event event) {
+        return defaultCoalesceKey(event);
       }
     });
+  }
 
-    // Establish WebSocket Connection
-    //noinspection TryWithIdenticalCatches
-    try {
-      webSocket.connect();
-    } catch (WebSocketException e) {
-      throw new IOException("Failed to connect: " + url, e);
-    } catch (ArrayIndexOutOfBoundsException e) {
-      // The weberknecht can occasionally throw an array index exception if a connect terminates on initial connect
-      // (de.roderick.weberknecht.WebSocket.connect, WebSocket.java:126).
-      throw new IOException("Failed to connect: " + url, e);
+  /**
+   * Deliver the events of the given stream on a dedicated thread, as
+   * {@link #setEventDispatch(String, int, EventDispatcher.OverflowPolicy)} does.
+   *
+   * @param coalesceKey return the key of the given event, with which it replaces the most recent
+   *                    queued event with an equal key when the queue is full and the policy is
+   *                    {@link EventDispatcher.OverflowPolicy#COALESCE}, or {@code null} if the
+   *                    event must not replace or be replaced by another event
+   */
+  public void setEventDispatch(String streamId, int capacity, EventDispatcher.OverflowPolicy policy,
+                               Function<Event, Object> coalesceKey) {
+    StreamDispatch previous = eventDispatchers.put(streamId,
+        new StreamDispatch(new EventDispatcher(streamId, capacity, policy), coalesceKey));
+    if (previous != null) {
+      previous.dispatcher.shutdown();
     }
-    vmService.requestSink = new WebSocketRequestSink(webSocket);
+  }
 
-    // Check protocol version
-    final CountDownLatch latch = new CountDownLatch(1);
-    final String[] errMsg = new String[1];
-    vmService.getVersion(new VersionConsumer() {
+  /**
+   * Deliver the events of the given stream on the thread receiving messages, which is the default.
+   */
+  public void removeEventDispatch(String streamId) {
+    StreamDispatch previous = eventDispatchers.remove(streamId);
+    if (previous != null) {
+      previous.dispatcher.shutdown();
+    }
+  }
+
+  /**
+   * Add a VM RemoteServiceRunner.
+   */
+  public void addServiceRunner(String service, RemoteServiceRunner runner) {
+    remoteServiceRunners.put(service, runner);
+  }
+
+  /**
+   * Remove a VM RemoteServiceRunner.
+   */
+  public void removeServiceRunner(String service) {
+    remoteServiceRunners.remove(service);
+  }
+
+  /**
+   * Return a future that is completed with this service once the connection to the VM has been
+   * established and the protocol version of the VM has been determined, or completed exceptionally
+   * with an {@link IOException} if the connection could not be established.
+   */
+  public CompletableFuture<VmService> whenConnected() {
+    CompletableFuture<VmService> result = connected;
+    return result != null ? result : CompletableFuture.completedFuture((VmService) this);
+  }
+
+  /**
+   * Request the protocol version of the VM, bypassing the requests queued in the given sink, and
+   * release those requests once the version has been received.
+   */
+  void negotiateVersion(final BlockingRequestSink blockingSink) {
+    request("getVersion", new JsonObject(), new VersionConsumer() {
       @Override
       public void onError(RPCError error) {
         String msg = "Failed to determine protocol version: " + error.getCode() + "\n  message: "
             + error.getMessage() + "\n  details: " + error.getDetails();
         Logging.getLogger().logInformation(msg);
-        errMsg[0] = msg;
+        connectFailed(blockingSink, new IOException(msg));
+        blockingSink.close();
       }
 
       @Override
       public void received(Version version) {
-        vmService.runtimeVersion = version;
+        runtimeVersion = version;
+        blockingSink.toPassthroughSink();
+        connected.complete((VmService) VmServiceBase.this);
+      }
+    }, VERSION_TIMEOUT_MILLIS, blockingSink.getBase(), false);
+  }
 
-        latch.countDown();
+  /**
+   * Fail the requests queued in the given sink, and those made later.
+   */
+  void connectFailed(BlockingRequestSink blockingSink, Exception e) {
+    blockingSink.toErrorSink(new ResponseSink() {
+      @Override
+      public void add(JsonObject response) {
+        processResponse(response);
       }
-    });
+    }, String.valueOf(RPCError.CONNECTION_CLOSED), "Failed to connect: " + e.getMessage());
+    connected.completeExceptionally(e instanceof IOException ? e : new IOException(e));
+  }
 
-    try {
-      if (!latch.await(5, TimeUnit.SECONDS)) {
-        throw new IOException("Failed to determine protocol version");
+  /**
+   * Send requests through the given sinks to the connection to the given URL.
+   */
+  synchronized void startSession(String url, Transport transport, BlockingRequestSink sessionSink,
+      TransportRequestSink transportSink) {
+    this.url = url;
+    this.transport = transport;
+    this.sessionSink = sessionSink;
+    this.transportSink = transportSink;
+    requestSink = sessionSink;
+  }
+
+  /**
+   * Re-establish the connection to the VM when it is lost, rather than failing all requests. While
+   * the connection is down, requests are queued. Attempts to reconnect are made after a delay that
+   * starts at {@code minDelay} and doubles after each failed attempt, up to {@code maxDelay}. Once
+   * the connection has been re-established, the streams that were listened to are listened to
+   * again, and the requests for methods without side effects that were waiting for a response,
+   * such as {@code getObject} or {@code getIsolate}, are sent again before the queued requests.
+   * Requests with side effects that were waiting for a response fail with an
+   * {@link RPCError#CONNECTION_CLOSED} error, since the VM may or may not have processed them.
+   * <p>
+   * Listeners are notified with {@link VmServiceListener#connectionOpened()} each time the
+   * connection is re-established, and with {@link VmServiceListener#connectionClosed()} only once
+   * the service is disconnected or reconnecting is disabled.
+   *
+   * @throws IllegalStateException if the service was not connected to a URL
+   */
+  public synchronized void enableReconnect(long minDelay, long maxDelay, TimeUnit unit) {
+    if (sessionSink == null) {
+      throw new IllegalStateException("Not connected to a URL");
+    }
+    reconnectMinDelayMillis = Math.max(1, unit.toMillis(minDelay));
+    reconnectMaxDelayMillis = Math.max(reconnectMinDelayMillis, unit.toMillis(maxDelay));
+  }
+
+  /**
+   * Fail all requests when the connection is lost, which is the default. If the connection is
+   * being re-established, stop trying.
+   */
+  public void disableReconnect() {
+    synchronized (this) {
+      reconnectMinDelayMillis = 0;
+      if (!stopReconnecting()) {
+        return;
       }
-      if (errMsg[0] != null) {
-        throw new IOException(errMsg[0]);
+    }
+    transportSink.close();
+    connectionClosed();
+  }
+
+  /**
+   * Return {@code true} if the connection has been lost and is being re-established.
+   */
+  public synchronized boolean isReconnecting() {
+    return reconnecting;
+  }
+
+  /**
+   * Called when the connection of the given generation has been closed.
+   */
+  void transportClosed(int generation) {
+    List<PendingRequest> failed;
+    synchronized (this) {
+      if (generation != connectionGeneration) {
+        // The connection of an abandoned attempt to reconnect
+        return;
       }
-    } catch (InterruptedException e) {
-      throw new RuntimeException("Interrupted while waiting for response", e);
+      if (reconnecting) {
+        scheduleReconnect();
+        return;
+      }
+      CompletableFuture<VmService> connected = this.connected;
+      if (reconnectMinDelayMillis == 0 || disconnecting
+          || (connected != null && (!connected.isDone() || connected.isCompletedExceptionally()))) {
+        failed = null;
+      } else {
+        Logging.getLogger().logInformation("Reconnecting to VM: " + url);
+        reconnecting = true;
+        reconnectDelayMillis = reconnectMinDelayMillis;
+        failed = holdRequests();
+        scheduleReconnect();
+      }
+    }
+    if (failed == null) {
+      connectionClosed();
+      return;
     }
+    for (PendingRequest pending : failed) {
+      pending.cancelTimeout();
+      metrics.requestFailed(pending.getMethod(), System.nanoTime() - pending.sentNanos);
+      for (PendingRequest each : completeRequest(pending)) {
+        try {
+          each.consumer.onError(RPCError.connectionClosed(each.getMethod()));
+        } catch (Exception e) {
+          Logging.getLogger().logError("Exception notifying consumer", e);
+        }
+      }
+    }
+  }
 
-    return vmService;
+  /**
+   * Queue the requests made from now on, followed by the pending requests that can be sent again,
+   * and return the pending requests that cannot, which have been removed from
+   * {@link #pendingRequests}.
+   */
+  private List<PendingRequest> holdRequests() {
+    transportSink.setConnection(null);
+    sessionSink.block();
+    if (requestSink instanceof CoalescingRequestSink) {
+      // Queue the requests that have not been sent yet rather than failing them
+      ((CoalescingRequestSink) requestSink).flush();
+    }
+    Set<Integer> queuedIds = new HashSet<>();
+    for (JsonObject request : sessionSink.getQueuedRequests()) {
+      queuedIds.add(request.get(ID).getAsInt());
+    }
+    List<PendingRequest> replayed = new ArrayList<>();
+    List<PendingRequest> failed = new ArrayList<>();
+    for (PendingRequest pending : pendingRequests.values()) {
+      if (queuedIds.contains(pending.getId())) {
+        continue;
+      }
+      if (pending.replay != null) {
+        replayed.add(pending);
+      } else if (pendingRequests.remove(pending.getId(), pending)) {
+        failed.add(pending);
+      }
+    }
+    Collections.sort(replayed, new Comparator<PendingRequest>() {
+      @Override
+      public int compare(PendingRequest first, PendingRequest second) {
+        return Integer.compare(first.getId(), second.getId());
+      }
+    });
+    for (PendingRequest pending : replayed) {
+      sessionSink.add(pending.replay);
+    }
+    return failed;
   }
 
   /**
-   * Connect to the VM observatory service on the given local port.
-   *
-   * @return an API object for interacting with the VM service (not {@code null}).
+   * Schedule the next attempt to re-establish the connection. Must be called holding the lock on
+   * {@code this}.
+   */
+  private void scheduleReconnect() {
+    final int generation = ++connectionGeneration;
+    long delay = reconnectDelayMillis;
+    reconnectDelayMillis = Math.min(delay * 2, reconnectMaxDelayMillis);
+    // Spread the attempts of services that lost their connections at the same time
+    delay = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    timer.schedule(new Runnable() {
+      @Override
+      public void run() {
+        getConnectExecutor().execute(new Runnable() {
+          @Override
+          public void run() {
+            reconnect(generation);
+          }
+        });
+      }
+    }, delay, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stop re-establishing the connection, if it is being re-established. Must be called holding the
+   * lock on {@code this}.
    *
-   * @deprecated prefer the Url based constructor {@link VmServiceBase#connect}
+   * @return {@code true} if the connection was being re-established
    */
-  @Deprecated
-  public static VmService localConnect(int port) throws IOException {
-    return connect("ws://localhost:" + port + "/ws");
+  private boolean stopReconnecting() {
+    if (!reconnecting) {
+      return false;
+    }
+    reconnecting = false;
+    connectionGeneration++;
+    return true;
   }
 
   /**
-   * A mapping between {@link String} ids' and the associated {@link Consumer} that was passed when
-   * the request was made. Synchronize against {@link #consumerMapLock} before accessing this field.
+   * Attempt to re-establish the connection, and schedule the next attempt if it fails.
    */
-  private final Map<String, Consumer> consumerMap = Maps.newHashMap();
+  private void reconnect(final int generation) {
+    final String url;
+    final Transport transport;
+    synchronized (this) {
+      if (generation != connectionGeneration) {
+        return;
+      }
+      url = this.url;
+      transport = this.transport;
+    }
+    final TransportConnection connection;
+    try {
+      connection = openConnection(url, transport, (VmService) this, generation);
+    } catch (IOException | RuntimeException e) {
+      Logging.getLogger().logInformation("Failed to reconnect to VM: " + e.getMessage());
+      retryReconnect(generation, null);
+      return;
+    }
+    synchronized (this) {
+      if (generation != connectionGeneration) {
+        connection.close();
+        return;
+      }
+      transportSink.setConnection(connection);
+    }
+
+    // Check the protocol version, which may have changed if the VM has been restarted, bypassing
+    // the queued requests
+    request("getVersion", new JsonObject(), new VersionConsumer() {
+      @Override
+      public void onError(RPCError error) {
+        Logging.getLogger().logInformation("Failed to determine protocol version: "
+            + error.getCode() + "\n  message: " + error.getMessage());
+        retryReconnect(generation, connection);
+      }
+
+      @Override
+      public void received(Version version) {
+        runtimeVersion = version;
+        relistenStreams(generation);
+      }
+    }, VERSION_TIMEOUT_MILLIS, transportSink, false);
+  }
 
   /**
-   * The object used to synchronize access to {@link #consumerMap}.
+   * Schedule the next attempt to re-establish the connection after the attempt of the given
+   * generation failed, and close the connection of that attempt, if any.
    */
-  private final Object consumerMapLock = new Object();
+  private void retryReconnect(int generation, TransportConnection connection) {
+    synchronized (this) {
+      if (generation == connectionGeneration) {
+        scheduleReconnect();
+      }
+    }
+    if (connection != null) {
+      connection.close();
+    }
+  }
 
   /**
-   * The unique ID for the next request.
+   * Listen to the streams that were listened to on the previous connection, then send the queued
+   * requests.
    */
-  private final AtomicInteger nextId = new AtomicInteger();
+  private void relistenStreams(final int generation) {
+    List<String> streamIds = new ArrayList<>(listenedStreams);
+    if (streamIds.isEmpty()) {
+      resumeRequests(generation);
+      return;
+    }
+    final AtomicInteger remaining = new AtomicInteger(streamIds.size());
+    for (final String streamId : streamIds) {
+      JsonObject params = new JsonObject();
+      params.addProperty("streamId", streamId);
+      request("streamListen", params, new SuccessConsumer() {
+        @Override
+        public void onError(RPCError error) {
+          // A VM that was not restarted is still listening to the stream
+          if (error.getCode() != RPCError.STREAM_ALREADY_SUBSCRIBED) {
+            Logging.getLogger().logInformation("Failed to listen to " + streamId + ": "
+                + error.getMessage());
+          }
+          received(null);
+        }
+
+        @Override
+        public void received(Success response) {
+          if (remaining.decrementAndGet() == 0) {
+            resumeRequests(generation);
+          }
+        }
+      }, VERSION_TIMEOUT_MILLIS, transportSink, false);
+    }
+  }
 
   /**
-   * A list of objects to which {@link Event}s from the VM are forwarded.
+   * Send the queued requests over the re-established connection of the given generation.
    */
-  private final List<VmServiceListener> vmListeners = new ArrayList<>();
+  private void resumeRequests(int generation) {
+    synchronized (this) {
+      if (generation != connectionGeneration || !reconnecting) {
+        return;
+      }
+      reconnecting = false;
+      // Do not send the requests that have failed or been cancelled in the meantime
+      sessionSink.removeQueuedRequests(new Predicate<JsonObject>() {
+        @Override
+        public boolean test(JsonObject request) {
+          return pendingRequests.get(request.get(ID).getAsInt()) == null;
+        }
+      });
+      sessionSink.toPassthroughSink();
+    }
+    Logging.getLogger().logInformation("Reconnected to VM: " + url);
+  }
 
   /**
-   * A list of objects to which {@link Event}s from the VM are forwarded.
+   * Return the VM service protocol version supported by the current debug connection.
    */
-  private final Map<String, RemoteServiceRunner> remoteServiceRunners = Maps.newHashMap();
+  public Version getRuntimeVersion() {
+    return runtimeVersion;
+  }
 
   /**
-   * The channel through which observatory requests are made.
+   * Set the time to wait for the response to each subsequent request before failing it with an
+   * {@link RPCError#REQUEST_TIMEOUT} error. A timeout of 0 waits indefinitely, which is the default.
    */
-  RequestSink requestSink;
+  public void setRequestTimeout(long timeout, TimeUnit unit) {
+    requestTimeoutMillis = unit.toMillis(timeout);
+  }
 
-  Version runtimeVersion;
+  /**
+   * Set whether a request for a method without side effects, such as {@code getObject} or
+   * {@code getIsolate}, made while an identical request is waiting for its response shares that
+   * response rather than being sent to the VM again. This is enabled by default.
+   */
+  public void setRequestDeduplication(boolean enabled) {
+    deduplicateRequests = enabled;
+  }
+
+  public VmServiceMetrics getMetrics() {
+    return metrics;
+  }
 
   /**
-   * Add a listener to receive {@link Event}s from the VM.
+   * Set the receiver of measurements of the traffic of this service, such as a
+   * {@link org.dartlang.vm.service.metrics.VmServiceStatistics}, or {@code null} to stop measuring.
+   */
+  public void setMetrics(VmServiceMetrics metrics) {
+    this.metrics = metrics == null ? VmServiceMetrics.NULL : metrics;
+    RequestSink sink = requestSink;
+    if (sink instanceof CoalescingRequestSink) {
+      sink = ((CoalescingRequestSink) sink).getBase();
+    }
+    if (sink instanceof BlockingRequestSink) {
+      sink = ((BlockingRequestSink) sink).getBase();
+    }
+    if (sink instanceof TransportRequestSink) {
+      ((TransportRequestSink) sink).setMetrics(this.metrics);
+    } else if (sink instanceof WebSocketRequestSink) {
+      ((WebSocketRequestSink) sink).setMetrics(this.metrics);
+    }
+  }
+
+  /**
+   * Send the requests made within the given window of each other, or between
+   * {@link #beginBatch()} and {@link #endBatch()}, as a single JSON-RPC batch. With a window of 0,
+   * only the requests of explicit batch scopes are gathered. Batches require a service that
+   * accepts them, such as the Dart Development Service.
    */
-  public void addVmServiceListener(VmServiceListener listener) {
-    vmListeners.add(listener);
+  public synchronized void enableRequestBatching(long window, TimeUnit unit) {
+    RequestSink sink = requestSink;
+    if (sink instanceof CoalescingRequestSink) {
+      ((CoalescingRequestSink) sink).flush();
+      sink = ((CoalescingRequestSink) sink).getBase();
+    }
+    requestSink = new CoalescingRequestSink(sink, window, unit, MAX_BATCH_SIZE);
   }
 
   /**
-   * Remove the given listener from the VM.
+   * Send each subsequent request on its own, which is the default.
    */
-  public void removeVmServiceListener(VmServiceListener listener) {
-    vmListeners.remove(listener);
+  public synchronized void disableRequestBatching() {
+    if (requestSink instanceof CoalescingRequestSink) {
+      CoalescingRequestSink sink = (CoalescingRequestSink) requestSink;
+      requestSink = sink.getBase();
+      sink.flush();
+    }
   }
 
   /**
-   * Add a VM RemoteServiceRunner.
+   * Hold subsequent requests until the matching {@link #endBatch()}, then send them as one batch.
+   * Scopes may be nested.
+   *
+   * @throws IllegalStateException if request batching has not been enabled
    */
-  public void addServiceRunner(String service, RemoteServiceRunner runner) {
-    remoteServiceRunners.put(service, runner);
+  public void beginBatch() {
+    getCoalescingSink().beginBatch();
   }
 
   /**
-   * Remove a VM RemoteServiceRunner.
+   * Close the current batch scope, and send the requests made within it when it is the outermost.
+   *
+   * @throws IllegalStateException if request batching has not been enabled
    */
-  public void removeServiceRunner(String service) {
-    remoteServiceRunners.remove(service);
+  public void endBatch() {
+    getCoalescingSink().endBatch();
+  }
+
+  private CoalescingRequestSink getCoalescingSink() {
+    RequestSink sink = requestSink;
+    if (!(sink instanceof CoalescingRequestSink)) {
+      throw new IllegalStateException("Request batching is not enabled");
+    }
+    return (CoalescingRequestSink) sink;
   }
 
   /**
-   * Return the VM service protocol version supported by the current debug connection.
+   * Return the number of requests that have been sent but not yet answered.
    */
-  public Version getRuntimeVersion() {
-    return runtimeVersion;
+  public int getPendingRequestCount() {
+    return pendingRequests.size();
   }
 
   /**
    * Disconnect from the VM observatory service.
    */
   public void disconnect() {
+    boolean wasReconnecting;
+    synchronized (this) {
+      disconnecting = true;
+      wasReconnecting = stopReconnecting();
+    }
     requestSink.close();
+    // The connection of an abandoned attempt to reconnect does not notify the listeners
+    if (wasReconnecting) {
+      connectionClosed();
+    }
   }
 
   /**
@@ -293,6 +1039,34 @@ abstract class VmServiceBase implements VmServiceConst {
     });
   }
 
+  /**
+   * Return a future that is completed with the instance with the given identifier.
+   */
+  public CompletableFuture<Instance> getInstanceAsync(String isolateId, String instanceId) {
+    return getObjectAsync(isolateId, instanceId, Instance.class);
+  }
+
+  /**
+   * Return a future that is completed with the library with the given identifier.
+   */
+  public CompletableFuture<Library> getLibraryAsync(String isolateId, String libraryId) {
+    return getObjectAsync(isolateId, libraryId, Library.class);
+  }
+
+  /**
+   * Return a future that is completed with the script with the given identifier.
+   */
+  public CompletableFuture<Script> getScriptAsync(String isolateId, String scriptId) {
+    return getObjectAsync(isolateId, scriptId, Script.class);
+  }
+
+  private <T extends Obj> CompletableFuture<T> getObjectAsync(String isolateId, String objectId, Class<T> objectClass) {
+    JsonObject params = new JsonObject();
+    params.addProperty("isolateId", isolateId);
+    params.addProperty("objectId", objectId);
+    return requestAsync("getObject", params, objectClass);
+  }
+
   public abstract void getObject(String isolateId, String objectId, GetObjectConsumer consumer);
 
   /**
@@ -316,13 +1090,89 @@ abstract class VmServiceBase implements VmServiceConst {
     request(method, params, consumer);
   }
 
+  /**
+   * Invoke a specific service protocol extension method and return a future that is completed with
+   * the raw JSON result.
+   * <p>
+   * See https://api.dart.dev/stable/dart-developer/dart-developer-library.html.
+   */
+  public CompletableFuture<JsonObject> callServiceExtensionAsync(String isolateId, String method) {
+    return callServiceExtensionAsync(isolateId, method, new JsonObject());
+  }
+
+  /**
+   * Invoke a specific service protocol extension method and return a future that is completed with
+   * the raw JSON result.
+   * <p>
+   * See https://api.dart.dev/stable/dart-developer/dart-developer-library.html.
+   */
+  public CompletableFuture<JsonObject> callServiceExtensionAsync(String isolateId, String method, JsonObject params) {
+    params.addProperty("isolateId", isolateId);
+    return requestAsync(method, params, JsonObject.class);
+  }
+
   /**
    * Sends the request and associates the request with the passed {@link Consumer}.
+   *
+   * @return a handle that can be used to cancel the request
+   */
+  protected PendingRequest request(String method, JsonObject params, Consumer consumer) {
+    return request(method, params, consumer, requestTimeoutMillis);
+  }
+
+  /**
+   * Sends the request and associates the request with the passed {@link Consumer}. If no response
+   * is received within the given number of milliseconds, the consumer is notified with an
+   * {@link RPCError#REQUEST_TIMEOUT} error. A timeout of 0 waits indefinitely.
+   * <p>
+   * If an identical request for a method without side effects is already waiting for its response,
+   * no request is sent and the consumer receives that response, or fails with that request. The
+   * given timeout still applies to the consumer.
+   *
+   * @return a handle that can be used to cancel the request
+   */
+  protected PendingRequest request(String method, JsonObject params, Consumer consumer, final long timeoutMillis) {
+    if ("streamListen".equals(method) || "streamCancel".equals(method)) {
+      JsonElement streamId = params.get("streamId");
+      if (streamId != null && streamId.isJsonPrimitive()) {
+        if ("streamListen".equals(method)) {
+          listenedStreams.add(streamId.getAsString());
+        } else {
+          listenedStreams.remove(streamId.getAsString());
+        }
+      }
+    }
+    return request(method, params, consumer, timeoutMillis, null, deduplicateRequests);
+  }
+
+  /**
+   * @param sink the sink to send the request to, bypassing any queued requests, or {@code null} to
+   *             send it to {@link #requestSink}
    */
-  protected void request(String method, JsonObject params, Consumer consumer) {
+  private PendingRequest request(String method, JsonObject params, Consumer consumer,
+      final long timeoutMillis, RequestSink sink, boolean deduplicate) {
+
+    // Share the response to an identical request in flight
+    RequestKey dedupKey = null;
+    if (deduplicate && IDEMPOTENT_METHODS.contains(method)) {
+      dedupKey = new RequestKey(method, params);
+      PendingRequest leader = inFlightRequests.get(dedupKey);
+      if (leader != null) {
+        PendingRequest follower = new PendingRequest(this, leader.getId(), method, consumer,
+            findResponseForwarder(method, consumer), null, leader);
+        // Armed first so that the timeout is cancelled if the response is shared right away
+        if (timeoutMillis > 0) {
+          armTimeout(follower, timeoutMillis);
+        }
+        if (leader.addFollower(follower)) {
+          return follower;
+        }
+        follower.cancelTimeout();
+      }
+    }
 
     // Assemble the request
-    String id = Integer.toString(nextId.incrementAndGet());
+    int id = nextId.incrementAndGet();
     JsonObject request = new JsonObject();
 
     request.addProperty(JSONRPC, JSONRPC_VERSION);
@@ -331,16 +1181,112 @@ abstract class VmServiceBase implements VmServiceConst {
     request.add(PARAMS, params);
 
     // Cache the consumer to receive the response
-    synchronized (consumerMapLock) {
-      consumerMap.put(id, consumer);
+    final PendingRequest pending = new PendingRequest(this, id, method, consumer,
+        findResponseForwarder(method, consumer), dedupKey, null);
+    if (sink == null && IDEMPOTENT_METHODS.contains(method)) {
+      pending.replay = request;
+    }
+    pendingRequests.put(id, pending);
+    if (dedupKey != null) {
+      inFlightRequests.put(dedupKey, pending);
+    }
+    metrics.requestSent(method, pendingRequests.size());
+    if (timeoutMillis > 0) {
+      armTimeout(pending, timeoutMillis);
+    }
+
+    // Send the request, reading the sink after the request is pending so that it is either queued
+    // or sent again when the connection is re-established
+    (sink != null ? sink : requestSink).add(request);
+    return pending;
+  }
+
+  /**
+   * Fail the given request, and the requests sharing its response, if it has not been answered
+   * within the given number of milliseconds.
+   */
+  private void armTimeout(final PendingRequest pending, final long timeoutMillis) {
+    pending.timeout = timer.schedule(new Runnable() {
+      @Override
+      public void run() {
+        List<PendingRequest> timedOut;
+        if (pending.leader != null) {
+          if (!pending.leader.removeFollower(pending)) {
+            return;
+          }
+          timedOut = Collections.singletonList(pending);
+        } else if (pendingRequests.remove(pending.getId(), pending)) {
+          metrics.requestFailed(pending.getMethod(), System.nanoTime() - pending.sentNanos);
+          timedOut = completeRequest(pending);
+        } else {
+          return;
+        }
+        for (PendingRequest each : timedOut) {
+          try {
+            each.consumer.onError(RPCError.timeout(each.getMethod(), timeoutMillis));
+          } catch (Exception e) {
+            Logging.getLogger().logError("Exception notifying consumer", e);
+          }
+        }
+      }
+    }, timeoutMillis, TimeUnit.MILLISECONDS);
+  }
+
+  boolean cancelRequest(PendingRequest pending) {
+    if (pending.leader != null) {
+      if (pending.leader.removeFollower(pending)) {
+        pending.cancelTimeout();
+        return true;
+      }
+      return false;
+    }
+    if (pending.isCancelled()) {
+      return false;
+    }
+    // Keep waiting for a response that is shared with other requests
+    if (pending.cancelIfShared()) {
+      return true;
+    }
+    if (pendingRequests.remove(pending.getId(), pending)) {
+      pending.cancelTimeout();
+      if (pending.dedupKey != null) {
+        inFlightRequests.remove(pending.dedupKey, pending);
+      }
+      return true;
+    }
+    return false;
+  }
+
+  boolean isPending(PendingRequest pending) {
+    if (pending.leader != null) {
+      return pending.leader.hasFollower(pending);
+    }
+    return pendingRequests.get(pending.getId()) == pending && !pending.isCancelled();
+  }
+
+  /**
+   * Stop sharing the response to the given request, which has been removed from
+   * {@link #pendingRequests}, and return the requests whose consumers should be notified.
+   */
+  private List<PendingRequest> completeRequest(PendingRequest pending) {
+    if (pending.dedupKey != null) {
+      inFlightRequests.remove(pending.dedupKey, pending);
     }
+    return pending.complete();
+  }
 
-    // Send the request
-    requestSink.add(request);
+  /**
+   * Sends the request and returns a future that is completed with the response of the given type,
+   * or completed exceptionally with an {@link RPCException} if the request fails.
+   */
+  protected <T> CompletableFuture<T> requestAsync(String method, JsonObject params, Class<T> responseClass) {
+    ResponseFuture<T> future = new ResponseFuture<>(responseClass);
+    future.setRequest(request(method, params, future));
+    return future;
   }
 
   public void connectionOpened() {
-    for (VmServiceListener listener : new ArrayList<>(vmListeners)) {
+    for (VmServiceListener listener : vmListeners) {
       try {
         listener.connectionOpened();
       } catch (Exception e) {
@@ -349,18 +1295,78 @@ abstract class VmServiceBase implements VmServiceConst {
     }
   }
 
-  private void forwardEvent(String streamId, Event event) {
-    for (VmServiceListener listener : new ArrayList<>(vmListeners)) {
+  private void forwardEvent(final String streamId, final Event event, ByteBuffer data) {
+    StreamDispatch dispatch = eventDispatchers.get(streamId);
+    if (dispatch == null) {
+      deliverEvent(streamId, event, data);
+      return;
+    }
+    // The payload is only valid until this returns
+    final ByteBuffer copy;
+    if (data != null) {
+      copy = ByteBuffer.allocate(data.remaining());
+      copy.put(data.duplicate()).flip();
+    } else {
+      copy = null;
+    }
+    dispatch.dispatcher.dispatch(dispatch.coalesceKey.apply(event), new Runnable() {
+      @Override
+      public void run() {
+        deliverEvent(streamId, event, copy);
+      }
+    });
+  }
+
+  private void deliverEvent(String streamId, Event event, ByteBuffer data) {
+    VmServiceMetrics metrics = this.metrics;
+    long start = metrics != VmServiceMetrics.NULL ? System.nanoTime() : 0;
+    for (VmServiceListener listener : vmListeners) {
       try {
-        listener.received(streamId, event);
+        if (data != null && listener instanceof VmServiceBinaryListener) {
+          ((VmServiceBinaryListener) listener).received(streamId, event, data.duplicate());
+        } else {
+          listener.received(streamId, event);
+        }
       } catch (Exception e) {
         Logging.getLogger().logError("Exception processing event: " + streamId + ", " + event.getJson(), e);
       }
     }
+    if (metrics != VmServiceMetrics.NULL) {
+      metrics.eventDelivered(streamId, System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Return the key with which an event replaces a queued event of the same kind for the same
+   * isolate, or {@code null} for events that change or report the state of an isolate, which
+   * listeners must all see.
+   */
+  private static Object defaultCoalesceKey(Event event) {
+    EventKind kind = event.getKind();
+    String name = kind.name();
+    if (name.startsWith("Pause") || name.startsWith("Breakpoint") || kind == EventKind.Resume
+        || kind == EventKind.WriteEvent) {
+      return null;
+    }
+    IsolateRef isolate = event.getIsolate();
+    return Arrays.asList(kind, isolate != null ? isolate.getId() : null);
   }
 
   public void connectionClosed() {
-    for (VmServiceListener listener : new ArrayList<>(vmListeners)) {
+    // Fail all requests that will never be answered
+    for (PendingRequest pending : pendingRequests.removeAll()) {
+      pending.cancelTimeout();
+      metrics.requestFailed(pending.getMethod(), System.nanoTime() - pending.sentNanos);
+      for (PendingRequest each : completeRequest(pending)) {
+        try {
+          each.consumer.onError(RPCError.connectionClosed(each.getMethod()));
+        } catch (Exception e) {
+          Logging.getLogger().logError("Exception notifying consumer", e);
+        }
+      }
+    }
+
+    for (VmServiceListener listener : vmListeners) {
       try {
         listener.connectionClosed();
       } catch (Exception e) {
@@ -369,7 +1375,55 @@ abstract class VmServiceBase implements VmServiceConst {
     }
   }
 
-  abstract void forwardResponse(Consumer consumer, String type, JsonObject json);
+  /**
+   * Return the {@link ResponseForwarder} for the given method, or {@code null} if the method is not
+   * part of the generated protocol.
+   */
+  abstract ResponseForwarder getResponseForwarder(String method);
+
+  /**
+   * Return the {@link ResponseForwarder}s for all methods in the generated protocol.
+   */
+  abstract Collection<ResponseForwarder> getResponseForwarders();
+
+  /**
+   * Return the {@link ResponseForwarder} to use for the response to the given request, or
+   * {@code null} if the consumer does not implement a generated consumer interface.
+   */
+  private ResponseForwarder findResponseForwarder(String method, Consumer consumer) {
+    if (consumer instanceof ResponseFuture || consumer instanceof ServiceExtensionConsumer) {
+      return null;
+    }
+    ResponseForwarder forwarder = getResponseForwarder(method);
+    if (forwarder != null && forwarder.accepts(consumer)) {
+      return forwarder;
+    }
+    // The consumer was passed with a method other than the one its type was generated for,
+    // such as a service extension.
+    for (ResponseForwarder each : getResponseForwarders()) {
+      if (each.accepts(consumer)) {
+        return each;
+      }
+    }
+    return null;
+  }
+
+  void forwardResponse(PendingRequest pending, String responseType, JsonObject json) {
+    Consumer consumer = pending.consumer;
+    ResponseForwarder forwarder = pending.forwarder;
+    if (forwarder != null && forwarder.forward(consumer, responseType, json)) {
+      return;
+    }
+    if (consumer instanceof ServiceExtensionConsumer) {
+      ((ServiceExtensionConsumer) consumer).received(json);
+      return;
+    }
+    logUnknownResponse(consumer, json);
+  }
+
+  private static boolean isRawJsonFuture(Consumer consumer) {
+    return consumer instanceof ResponseFuture && ((ResponseFuture<?>) consumer).isRawJson();
+  }
 
   void logUnknownResponse(Consumer consumer, JsonObject json) {
     Class<? extends Consumer> consumerClass = consumer.getClass();
@@ -390,16 +1444,112 @@ abstract class VmServiceBase implements VmServiceConst {
     if (jsonText == null || jsonText.isEmpty()) {
       return;
     }
+    processMessage(MessageText.of(jsonText));
+  }
 
-    // Decode the JSON
-    JsonObject json;
+  /**
+   * Process a message from the VM service given as the remaining UTF-8 encoded bytes of the buffer,
+   * which are only read during this call. See {@link #processMessage(MessageText)}.
+   */
+  void processTextMessage(ByteBuffer utf8) {
+    if (!utf8.hasRemaining()) {
+      return;
+    }
+    processMessage(MessageText.of(utf8));
+  }
+
+  /**
+   * Process a message from the VM service, or a JSON-RPC batch of messages. The top level members
+   * of a message are located before any of them is decoded, so that the result of a response is
+   * only decoded if a consumer is still waiting for it, whichever of its result and its id comes
+   * first. The result is decoded from the message text, without copying it to a {@link String}.
+   */
+  private void processMessage(MessageText text) {
+    int index;
+    boolean batch;
+    try {
+      index = text.skipWhitespace(0);
+      batch = index < text.length() && text.charAt(index) == '[';
+      if (batch) {
+        index = text.skipWhitespace(index + 1);
+        if (index < text.length() && text.charAt(index) == ']') {
+          return;
+        }
+      }
+    } catch (Exception e) {
+      Logging.getLogger().logError("Parse message failed", e);
+      return;
+    }
+    do {
+      // Decode the JSON
+      JsonObject json;
+      try {
+        int end = text.skipValue(index);
+        json = readMessage(text, index, end);
+        index = text.skipWhitespace(end);
+        if (batch) {
+          if (index >= text.length()) {
+            throw new JsonParseException("Unterminated batch");
+          }
+          int c = text.charAt(index);
+          if (c == ']') {
+            batch = false;
+          } else if (c == ',') {
+            index = text.skipWhitespace(index + 1);
+          } else {
+            throw new JsonParseException("Expected , or ] in batch but found " + (char) c);
+          }
+        }
+      } catch (Exception e) {
+        Logging.getLogger().logError("Parse message failed", e);
+        return;
+      }
+      if (json != null) {
+        dispatchMessage(json);
+      }
+    } while (batch);
+  }
+
+  /**
+   * Process a message from the VM service read from the given reader. The message envelope is
+   * decoded incrementally, so the message text does not need to be materialized as a
+   * {@link String}, and the result of a response that no longer has a consumer is skipped without
+   * being decoded if the id of the response comes first. The message may also be a JSON-RPC batch, an array of messages such as the
+   * responses to a batch of requests, whose messages are processed in order.
+   */
+  void processMessage(Reader jsonReader) {
+    JsonReader reader = new JsonReader(jsonReader);
+    reader.setLenient(true);
+    boolean batch;
     try {
-      json = (JsonObject) new JsonParser().parse(jsonText);
+      batch = reader.peek() == JsonToken.BEGIN_ARRAY;
+      if (batch) {
+        reader.beginArray();
+      }
     } catch (Exception e) {
-      Logging.getLogger().logError("Parse message failed: " + jsonText, e);
+      Logging.getLogger().logError("Parse message failed", e);
       return;
     }
+    do {
+      // Decode the JSON
+      JsonObject json;
+      try {
+        if (batch && !reader.hasNext()) {
+          reader.endArray();
+          return;
+        }
+        json = readMessage(reader);
+      } catch (Exception e) {
+        Logging.getLogger().logError("Parse message failed", e);
+        return;
+      }
+      if (json != null) {
+        dispatchMessage(json);
+      }
+    } while (batch);
+  }
 
+  private void dispatchMessage(JsonObject json) {
     if (json.has("method")) {
       if (!json.has(PARAMS)) {
         final String message = "Missing " + PARAMS;
@@ -425,6 +1575,147 @@ abstract class VmServiceBase implements VmServiceConst {
     }
   }
 
+  /**
+   * Decode the top level members of the message between the given indices of the text, the result
+   * of a response last. Return {@code null} if the message is a response that can be ignored
+   * because there is no longer a consumer waiting for it.
+   */
+  private JsonObject readMessage(MessageText text, int start, int end) {
+    if (text.charAt(start) != '{') {
+      throw new JsonParseException(
+          "Expected message object but found " + (char) text.charAt(start));
+    }
+    JsonObject json = new JsonObject();
+    int resultStart = -1;
+    int resultEnd = -1;
+    int index = text.skipWhitespace(start + 1);
+    if (text.charAt(index) != '}') {
+      while (true) {
+        if (text.charAt(index) != '"') {
+          throw new JsonParseException("Expected member name at " + index);
+        }
+        int nameEnd = text.skipValue(index);
+        String name = decodeValue(text, index, nameEnd).getAsString();
+        index = text.skipWhitespace(nameEnd);
+        if (index >= end || text.charAt(index) != ':') {
+          throw new JsonParseException("Expected : after member " + name);
+        }
+        int valueStart = text.skipWhitespace(index + 1);
+        int valueEnd = text.skipValue(valueStart);
+        if (RESULT.equals(name)) {
+          resultStart = valueStart;
+          resultEnd = valueEnd;
+        } else {
+          json.add(name, decodeValue(text, valueStart, valueEnd));
+        }
+        index = text.skipWhitespace(valueEnd);
+        if (index >= end) {
+          throw new JsonParseException("Unterminated message object");
+        }
+        if (text.charAt(index) == '}') {
+          break;
+        }
+        if (text.charAt(index) != ',') {
+          throw new JsonParseException("Expected , or } in message object at " + index);
+        }
+        index = text.skipWhitespace(index + 1);
+      }
+    }
+    if (resultStart >= 0) {
+      if (!json.has(METHOD) && !hasPendingRequest(json.get(ID))) {
+        Logging.getLogger().logInformation("No consumer associated with " + ID + ": " + json.get(ID));
+        return null;
+      }
+      json.add(RESULT, decodeValue(text, resultStart, resultEnd));
+    }
+    return json;
+  }
+
+  /**
+   * Decode the value between the given indices of the text. Strings without escape sequences,
+   * such as most member names and ids, are decoded without a parser.
+   */
+  private JsonElement decodeValue(MessageText text, int start, int end) {
+    if (text.charAt(start) == '"' && !text.hasEscape(start + 1, end - 1)) {
+      return new JsonPrimitive(text.substring(start + 1, end - 1));
+    }
+    return jsonParser.parse(text.reader(start, end));
+  }
+
+  /**
+   * Read the top level members of a message. Return {@code null} if the message is a response that
+   * can be ignored because there is no longer a consumer waiting for it.
+   */
+  private JsonObject readMessage(JsonReader reader) throws IOException {
+    if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+      throw new JsonParseException("Expected message object but found " + reader.peek());
+    }
+    JsonObject json = new JsonObject();
+    boolean ignoreResult = false;
+    reader.beginObject();
+    while (reader.hasNext()) {
+      String name = reader.nextName();
+      if (RESULT.equals(name) && ignoreResult) {
+        reader.skipValue();
+        continue;
+      }
+      JsonElement value = jsonParser.parse(reader);
+      json.add(name, value);
+      // The id usually follows the result, but when it is known first and nothing is waiting for
+      // the response, avoid building the result tree.
+      if (ID.equals(name) && !json.has(METHOD) && !json.has(RESULT)) {
+        ignoreResult = !hasPendingRequest(value);
+      }
+    }
+    reader.endObject();
+    if (ignoreResult && !json.has(METHOD)) {
+      Logging.getLogger().logInformation("No consumer associated with " + ID + ": " + json.get(ID));
+      return null;
+    }
+    return json;
+  }
+
+  /**
+   * Process a binary message from the VM service. A binary message starts with the little endian
+   * offset of its payload, followed by the UTF-8 encoded JSON of a stream notification and then
+   * the payload itself, which is forwarded to {@link VmServiceBinaryListener}s without being
+   * copied.
+   */
+  void processBinaryMessage(ByteBuffer message) {
+    ByteBuffer bytes = message.slice().order(ByteOrder.LITTLE_ENDIAN);
+    JsonObject json;
+    ByteBuffer data;
+    try {
+      int dataOffset = bytes.getInt(0);
+      if (dataOffset < 4 || dataOffset > bytes.limit()) {
+        throw new JsonParseException("Invalid binary message data offset " + dataOffset);
+      }
+      ByteBuffer meta = bytes.duplicate();
+      meta.position(4).limit(dataOffset);
+      json = jsonParser.parse(StandardCharsets.UTF_8.decode(meta).toString()).getAsJsonObject();
+      data = bytes.duplicate();
+      data.position(dataOffset);
+      data = data.slice();
+    } catch (Exception e) {
+      Logging.getLogger().logError("Parse binary message failed", e);
+      return;
+    }
+    if (!json.has(METHOD) || !json.has(PARAMS)) {
+      Logging.getLogger().logError("Malformed binary message");
+      return;
+    }
+    processNotification(json, data);
+  }
+
+  private boolean hasPendingRequest(JsonElement idElem) {
+    try {
+      return pendingRequests.get(idElem.getAsInt()) != null;
+    } catch (Exception e) {
+      // Let processResponse report the invalid id
+      return true;
+    }
+  }
+
   void processRequest(JsonObject json) {
     final JsonObject response = new JsonObject();
     response.addProperty(JSONRPC, JSONRPC_VERSION);
@@ -527,6 +1818,14 @@ abstract class VmServiceBase implements VmServiceConst {
       };
 
   void processNotification(JsonObject json) {
+    processNotification(json, null);
+  }
+
+  /**
+   * Process a notification, where {@code data} is the payload of an event received in a binary
+   * message or {@code null}.
+   */
+  private void processNotification(JsonObject json, ByteBuffer data) {
     String method;
     try {
       method = json.get(METHOD).getAsString();
@@ -556,7 +1855,7 @@ abstract class VmServiceBase implements VmServiceConst {
         Logging.getLogger().logError("Event missing " + EVENT, e);
         return;
       }
-      forwardEvent(streamId, event);
+      forwardEvent(streamId, event, data);
     } else {
       if (!remoteServiceRunners.containsKey(method)) {
         Logging.getLogger().logError("Unknown service " + method);
@@ -580,18 +1879,33 @@ abstract class VmServiceBase implements VmServiceConst {
     }
 
     // Get the consumer associated with this response
-    String id;
+    int id;
     try {
-      id = idElem.getAsString();
+      id = idElem.getAsInt();
     } catch (Exception e) {
-      Logging.getLogger().logError("Response missing " + ID, e);
+      Logging.getLogger().logError("Response has invalid " + ID + ": " + idElem, e);
       return;
     }
-    Consumer consumer = consumerMap.remove(id);
-    if (consumer == null) {
-      Logging.getLogger().logError("No consumer associated with " + ID + ": " + id);
+    PendingRequest pending = pendingRequests.remove(id);
+    if (pending == null) {
+      // The request may have timed out or been cancelled
+      Logging.getLogger().logInformation("No consumer associated with " + ID + ": " + id);
       return;
     }
+    pending.cancelTimeout();
+    metrics.responseReceived(pending.getMethod(), System.nanoTime() - pending.sentNanos,
+        json.has(ERROR));
+    for (PendingRequest each : completeRequest(pending)) {
+      try {
+        processResponse(each, json);
+      } catch (Exception e) {
+        Logging.getLogger().logError("Exception notifying consumer", e);
+      }
+    }
+  }
+
+  private void processResponse(PendingRequest pending, JsonObject json) {
+    Consumer consumer = pending.consumer;
 
     // Forward the response if the request was successfully executed
     JsonElement resultElem = json.get(RESULT);
@@ -608,11 +1922,15 @@ abstract class VmServiceBase implements VmServiceConst {
         responseType = result.get(TYPE).getAsString();
       }
       // ServiceExtensionConsumers do not care about the response type.
-      else if (!(consumer instanceof ServiceExtensionConsumer)) {
+      else if (!(consumer instanceof ServiceExtensionConsumer) && !isRawJsonFuture(consumer)) {
         Logging.getLogger().logError("Response missing " + TYPE + ": " + result.toString());
         return;
       }
-      forwardResponse(consumer, responseType, result);
+      if (consumer instanceof ResponseFuture) {
+        ((ResponseFuture<?>) consumer).received(responseType, result);
+        return;
+      }
+      forwardResponse(pending, responseType, result);
       return;
     }
 
@@ -632,4 +1950,47 @@ abstract class VmServiceBase implements VmServiceConst {
 
     Logging.getLogger().logError("Response missing " + RESULT + " and " + ERROR);
   }
+
+  /**
+   * The method and parameters of a request, compared without serializing the parameters.
+   */
+  static final class RequestKey {
+    private final String method;
+    private final JsonObject params;
+    private final int hashCode;
+
+    RequestKey(String method, JsonObject params) {
+      this.method = method;
+      this.params = params;
+      this.hashCode = 31 * method.hashCode() + params.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof RequestKey)) {
+        return false;
+      }
+      RequestKey other = (RequestKey) obj;
+      return hashCode == other.hashCode && method.equals(other.method)
+          && params.equals(other.params);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  /**
+   * The dispatcher of a stream and the function returning the coalescing key of its events.
+   */
+  private static final class StreamDispatch {
+    final EventDispatcher dispatcher;
+    final Function<Event, Object> coalesceKey;
+
+    StreamDispatch(EventDispatcher dispatcher, Function<Event, Object> coalesceKey) {
+      this.dispatcher = dispatcher;
+      this.coalesceKey = coalesceKey;
+    }
+  }
 }
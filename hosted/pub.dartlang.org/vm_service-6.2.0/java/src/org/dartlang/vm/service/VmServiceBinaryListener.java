@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service;
+
+import org.dartlang.vm.service.element.Event;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link VmServiceListener} that also receives the binary payload of events delivered in binary
+ * frames, such as the chunks on the {@link VmService#HEAPSNAPSHOT_STREAM_ID} stream. Listeners that
+ * do not implement this interface receive those events without their payload.
+ */
+public interface VmServiceBinaryListener extends VmServiceListener {
+  /**
+   * Called when a VM event with a binary payload has been received.
+   *
+   * @param streamId the stream identifier (e.g. {@link VmService#HEAPSNAPSHOT_STREAM_ID}
+   * @param event    the event
+   * @param data     the payload, which is only valid for the duration of this call
+   */
+  void received(String streamId, Event event, ByteBuffer data);
+}
@@ -0,0 +1,367 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.cache;
+
+import org.dartlang.vm.service.RPCException;
+import org.dartlang.vm.service.VmService;
+import org.dartlang.vm.service.VmServiceListener;
+import org.dartlang.vm.service.element.Event;
+import org.dartlang.vm.service.element.EventKind;
+import org.dartlang.vm.service.element.Instance;
+import org.dartlang.vm.service.element.IsolateRef;
+import org.dartlang.vm.service.element.Library;
+import org.dartlang.vm.service.element.Obj;
+import org.dartlang.vm.service.element.RPCError;
+import org.dartlang.vm.service.element.Response;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+/**
+ * A cache of the responses to {@code getObject}, {@code getIsolate} and {@code getStack} requests.
+ * Object ids and their contents do not change while an isolate is paused, so a response is reused
+ * until the isolate is resumed, paused again, reloaded or exits. At most a given number of
+ * responses are retained, the least recently used being evicted first.
+ * <p>
+ * The cache learns about isolate state changes from the events of the
+ * {@link VmService#DEBUG_STREAM_ID} and {@link VmService#ISOLATE_STREAM_ID} streams, which the
+ * client must be listening to. Requests for an isolate that is not known to be paused, either from
+ * a pause event or from {@link #setPaused(String, boolean)}, are sent to the VM every time and
+ * their responses are not cached.
+ */
+public class ObjectCache implements VmServiceListener {
+  private static final String ISOLATE = "getIsolate";
+  private static final String OBJECT = "getObject";
+  private static final String STACK = "getStack";
+
+  private final VmService service;
+  private final int maxEntries;
+
+  /**
+   * The cached responses in least recently used order. Guarded by {@code this}.
+   */
+  private final LinkedHashMap<Key, CachedResponse> entries;
+
+  /**
+   * The current epoch of each isolate. An entry is only valid if it was requested in the current
+   * epoch of its isolate, so that a response requested before an isolate resumed is not cached
+   * after it. Guarded by {@code this}.
+   */
+  private final Map<String, Long> epochs = new HashMap<>();
+
+  private long nextEpoch;
+
+  /**
+   * The ids of the isolates known to be paused. Guarded by {@code this}.
+   */
+  private final Set<String> pausedIsolates = new HashSet<>();
+
+  /**
+   * Create a cache holding at most the given number of responses, and add it as a listener of the
+   * given service.
+   */
+  public ObjectCache(VmService service, final int maxEntries) {
+    if (maxEntries < 1) {
+      throw new IllegalArgumentException("maxEntries: " + maxEntries);
+    }
+    this.service = service;
+    this.maxEntries = maxEntries;
+    this.entries = new LinkedHashMap<Key, CachedResponse>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, CachedResponse> eldest) {
+        return size() > maxEntries;
+      }
+    };
+    service.addVmServiceListener(this);
+  }
+
+  /**
+   * Discard all responses and stop listening to the service.
+   */
+  public void dispose() {
+    service.removeVmServiceListener(this);
+    clear();
+  }
+
+  /**
+   * Discard all responses.
+   */
+  public synchronized void clear() {
+    entries.clear();
+    epochs.clear();
+    pausedIsolates.clear();
+  }
+
+  /**
+   * Discard the responses for the given isolate.
+   */
+  public synchronized void invalidate(String isolateId) {
+    epochs.put(isolateId, ++nextEpoch);
+    removeEntries(isolateId);
+  }
+
+  /**
+   * Record whether the given isolate is paused, for instance when the cache is created while an
+   * isolate is already paused and there will be no pause event for it. Responses are only cached
+   * while their isolate is paused.
+   */
+  public synchronized void setPaused(String isolateId, boolean paused) {
+    if (paused ? pausedIsolates.add(isolateId) : pausedIsolates.remove(isolateId)) {
+      invalidate(isolateId);
+    }
+  }
+
+  /**
+   * Return {@code true} if the given isolate is known to be paused.
+   */
+  public synchronized boolean isPaused(String isolateId) {
+    return pausedIsolates.contains(isolateId);
+  }
+
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+
+  /**
+   * Return the number of responses currently held.
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Return a future that is completed with the isolate with the given id, or a {@code Sentinel}.
+   */
+  public CompletableFuture<Response> getIsolate(String isolateId) {
+    return get(new Key(isolateId, ISOLATE, null), Response.class);
+  }
+
+  /**
+   * Return a future that is completed with the object with the given id, or a {@code Sentinel}.
+   */
+  public CompletableFuture<Response> getObject(String isolateId, String objectId) {
+    return get(new Key(isolateId, OBJECT, objectId), Response.class);
+  }
+
+  /**
+   * Return a future that is completed with the object with the given id, or completed
+   * exceptionally with an {@link RPCException} if the object is not of the given type.
+   */
+  public <T extends Obj> CompletableFuture<T> getObject(String isolateId, String objectId,
+      Class<T> objectClass) {
+    return get(new Key(isolateId, OBJECT, objectId), objectClass);
+  }
+
+  /**
+   * Return a future that is completed with the instance with the given id.
+   */
+  public CompletableFuture<Instance> getInstance(String isolateId, String instanceId) {
+    return getObject(isolateId, instanceId, Instance.class);
+  }
+
+  /**
+   * Return a future that is completed with the library with the given id.
+   */
+  public CompletableFuture<Library> getLibrary(String isolateId, String libraryId) {
+    return getObject(isolateId, libraryId, Library.class);
+  }
+
+  /**
+   * Return a future that is completed with the stack of the given isolate, or a {@code Sentinel}.
+   */
+  public CompletableFuture<Response> getStack(String isolateId) {
+    return get(new Key(isolateId, STACK, null), Response.class);
+  }
+
+  @Override
+  public void connectionOpened() {
+  }
+
+  @Override
+  public void received(String streamId, Event event) {
+    IsolateRef isolate = event.getIsolate();
+    if (isolate == null) {
+      return;
+    }
+    String isolateId = isolate.getId();
+    switch (event.getKind()) {
+      case IsolateExit:
+        synchronized (this) {
+          epochs.remove(isolateId);
+          pausedIsolates.remove(isolateId);
+          removeEntries(isolateId);
+        }
+        return;
+      case PauseBreakpoint:
+      case PauseException:
+      case PauseExit:
+      case PauseInterrupted:
+      case PausePostRequest:
+      case PauseStart:
+        synchronized (this) {
+          pausedIsolates.add(isolateId);
+          invalidate(isolateId);
+        }
+        return;
+      case IsolateReload:
+        invalidate(isolateId);
+        return;
+      case Resume:
+        synchronized (this) {
+          pausedIsolates.remove(isolateId);
+          invalidate(isolateId);
+        }
+        return;
+      default:
+        // Other isolate and debug events, such as breakpoint changes, update the isolate
+        if (VmService.ISOLATE_STREAM_ID.equals(streamId)
+            || VmService.DEBUG_STREAM_ID.equals(streamId)) {
+          synchronized (this) {
+            entries.remove(new Key(isolateId, ISOLATE, null));
+          }
+        }
+    }
+  }
+
+  @Override
+  public void connectionClosed() {
+    clear();
+  }
+
+  private <T> CompletableFuture<T> get(final Key key, final Class<T> responseClass) {
+    CompletableFuture<Response> response = null;
+    long epoch;
+    boolean cacheable;
+    synchronized (this) {
+      cacheable = pausedIsolates.contains(key.isolateId);
+      epoch = getEpoch(key.isolateId);
+      CachedResponse entry = entries.get(key);
+      if (entry != null && entry.epoch == epoch) {
+        response = entry.response;
+      }
+    }
+    if (response == null && !cacheable) {
+      // A running isolate may change the object at any time
+      response = request(key);
+    } else if (response == null) {
+      response = request(key);
+      final CachedResponse entry = new CachedResponse(epoch, response);
+      synchronized (this) {
+        if (getEpoch(key.isolateId) == epoch) {
+          entries.put(key, entry);
+        }
+      }
+      response.whenComplete(new BiConsumer<Response, Throwable>() {
+        @Override
+        public void accept(Response response, Throwable exception) {
+          if (exception != null) {
+            synchronized (ObjectCache.this) {
+              entries.remove(key, entry);
+            }
+          }
+        }
+      });
+    }
+
+    // Return a separate future, so that one caller cancelling it does not affect the others
+    final CompletableFuture<T> result = new CompletableFuture<>();
+    response.whenComplete(new BiConsumer<Response, Throwable>() {
+      @Override
+      public void accept(Response response, Throwable exception) {
+        if (exception != null) {
+          result.completeExceptionally(exception);
+        } else if (responseClass.isInstance(response)) {
+          result.complete(responseClass.cast(response));
+        } else {
+          result.completeExceptionally(new RPCException(
+              RPCError.unexpected(responseClass.getSimpleName(), response)));
+        }
+      }
+    });
+    return result;
+  }
+
+  private CompletableFuture<Response> request(Key key) {
+    switch (key.method) {
+      case ISOLATE:
+        return service.getIsolateAsync(key.isolateId);
+      case STACK:
+        return service.getStackAsync(key.isolateId);
+      default:
+        return service.getObjectAsync(key.isolateId, key.objectId);
+    }
+  }
+
+  private long getEpoch(String isolateId) {
+    Long epoch = epochs.get(isolateId);
+    if (epoch == null) {
+      epoch = ++nextEpoch;
+      epochs.put(isolateId, epoch);
+    }
+    return epoch;
+  }
+
+  private void removeEntries(String isolateId) {
+    Iterator<Key> iterator = entries.keySet().iterator();
+    while (iterator.hasNext()) {
+      if (iterator.next().isolateId.equals(isolateId)) {
+        iterator.remove();
+      }
+    }
+  }
+
+  private static class CachedResponse {
+    final long epoch;
+    final CompletableFuture<Response> response;
+
+    CachedResponse(long epoch, CompletableFuture<Response> response) {
+      this.epoch = epoch;
+      this.response = response;
+    }
+  }
+
+  private static class Key {
+    final String isolateId;
+    final String method;
+    final String objectId;
+
+    Key(String isolateId, String method, String objectId) {
+      this.isolateId = isolateId;
+      this.method = method;
+      this.objectId = objectId;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return isolateId.equals(other.isolateId) && method.equals(other.method)
+          && (objectId == null ? other.objectId == null : objectId.equals(other.objectId));
+    }
+
+    @Override
+    public int hashCode() {
+      return (isolateId.hashCode() * 31 + method.hashCode()) * 31
+          + (objectId == null ? 0 : objectId.hashCode());
+    }
+  }
+}
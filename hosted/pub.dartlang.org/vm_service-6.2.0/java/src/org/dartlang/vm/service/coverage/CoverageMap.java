@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.coverage;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.dartlang.vm.service.element.ScriptRef;
+import org.dartlang.vm.service.element.SourceReport;
+import org.dartlang.vm.service.source.TokenPosIndex;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+/**
+ * {@link CoverageMap} merges the coverage of {@link SourceReport}s, requested with
+ * {@link org.dartlang.vm.service.element.SourceReportKind#Coverage}, into line bitsets per script
+ * URI, and writes the result in the LCOV format. The hits and misses are read directly from the
+ * report JSON, without boxing each token position.
+ */
+public class CoverageMap {
+  /**
+   * Build the coverage of the given reports, such as those of many isolates or test shards, in
+   * parallel. The {@code indexes} function returns the token position index of the script with
+   * the given URI, or {@code null} if the coverage of the script should be ignored. It is called
+   * concurrently. Scripts are identified by URI because script ids are only meaningful within the
+   * isolate that loaded the script, so the index of the script loaded by any isolate will do.
+   */
+  public static CoverageMap collect(List<SourceReport> reports,
+      Function<String, TokenPosIndex> indexes) {
+    if (reports.size() <= 1) {
+      CoverageMap result = new CoverageMap();
+      for (SourceReport report : reports) {
+        result.add(report, indexes);
+      }
+      return result;
+    }
+    return ForkJoinPool.commonPool().invoke(new CollectTask(reports, indexes, 0, reports.size()));
+  }
+
+  private final Map<String, ScriptCoverage> scripts = new HashMap<>();
+
+  /**
+   * Add the coverage of the given report, see {@link #collect(List, Function)}.
+   */
+  public synchronized void add(SourceReport report, Function<String, TokenPosIndex> indexes) {
+    JsonArray ranges = report.getJson().getAsJsonArray("ranges");
+    if (ranges == null) {
+      return;
+    }
+    List<String> uris = new ArrayList<>();
+    for (ScriptRef scriptRef : report.getScripts()) {
+      uris.add(scriptRef.getUri());
+    }
+    // The index of each script in the report, looked up on first use
+    TokenPosIndex[] scriptIndexes = new TokenPosIndex[uris.size()];
+    boolean[] resolved = new boolean[uris.size()];
+    for (JsonElement element : ranges) {
+      JsonObject range = element.getAsJsonObject();
+      JsonElement coverage = range.get("coverage");
+      if (coverage == null || !coverage.isJsonObject()) {
+        continue;
+      }
+      int scriptIndex = range.get("scriptIndex").getAsInt();
+      if (!resolved[scriptIndex]) {
+        scriptIndexes[scriptIndex] = indexes.apply(uris.get(scriptIndex));
+        resolved[scriptIndex] = true;
+      }
+      TokenPosIndex index = scriptIndexes[scriptIndex];
+      if (index == null) {
+        continue;
+      }
+      ScriptCoverage script = getOrCreate(uris.get(scriptIndex));
+      JsonObject coverageJson = coverage.getAsJsonObject();
+      JsonArray misses = coverageJson.getAsJsonArray("misses");
+      if (misses != null) {
+        for (JsonElement tokenPos : misses) {
+          int line = index.getLine(tokenPos.getAsInt());
+          if (line >= 0) {
+            script.addMiss(line);
+          }
+        }
+      }
+      JsonArray hits = coverageJson.getAsJsonArray("hits");
+      if (hits != null) {
+        for (JsonElement tokenPos : hits) {
+          int line = index.getLine(tokenPos.getAsInt());
+          if (line >= 0) {
+            script.addHit(line);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Return the coverage of the script with the given URI, or {@code null} if there is none.
+   */
+  public synchronized ScriptCoverage get(String uri) {
+    return scripts.get(uri);
+  }
+
+  /**
+   * Return the coverage of each script.
+   */
+  public synchronized Collection<ScriptCoverage> getScripts() {
+    return new ArrayList<>(scripts.values());
+  }
+
+  /**
+   * Add the coverage of the given map to this map.
+   */
+  public synchronized void merge(CoverageMap other) {
+    for (ScriptCoverage script : other.getScripts()) {
+      getOrCreate(script.getUri()).merge(script);
+    }
+  }
+
+  /**
+   * Write the coverage in the LCOV format, with one record per script ordered by URI.
+   */
+  public synchronized void writeLcov(Appendable out) throws IOException {
+    for (ScriptCoverage script : new TreeMap<>(scripts).values()) {
+      script.writeLcov(out);
+    }
+  }
+
+  private ScriptCoverage getOrCreate(String uri) {
+    ScriptCoverage script = scripts.get(uri);
+    if (script == null) {
+      script = new ScriptCoverage(uri);
+      scripts.put(uri, script);
+    }
+    return script;
+  }
+
+  private static class CollectTask extends RecursiveTask<CoverageMap> {
+    private static final long serialVersionUID = 1L;
+
+    private final List<SourceReport> reports;
+    private final Function<String, TokenPosIndex> indexes;
+    private final int from;
+    private final int to;
+
+    CollectTask(List<SourceReport> reports, Function<String, TokenPosIndex> indexes, int from,
+        int to) {
+      this.reports = reports;
+      this.indexes = indexes;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected CoverageMap compute() {
+      if (to - from == 1) {
+        CoverageMap result = new CoverageMap();
+        result.add(reports.get(from), indexes);
+        return result;
+      }
+      int middle = (from + to) >>> 1;
+      CollectTask left = new CollectTask(reports, indexes, from, middle);
+      left.fork();
+      CoverageMap right = new CollectTask(reports, indexes, middle, to).compute();
+      CoverageMap result = left.join();
+      result.merge(right);
+      return result;
+    }
+  }
+}
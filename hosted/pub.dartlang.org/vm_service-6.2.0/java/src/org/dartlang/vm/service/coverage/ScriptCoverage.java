@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.coverage;
+
+import java.io.IOException;
+import java.util.BitSet;
+
+/**
+ * The line coverage of one script, as bitsets of the lines that contain code and of the lines
+ * that were executed.
+ */
+public class ScriptCoverage {
+  private final String uri;
+  private final BitSet lines = new BitSet();
+  private final BitSet hits = new BitSet();
+
+  ScriptCoverage(String uri) {
+    this.uri = uri;
+  }
+
+  /**
+   * Return the lines that contain code, whether executed or not.
+   */
+  public BitSet getLines() {
+    return (BitSet) lines.clone();
+  }
+
+  /**
+   * Return the lines that were executed.
+   */
+  public BitSet getHits() {
+    return (BitSet) hits.clone();
+  }
+
+  public String getUri() {
+    return uri;
+  }
+
+  public boolean isHit(int line) {
+    return hits.get(line);
+  }
+
+  void addHit(int line) {
+    lines.set(line);
+    hits.set(line);
+  }
+
+  void addMiss(int line) {
+    lines.set(line);
+  }
+
+  void merge(ScriptCoverage other) {
+    lines.or(other.lines);
+    hits.or(other.hits);
+  }
+
+  /**
+   * Write the coverage of this script as an LCOV record.
+   */
+  void writeLcov(Appendable out) throws IOException {
+    out.append("SF:").append(uri).append('\n');
+    for (int line = lines.nextSetBit(0); line >= 0; line = lines.nextSetBit(line + 1)) {
+      out.append("DA:").append(Integer.toString(line)).append(hits.get(line) ? ",1\n" : ",0\n");
+    }
+    out.append("LF:").append(Integer.toString(lines.cardinality())).append('\n');
+    out.append("LH:").append(Integer.toString(hits.cardinality())).append('\n');
+    out.append("end_of_record\n");
+  }
+}
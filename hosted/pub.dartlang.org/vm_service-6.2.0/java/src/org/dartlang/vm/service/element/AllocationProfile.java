@@ -51,12 +51,16 @@ public class AllocationProfile extends Response {
    * Allocation information for all class types.
    */
   public ElementList<ClassHeapStats> getMembers() {
-    return new ElementList<ClassHeapStats>(json.get("members").getAsJsonArray()) {
-      @Override
-      protected ClassHeapStats basicGet(JsonArray array, int index) {
-        return new ClassHeapStats(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<ClassHeapStats> list = getDecoded("members");
+    if (list == null) {
+      list = putDecoded("members", new ElementList<ClassHeapStats>(json.get("members").getAsJsonArray()) {
+        @Override
+        protected ClassHeapStats basicGet(JsonArray array, int index) {
+          return new ClassHeapStats(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 
   /**
@@ -26,11 +26,15 @@ public class ClassList extends Response {
   }
 
   public ElementList<ClassRef> getClasses() {
-    return new ElementList<ClassRef>(json.get("classes").getAsJsonArray()) {
-      @Override
-      protected ClassRef basicGet(JsonArray array, int index) {
-        return new ClassRef(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<ClassRef> list = getDecoded("classes");
+    if (list == null) {
+      list = putDecoded("classes", new ElementList<ClassRef>(json.get("classes").getAsJsonArray()) {
+        @Override
+        protected ClassRef basicGet(JsonArray array, int index) {
+          return new ClassRef(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 }
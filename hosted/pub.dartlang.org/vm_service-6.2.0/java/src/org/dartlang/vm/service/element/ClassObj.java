@@ -36,9 +36,9 @@ public class ClassObj extends Obj {
   public ErrorRef getError() {
     JsonObject obj = (JsonObject) json.get("error");
     if (obj == null) return null;
-    final String type = json.get("type").getAsString();
+    final String type = obj.has("type") ? obj.get("type").getAsString() : null;
     if ("Instance".equals(type) || "@Instance".equals(type)) {
-      final String kind = json.get("kind").getAsString();
+      final String kind = obj.get("kind").getAsString();
       if ("Null".equals(kind)) return null;
     }
     return new ErrorRef(obj);
@@ -48,24 +48,32 @@ public class ClassObj extends Obj {
    * A list of fields in this class. Does not include fields from superclasses.
    */
   public ElementList<FieldRef> getFields() {
-    return new ElementList<FieldRef>(json.get("fields").getAsJsonArray()) {
-      @Override
-      protected FieldRef basicGet(JsonArray array, int index) {
-        return new FieldRef(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<FieldRef> list = getDecoded("fields");
+    if (list == null) {
+      list = putDecoded("fields", new ElementList<FieldRef>(json.get("fields").getAsJsonArray()) {
+        @Override
+        protected FieldRef basicGet(JsonArray array, int index) {
+          return new FieldRef(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 
   /**
    * A list of functions in this class. Does not include functions from superclasses.
    */
   public ElementList<FuncRef> getFunctions() {
-    return new ElementList<FuncRef>(json.get("functions").getAsJsonArray()) {
-      @Override
-      protected FuncRef basicGet(JsonArray array, int index) {
-        return new FuncRef(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<FuncRef> list = getDecoded("functions");
+    if (list == null) {
+      list = putDecoded("functions", new ElementList<FuncRef>(json.get("functions").getAsJsonArray()) {
+        @Override
+        protected FuncRef basicGet(JsonArray array, int index) {
+          return new FuncRef(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 
   /**
@@ -74,12 +82,16 @@ public class ClassObj extends Obj {
    * The values will be of the kind: Type.
    */
   public ElementList<InstanceRef> getInterfaces() {
-    return new ElementList<InstanceRef>(json.get("interfaces").getAsJsonArray()) {
-      @Override
-      protected InstanceRef basicGet(JsonArray array, int index) {
-        return new InstanceRef(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<InstanceRef> list = getDecoded("interfaces");
+    if (list == null) {
+      list = putDecoded("interfaces", new ElementList<InstanceRef>(json.get("interfaces").getAsJsonArray()) {
+        @Override
+        protected InstanceRef basicGet(JsonArray array, int index) {
+          return new InstanceRef(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 
   /**
@@ -97,9 +109,9 @@ public class ClassObj extends Obj {
   public SourceLocation getLocation() {
     JsonObject obj = (JsonObject) json.get("location");
     if (obj == null) return null;
-    final String type = json.get("type").getAsString();
+    final String type = obj.has("type") ? obj.get("type").getAsString() : null;
     if ("Instance".equals(type) || "@Instance".equals(type)) {
-      final String kind = json.get("kind").getAsString();
+      final String kind = obj.get("kind").getAsString();
       if ("Null".equals(kind)) return null;
     }
     return new SourceLocation(obj);
@@ -129,12 +141,16 @@ public class ClassObj extends Obj {
    * A list of subclasses of this class.
    */
   public ElementList<ClassRef> getSubclasses() {
-    return new ElementList<ClassRef>(json.get("subclasses").getAsJsonArray()) {
-      @Override
-      protected ClassRef basicGet(JsonArray array, int index) {
-        return new ClassRef(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<ClassRef> list = getDecoded("subclasses");
+    if (list == null) {
+      list = putDecoded("subclasses", new ElementList<ClassRef>(json.get("subclasses").getAsJsonArray()) {
+        @Override
+        protected ClassRef basicGet(JsonArray array, int index) {
+          return new ClassRef(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 
   /**
@@ -145,9 +161,9 @@ public class ClassObj extends Obj {
   public ClassRef getSuperClass() {
     JsonObject obj = (JsonObject) json.get("super");
     if (obj == null) return null;
-    final String type = json.get("type").getAsString();
+    final String type = obj.has("type") ? obj.get("type").getAsString() : null;
     if ("Instance".equals(type) || "@Instance".equals(type)) {
-      final String kind = json.get("kind").getAsString();
+      final String kind = obj.get("kind").getAsString();
       if ("Null".equals(kind)) return null;
     }
     return new ClassRef(obj);
@@ -43,9 +43,9 @@ public class Context extends Obj {
   public Context getParent() {
     JsonObject obj = (JsonObject) json.get("parent");
     if (obj == null) return null;
-    final String type = json.get("type").getAsString();
+    final String type = obj.has("type") ? obj.get("type").getAsString() : null;
     if ("Instance".equals(type) || "@Instance".equals(type)) {
-      final String kind = json.get("kind").getAsString();
+      final String kind = obj.get("kind").getAsString();
       if ("Null".equals(kind)) return null;
     }
     return new Context(obj);
@@ -55,11 +55,15 @@ public class Context extends Obj {
    * The variables in this context object.
    */
   public ElementList<ContextElement> getVariables() {
-    return new ElementList<ContextElement>(json.get("variables").getAsJsonArray()) {
-      @Override
-      protected ContextElement basicGet(JsonArray array, int index) {
-        return new ContextElement(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<ContextElement> list = getDecoded("variables");
+    if (list == null) {
+      list = putDecoded("variables", new ElementList<ContextElement>(json.get("variables").getAsJsonArray()) {
+        @Override
+        protected ContextElement basicGet(JsonArray array, int index) {
+          return new ContextElement(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 }
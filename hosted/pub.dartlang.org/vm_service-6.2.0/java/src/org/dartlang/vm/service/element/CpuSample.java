@@ -17,6 +17,7 @@ package org.dartlang.vm.service.element;
 
 import com.google.gson.JsonObject;
 import java.util.List;
+import java.util.PrimitiveIterator;
 
 /**
  * See getCpuSamples and CpuSamples.
@@ -62,6 +63,21 @@ public class CpuSample extends Element {
     return getListInt("stack");
   }
 
+  /**
+   * Same as {@link #getStack()}, as an array of primitive ints. The array is decoded once for this
+   * element and shared by later calls, so it must not be modified.
+   */
+  public int[] getStackAsArray() {
+    return getArrayInt("stack");
+  }
+
+  /**
+   * Same as {@link #getStack()}, as an iterator over primitive ints.
+   */
+  public PrimitiveIterator.OfInt getStackIterator() {
+    return iterateInt("stack");
+  }
+
   /**
    * The thread ID representing the thread on which this sample was collected.
    */
@@ -33,12 +33,16 @@ public class CpuSamples extends Response {
    * indicies provided in a `CpuSample` `stack` to determine which function was on the stack.
    */
   public ElementList<ProfileFunction> getFunctions() {
-    return new ElementList<ProfileFunction>(json.get("functions").getAsJsonArray()) {
-      @Override
-      protected ProfileFunction basicGet(JsonArray array, int index) {
-        return new ProfileFunction(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<ProfileFunction> list = getDecoded("functions");
+    if (list == null) {
+      list = putDecoded("functions", new ElementList<ProfileFunction>(json.get("functions").getAsJsonArray()) {
+        @Override
+        protected ProfileFunction basicGet(JsonArray array, int index) {
+          return new ProfileFunction(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 
   /**
@@ -74,12 +78,16 @@ public class CpuSamples extends Response {
    * timeExtentMicros]`
    */
   public ElementList<CpuSample> getSamples() {
-    return new ElementList<CpuSample>(json.get("samples").getAsJsonArray()) {
-      @Override
-      protected CpuSample basicGet(JsonArray array, int index) {
-        return new CpuSample(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<CpuSample> list = getDecoded("samples");
+    if (list == null) {
+      list = putDecoded("samples", new ElementList<CpuSample>(json.get("samples").getAsJsonArray()) {
+        @Override
+        protected CpuSample basicGet(JsonArray array, int index) {
+          return new CpuSample(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 
   /**
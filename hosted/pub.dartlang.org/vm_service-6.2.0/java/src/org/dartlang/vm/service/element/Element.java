@@ -6,7 +6,11 @@ import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
 
 /**
  * Superclass for all observatory elements.
@@ -14,6 +18,12 @@ import java.util.List;
 public class Element {
   protected final JsonObject json;
 
+  /**
+   * The values decoded from the members of this element, such as primitive arrays and element
+   * lists, keyed by member name, or {@code null} if none has been decoded. Guarded by {@code this}.
+   */
+  private Map<String, Object> decodedMembers;
+
   public Element(JsonObject json) {
     this.json = json;
   }
@@ -56,6 +66,77 @@ public class Element {
     return jsonArrayToListInt(json.getAsJsonArray(memberName));
   }
 
+  /**
+   * Return a specific JSON member as an array of ints, or {@code null} if there is no such member.
+   * The array is decoded on the first call and shared by later calls.
+   */
+  int[] getArrayInt(String memberName) {
+    int[] result = getDecoded(memberName);
+    if (result == null) {
+      JsonArray array = json.getAsJsonArray(memberName);
+      if (array == null) {
+        return null;
+      }
+      result = putDecoded(memberName, jsonArrayToArrayInt(array));
+    }
+    return result;
+  }
+
+  /**
+   * Return a specific JSON member as an array of arrays of ints, or {@code null} if there is no such
+   * member. The arrays are decoded on the first call and shared by later calls.
+   */
+  int[][] getArrayArrayInt(String memberName) {
+    int[][] result = getDecoded(memberName);
+    if (result == null) {
+      JsonArray array = json.getAsJsonArray(memberName);
+      if (array == null) {
+        return null;
+      }
+      int size = array.size();
+      result = new int[size][];
+      for (int index = 0; index < size; ++index) {
+        result[index] = jsonArrayToArrayInt(array.get(index).getAsJsonArray());
+      }
+      result = putDecoded(memberName, result);
+    }
+    return result;
+  }
+
+  /**
+   * Return an iterator over a specific JSON member as ints, or {@code null} if there is no such
+   * member.
+   */
+  PrimitiveIterator.OfInt iterateInt(String memberName) {
+    int[] array = getArrayInt(memberName);
+    return array != null ? Arrays.stream(array).iterator() : null;
+  }
+
+  /**
+   * Return the value previously decoded from the given member, or {@code null}.
+   */
+  @SuppressWarnings("unchecked")
+  synchronized <T> T getDecoded(String memberName) {
+    return decodedMembers != null ? (T) decodedMembers.get(memberName) : null;
+  }
+
+  /**
+   * Remember the given value decoded from the given member, and return the value to use, which is
+   * the one decoded by another thread if it got there first.
+   */
+  @SuppressWarnings("unchecked")
+  synchronized <T> T putDecoded(String memberName, T value) {
+    if (decodedMembers == null) {
+      decodedMembers = new HashMap<>(4);
+    }
+    Object previous = decodedMembers.get(memberName);
+    if (previous != null) {
+      return (T) previous;
+    }
+    decodedMembers.put(memberName, value);
+    return value;
+  }
+
   /**
    * Return a specific JSON member as a list of strings.
    */
@@ -72,7 +153,7 @@ public class Element {
       return null;
     }
     int size = array.size();
-    List<List<Integer>> result = new ArrayList<>();
+    List<List<Integer>> result = new ArrayList<>(size);
     for (int index = 0; index < size; ++index) {
       result.add(jsonArrayToListInt(array.get(index).getAsJsonArray()));
     }
@@ -81,16 +162,25 @@ public class Element {
 
   private List<Integer> jsonArrayToListInt(JsonArray array) {
     int size = array.size();
-    List<Integer> result = new ArrayList<>();
+    List<Integer> result = new ArrayList<>(size);
     for (int index = 0; index < size; ++index) {
       result.add(array.get(index).getAsInt());
     }
     return result;
   }
 
+  private static int[] jsonArrayToArrayInt(JsonArray array) {
+    int size = array.size();
+    int[] result = new int[size];
+    for (int index = 0; index < size; ++index) {
+      result[index] = array.get(index).getAsInt();
+    }
+    return result;
+  }
+
   private List<String> jsonArrayToListString(JsonArray array) {
     int size = array.size();
-    List<String> result = new ArrayList<>();
+    List<String> result = new ArrayList<>(size);
     for (int index = 0; index < size; ++index) {
       result.add(array.get(index).getAsString());
     }
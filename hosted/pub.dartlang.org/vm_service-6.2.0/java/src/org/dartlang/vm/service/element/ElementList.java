@@ -1,25 +1,57 @@
 package org.dartlang.vm.service.element;
 
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
 import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Simple wrapper around a {@link JsonArray} which lazily converts {@link JsonObject} elements to
  * subclasses of {@link Element}. Subclasses need only implement {@link #basicGet(JsonArray, int)}
  * to return an {@link Element} subclass for the {@link JsonObject} at a given index.
+ * <p>
+ * Each element is converted once and returned by later calls to {@link #get(int)}. To walk a large
+ * list without converting its elements, use {@link #getJson(int)}.
  */
 public abstract class ElementList<T> implements Iterable<T> {
 
   private final JsonArray array;
 
+  /**
+   * The elements converted so far, indexed like {@link #array}, or {@code null} if none has been.
+   * Threads racing to convert the same element may each convert it, and later calls return either.
+   */
+  private Object[] elements;
+
   public ElementList(JsonArray array) {
     this.array = array;
   }
 
+  @SuppressWarnings("unchecked")
   public T get(int index) {
-    return basicGet(array, index);
+    Object[] elements = this.elements;
+    if (elements == null) {
+      elements = new Object[array.size()];
+      this.elements = elements;
+    }
+    Object element = elements[index];
+    if (element == null) {
+      element = basicGet(array, index);
+      elements[index] = element;
+    }
+    return (T) element;
+  }
+
+  /**
+   * Return the JSON of the element at the given index, without converting it.
+   */
+  public JsonElement getJson(int index) {
+    return array.get(index);
   }
 
   public boolean isEmpty() {
@@ -48,9 +80,79 @@ public abstract class ElementList<T> implements Iterable<T> {
     };
   }
 
+  /**
+   * Return a spliterator over the elements that splits by index, so that the elements of large
+   * lists can be converted and processed in parallel.
+   */
+  @Override
+  public Spliterator<T> spliterator() {
+    return new IndexSpliterator(0, size());
+  }
+
+  /**
+   * Return a sequential stream of the elements.
+   */
+  public Stream<T> stream() {
+    return StreamSupport.stream(spliterator(), false);
+  }
+
+  /**
+   * Return a possibly parallel stream of the elements.
+   */
+  public Stream<T> parallelStream() {
+    return StreamSupport.stream(spliterator(), true);
+  }
+
   public int size() {
     return array.size();
   }
 
   protected abstract T basicGet(JsonArray array, int index);
+
+  private class IndexSpliterator implements Spliterator<T> {
+    private int index;
+    private final int end;
+
+    IndexSpliterator(int index, int end) {
+      this.index = index;
+      this.end = end;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+      if (index >= end) {
+        return false;
+      }
+      action.accept(get(index++));
+      return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+      while (index < end) {
+        action.accept(get(index++));
+      }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+      int middle = (index + end) >>> 1;
+      if (middle <= index) {
+        return null;
+      }
+      Spliterator<T> prefix = new IndexSpliterator(index, middle);
+      index = middle;
+      return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+      return end - index;
+    }
+
+    @Override
+    public int characteristics() {
+      return ORDERED | SIZED | SUBSIZED | IMMUTABLE | NONNULL;
+    }
+  }
 }
@@ -70,9 +70,9 @@ public class Event extends Response {
   public Breakpoint getBreakpoint() {
     JsonObject obj = (JsonObject) json.get("breakpoint");
     if (obj == null) return null;
-    final String type = json.get("type").getAsString();
+    final String type = obj.has("type") ? obj.get("type").getAsString() : null;
     if ("Instance".equals(type) || "@Instance".equals(type)) {
-      final String kind = json.get("kind").getAsString();
+      final String kind = obj.get("kind").getAsString();
       if ("Null".equals(kind)) return null;
     }
     return new Breakpoint(obj);
@@ -110,9 +110,9 @@ public class Event extends Response {
   public ExtensionData getExtensionData() {
     JsonObject obj = (JsonObject) json.get("extensionData");
     if (obj == null) return null;
-    final String type = json.get("type").getAsString();
+    final String type = obj.has("type") ? obj.get("type").getAsString() : null;
     if ("Instance".equals(type) || "@Instance".equals(type)) {
-      final String kind = json.get("kind").getAsString();
+      final String kind = obj.get("kind").getAsString();
       if ("Null".equals(kind)) return null;
     }
     return new ExtensionData(obj);
@@ -176,9 +176,9 @@ public class Event extends Response {
   public IsolateRef getIsolate() {
     JsonObject obj = (JsonObject) json.get("isolate");
     if (obj == null) return null;
-    final String type = json.get("type").getAsString();
+    final String type = obj.has("type") ? obj.get("type").getAsString() : null;
     if ("Instance".equals(type) || "@Instance".equals(type)) {
-      final String kind = json.get("kind").getAsString();
+      final String kind = obj.get("kind").getAsString();
       if ("Null".equals(kind)) return null;
     }
     return new IsolateRef(obj);
@@ -218,9 +218,9 @@ public class Event extends Response {
   public LogRecord getLogRecord() {
     JsonObject obj = (JsonObject) json.get("logRecord");
     if (obj == null) return null;
-    final String type = json.get("type").getAsString();
+    final String type = obj.has("type") ? obj.get("type").getAsString() : null;
     if ("Instance".equals(type) || "@Instance".equals(type)) {
-      final String kind = json.get("kind").getAsString();
+      final String kind = obj.get("kind").getAsString();
       if ("Null".equals(kind)) return null;
     }
     return new LogRecord(obj);
@@ -268,12 +268,16 @@ public class Event extends Response {
   public ElementList<Breakpoint> getPauseBreakpoints() {
     if (json.get("pauseBreakpoints") == null) return null;
     
-    return new ElementList<Breakpoint>(json.get("pauseBreakpoints").getAsJsonArray()) {
-      @Override
-      protected Breakpoint basicGet(JsonArray array, int index) {
-        return new Breakpoint(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<Breakpoint> list = getDecoded("pauseBreakpoints");
+    if (list == null) {
+      list = putDecoded("pauseBreakpoints", new ElementList<Breakpoint>(json.get("pauseBreakpoints").getAsJsonArray()) {
+        @Override
+        protected Breakpoint basicGet(JsonArray array, int index) {
+          return new Breakpoint(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 
   /**
@@ -309,12 +313,16 @@ public class Event extends Response {
   public ElementList<TimelineEvent> getTimelineEvents() {
     if (json.get("timelineEvents") == null) return null;
     
-    return new ElementList<TimelineEvent>(json.get("timelineEvents").getAsJsonArray()) {
-      @Override
-      protected TimelineEvent basicGet(JsonArray array, int index) {
-        return new TimelineEvent(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<TimelineEvent> list = getDecoded("timelineEvents");
+    if (list == null) {
+      list = putDecoded("timelineEvents", new ElementList<TimelineEvent>(json.get("timelineEvents").getAsJsonArray()) {
+        @Override
+        protected TimelineEvent basicGet(JsonArray array, int index) {
+          return new TimelineEvent(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 
   /**
@@ -345,9 +353,9 @@ public class Event extends Response {
   public Frame getTopFrame() {
     JsonObject obj = (JsonObject) json.get("topFrame");
     if (obj == null) return null;
-    final String type = json.get("type").getAsString();
+    final String type = obj.has("type") ? obj.get("type").getAsString() : null;
     if ("Instance".equals(type) || "@Instance".equals(type)) {
-      final String kind = json.get("kind").getAsString();
+      final String kind = obj.get("kind").getAsString();
       if ("Null".equals(kind)) return null;
     }
     return new Frame(obj);
@@ -375,9 +383,9 @@ public class Event extends Response {
   public VMRef getVm() {
     JsonObject obj = (JsonObject) json.get("vm");
     if (obj == null) return null;
-    final String type = json.get("type").getAsString();
+    final String type = obj.has("type") ? obj.get("type").getAsString() : null;
     if ("Instance".equals(type) || "@Instance".equals(type)) {
-      final String kind = json.get("kind").getAsString();
+      final String kind = obj.get("kind").getAsString();
       if ("Null".equals(kind)) return null;
     }
     return new VMRef(obj);
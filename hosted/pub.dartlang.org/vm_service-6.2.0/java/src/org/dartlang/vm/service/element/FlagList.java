@@ -32,11 +32,15 @@ public class FlagList extends Response {
    * A list of all flags in the VM.
    */
   public ElementList<Flag> getFlags() {
-    return new ElementList<Flag>(json.get("flags").getAsJsonArray()) {
-      @Override
-      protected Flag basicGet(JsonArray array, int index) {
-        return new Flag(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<Flag> list = getDecoded("flags");
+    if (list == null) {
+      list = putDecoded("flags", new ElementList<Flag>(json.get("flags").getAsJsonArray()) {
+        @Override
+        protected Flag basicGet(JsonArray array, int index) {
+          return new Flag(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 }
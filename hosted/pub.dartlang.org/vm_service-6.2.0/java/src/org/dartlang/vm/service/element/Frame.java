@@ -32,9 +32,9 @@ public class Frame extends Response {
   public CodeRef getCode() {
     JsonObject obj = (JsonObject) json.get("code");
     if (obj == null) return null;
-    final String type = json.get("type").getAsString();
+    final String type = obj.has("type") ? obj.get("type").getAsString() : null;
     if ("Instance".equals(type) || "@Instance".equals(type)) {
-      final String kind = json.get("kind").getAsString();
+      final String kind = obj.get("kind").getAsString();
       if ("Null".equals(kind)) return null;
     }
     return new CodeRef(obj);
@@ -46,9 +46,9 @@ public class Frame extends Response {
   public FuncRef getFunction() {
     JsonObject obj = (JsonObject) json.get("function");
     if (obj == null) return null;
-    final String type = json.get("type").getAsString();
+    final String type = obj.has("type") ? obj.get("type").getAsString() : null;
     if ("Instance".equals(type) || "@Instance".equals(type)) {
-      final String kind = json.get("kind").getAsString();
+      final String kind = obj.get("kind").getAsString();
       if ("Null".equals(kind)) return null;
     }
     return new FuncRef(obj);
@@ -78,9 +78,9 @@ public class Frame extends Response {
   public SourceLocation getLocation() {
     JsonObject obj = (JsonObject) json.get("location");
     if (obj == null) return null;
-    final String type = json.get("type").getAsString();
+    final String type = obj.has("type") ? obj.get("type").getAsString() : null;
     if ("Instance".equals(type) || "@Instance".equals(type)) {
-      final String kind = json.get("kind").getAsString();
+      final String kind = obj.get("kind").getAsString();
       if ("Null".equals(kind)) return null;
     }
     return new SourceLocation(obj);
@@ -92,11 +92,15 @@ public class Frame extends Response {
   public ElementList<BoundVariable> getVars() {
     if (json.get("vars") == null) return null;
     
-    return new ElementList<BoundVariable>(json.get("vars").getAsJsonArray()) {
-      @Override
-      protected BoundVariable basicGet(JsonArray array, int index) {
-        return new BoundVariable(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<BoundVariable> list = getDecoded("vars");
+    if (list == null) {
+      list = putDecoded("vars", new ElementList<BoundVariable>(json.get("vars").getAsJsonArray()) {
+        @Override
+        protected BoundVariable basicGet(JsonArray array, int index) {
+          return new BoundVariable(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 }
@@ -35,9 +35,9 @@ public class InboundReference extends Element {
   public FieldRef getParentField() {
     JsonObject obj = (JsonObject) json.get("parentField");
     if (obj == null) return null;
-    final String type = json.get("type").getAsString();
+    final String type = obj.has("type") ? obj.get("type").getAsString() : null;
     if ("Instance".equals(type) || "@Instance".equals(type)) {
-      final String kind = json.get("kind").getAsString();
+      final String kind = obj.get("kind").getAsString();
       if ("Null".equals(kind)) return null;
     }
     return new FieldRef(obj);
@@ -32,11 +32,15 @@ public class InboundReferences extends Response {
    * An array of inbound references to an object.
    */
   public ElementList<InboundReference> getReferences() {
-    return new ElementList<InboundReference>(json.get("references").getAsJsonArray()) {
-      @Override
-      protected InboundReference basicGet(JsonArray array, int index) {
-        return new InboundReference(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<InboundReference> list = getDecoded("references");
+    if (list == null) {
+      list = putDecoded("references", new ElementList<InboundReference>(json.get("references").getAsJsonArray()) {
+        @Override
+        protected InboundReference basicGet(JsonArray array, int index) {
+          return new InboundReference(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 }
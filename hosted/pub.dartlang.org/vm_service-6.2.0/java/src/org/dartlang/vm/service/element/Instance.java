@@ -54,12 +54,16 @@ public class Instance extends Obj {
   public ElementList<MapAssociation> getAssociations() {
     if (json.get("associations") == null) return null;
     
-    return new ElementList<MapAssociation>(json.get("associations").getAsJsonArray()) {
-      @Override
-      protected MapAssociation basicGet(JsonArray array, int index) {
-        return new MapAssociation(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<MapAssociation> list = getDecoded("associations");
+    if (list == null) {
+      list = putDecoded("associations", new ElementList<MapAssociation>(json.get("associations").getAsJsonArray()) {
+        @Override
+        protected MapAssociation basicGet(JsonArray array, int index) {
+          return new MapAssociation(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 
   /**
@@ -125,9 +129,9 @@ public class Instance extends Obj {
   public ContextRef getClosureContext() {
     JsonObject obj = (JsonObject) json.get("closureContext");
     if (obj == null) return null;
-    final String type = json.get("type").getAsString();
+    final String type = obj.has("type") ? obj.get("type").getAsString() : null;
     if ("Instance".equals(type) || "@Instance".equals(type)) {
-      final String kind = json.get("kind").getAsString();
+      final String kind = obj.get("kind").getAsString();
       if ("Null".equals(kind)) return null;
     }
     return new ContextRef(obj);
@@ -144,9 +148,9 @@ public class Instance extends Obj {
   public FuncRef getClosureFunction() {
     JsonObject obj = (JsonObject) json.get("closureFunction");
     if (obj == null) return null;
-    final String type = json.get("type").getAsString();
+    final String type = obj.has("type") ? obj.get("type").getAsString() : null;
     if ("Instance".equals(type) || "@Instance".equals(type)) {
-      final String kind = json.get("kind").getAsString();
+      final String kind = obj.get("kind").getAsString();
       if ("Null".equals(kind)) return null;
     }
     return new FuncRef(obj);
@@ -206,12 +210,16 @@ public class Instance extends Obj {
   public ElementList<InstanceRef> getElements() {
     if (json.get("elements") == null) return null;
     
-    return new ElementList<InstanceRef>(json.get("elements").getAsJsonArray()) {
-      @Override
-      protected InstanceRef basicGet(JsonArray array, int index) {
-        return new InstanceRef(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<InstanceRef> list = getDecoded("elements");
+    if (list == null) {
+      list = putDecoded("elements", new ElementList<InstanceRef>(json.get("elements").getAsJsonArray()) {
+        @Override
+        protected InstanceRef basicGet(JsonArray array, int index) {
+          return new InstanceRef(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 
   /**
@@ -222,12 +230,16 @@ public class Instance extends Obj {
   public ElementList<BoundField> getFields() {
     if (json.get("fields") == null) return null;
     
-    return new ElementList<BoundField>(json.get("fields").getAsJsonArray()) {
-      @Override
-      protected BoundField basicGet(JsonArray array, int index) {
-        return new BoundField(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<BoundField> list = getDecoded("fields");
+    if (list == null) {
+      list = putDecoded("fields", new ElementList<BoundField>(json.get("fields").getAsJsonArray()) {
+        @Override
+        protected BoundField basicGet(JsonArray array, int index) {
+          return new BoundField(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 
   /**
@@ -381,9 +393,9 @@ public class Instance extends Obj {
   public ClassRef getParameterizedClass() {
     JsonObject obj = (JsonObject) json.get("parameterizedClass");
     if (obj == null) return null;
-    final String type = json.get("type").getAsString();
+    final String type = obj.has("type") ? obj.get("type").getAsString() : null;
     if ("Instance".equals(type) || "@Instance".equals(type)) {
-      final String kind = json.get("kind").getAsString();
+      final String kind = obj.get("kind").getAsString();
       if ("Null".equals(kind)) return null;
     }
     return new ClassRef(obj);
@@ -471,9 +483,9 @@ public class Instance extends Obj {
   public TypeArgumentsRef getTypeArguments() {
     JsonObject obj = (JsonObject) json.get("typeArguments");
     if (obj == null) return null;
-    final String type = json.get("type").getAsString();
+    final String type = obj.has("type") ? obj.get("type").getAsString() : null;
     if ("Instance".equals(type) || "@Instance".equals(type)) {
-      final String kind = json.get("kind").getAsString();
+      final String kind = obj.get("kind").getAsString();
       if ("Null".equals(kind)) return null;
     }
     return new TypeArgumentsRef(obj);
@@ -490,9 +502,9 @@ public class Instance extends Obj {
   public ClassRef getTypeClass() {
     JsonObject obj = (JsonObject) json.get("typeClass");
     if (obj == null) return null;
-    final String type = json.get("type").getAsString();
+    final String type = obj.has("type") ? obj.get("type").getAsString() : null;
     if ("Instance".equals(type) || "@Instance".equals(type)) {
-      final String kind = json.get("kind").getAsString();
+      final String kind = obj.get("kind").getAsString();
       if ("Null".equals(kind)) return null;
     }
     return new ClassRef(obj);
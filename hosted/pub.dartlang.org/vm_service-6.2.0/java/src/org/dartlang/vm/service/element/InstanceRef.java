@@ -60,9 +60,9 @@ public class InstanceRef extends ObjRef {
   public ContextRef getClosureContext() {
     JsonObject obj = (JsonObject) json.get("closureContext");
     if (obj == null) return null;
-    final String type = json.get("type").getAsString();
+    final String type = obj.has("type") ? obj.get("type").getAsString() : null;
     if ("Instance".equals(type) || "@Instance".equals(type)) {
-      final String kind = json.get("kind").getAsString();
+      final String kind = obj.get("kind").getAsString();
       if ("Null".equals(kind)) return null;
     }
     return new ContextRef(obj);
@@ -79,9 +79,9 @@ public class InstanceRef extends ObjRef {
   public FuncRef getClosureFunction() {
     JsonObject obj = (JsonObject) json.get("closureFunction");
     if (obj == null) return null;
-    final String type = json.get("type").getAsString();
+    final String type = obj.has("type") ? obj.get("type").getAsString() : null;
     if ("Instance".equals(type) || "@Instance".equals(type)) {
-      final String kind = json.get("kind").getAsString();
+      final String kind = obj.get("kind").getAsString();
       if ("Null".equals(kind)) return null;
     }
     return new FuncRef(obj);
@@ -171,9 +171,9 @@ public class InstanceRef extends ObjRef {
   public ClassRef getParameterizedClass() {
     JsonObject obj = (JsonObject) json.get("parameterizedClass");
     if (obj == null) return null;
-    final String type = json.get("type").getAsString();
+    final String type = obj.has("type") ? obj.get("type").getAsString() : null;
     if ("Instance".equals(type) || "@Instance".equals(type)) {
-      final String kind = json.get("kind").getAsString();
+      final String kind = obj.get("kind").getAsString();
       if ("Null".equals(kind)) return null;
     }
     return new ClassRef(obj);
@@ -218,9 +218,9 @@ public class InstanceRef extends ObjRef {
   public ClassRef getTypeClass() {
     JsonObject obj = (JsonObject) json.get("typeClass");
     if (obj == null) return null;
-    final String type = json.get("type").getAsString();
+    final String type = obj.has("type") ? obj.get("type").getAsString() : null;
     if ("Instance".equals(type) || "@Instance".equals(type)) {
-      final String kind = json.get("kind").getAsString();
+      final String kind = obj.get("kind").getAsString();
       if ("Null".equals(kind)) return null;
     }
     return new ClassRef(obj);
@@ -32,12 +32,16 @@ public class InstanceSet extends Response {
    * An array of instances of the requested type.
    */
   public ElementList<ObjRef> getInstances() {
-    return new ElementList<ObjRef>(json.get("instances").getAsJsonArray()) {
-      @Override
-      protected ObjRef basicGet(JsonArray array, int index) {
-        return new ObjRef(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<ObjRef> list = getDecoded("instances");
+    if (list == null) {
+      list = putDecoded("instances", new ElementList<ObjRef>(json.get("instances").getAsJsonArray()) {
+        @Override
+        protected ObjRef basicGet(JsonArray array, int index) {
+          return new ObjRef(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 
   /**
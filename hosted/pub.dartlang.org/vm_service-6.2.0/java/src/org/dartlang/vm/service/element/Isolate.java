@@ -34,12 +34,16 @@ public class Isolate extends Response {
    * A list of all breakpoints for this isolate.
    */
   public ElementList<Breakpoint> getBreakpoints() {
-    return new ElementList<Breakpoint>(json.get("breakpoints").getAsJsonArray()) {
-      @Override
-      protected Breakpoint basicGet(JsonArray array, int index) {
-        return new Breakpoint(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<Breakpoint> list = getDecoded("breakpoints");
+    if (list == null) {
+      list = putDecoded("breakpoints", new ElementList<Breakpoint>(json.get("breakpoints").getAsJsonArray()) {
+        @Override
+        protected Breakpoint basicGet(JsonArray array, int index) {
+          return new Breakpoint(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 
   /**
@@ -50,9 +54,9 @@ public class Isolate extends Response {
   public ErrorObj getError() {
     JsonObject obj = (JsonObject) json.get("error");
     if (obj == null) return null;
-    final String type = json.get("type").getAsString();
+    final String type = obj.has("type") ? obj.get("type").getAsString() : null;
     if ("Instance".equals(type) || "@Instance".equals(type)) {
-      final String kind = json.get("kind").getAsString();
+      final String kind = obj.get("kind").getAsString();
       if ("Null".equals(kind)) return null;
     }
     return new ErrorObj(obj);
@@ -99,12 +103,16 @@ public class Isolate extends Response {
    * the list of accepted isolate flags.
    */
   public ElementList<IsolateFlag> getIsolateFlags() {
-    return new ElementList<IsolateFlag>(json.get("isolateFlags").getAsJsonArray()) {
-      @Override
-      protected IsolateFlag basicGet(JsonArray array, int index) {
-        return new IsolateFlag(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<IsolateFlag> list = getDecoded("isolateFlags");
+    if (list == null) {
+      list = putDecoded("isolateFlags", new ElementList<IsolateFlag>(json.get("isolateFlags").getAsJsonArray()) {
+        @Override
+        protected IsolateFlag basicGet(JsonArray array, int index) {
+          return new IsolateFlag(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 
   /**
@@ -113,12 +121,16 @@ public class Isolate extends Response {
    * Guaranteed to be initialized when the IsolateRunnable event fires.
    */
   public ElementList<LibraryRef> getLibraries() {
-    return new ElementList<LibraryRef>(json.get("libraries").getAsJsonArray()) {
-      @Override
-      protected LibraryRef basicGet(JsonArray array, int index) {
-        return new LibraryRef(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<LibraryRef> list = getDecoded("libraries");
+    if (list == null) {
+      list = putDecoded("libraries", new ElementList<LibraryRef>(json.get("libraries").getAsJsonArray()) {
+        @Override
+        protected LibraryRef basicGet(JsonArray array, int index) {
+          return new LibraryRef(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 
   /**
@@ -167,9 +179,9 @@ public class Isolate extends Response {
   public LibraryRef getRootLib() {
     JsonObject obj = (JsonObject) json.get("rootLib");
     if (obj == null) return null;
-    final String type = json.get("type").getAsString();
+    final String type = obj.has("type") ? obj.get("type").getAsString() : null;
     if ("Instance".equals(type) || "@Instance".equals(type)) {
-      final String kind = json.get("kind").getAsString();
+      final String kind = obj.get("kind").getAsString();
       if ("Null".equals(kind)) return null;
     }
     return new LibraryRef(obj);
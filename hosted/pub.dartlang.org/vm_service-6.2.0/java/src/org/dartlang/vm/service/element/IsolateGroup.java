@@ -47,12 +47,16 @@ public class IsolateGroup extends Response {
    * A list of all isolates in this isolate group.
    */
   public ElementList<IsolateRef> getIsolates() {
-    return new ElementList<IsolateRef>(json.get("isolates").getAsJsonArray()) {
-      @Override
-      protected IsolateRef basicGet(JsonArray array, int index) {
-        return new IsolateRef(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<IsolateRef> list = getDecoded("isolates");
+    if (list == null) {
+      list = putDecoded("isolates", new ElementList<IsolateRef>(json.get("isolates").getAsJsonArray()) {
+        @Override
+        protected IsolateRef basicGet(JsonArray array, int index) {
+          return new IsolateRef(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 
   /**
@@ -32,12 +32,16 @@ public class Library extends Obj {
    * A list of all classes in this library.
    */
   public ElementList<ClassRef> getClasses() {
-    return new ElementList<ClassRef>(json.get("classes").getAsJsonArray()) {
-      @Override
-      protected ClassRef basicGet(JsonArray array, int index) {
-        return new ClassRef(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<ClassRef> list = getDecoded("classes");
+    if (list == null) {
+      list = putDecoded("classes", new ElementList<ClassRef>(json.get("classes").getAsJsonArray()) {
+        @Override
+        protected ClassRef basicGet(JsonArray array, int index) {
+          return new ClassRef(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 
   /**
@@ -51,24 +55,32 @@ public class Library extends Obj {
    * A list of the imports for this library.
    */
   public ElementList<LibraryDependency> getDependencies() {
-    return new ElementList<LibraryDependency>(json.get("dependencies").getAsJsonArray()) {
-      @Override
-      protected LibraryDependency basicGet(JsonArray array, int index) {
-        return new LibraryDependency(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<LibraryDependency> list = getDecoded("dependencies");
+    if (list == null) {
+      list = putDecoded("dependencies", new ElementList<LibraryDependency>(json.get("dependencies").getAsJsonArray()) {
+        @Override
+        protected LibraryDependency basicGet(JsonArray array, int index) {
+          return new LibraryDependency(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 
   /**
    * A list of the top-level functions in this library.
    */
   public ElementList<FuncRef> getFunctions() {
-    return new ElementList<FuncRef>(json.get("functions").getAsJsonArray()) {
-      @Override
-      protected FuncRef basicGet(JsonArray array, int index) {
-        return new FuncRef(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<FuncRef> list = getDecoded("functions");
+    if (list == null) {
+      list = putDecoded("functions", new ElementList<FuncRef>(json.get("functions").getAsJsonArray()) {
+        @Override
+        protected FuncRef basicGet(JsonArray array, int index) {
+          return new FuncRef(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 
   /**
@@ -82,12 +94,16 @@ public class Library extends Obj {
    * A list of the scripts which constitute this library.
    */
   public ElementList<ScriptRef> getScripts() {
-    return new ElementList<ScriptRef>(json.get("scripts").getAsJsonArray()) {
-      @Override
-      protected ScriptRef basicGet(JsonArray array, int index) {
-        return new ScriptRef(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<ScriptRef> list = getDecoded("scripts");
+    if (list == null) {
+      list = putDecoded("scripts", new ElementList<ScriptRef>(json.get("scripts").getAsJsonArray()) {
+        @Override
+        protected ScriptRef basicGet(JsonArray array, int index) {
+          return new ScriptRef(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 
   /**
@@ -101,11 +117,15 @@ public class Library extends Obj {
    * A list of the top-level variables in this library.
    */
   public ElementList<FieldRef> getVariables() {
-    return new ElementList<FieldRef>(json.get("variables").getAsJsonArray()) {
-      @Override
-      protected FieldRef basicGet(JsonArray array, int index) {
-        return new FieldRef(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<FieldRef> list = getDecoded("variables");
+    if (list == null) {
+      list = putDecoded("variables", new ElementList<FieldRef>(json.get("variables").getAsJsonArray()) {
+        @Override
+        protected FieldRef basicGet(JsonArray array, int index) {
+          return new FieldRef(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 }
@@ -29,11 +29,15 @@ public class PortList extends Response {
   }
 
   public ElementList<InstanceRef> getPorts() {
-    return new ElementList<InstanceRef>(json.get("ports").getAsJsonArray()) {
-      @Override
-      protected InstanceRef basicGet(JsonArray array, int index) {
-        return new InstanceRef(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<InstanceRef> list = getDecoded("ports");
+    if (list == null) {
+      list = putDecoded("ports", new ElementList<InstanceRef>(json.get("ports").getAsJsonArray()) {
+        @Override
+        protected InstanceRef basicGet(JsonArray array, int index) {
+          return new InstanceRef(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 }
@@ -29,12 +29,16 @@ public class ProcessMemoryItem extends Element {
    * Subdivisons of this bucket of memory.
    */
   public ElementList<ProcessMemoryItem> getChildren() {
-    return new ElementList<ProcessMemoryItem>(json.get("children").getAsJsonArray()) {
-      @Override
-      protected ProcessMemoryItem basicGet(JsonArray array, int index) {
-        return new ProcessMemoryItem(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<ProcessMemoryItem> list = getDecoded("children");
+    if (list == null) {
+      list = putDecoded("children", new ElementList<ProcessMemoryItem>(json.get("children").getAsJsonArray()) {
+        @Override
+        protected ProcessMemoryItem basicGet(JsonArray array, int index) {
+          return new ProcessMemoryItem(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 
   /**
@@ -32,11 +32,15 @@ public class ProtocolList extends Response {
    * A list of supported protocols provided by this service.
    */
   public ElementList<Protocol> getProtocols() {
-    return new ElementList<Protocol>(json.get("protocols").getAsJsonArray()) {
-      @Override
-      protected Protocol basicGet(JsonArray array, int index) {
-        return new Protocol(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<Protocol> list = getDecoded("protocols");
+    if (list == null) {
+      list = putDecoded("protocols", new ElementList<Protocol>(json.get("protocols").getAsJsonArray()) {
+        @Override
+        protected Protocol basicGet(JsonArray array, int index) {
+          return new Protocol(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 }
@@ -53,9 +53,9 @@ public class RetainingObject extends Element {
   public ObjRef getParentMapKey() {
     JsonObject obj = (JsonObject) json.get("parentMapKey");
     if (obj == null) return null;
-    final String type = json.get("type").getAsString();
+    final String type = obj.has("type") ? obj.get("type").getAsString() : null;
     if ("Instance".equals(type) || "@Instance".equals(type)) {
-      final String kind = json.get("kind").getAsString();
+      final String kind = obj.get("kind").getAsString();
       if ("Null".equals(kind)) return null;
     }
     return new ObjRef(obj);
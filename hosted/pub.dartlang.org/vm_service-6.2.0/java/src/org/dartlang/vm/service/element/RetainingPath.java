@@ -32,12 +32,16 @@ public class RetainingPath extends Response {
    * The chain of objects which make up the retaining path.
    */
   public ElementList<RetainingObject> getElements() {
-    return new ElementList<RetainingObject>(json.get("elements").getAsJsonArray()) {
-      @Override
-      protected RetainingObject basicGet(JsonArray array, int index) {
-        return new RetainingObject(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<RetainingObject> list = getDecoded("elements");
+    if (list == null) {
+      list = putDecoded("elements", new ElementList<RetainingObject>(json.get("elements").getAsJsonArray()) {
+        @Override
+        protected RetainingObject basicGet(JsonArray array, int index) {
+          return new RetainingObject(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 
   /**
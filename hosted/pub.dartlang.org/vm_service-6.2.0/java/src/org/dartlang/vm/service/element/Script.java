@@ -68,6 +68,16 @@ public class Script extends Obj {
     return getListListInt("tokenPosTable");
   }
 
+  /**
+   * Same as {@link #getTokenPosTable()}, as arrays of primitive ints. The arrays are decoded once
+   * for this element and shared by later calls, so they must not be modified.
+   *
+   * Can return <code>null</code>.
+   */
+  public int[][] getTokenPosTableAsArray() {
+    return getArrayArrayInt("tokenPosTable");
+  }
+
   /**
    * The uri from which this script was loaded.
    */
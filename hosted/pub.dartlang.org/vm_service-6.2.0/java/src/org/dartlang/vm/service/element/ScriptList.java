@@ -26,11 +26,15 @@ public class ScriptList extends Response {
   }
 
   public ElementList<ScriptRef> getScripts() {
-    return new ElementList<ScriptRef>(json.get("scripts").getAsJsonArray()) {
-      @Override
-      protected ScriptRef basicGet(JsonArray array, int index) {
-        return new ScriptRef(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<ScriptRef> list = getDecoded("scripts");
+    if (list == null) {
+      list = putDecoded("scripts", new ElementList<ScriptRef>(json.get("scripts").getAsJsonArray()) {
+        @Override
+        protected ScriptRef basicGet(JsonArray array, int index) {
+          return new ScriptRef(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 }
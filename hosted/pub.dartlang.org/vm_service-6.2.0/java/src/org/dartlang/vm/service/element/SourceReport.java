@@ -38,23 +38,31 @@ public class SourceReport extends Response {
    * Note that ranges may be duplicated, in the case of mixins.
    */
   public ElementList<SourceReportRange> getRanges() {
-    return new ElementList<SourceReportRange>(json.get("ranges").getAsJsonArray()) {
-      @Override
-      protected SourceReportRange basicGet(JsonArray array, int index) {
-        return new SourceReportRange(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<SourceReportRange> list = getDecoded("ranges");
+    if (list == null) {
+      list = putDecoded("ranges", new ElementList<SourceReportRange>(json.get("ranges").getAsJsonArray()) {
+        @Override
+        protected SourceReportRange basicGet(JsonArray array, int index) {
+          return new SourceReportRange(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 
   /**
    * A list of scripts, referenced by index in the report's ranges.
    */
   public ElementList<ScriptRef> getScripts() {
-    return new ElementList<ScriptRef>(json.get("scripts").getAsJsonArray()) {
-      @Override
-      protected ScriptRef basicGet(JsonArray array, int index) {
-        return new ScriptRef(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<ScriptRef> list = getDecoded("scripts");
+    if (list == null) {
+      list = putDecoded("scripts", new ElementList<ScriptRef>(json.get("scripts").getAsJsonArray()) {
+        @Override
+        protected ScriptRef basicGet(JsonArray array, int index) {
+          return new ScriptRef(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 }
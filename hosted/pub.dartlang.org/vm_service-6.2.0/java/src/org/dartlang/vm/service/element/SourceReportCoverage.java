@@ -17,6 +17,7 @@ package org.dartlang.vm.service.element;
 
 import com.google.gson.JsonObject;
 import java.util.List;
+import java.util.PrimitiveIterator;
 
 /**
  * The {@link SourceReportCoverage} class represents coverage information for one
@@ -37,6 +38,21 @@ public class SourceReportCoverage extends Element {
     return getListInt("hits");
   }
 
+  /**
+   * Same as {@link #getHits()}, as an array of primitive ints. The array is decoded once for this
+   * element and shared by later calls, so it must not be modified.
+   */
+  public int[] getHitsAsArray() {
+    return getArrayInt("hits");
+  }
+
+  /**
+   * Same as {@link #getHits()}, as an iterator over primitive ints.
+   */
+  public PrimitiveIterator.OfInt getHitsIterator() {
+    return iterateInt("hits");
+  }
+
   /**
    * A list of token positions in a SourceReportRange which have not been executed.  The list is
    * sorted.
@@ -44,4 +60,19 @@ public class SourceReportCoverage extends Element {
   public List<Integer> getMisses() {
     return getListInt("misses");
   }
+
+  /**
+   * Same as {@link #getMisses()}, as an array of primitive ints. The array is decoded once for
+   * this element and shared by later calls, so it must not be modified.
+   */
+  public int[] getMissesAsArray() {
+    return getArrayInt("misses");
+  }
+
+  /**
+   * Same as {@link #getMisses()}, as an iterator over primitive ints.
+   */
+  public PrimitiveIterator.OfInt getMissesIterator() {
+    return iterateInt("misses");
+  }
 }
@@ -17,6 +17,7 @@ package org.dartlang.vm.service.element;
 
 import com.google.gson.JsonObject;
 import java.util.List;
+import java.util.PrimitiveIterator;
 
 /**
  * The {@link SourceReportRange} class represents a range of executable code (function, method,
@@ -45,9 +46,9 @@ public class SourceReportRange extends Element {
   public SourceReportCoverage getCoverage() {
     JsonObject obj = (JsonObject) json.get("coverage");
     if (obj == null) return null;
-    final String type = json.get("type").getAsString();
+    final String type = obj.has("type") ? obj.get("type").getAsString() : null;
     if ("Instance".equals(type) || "@Instance".equals(type)) {
-      final String kind = json.get("kind").getAsString();
+      final String kind = obj.get("kind").getAsString();
       if ("Null".equals(kind)) return null;
     }
     return new SourceReportCoverage(obj);
@@ -69,9 +70,9 @@ public class SourceReportRange extends Element {
   public ErrorRef getError() {
     JsonObject obj = (JsonObject) json.get("error");
     if (obj == null) return null;
-    final String type = json.get("type").getAsString();
+    final String type = obj.has("type") ? obj.get("type").getAsString() : null;
     if ("Instance".equals(type) || "@Instance".equals(type)) {
-      final String kind = json.get("kind").getAsString();
+      final String kind = obj.get("kind").getAsString();
       if ("Null".equals(kind)) return null;
     }
     return new ErrorRef(obj);
@@ -88,6 +89,25 @@ public class SourceReportRange extends Element {
     return getListInt("possibleBreakpoints");
   }
 
+  /**
+   * Same as {@link #getPossibleBreakpoints()}, as an array of primitive ints. The array is decoded
+   * once for this element and shared by later calls, so it must not be modified.
+   *
+   * Can return <code>null</code>.
+   */
+  public int[] getPossibleBreakpointsAsArray() {
+    return getArrayInt("possibleBreakpoints");
+  }
+
+  /**
+   * Same as {@link #getPossibleBreakpoints()}, as an iterator over primitive ints.
+   *
+   * Can return <code>null</code>.
+   */
+  public PrimitiveIterator.OfInt getPossibleBreakpointsIterator() {
+    return iterateInt("possibleBreakpoints");
+  }
+
   /**
    * An index into the script table of the SourceReport, indicating which script contains this
    * range of code.
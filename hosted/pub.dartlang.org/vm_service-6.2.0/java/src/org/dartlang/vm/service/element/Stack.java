@@ -38,12 +38,16 @@ public class Stack extends Response {
   public ElementList<Frame> getAsyncCausalFrames() {
     if (json.get("asyncCausalFrames") == null) return null;
     
-    return new ElementList<Frame>(json.get("asyncCausalFrames").getAsJsonArray()) {
-      @Override
-      protected Frame basicGet(JsonArray array, int index) {
-        return new Frame(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<Frame> list = getDecoded("asyncCausalFrames");
+    if (list == null) {
+      list = putDecoded("asyncCausalFrames", new ElementList<Frame>(json.get("asyncCausalFrames").getAsJsonArray()) {
+        @Override
+        protected Frame basicGet(JsonArray array, int index) {
+          return new Frame(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 
   /**
@@ -55,12 +59,16 @@ public class Stack extends Response {
   public ElementList<Frame> getAwaiterFrames() {
     if (json.get("awaiterFrames") == null) return null;
     
-    return new ElementList<Frame>(json.get("awaiterFrames").getAsJsonArray()) {
-      @Override
-      protected Frame basicGet(JsonArray array, int index) {
-        return new Frame(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<Frame> list = getDecoded("awaiterFrames");
+    if (list == null) {
+      list = putDecoded("awaiterFrames", new ElementList<Frame>(json.get("awaiterFrames").getAsJsonArray()) {
+        @Override
+        protected Frame basicGet(JsonArray array, int index) {
+          return new Frame(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 
   /**
@@ -68,24 +76,32 @@ public class Stack extends Response {
    * frames since the last asynchronous gap or the isolate's entrypoint).
    */
   public ElementList<Frame> getFrames() {
-    return new ElementList<Frame>(json.get("frames").getAsJsonArray()) {
-      @Override
-      protected Frame basicGet(JsonArray array, int index) {
-        return new Frame(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<Frame> list = getDecoded("frames");
+    if (list == null) {
+      list = putDecoded("frames", new ElementList<Frame>(json.get("frames").getAsJsonArray()) {
+        @Override
+        protected Frame basicGet(JsonArray array, int index) {
+          return new Frame(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 
   /**
    * A list of messages in the isolate's message queue.
    */
   public ElementList<Message> getMessages() {
-    return new ElementList<Message>(json.get("messages").getAsJsonArray()) {
-      @Override
-      protected Message basicGet(JsonArray array, int index) {
-        return new Message(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<Message> list = getDecoded("messages");
+    if (list == null) {
+      list = putDecoded("messages", new ElementList<Message>(json.get("messages").getAsJsonArray()) {
+        @Override
+        protected Message basicGet(JsonArray array, int index) {
+          return new Message(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 
   /**
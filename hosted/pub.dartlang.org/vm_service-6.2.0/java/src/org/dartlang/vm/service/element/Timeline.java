@@ -44,11 +44,15 @@ public class Timeline extends Response {
    * events may be unordered with respect to their timestamps.
    */
   public ElementList<TimelineEvent> getTraceEvents() {
-    return new ElementList<TimelineEvent>(json.get("traceEvents").getAsJsonArray()) {
-      @Override
-      protected TimelineEvent basicGet(JsonArray array, int index) {
-        return new TimelineEvent(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<TimelineEvent> list = getDecoded("traceEvents");
+    if (list == null) {
+      list = putDecoded("traceEvents", new ElementList<TimelineEvent>(json.get("traceEvents").getAsJsonArray()) {
+        @Override
+        protected TimelineEvent basicGet(JsonArray array, int index) {
+          return new TimelineEvent(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 }
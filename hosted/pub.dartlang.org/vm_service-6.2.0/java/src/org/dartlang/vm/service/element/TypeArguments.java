@@ -42,11 +42,15 @@ public class TypeArguments extends Obj {
    * The value will always be one of the kinds: Type, TypeRef, TypeParameter, BoundedType.
    */
   public ElementList<InstanceRef> getTypes() {
-    return new ElementList<InstanceRef>(json.get("types").getAsJsonArray()) {
-      @Override
-      protected InstanceRef basicGet(JsonArray array, int index) {
-        return new InstanceRef(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<InstanceRef> list = getDecoded("types");
+    if (list == null) {
+      list = putDecoded("types", new ElementList<InstanceRef>(json.get("types").getAsJsonArray()) {
+        @Override
+        protected InstanceRef basicGet(JsonArray array, int index) {
+          return new InstanceRef(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 }
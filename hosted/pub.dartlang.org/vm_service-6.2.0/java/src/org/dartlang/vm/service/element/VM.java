@@ -43,24 +43,32 @@ public class VM extends Response {
    * A list of isolate groups running in the VM.
    */
   public ElementList<IsolateGroupRef> getIsolateGroups() {
-    return new ElementList<IsolateGroupRef>(json.get("isolateGroups").getAsJsonArray()) {
-      @Override
-      protected IsolateGroupRef basicGet(JsonArray array, int index) {
-        return new IsolateGroupRef(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<IsolateGroupRef> list = getDecoded("isolateGroups");
+    if (list == null) {
+      list = putDecoded("isolateGroups", new ElementList<IsolateGroupRef>(json.get("isolateGroups").getAsJsonArray()) {
+        @Override
+        protected IsolateGroupRef basicGet(JsonArray array, int index) {
+          return new IsolateGroupRef(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 
   /**
    * A list of isolates running in the VM.
    */
   public ElementList<IsolateRef> getIsolates() {
-    return new ElementList<IsolateRef>(json.get("isolates").getAsJsonArray()) {
-      @Override
-      protected IsolateRef basicGet(JsonArray array, int index) {
-        return new IsolateRef(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<IsolateRef> list = getDecoded("isolates");
+    if (list == null) {
+      list = putDecoded("isolates", new ElementList<IsolateRef>(json.get("isolates").getAsJsonArray()) {
+        @Override
+        protected IsolateRef basicGet(JsonArray array, int index) {
+          return new IsolateRef(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 
   /**
@@ -97,24 +105,32 @@ public class VM extends Response {
    * A list of isolate groups which contain system isolates running in the VM.
    */
   public ElementList<IsolateGroupRef> getSystemIsolateGroups() {
-    return new ElementList<IsolateGroupRef>(json.get("systemIsolateGroups").getAsJsonArray()) {
-      @Override
-      protected IsolateGroupRef basicGet(JsonArray array, int index) {
-        return new IsolateGroupRef(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<IsolateGroupRef> list = getDecoded("systemIsolateGroups");
+    if (list == null) {
+      list = putDecoded("systemIsolateGroups", new ElementList<IsolateGroupRef>(json.get("systemIsolateGroups").getAsJsonArray()) {
+        @Override
+        protected IsolateGroupRef basicGet(JsonArray array, int index) {
+          return new IsolateGroupRef(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 
   /**
    * A list of system isolates running in the VM.
    */
   public ElementList<IsolateRef> getSystemIsolates() {
-    return new ElementList<IsolateRef>(json.get("systemIsolates").getAsJsonArray()) {
-      @Override
-      protected IsolateRef basicGet(JsonArray array, int index) {
-        return new IsolateRef(array.get(index).getAsJsonObject());
-      }
-    };
+    ElementList<IsolateRef> list = getDecoded("systemIsolates");
+    if (list == null) {
+      list = putDecoded("systemIsolates", new ElementList<IsolateRef>(json.get("systemIsolates").getAsJsonArray()) {
+        @Override
+        protected IsolateRef basicGet(JsonArray array, int index) {
+          return new IsolateRef(array.get(index).getAsJsonObject());
+        }
+      });
+    }
+    return list;
   }
 
   /**
@@ -0,0 +1,391 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.heap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * {@link HeapSnapshotAnalysis} computes the dominator tree of a {@link HeapSnapshotGraph} and the
+ * retained size of each object and class. An object {@code d} dominates an object {@code o} if
+ * every path from the root to {@code o} goes through {@code d}, and the retained size of an object
+ * is the memory that would be freed if it was freed.
+ *
+ * The dominators are computed with the Lengauer-Tarjan algorithm over the edge arrays of the
+ * graph. All working storage is held in primitive arrays: about a dozen ints per object and one
+ * int per reference while analyzing, and one int and one long per object afterwards.
+ */
+public class HeapSnapshotAnalysis {
+  private static final int ROOT = 1;
+
+  private final HeapSnapshotGraph graph;
+
+  /**
+   * The immediate dominator of each object, indexed by object id, or 0 for the root and for
+   * unreachable objects.
+   */
+  private final int[] dominators;
+
+  /**
+   * The retained size of each object, indexed by object id.
+   */
+  private final long[] retainedSizes;
+
+  private final List<HeapSnapshotClassSummary> classSummaries;
+
+  public HeapSnapshotAnalysis(HeapSnapshotGraph graph) {
+    this.graph = graph;
+    int objectCount = graph.getObjectCount();
+    dominators = new int[objectCount + 1];
+    retainedSizes = new long[objectCount + 1];
+    if (objectCount >= ROOT) {
+      computeDominators();
+    }
+    classSummaries = computeClassSummaries();
+  }
+
+  /**
+   * Return a summary of each class with reachable instances, ordered by decreasing retained size.
+   */
+  public List<HeapSnapshotClassSummary> getClassSummaries() {
+    return classSummaries;
+  }
+
+  /**
+   * Return the immediate dominator of the given object, or 0 if the object is the root or is not
+   * reachable from the root.
+   */
+  public int getDominator(int objectId) {
+    return dominators[objectId];
+  }
+
+  public HeapSnapshotGraph getGraph() {
+    return graph;
+  }
+
+  /**
+   * Return the memory that would be freed if the given object was freed, or 0 if the object is
+   * not reachable from the root.
+   */
+  public long getRetainedSize(int objectId) {
+    return retainedSizes[objectId];
+  }
+
+  /**
+   * Return the ids of up to {@code count} objects other than the root with the largest retained
+   * sizes, ordered by decreasing retained size.
+   */
+  public int[] getTopRetainers(int count) {
+    // Min-heap of the largest retainers seen so far
+    int[] heap = new int[Math.max(0, Math.min(count, graph.getObjectCount()))];
+    int size = 0;
+    for (int id = ROOT + 1; id < retainedSizes.length && heap.length > 0; id++) {
+      long retained = retainedSizes[id];
+      if (retained == 0) {
+        continue;
+      }
+      if (size < heap.length) {
+        heap[size] = id;
+        siftUp(heap, size++);
+      } else if (retained > retainedSizes[heap[0]]) {
+        heap[0] = id;
+        siftDown(heap, 0, size);
+      }
+    }
+    // Sort by decreasing retained size by repeatedly moving the smallest to the end
+    for (int end = size - 1; end > 0; end--) {
+      int smallest = heap[0];
+      heap[0] = heap[end];
+      heap[end] = smallest;
+      siftDown(heap, 0, end);
+    }
+    int[] result = new int[size];
+    System.arraycopy(heap, 0, result, 0, size);
+    return result;
+  }
+
+  /**
+   * Return {@code true} if the given object is reachable from the root.
+   */
+  public boolean isReachable(int objectId) {
+    return objectId == ROOT || dominators[objectId] != 0;
+  }
+
+  private void siftUp(int[] heap, int index) {
+    int id = heap[index];
+    while (index > 0) {
+      int parent = (index - 1) >>> 1;
+      if (retainedSizes[heap[parent]] <= retainedSizes[id]) {
+        break;
+      }
+      heap[index] = heap[parent];
+      index = parent;
+    }
+    heap[index] = id;
+  }
+
+  private void siftDown(int[] heap, int index, int size) {
+    int id = heap[index];
+    for (;;) {
+      int child = 2 * index + 1;
+      if (child >= size) {
+        break;
+      }
+      if (child + 1 < size && retainedSizes[heap[child + 1]] < retainedSizes[heap[child]]) {
+        child++;
+      }
+      if (retainedSizes[id] <= retainedSizes[heap[child]]) {
+        break;
+      }
+      heap[index] = heap[child];
+      index = child;
+    }
+    heap[index] = id;
+  }
+
+  /**
+   * Compute the immediate dominator and the retained size of each object. Vertices are numbered
+   * in depth first order from the root, starting at 1, and the working arrays are indexed by that
+   * number.
+   */
+  private void computeDominators() {
+    int[] firstSuccessors = graph.firstSuccessors;
+    int[] successors = graph.successors;
+    int objectCount = graph.getObjectCount();
+
+    // Number the reachable objects in depth first order
+    int[] number = new int[objectCount + 1];
+    int[] vertex = new int[objectCount + 1];
+    int[] parent = new int[objectCount + 1];
+    int[] stack = new int[objectCount + 1];
+    int[] edgeCursor = new int[objectCount + 1];
+    int n = 0;
+    int sp = 0;
+    number[ROOT] = ++n;
+    vertex[n] = ROOT;
+    stack[sp] = ROOT;
+    edgeCursor[sp++] = firstSuccessors[ROOT];
+    while (sp > 0) {
+      int v = stack[sp - 1];
+      int edge = edgeCursor[sp - 1];
+      if (edge == firstSuccessors[v + 1]) {
+        sp--;
+        continue;
+      }
+      edgeCursor[sp - 1] = edge + 1;
+      int w = successors[edge];
+      if (w >= ROOT && number[w] == 0) {
+        number[w] = ++n;
+        vertex[n] = w;
+        parent[n] = number[v];
+        stack[sp] = w;
+        edgeCursor[sp++] = firstSuccessors[w];
+      }
+    }
+
+    // Collect the predecessors of each reachable vertex
+    int[] firstPredecessor = new int[n + 2];
+    for (int v = 1; v <= n; v++) {
+      int id = vertex[v];
+      for (int edge = firstSuccessors[id]; edge < firstSuccessors[id + 1]; edge++) {
+        int w = successors[edge];
+        if (w >= ROOT) {
+          firstPredecessor[number[w] + 1]++;
+        }
+      }
+    }
+    for (int v = 1; v <= n; v++) {
+      firstPredecessor[v + 1] += firstPredecessor[v];
+    }
+    int[] predecessors = new int[firstPredecessor[n + 1]];
+    int[] nextPredecessor = edgeCursor;
+    System.arraycopy(firstPredecessor, 0, nextPredecessor, 0, n + 1);
+    for (int v = 1; v <= n; v++) {
+      int id = vertex[v];
+      for (int edge = firstSuccessors[id]; edge < firstSuccessors[id + 1]; edge++) {
+        int w = successors[edge];
+        if (w >= ROOT && number[w] != 0) {
+          predecessors[nextPredecessor[number[w]]++] = v;
+        }
+      }
+    }
+
+    // Lengauer-Tarjan with simple linking and path compression
+    int[] semi = new int[n + 1];
+    int[] label = new int[n + 1];
+    int[] ancestor = new int[n + 1];
+    int[] dom = new int[n + 1];
+    // The depth first numbers are no longer needed, so reuse their arrays for the buckets
+    int[] bucketHead = number;
+    int[] bucketNext = nextPredecessor;
+    Arrays.fill(bucketHead, 0);
+    Arrays.fill(bucketNext, 0);
+    for (int v = 1; v <= n; v++) {
+      semi[v] = v;
+      label[v] = v;
+    }
+    for (int w = n; w >= 2; w--) {
+      for (int i = firstPredecessor[w]; i < firstPredecessor[w + 1]; i++) {
+        int u = eval(predecessors[i], ancestor, label, semi, stack);
+        if (semi[u] < semi[w]) {
+          semi[w] = semi[u];
+        }
+      }
+      bucketNext[w] = bucketHead[semi[w]];
+      bucketHead[semi[w]] = w;
+      int p = parent[w];
+      ancestor[w] = p;
+      for (int v = bucketHead[p]; v != 0; v = bucketNext[v]) {
+        int u = eval(v, ancestor, label, semi, stack);
+        dom[v] = semi[u] < semi[v] ? u : p;
+      }
+      bucketHead[p] = 0;
+    }
+    for (int w = 2; w <= n; w++) {
+      if (dom[w] != semi[w]) {
+        dom[w] = dom[dom[w]];
+      }
+    }
+
+    // A vertex is numbered after its dominator, so sizes can be accumulated in reverse order
+    long[] retained = new long[n + 1];
+    for (int v = 1; v <= n; v++) {
+      retained[v] = graph.shallowSizes[vertex[v]];
+    }
+    for (int v = n; v >= 2; v--) {
+      retained[dom[v]] += retained[v];
+    }
+    for (int v = 1; v <= n; v++) {
+      int id = vertex[v];
+      dominators[id] = v == 1 ? 0 : vertex[dom[v]];
+      retainedSizes[id] = retained[v];
+    }
+  }
+
+  /**
+   * Return the vertex with the minimal semi-dominator on the path from {@code v} to the root of
+   * its tree in the forest built so far, compressing the path as a side effect.
+   */
+  private static int eval(int v, int[] ancestor, int[] label, int[] semi, int[] stack) {
+    if (ancestor[v] == 0) {
+      return v;
+    }
+    // Iterative form of the recursive compress, as paths can be millions of vertices long
+    int sp = 0;
+    int u = v;
+    while (ancestor[ancestor[u]] != 0) {
+      stack[sp++] = u;
+      u = ancestor[u];
+    }
+    while (sp > 0) {
+      u = stack[--sp];
+      int a = ancestor[u];
+      if (semi[label[a]] < semi[label[u]]) {
+        label[u] = label[a];
+      }
+      ancestor[u] = ancestor[a];
+    }
+    return label[v];
+  }
+
+  /**
+   * Aggregate the objects by class. The retained size of a class is the sum of the retained sizes
+   * of its instances that are not dominated by another instance of the same class, which requires
+   * a walk of the dominator tree.
+   */
+  private List<HeapSnapshotClassSummary> computeClassSummaries() {
+    List<HeapSnapshotClass> classes = graph.getClasses();
+    int classCount = classes.size();
+    int objectCount = graph.getObjectCount();
+    int[] instanceCounts = new int[classCount];
+    long[] shallowSizes = new long[classCount];
+    long[] classRetainedSizes = new long[classCount];
+
+    // Build the children of each object in the dominator tree
+    int[] firstChild = new int[objectCount + 2];
+    for (int id = ROOT + 1; id <= objectCount; id++) {
+      if (dominators[id] != 0) {
+        firstChild[dominators[id] + 1]++;
+      }
+    }
+    for (int id = 1; id <= objectCount; id++) {
+      firstChild[id + 1] += firstChild[id];
+    }
+    int[] children = new int[firstChild[objectCount + 1]];
+    int[] nextChild = new int[objectCount + 1];
+    System.arraycopy(firstChild, 0, nextChild, 0, objectCount + 1);
+    for (int id = ROOT + 1; id <= objectCount; id++) {
+      if (dominators[id] != 0) {
+        children[nextChild[dominators[id]]++] = id;
+      }
+    }
+
+    // Walk the dominator tree, tracking how many instances of each class are on the current path.
+    // The stack holds an object id when it is entered and its complement when it is left.
+    int[] active = new int[classCount];
+    int[] stack = nextChild;
+    int sp = 0;
+    if (objectCount >= ROOT) {
+      stack[sp++] = ROOT;
+    }
+    while (sp > 0) {
+      int entry = stack[--sp];
+      if (entry < 0) {
+        int classId = classIndex(~entry, classCount);
+        if (classId >= 0) {
+          active[classId]--;
+        }
+        continue;
+      }
+      int classId = classIndex(entry, classCount);
+      if (classId >= 0) {
+        instanceCounts[classId]++;
+        shallowSizes[classId] += graph.shallowSizes[entry];
+        if (active[classId]++ == 0) {
+          classRetainedSizes[classId] += retainedSizes[entry];
+        }
+        stack[sp++] = ~entry;
+      }
+      for (int i = firstChild[entry]; i < firstChild[entry + 1]; i++) {
+        stack[sp++] = children[i];
+      }
+    }
+
+    List<HeapSnapshotClassSummary> result = new ArrayList<>();
+    for (int classId = 0; classId < classCount; classId++) {
+      if (instanceCounts[classId] > 0) {
+        result.add(new HeapSnapshotClassSummary(classes.get(classId), instanceCounts[classId],
+            shallowSizes[classId], classRetainedSizes[classId]));
+      }
+    }
+    Collections.sort(result, new Comparator<HeapSnapshotClassSummary>() {
+      @Override
+      public int compare(HeapSnapshotClassSummary s1, HeapSnapshotClassSummary s2) {
+        return Long.compare(s2.getRetainedSize(), s1.getRetainedSize());
+      }
+    });
+    return Collections.unmodifiableList(result);
+  }
+
+  /**
+   * Return the class id of the given object, or -1 if it is not a valid class id.
+   */
+  private int classIndex(int objectId, int classCount) {
+    int classId = graph.classIds[objectId];
+    return classId >= 0 && classId < classCount ? classId : -1;
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.heap;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A representation of a class type captured in a memory snapshot.
+ */
+public class HeapSnapshotClass {
+  static final HeapSnapshotClass ROOT = new HeapSnapshotClass(0, "Root", "", "",
+      Collections.<HeapSnapshotField>emptyList());
+
+  static final HeapSnapshotClass SENTINEL = new HeapSnapshotClass(0, "Sentinel", "", "",
+      Collections.<HeapSnapshotField>emptyList());
+
+  private final int classId;
+  private final String name;
+  private final String libraryName;
+  private final String libraryUri;
+  private final List<HeapSnapshotField> fields;
+
+  HeapSnapshotClass(int classId, String name, String libraryName, String libraryUri,
+      List<HeapSnapshotField> fields) {
+    this.classId = classId;
+    this.name = name;
+    this.libraryName = libraryName;
+    this.libraryUri = libraryUri;
+    this.fields = fields;
+  }
+
+  /**
+   * The class ID representing this type.
+   */
+  public int getClassId() {
+    return classId;
+  }
+
+  /**
+   * The list of fields in the class.
+   */
+  public List<HeapSnapshotField> getFields() {
+    return fields;
+  }
+
+  /**
+   * The name of the class's library.
+   */
+  public String getLibraryName() {
+    return libraryName;
+  }
+
+  /**
+   * The URI of the class's library.
+   */
+  public String getLibraryUri() {
+    return libraryUri;
+  }
+
+  /**
+   * The simple (not qualified) name of the class.
+   */
+  public String getName() {
+    return name;
+  }
+}
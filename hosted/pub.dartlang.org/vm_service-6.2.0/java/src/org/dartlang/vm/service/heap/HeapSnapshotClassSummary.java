@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.heap;
+
+/**
+ * The instance count, shallow size and retained size of the objects of one class in a heap
+ * snapshot.
+ */
+public class HeapSnapshotClassSummary {
+  private final HeapSnapshotClass heapClass;
+  private final int instanceCount;
+  private final long shallowSize;
+  private final long retainedSize;
+
+  HeapSnapshotClassSummary(HeapSnapshotClass heapClass, int instanceCount, long shallowSize,
+      long retainedSize) {
+    this.heapClass = heapClass;
+    this.instanceCount = instanceCount;
+    this.shallowSize = shallowSize;
+    this.retainedSize = retainedSize;
+  }
+
+  public HeapSnapshotClass getHeapClass() {
+    return heapClass;
+  }
+
+  /**
+   * The number of reachable instances of the class.
+   */
+  public int getInstanceCount() {
+    return instanceCount;
+  }
+
+  /**
+   * The memory that would be freed if all instances of the class were freed. Instances that are
+   * dominated by another instance of the same class are only counted once.
+   */
+  public long getRetainedSize() {
+    return retainedSize;
+  }
+
+  /**
+   * The sum of the shallow sizes of the reachable instances of the class.
+   */
+  public long getShallowSize() {
+    return shallowSize;
+  }
+}
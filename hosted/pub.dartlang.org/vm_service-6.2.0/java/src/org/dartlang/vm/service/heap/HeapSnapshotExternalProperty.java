@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.heap;
+
+/**
+ * A representation of an external property captured in a memory snapshot.
+ */
+public class HeapSnapshotExternalProperty {
+  private final int object;
+  private final long externalSize;
+  private final String name;
+
+  HeapSnapshotExternalProperty(int object, long externalSize, String name) {
+    this.object = object;
+    this.externalSize = externalSize;
+    this.name = name;
+  }
+
+  /**
+   * The amount of external memory used.
+   */
+  public long getExternalSize() {
+    return externalSize;
+  }
+
+  /**
+   * The name of the external property.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * The id of the object that owns the external memory.
+   */
+  public int getObject() {
+    return object;
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.heap;
+
+/**
+ * A representation of a field captured in a memory snapshot.
+ */
+public class HeapSnapshotField {
+  private final int index;
+  private final String name;
+
+  HeapSnapshotField(int index, String name) {
+    this.index = index;
+    this.name = name;
+  }
+
+  /**
+   * An index into the references of an object of the declaring class.
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  /**
+   * The name of the field.
+   */
+  public String getName() {
+    return name;
+  }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.heap;
+
+import org.dartlang.vm.service.RPCException;
+import org.dartlang.vm.service.VmService;
+import org.dartlang.vm.service.VmServiceBinaryListener;
+import org.dartlang.vm.service.element.Event;
+import org.dartlang.vm.service.element.RPCError;
+import org.dartlang.vm.service.element.Response;
+import org.dartlang.vm.service.element.Success;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * A graph representation of a heap snapshot. Objects are identified by their index in the
+ * snapshot, from 1 to {@link #getObjectCount()}, and the per object values and the outgoing
+ * references are held in primitive arrays so that snapshots of large heaps can be loaded.
+ * Instances are created by a {@link HeapSnapshotReader}.
+ */
+public class HeapSnapshotGraph {
+  /**
+   * Request a heap snapshot for the given isolate and build a {@link HeapSnapshotGraph} from the
+   * chunks as they arrive.
+   *
+   * Note: this method calls {@link VmService#streamListen} and {@link VmService#streamCancel} on
+   * the {@link VmService#HEAPSNAPSHOT_STREAM_ID} stream.
+   */
+  public static CompletableFuture<HeapSnapshotGraph> getSnapshot(final VmService service,
+      final String isolateId) {
+    final CompletableFuture<HeapSnapshotGraph> result = new CompletableFuture<>();
+    final HeapSnapshotReader reader = new HeapSnapshotReader();
+    final VmServiceBinaryListener listener = new VmServiceBinaryListener() {
+      @Override
+      public void connectionOpened() {
+      }
+
+      @Override
+      public void received(String streamId, Event event) {
+      }
+
+      @Override
+      public void received(String streamId, Event event, ByteBuffer data) {
+        if (!VmService.HEAPSNAPSHOT_STREAM_ID.equals(streamId) || result.isDone()) {
+          return;
+        }
+        try {
+          reader.add(data);
+          if (event.getLast()) {
+            service.removeVmServiceListener(this);
+            service.streamCancelAsync(VmService.HEAPSNAPSHOT_STREAM_ID);
+            result.complete(reader.finish());
+          }
+        } catch (RuntimeException e) {
+          service.removeVmServiceListener(this);
+          service.streamCancelAsync(VmService.HEAPSNAPSHOT_STREAM_ID);
+          result.completeExceptionally(e);
+        }
+      }
+
+      @Override
+      public void connectionClosed() {
+        result.completeExceptionally(
+            new RPCException(RPCError.connectionClosed("requestHeapSnapshot")));
+      }
+    };
+    service.addVmServiceListener(listener);
+    service.streamListenAsync(VmService.HEAPSNAPSHOT_STREAM_ID)
+        .thenCompose(new Function<Success, CompletionStage<Response>>() {
+          @Override
+          public CompletionStage<Response> apply(Success success) {
+            return service.requestHeapSnapshotAsync(isolateId);
+          }
+        })
+        .whenComplete(new BiConsumer<Response, Throwable>() {
+          @Override
+          public void accept(Response response, Throwable exception) {
+            if (exception != null) {
+              service.removeVmServiceListener(listener);
+              result.completeExceptionally(exception);
+            }
+          }
+        });
+    return result;
+  }
+
+  private final String name;
+  private final long flags;
+  private final long shallowSize;
+  private final long capacity;
+  private final long externalSize;
+  private final List<HeapSnapshotClass> classes;
+  private final List<HeapSnapshotExternalProperty> externalProperties;
+
+  /**
+   * The class id of each object, indexed by object id.
+   */
+  final int[] classIds;
+
+  /**
+   * The shallow size of each object, indexed by object id.
+   */
+  final long[] shallowSizes;
+
+  /**
+   * The index in {@link #successors} of the first reference of each object, indexed by object id.
+   * The references of object {@code i} are at {@code firstSuccessors[i]} up to but not including
+   * {@code firstSuccessors[i + 1]}.
+   */
+  final int[] firstSuccessors;
+
+  /**
+   * The ids of the objects referenced by each object.
+   */
+  final int[] successors;
+
+  final int[] identityHashCodes;
+
+  /**
+   * The non-reference data of each object, or {@code null} if the data was not retained.
+   */
+  final Object[] data;
+
+  HeapSnapshotGraph(String name, long flags, long shallowSize, long capacity, long externalSize,
+      HeapSnapshotClass[] classes, int[] classIds, long[] shallowSizes, int[] firstSuccessors,
+      int[] successors, int[] identityHashCodes, Object[] data,
+      List<HeapSnapshotExternalProperty> externalProperties) {
+    this.name = name;
+    this.flags = flags;
+    this.shallowSize = shallowSize;
+    this.capacity = capacity;
+    this.externalSize = externalSize;
+    this.classes = Collections.unmodifiableList(Arrays.asList(classes));
+    this.classIds = classIds;
+    this.shallowSizes = shallowSizes;
+    this.firstSuccessors = firstSuccessors;
+    this.successors = successors;
+    this.identityHashCodes = identityHashCodes;
+    this.data = data;
+    this.externalProperties = Collections.unmodifiableList(externalProperties);
+  }
+
+  /**
+   * The amount of memory reserved for this heap in bytes. At least as large as
+   * {@link #getShallowSize()}.
+   */
+  public long getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Return the class id of the given object.
+   */
+  public int getClassId(int objectId) {
+    return classIds[objectId];
+  }
+
+  /**
+   * The list of classes found in this snapshot, indexed by class id. The class at index 0 is the
+   * root class.
+   */
+  public List<HeapSnapshotClass> getClasses() {
+    return classes;
+  }
+
+  /**
+   * Return the data associated with the given object, or {@code null} if the object has no data
+   * or the reader was not asked to retain object data. The data is one of {@link Boolean},
+   * {@link Long}, {@link Double}, {@link String}, {@link HeapSnapshotObjectNullData} or
+   * {@link HeapSnapshotObjectLengthData}.
+   */
+  public Object getData(int objectId) {
+    return data != null ? data[objectId] : null;
+  }
+
+  /**
+   * The list of external properties found in this snapshot.
+   */
+  public List<HeapSnapshotExternalProperty> getExternalProperties() {
+    return externalProperties;
+  }
+
+  /**
+   * The sum of sizes of all external properties in this graph in bytes.
+   */
+  public long getExternalSize() {
+    return externalSize;
+  }
+
+  public long getFlags() {
+    return flags;
+  }
+
+  /**
+   * Return the identity hash code of the given object. If the result is 0, either the snapshot did
+   * not contain identity hash codes or the object cannot be compared across snapshots.
+   */
+  public int getIdentityHashCode(int objectId) {
+    return identityHashCodes[objectId];
+  }
+
+  /**
+   * The name of the isolate represented by this heap snapshot.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Return the class of the given object.
+   */
+  public HeapSnapshotClass getObjectClass(int objectId) {
+    int classId = classIds[objectId];
+    return classId > 0 ? classes.get(classId) : HeapSnapshotClass.SENTINEL;
+  }
+
+  /**
+   * The number of objects in this snapshot. Object ids range from 1 to this value, and object 1
+   * is the root of the graph.
+   */
+  public int getObjectCount() {
+    return classIds.length - 1;
+  }
+
+  /**
+   * The number of references between objects in this snapshot.
+   */
+  public int getReferenceCount() {
+    return firstSuccessors[firstSuccessors.length - 1];
+  }
+
+  /**
+   * The sum of shallow sizes of all objects in this graph in bytes.
+   */
+  public long getShallowSize() {
+    return shallowSize;
+  }
+
+  /**
+   * Return the space used by the given object in bytes.
+   */
+  public long getShallowSize(int objectId) {
+    return shallowSizes[objectId];
+  }
+
+  /**
+   * Return the id of the object referenced by the given object at the given index, which is
+   * between 0 and {@link #getSuccessorCount(int)}.
+   */
+  public int getSuccessor(int objectId, int index) {
+    return successors[firstSuccessors[objectId] + index];
+  }
+
+  /**
+   * Return the number of objects referenced by the given object.
+   */
+  public int getSuccessorCount(int objectId) {
+    return firstSuccessors[objectId + 1] - firstSuccessors[objectId];
+  }
+
+  /**
+   * Return the ids of the objects referenced by the given object.
+   */
+  public int[] getSuccessors(int objectId) {
+    return Arrays.copyOfRange(successors, firstSuccessors[objectId], firstSuccessors[objectId + 1]);
+  }
+}
@@ -0,0 +1,506 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.heap;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link HeapSnapshotReader} decodes the chunks of a heap snapshot, as delivered on the
+ * {@link org.dartlang.vm.service.VmService#HEAPSNAPSHOT_STREAM_ID} stream, into a
+ * {@link HeapSnapshotGraph}. Each chunk is decoded as soon as it is added, so only the bytes of
+ * a record that spans two chunks are retained between calls, and objects and references are
+ * stored directly into primitive arrays.
+ */
+public class HeapSnapshotReader {
+  private static final byte[] MAGIC = "dartheap".getBytes(StandardCharsets.US_ASCII);
+
+  private static final int NO_DATA = 0;
+  private static final int NULL_DATA = 1;
+  private static final int BOOL_DATA = 2;
+  private static final int INT_DATA = 3;
+  private static final int DOUBLE_DATA = 4;
+  private static final int LATIN1_DATA = 5;
+  private static final int UTF16_DATA = 6;
+  private static final int LENGTH_DATA = 7;
+  private static final int NAME_DATA = 8;
+
+  private static final int PHASE_HEADER = 0;
+  private static final int PHASE_CLASSES = 1;
+  private static final int PHASE_OBJECT_COUNTS = 2;
+  private static final int PHASE_OBJECTS = 3;
+  private static final int PHASE_EXTERNAL_COUNT = 4;
+  private static final int PHASE_EXTERNAL_PROPERTIES = 5;
+  private static final int PHASE_IDENTITY_HASH_CODES = 6;
+  private static final int PHASE_DONE = 7;
+
+  /**
+   * Thrown when a record extends past the bytes received so far.
+   */
+  private static final class Underflow extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    Underflow() {
+      super(null, null, false, false);
+    }
+  }
+
+  private static final Underflow UNDERFLOW = new Underflow();
+
+  private final boolean retainData;
+
+  /**
+   * The unconsumed bytes of previous chunks, or {@code null} if there are none.
+   */
+  private ByteBuffer carry;
+
+  /**
+   * The chunk being decoded.
+   */
+  private ByteBuffer chunk;
+
+  private int carryMark;
+  private int chunkMark;
+
+  private int phase = PHASE_HEADER;
+
+  private String name;
+  private long flags;
+  private long shallowSize;
+  private long capacity;
+  private long externalSize;
+
+  private HeapSnapshotClass[] classes;
+  private int[] classIds;
+  private long[] shallowSizes;
+  private int[] firstSuccessors;
+  private int[] successors;
+  private int[] identityHashCodes;
+  private Object[] data;
+  private final List<HeapSnapshotExternalProperty> externalProperties = new ArrayList<>();
+
+  /**
+   * The index of the next class, object, external property or identity hash code to be read.
+   */
+  private int index;
+
+  /**
+   * The number of items in the current phase.
+   */
+  private int count;
+
+  /**
+   * The number of references of the current object that have not been read yet.
+   */
+  private int pendingReferences;
+
+  /**
+   * The index in {@link #successors} of the next reference.
+   */
+  private int edgeIndex;
+
+  /**
+   * Create a reader that does not retain the non-reference data of objects.
+   */
+  public HeapSnapshotReader() {
+    this(false);
+  }
+
+  /**
+   * Create a reader. If {@code retainData} is {@code true}, the non-reference data of objects,
+   * such as the value of strings and numbers, is available from
+   * {@link HeapSnapshotGraph#getData(int)}.
+   */
+  public HeapSnapshotReader(boolean retainData) {
+    this.retainData = retainData;
+  }
+
+  /**
+   * Decode the next chunk of the snapshot. The chunk is not modified, and is not referenced after
+   * this method returns.
+   *
+   * @throws IllegalStateException if the snapshot is malformed
+   */
+  public void add(ByteBuffer bytes) {
+    if (phase == PHASE_DONE) {
+      if (bytes.hasRemaining()) {
+        throw new IllegalStateException("Unexpected data after the end of the heap snapshot");
+      }
+      return;
+    }
+    chunk = bytes.duplicate();
+    mark();
+    try {
+      while (phase != PHASE_DONE) {
+        readRecord();
+        mark();
+      }
+    } catch (Underflow e) {
+      reset();
+      carry = remainder();
+    }
+    chunk = null;
+  }
+
+  /**
+   * Return the graph of a snapshot whose chunks have all been added.
+   *
+   * @throws IllegalStateException if the snapshot is incomplete
+   */
+  public HeapSnapshotGraph finish() {
+    // Older VMs don't include identity hash codes
+    boolean complete = phase == PHASE_DONE
+        || (phase == PHASE_IDENTITY_HASH_CODES && index == 1 && carry == null);
+    if (!complete) {
+      throw new IllegalStateException("Incomplete heap snapshot");
+    }
+    phase = PHASE_DONE;
+    return new HeapSnapshotGraph(name, flags, shallowSize, capacity, externalSize, classes,
+        classIds, shallowSizes, firstSuccessors, successors, identityHashCodes, data,
+        externalProperties);
+  }
+
+  /**
+   * Read the next record. The state of the reader is only updated once all bytes of the record
+   * have been read, so that the record can be read again when more bytes are available.
+   */
+  private void readRecord() {
+    switch (phase) {
+      case PHASE_HEADER:
+        readHeader();
+        break;
+      case PHASE_CLASSES:
+        if (index > count) {
+          phase = PHASE_OBJECT_COUNTS;
+          break;
+        }
+        classes[index] = readClass(index);
+        index++;
+        break;
+      case PHASE_OBJECT_COUNTS:
+        readObjectCounts();
+        break;
+      case PHASE_OBJECTS:
+        if (pendingReferences > 0) {
+          readReference();
+        } else if (index > count) {
+          firstSuccessors[count + 1] = edgeIndex;
+          phase = PHASE_EXTERNAL_COUNT;
+        } else {
+          readObject();
+        }
+        break;
+      case PHASE_EXTERNAL_COUNT:
+        count = readInt("external property count");
+        index = 0;
+        phase = PHASE_EXTERNAL_PROPERTIES;
+        break;
+      case PHASE_EXTERNAL_PROPERTIES:
+        if (index == count) {
+          count = classIds.length - 1;
+          index = 1;
+          phase = PHASE_IDENTITY_HASH_CODES;
+          break;
+        }
+        int object = readInt("object id");
+        long size = readUnsigned();
+        externalProperties.add(new HeapSnapshotExternalProperty(object, size, readUtf8()));
+        index++;
+        break;
+      case PHASE_IDENTITY_HASH_CODES:
+        if (index > count) {
+          phase = PHASE_DONE;
+          break;
+        }
+        identityHashCodes[index] = (int) readUnsigned();
+        index++;
+        break;
+      default:
+        throw new IllegalStateException("Unexpected phase " + phase);
+    }
+  }
+
+  private void readHeader() {
+    for (byte b : MAGIC) {
+      if (readByte() != b) {
+        throw new IllegalStateException("Invalid heap snapshot header");
+      }
+    }
+    long flags = readUnsigned();
+    String name = readUtf8();
+    long shallowSize = readUnsigned();
+    long capacity = readUnsigned();
+    long externalSize = readUnsigned();
+    int classCount = readInt("class count");
+    this.flags = flags;
+    this.name = name;
+    this.shallowSize = shallowSize;
+    this.capacity = capacity;
+    this.externalSize = externalSize;
+    classes = new HeapSnapshotClass[checkArraySize(classCount + 1L)];
+    classes[0] = HeapSnapshotClass.ROOT;
+    count = classCount;
+    index = 1;
+    phase = PHASE_CLASSES;
+  }
+
+  private HeapSnapshotClass readClass(int classId) {
+    // flags (reserved)
+    readUnsigned();
+    String name = readUtf8();
+    String libraryName = readUtf8();
+    String libraryUri = readUtf8();
+    // reserved
+    skipString();
+    int fieldCount = readInt("field count");
+    List<HeapSnapshotField> fields = new ArrayList<>(Math.min(fieldCount, 64));
+    for (int i = 0; i < fieldCount; i++) {
+      // flags (reserved)
+      readUnsigned();
+      int fieldIndex = readInt("field index");
+      fields.add(new HeapSnapshotField(fieldIndex, readUtf8()));
+      // reserved
+      skipString();
+    }
+    return new HeapSnapshotClass(classId, name, libraryName, libraryUri, fields);
+  }
+
+  private void readObjectCounts() {
+    int referenceCount = readInt("reference count");
+    int objectCount = readInt("object count");
+    int size = checkArraySize(objectCount + 1L);
+    classIds = new int[size];
+    shallowSizes = new long[size];
+    firstSuccessors = new int[checkArraySize(objectCount + 2L)];
+    successors = new int[referenceCount];
+    identityHashCodes = new int[size];
+    if (retainData) {
+      data = new Object[size];
+    }
+    count = objectCount;
+    index = 1;
+    phase = PHASE_OBJECTS;
+  }
+
+  private void readObject() {
+    int classId = readInt("class id");
+    long shallowSize = readUnsigned();
+    Object value = readData();
+    int referenceCount = readInt("reference count");
+    if (referenceCount > successors.length - edgeIndex) {
+      throw new IllegalStateException("More references than the declared " + successors.length);
+    }
+    classIds[index] = classId;
+    shallowSizes[index] = shallowSize;
+    if (data != null) {
+      data[index] = value;
+    }
+    firstSuccessors[index] = edgeIndex;
+    pendingReferences = referenceCount;
+    index++;
+  }
+
+  private void readReference() {
+    int objectId = readInt("object id");
+    if (objectId > count) {
+      throw new IllegalStateException("Invalid object id " + objectId);
+    }
+    successors[edgeIndex++] = objectId;
+    pendingReferences--;
+  }
+
+  private Object readData() {
+    int tag = (int) readUnsigned();
+    switch (tag) {
+      case NO_DATA:
+        return null;
+      case NULL_DATA:
+        return HeapSnapshotObjectNullData.INSTANCE;
+      case BOOL_DATA:
+        return readByte() == 1;
+      case INT_DATA:
+        return retainData ? (Object) readUnsigned() : skipUnsigned();
+      case DOUBLE_DATA:
+        long bits = 0;
+        for (int i = 0; i < 8; i++) {
+          bits |= (long) readByte() << (8 * i);
+        }
+        return retainData ? Double.longBitsToDouble(bits) : null;
+      case LATIN1_DATA:
+      case UTF16_DATA: {
+        long length = readUnsigned();
+        if (!retainData) {
+          if (tag == LATIN1_DATA) {
+            skipString();
+          } else {
+            skipBytes(2L * readInt("string length"));
+          }
+          return null;
+        }
+        String str = tag == LATIN1_DATA ? readLatin1() : readUtf16();
+        return str.length() < length ? str + "..." : str;
+      }
+      case LENGTH_DATA:
+        long length = readUnsigned();
+        return retainData ? new HeapSnapshotObjectLengthData(length) : null;
+      case NAME_DATA:
+        if (!retainData) {
+          skipString();
+          return null;
+        }
+        return readUtf8();
+      default:
+        throw new IllegalStateException("Invalid tag: " + tag);
+    }
+  }
+
+  //==============================================================================================
+  // Bytes
+
+  private void mark() {
+    if (carry != null) {
+      if (carry.hasRemaining()) {
+        carryMark = carry.position();
+      } else {
+        carry = null;
+      }
+    }
+    chunkMark = chunk.position();
+  }
+
+  private void reset() {
+    if (carry != null) {
+      carry.position(carryMark);
+    }
+    chunk.position(chunkMark);
+  }
+
+  /**
+   * Return a copy of the bytes that have not been consumed, or {@code null} if there are none.
+   */
+  private ByteBuffer remainder() {
+    int size = chunk.remaining() + (carry != null ? carry.remaining() : 0);
+    if (size == 0) {
+      return null;
+    }
+    ByteBuffer result = ByteBuffer.allocate(size);
+    if (carry != null) {
+      result.put(carry);
+    }
+    result.put(chunk);
+    result.flip();
+    return result;
+  }
+
+  private int readByte() {
+    if (carry != null && carry.hasRemaining()) {
+      return carry.get() & 0xFF;
+    }
+    if (chunk.hasRemaining()) {
+      return chunk.get() & 0xFF;
+    }
+    throw UNDERFLOW;
+  }
+
+  private byte[] readBytes(int length) {
+    byte[] result = new byte[length];
+    int offset = 0;
+    if (carry != null && carry.hasRemaining()) {
+      offset = Math.min(length, carry.remaining());
+      carry.get(result, 0, offset);
+    }
+    if (length - offset > chunk.remaining()) {
+      throw UNDERFLOW;
+    }
+    chunk.get(result, offset, length - offset);
+    return result;
+  }
+
+  private void skipBytes(long length) {
+    if (carry != null && carry.hasRemaining()) {
+      int n = (int) Math.min(length, carry.remaining());
+      carry.position(carry.position() + n);
+      length -= n;
+    }
+    if (length > chunk.remaining()) {
+      throw UNDERFLOW;
+    }
+    chunk.position(chunk.position() + (int) length);
+  }
+
+  /**
+   * Read one ULEB128 number.
+   */
+  private long readUnsigned() {
+    long result = 0;
+    int shift = 0;
+    for (;;) {
+      int part = readByte();
+      result |= (long) (part & 0x7F) << shift;
+      if ((part & 0x80) == 0) {
+        return result;
+      }
+      shift += 7;
+      if (shift > 63) {
+        throw new IllegalStateException("Invalid unsigned number");
+      }
+    }
+  }
+
+  private Object skipUnsigned() {
+    readUnsigned();
+    return null;
+  }
+
+  /**
+   * Read one ULEB128 number that is used as a count or an index.
+   */
+  private int readInt(String description) {
+    long value = readUnsigned();
+    if (value > Integer.MAX_VALUE) {
+      throw new IllegalStateException("Invalid " + description + " " + value);
+    }
+    return (int) value;
+  }
+
+  private String readUtf8() {
+    return new String(readBytes(readInt("string length")), StandardCharsets.UTF_8);
+  }
+
+  private String readLatin1() {
+    return new String(readBytes(readInt("string length")), StandardCharsets.ISO_8859_1);
+  }
+
+  private String readUtf16() {
+    byte[] bytes = readBytes(checkArraySize(2L * readInt("string length")));
+    char[] chars = new char[bytes.length / 2];
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = (char) ((bytes[2 * i] & 0xFF) | ((bytes[2 * i + 1] & 0xFF) << 8));
+    }
+    return new String(chars);
+  }
+
+  private void skipString() {
+    skipBytes(readInt("string length"));
+  }
+
+  private static int checkArraySize(long size) {
+    if (size > Integer.MAX_VALUE - 8) {
+      throw new IllegalStateException("Heap snapshot too large: " + size + " elements");
+    }
+    return (int) size;
+  }
+}
@@ -16,7 +16,12 @@ package org.dartlang.vm.service.internal;
 import com.google.common.collect.Lists;
 import com.google.gson.JsonObject;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.function.Predicate;
 
 /**
  * A {@link RequestSink} that enqueues all requests and can be later converted into a "passthrough"
@@ -29,9 +34,16 @@ public class BlockingRequestSink implements RequestSink {
   private final RequestSink base;
 
   /**
-   * A queue of requests.
+   * A queue of requests, grouped as they were added, so that a batch added with {@link #addAll} is
+   * still sent as one batch.
    */
-  private final LinkedList<JsonObject> queue = Lists.newLinkedList();
+  private final LinkedList<List<JsonObject>> queue = Lists.newLinkedList();
+
+  /**
+   * The sink that this sink has been converted into, to which the requests that are still added to
+   * this sink are forwarded, or {@code null} if requests are being queued.
+   */
+  private RequestSink target;
 
   public BlockingRequestSink(RequestSink base) {
     this.base = base;
@@ -40,10 +52,32 @@ public class BlockingRequestSink implements RequestSink {
   @Override
   public void add(JsonObject request) {
     synchronized (queue) {
-      queue.add(request);
+      if (target != null) {
+        target.add(request);
+      } else {
+        queue.add(Collections.singletonList(request));
+      }
+    }
+  }
+
+  @Override
+  public void addAll(List<JsonObject> requests) {
+    synchronized (queue) {
+      if (target != null) {
+        target.addAll(requests);
+      } else {
+        queue.add(new ArrayList<>(requests));
+      }
     }
   }
 
+  /**
+   * Return the base {@link RequestSink}.
+   */
+  public RequestSink getBase() {
+    return base;
+  }
+
   @Override
   public void close() {
     base.close();
@@ -60,21 +94,70 @@ public class BlockingRequestSink implements RequestSink {
     ErrorRequestSink errorRequestSink = new ErrorRequestSink(errorResponseSink, errorResponseCode,
         errorResponseMessage);
     synchronized (queue) {
-      for (JsonObject request : queue) {
-        errorRequestSink.add(request);
+      for (List<JsonObject> requests : queue) {
+        errorRequestSink.addAll(requests);
       }
+      queue.clear();
+      target = errorRequestSink;
     }
     return errorRequestSink;
   }
 
   /**
-   * Returns the passthrough {@link RequestSink}.
+   * Return the requests that are currently queued.
+   */
+  public List<JsonObject> getQueuedRequests() {
+    synchronized (queue) {
+      List<JsonObject> requests = new ArrayList<>();
+      for (List<JsonObject> each : queue) {
+        requests.addAll(each);
+      }
+      return requests;
+    }
+  }
+
+  /**
+   * Remove the queued requests that match the given filter.
+   */
+  public void removeQueuedRequests(Predicate<JsonObject> filter) {
+    synchronized (queue) {
+      Iterator<List<JsonObject>> iterator = queue.iterator();
+      while (iterator.hasNext()) {
+        List<JsonObject> requests = iterator.next();
+        if (requests.size() == 1) {
+          if (filter.test(requests.get(0))) {
+            iterator.remove();
+          }
+        } else {
+          requests.removeIf(filter);
+          if (requests.isEmpty()) {
+            iterator.remove();
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Queue the requests added from now on again, until this sink is next converted.
+   */
+  public void block() {
+    synchronized (queue) {
+      target = null;
+    }
+  }
+
+  /**
+   * Returns the passthrough {@link RequestSink}. The queued requests are sent first, each batch as
+   * a single batch.
    */
   public RequestSink toPassthroughSink() {
     synchronized (queue) {
-      for (JsonObject request : queue) {
-        base.add(request);
+      for (List<JsonObject> requests : queue) {
+        base.addAll(requests);
       }
+      queue.clear();
+      target = base;
     }
     return base;
   }
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.internal;
+
+import com.google.gson.JsonObject;
+import org.dartlang.vm.service.logging.Logging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link RequestSink} that gathers the requests added within a short window, or between
+ * {@link #beginBatch()} and {@link #endBatch()}, and passes them to the base sink together with
+ * {@link RequestSink#addAll(List)}, so that they can be sent as a single JSON-RPC batch.
+ */
+public class CoalescingRequestSink implements RequestSink {
+  private static ScheduledExecutorService scheduler;
+
+  private static synchronized ScheduledExecutorService getScheduler() {
+    if (scheduler == null) {
+      ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+          new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+              Thread thread = new Thread(runnable, "VM service request coalescer");
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+      executor.setRemoveOnCancelPolicy(true);
+      scheduler = executor;
+    }
+    return scheduler;
+  }
+
+  /**
+   * The base {@link RequestSink}
+   */
+  private final RequestSink base;
+
+  private final long windowNanos;
+  private final int maxBatchSize;
+
+  /**
+   * The requests that have not been passed to the base sink yet, guarded by this.
+   */
+  private List<JsonObject> pending = new ArrayList<>();
+
+  /**
+   * The number of open batch scopes, guarded by this.
+   */
+  private int batchDepth;
+
+  /**
+   * Whether a flush of {@link #pending} has been scheduled, guarded by this.
+   */
+  private boolean flushScheduled;
+
+  /**
+   * Held while passing requests to the base sink, so that batches are sent in order.
+   */
+  private final Object sendLock = new Object();
+
+  private final Runnable flushTask = new Runnable() {
+    @Override
+    public void run() {
+      synchronized (CoalescingRequestSink.this) {
+        flushScheduled = false;
+        // The requests of the window are sent with those of the scope when it ends
+        if (batchDepth > 0) {
+          return;
+        }
+      }
+      flush();
+    }
+  };
+
+  /**
+   * @param window       the time to wait for more requests after the first request of a batch, or
+   *                     0 to only gather the requests of explicit batch scopes
+   * @param maxBatchSize the number of requests that causes a batch to be sent immediately
+   */
+  public CoalescingRequestSink(RequestSink base, long window, TimeUnit unit, int maxBatchSize) {
+    this.base = base;
+    this.windowNanos = unit.toNanos(window);
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  @Override
+  public void add(JsonObject request) {
+    boolean flushNow = false;
+    synchronized (this) {
+      pending.add(request);
+      if (pending.size() >= maxBatchSize || (batchDepth == 0 && windowNanos == 0)) {
+        flushNow = true;
+      } else if (batchDepth == 0 && !flushScheduled) {
+        flushScheduled = true;
+        getScheduler().schedule(flushTask, windowNanos, TimeUnit.NANOSECONDS);
+      }
+    }
+    if (flushNow) {
+      flush();
+    }
+  }
+
+  /**
+   * Hold the requests added until the matching {@link #endBatch()}. Scopes may be nested.
+   */
+  public synchronized void beginBatch() {
+    batchDepth++;
+  }
+
+  /**
+   * Close the current batch scope, and send the requests added within it when it is the outermost.
+   */
+  public void endBatch() {
+    synchronized (this) {
+      if (batchDepth == 0) {
+        throw new IllegalStateException("No batch to end");
+      }
+      if (--batchDepth > 0) {
+        return;
+      }
+    }
+    flush();
+  }
+
+  /**
+   * Send the pending requests and close the base sink.
+   */
+  @Override
+  public void close() {
+    flush();
+    base.close();
+  }
+
+  /**
+   * Pass the pending requests to the base sink.
+   */
+  public void flush() {
+    synchronized (sendLock) {
+      List<JsonObject> requests;
+      synchronized (this) {
+        if (pending.isEmpty()) {
+          return;
+        }
+        requests = pending;
+        pending = new ArrayList<>();
+      }
+      try {
+        base.addAll(requests);
+      } catch (Exception e) {
+        Logging.getLogger().logError("Failed to send " + requests.size() + " requests", e);
+      }
+    }
+  }
+
+  /**
+   * Return the sink to which the requests are passed.
+   */
+  public RequestSink getBase() {
+    return base;
+  }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.internal;
+
+import org.dartlang.vm.service.logging.Logging;
+
+/**
+ * Runs tasks in order on a dedicated daemon thread, through a bounded queue with a configurable
+ * {@link OverflowPolicy}. The thread is started when a task is dispatched and stops after it has
+ * been idle for a while, so an unused dispatcher holds no thread.
+ */
+public class EventDispatcher {
+  /**
+   * What to do with a task dispatched while the queue is full.
+   */
+  public enum OverflowPolicy {
+    /**
+     * Discard the oldest queued task.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Replace the most recently queued task with the same key, or discard the oldest queued task
+     * with a key if there is none. Tasks without a key are never replaced or discarded: a task
+     * with a key is discarded if only tasks without one are queued, and a task without a key waits
+     * for space as with {@link #BLOCK}.
+     */
+    COALESCE,
+
+    /**
+     * Wait until there is space in the queue, which applies back-pressure to the caller.
+     */
+    BLOCK
+  }
+
+  private static final long KEEP_ALIVE_MILLIS = 60 * 1000;
+
+  private final String name;
+  private final OverflowPolicy policy;
+
+  /**
+   * Ring buffer of queued tasks and their keys, guarded by this.
+   */
+  private final Object[] keys;
+  private final Runnable[] tasks;
+  private int head;
+  private int size;
+
+  private Thread thread;
+  private boolean shutdown;
+  private long droppedCount;
+
+  public EventDispatcher(String name, int capacity, OverflowPolicy policy) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Invalid capacity: " + capacity);
+    }
+    this.name = name;
+    this.policy = policy;
+    this.keys = new Object[capacity];
+    this.tasks = new Runnable[capacity];
+  }
+
+  /**
+   * Queue the given task. If the dispatcher has been shut down, the task is run by the caller.
+   *
+   * @param key the key used to coalesce tasks with the {@link OverflowPolicy#COALESCE} policy, or
+   *            {@code null} if the task must not be coalesced
+   */
+  public void dispatch(Object key, Runnable task) {
+    synchronized (this) {
+      if (size == tasks.length && !shutdown && overflow(key, task)) {
+        return;
+      }
+      if (!shutdown) {
+        int index = (head + size) % tasks.length;
+        keys[index] = key;
+        tasks[index] = task;
+        size++;
+        if (thread == null) {
+          thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+              runTasks();
+            }
+          }, "VM service events: " + name);
+          thread.setDaemon(true);
+          thread.start();
+        } else {
+          notifyAll();
+        }
+        return;
+      }
+    }
+    task.run();
+  }
+
+  /**
+   * Return the number of tasks that have been discarded or replaced because the queue was full.
+   */
+  public synchronized long getDroppedCount() {
+    return droppedCount;
+  }
+
+  /**
+   * Run the queued tasks and stop. Subsequent tasks are run by the caller of
+   * {@link #dispatch(Object, Runnable)}.
+   */
+  public synchronized void shutdown() {
+    shutdown = true;
+    notifyAll();
+  }
+
+  /**
+   * Make room for the given task in the full queue. Return {@code true} if the task replaced a
+   * queued task or was discarded instead.
+   */
+  private boolean overflow(Object key, Runnable task) {
+    switch (policy) {
+      case BLOCK:
+        awaitSpace();
+        return false;
+      case COALESCE:
+        int oldestKeyed = -1;
+        for (int i = size - 1; i >= 0; i--) {
+          int index = (head + i) % tasks.length;
+          if (keys[index] == null) {
+            continue;
+          }
+          if (keys[index].equals(key)) {
+            tasks[index] = task;
+            droppedCount++;
+            return true;
+          }
+          oldestKeyed = i;
+        }
+        if (oldestKeyed == -1) {
+          // Only tasks without a key are queued, none of which may be discarded
+          if (key != null) {
+            droppedCount++;
+            return true;
+          }
+          awaitSpace();
+          return false;
+        }
+        // Discard the oldest task with a key by moving the tasks before it up, leaving the head of
+        // the queue to be discarded
+        for (int i = oldestKeyed; i > 0; i--) {
+          int index = (head + i) % tasks.length;
+          int previous = (head + i - 1) % tasks.length;
+          keys[index] = keys[previous];
+          tasks[index] = tasks[previous];
+        }
+        discardHead();
+        return false;
+      case DROP_OLDEST:
+        discardHead();
+        return false;
+      default:
+        throw new IllegalStateException("Unknown policy " + policy);
+    }
+  }
+
+  /**
+   * Wait until there is space in the queue or the dispatcher is shut down.
+   */
+  private void awaitSpace() {
+    boolean interrupted = false;
+    while (size == tasks.length && !shutdown) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void discardHead() {
+    keys[head] = null;
+    tasks[head] = null;
+    head = (head + 1) % tasks.length;
+    size--;
+    droppedCount++;
+  }
+
+  private void runTasks() {
+    for (;;) {
+      Runnable task;
+      synchronized (this) {
+        long idleSince = System.currentTimeMillis();
+        while (size == 0) {
+          long idle = System.currentTimeMillis() - idleSince;
+          if (shutdown || idle >= KEEP_ALIVE_MILLIS) {
+            thread = null;
+            return;
+          }
+          try {
+            wait(KEEP_ALIVE_MILLIS - idle);
+          } catch (InterruptedException e) {
+            // ignored
+          }
+        }
+        task = tasks[head];
+        keys[head] = null;
+        tasks[head] = null;
+        head = (head + 1) % tasks.length;
+        size--;
+        if (policy != OverflowPolicy.DROP_OLDEST) {
+          notifyAll();
+        }
+      }
+      try {
+        task.run();
+      } catch (Exception e) {
+        Logging.getLogger().logError("Exception dispatching event: " + name, e);
+      }
+    }
+  }
+}
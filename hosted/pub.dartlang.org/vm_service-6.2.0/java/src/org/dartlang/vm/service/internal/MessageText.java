@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.internal;
+
+import com.google.gson.JsonParseException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The JSON text of a message, either a {@link String} or UTF-8 encoded bytes, in which the extent
+ * of a value can be found without decoding it. This lets the members of a message be located
+ * before deciding which of them to decode. The characters that delimit JSON values are all ASCII,
+ * and in UTF-8 the bytes of other characters are never ASCII, so the text is scanned one
+ * {@code char} or one byte at a time.
+ */
+public abstract class MessageText {
+  /**
+   * The number of bytes up to which a value is decoded to a {@link String} before being parsed.
+   */
+  private static final int SMALL_VALUE_SIZE = 8192;
+
+  /**
+   * Return the given text.
+   */
+  public static MessageText of(String text) {
+    return new StringText(text);
+  }
+
+  /**
+   * Return the text encoded in the remaining bytes of the given buffer, which must not be modified
+   * while the text is in use.
+   */
+  public static MessageText of(ByteBuffer utf8) {
+    if (!utf8.hasArray()) {
+      byte[] bytes = new byte[utf8.remaining()];
+      utf8.duplicate().get(bytes);
+      return new Utf8Text(bytes, 0, bytes.length);
+    }
+    return new Utf8Text(utf8.array(), utf8.arrayOffset() + utf8.position(), utf8.remaining());
+  }
+
+  /**
+   * Return the number of {@code char}s or bytes of the text.
+   */
+  public abstract int length();
+
+  /**
+   * Return the {@code char} or the byte at the given index.
+   */
+  public abstract int charAt(int index);
+
+  /**
+   * Return the text between the given indices.
+   */
+  public abstract String substring(int start, int end);
+
+  /**
+   * Return a reader of the text between the given indices.
+   */
+  public abstract Reader reader(int start, int end);
+
+  /**
+   * Return the index of the first character at or after the given index that is not whitespace.
+   */
+  public int skipWhitespace(int index) {
+    int length = length();
+    while (index < length) {
+      int c = charAt(index);
+      if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+        break;
+      }
+      index++;
+    }
+    return index;
+  }
+
+  /**
+   * Return the index following the end of the value that starts at the given index. The value is
+   * not validated beyond finding its end.
+   *
+   * @throws JsonParseException if the text ends before the value
+   */
+  public int skipValue(int index) {
+    int length = length();
+    if (index >= length) {
+      throw new JsonParseException("Unexpected end of message");
+    }
+    int c = charAt(index);
+    if (c == '"') {
+      return skipString(index);
+    }
+    if (c == '{' || c == '[') {
+      int depth = 0;
+      while (index < length) {
+        c = charAt(index);
+        if (c == '"') {
+          index = skipString(index);
+          continue;
+        }
+        if (c == '{' || c == '[') {
+          depth++;
+        } else if (c == '}' || c == ']') {
+          if (--depth == 0) {
+            return index + 1;
+          }
+        }
+        index++;
+      }
+      throw new JsonParseException("Unexpected end of message");
+    }
+    int start = index;
+    while (index < length) {
+      c = charAt(index);
+      if (c == ',' || c == '}' || c == ']' || c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+        break;
+      }
+      index++;
+    }
+    if (index == start) {
+      throw new JsonParseException("Expected value at " + start + " but found " + (char) c);
+    }
+    return index;
+  }
+
+  /**
+   * Return {@code true} if the string that starts at the given index and ends before the given
+   * index contains an escape sequence.
+   */
+  public boolean hasEscape(int start, int end) {
+    for (int index = start; index < end; index++) {
+      if (charAt(index) == '\\') {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private int skipString(int index) {
+    int length = length();
+    index++;
+    while (index < length) {
+      int c = charAt(index);
+      if (c == '\\') {
+        index += 2;
+      } else if (c == '"') {
+        return index + 1;
+      } else {
+        index++;
+      }
+    }
+    throw new JsonParseException("Unterminated string");
+  }
+
+  private static final class StringText extends MessageText {
+    private final String text;
+
+    StringText(String text) {
+      this.text = text;
+    }
+
+    @Override
+    public int length() {
+      return text.length();
+    }
+
+    @Override
+    public int charAt(int index) {
+      return text.charAt(index);
+    }
+
+    @Override
+    public String substring(int start, int end) {
+      return text.substring(start, end);
+    }
+
+    @Override
+    public Reader reader(final int start, final int end) {
+      return new Reader() {
+        private int position = start;
+
+        @Override
+        public int read(char[] buffer, int offset, int count) {
+          if (position >= end) {
+            return -1;
+          }
+          int n = Math.min(count, end - position);
+          text.getChars(position, position + n, buffer, offset);
+          position += n;
+          return n;
+        }
+
+        @Override
+        public void close() {
+        }
+      };
+    }
+  }
+
+  private static final class Utf8Text extends MessageText {
+    private final byte[] bytes;
+    private final int offset;
+    private final int length;
+
+    Utf8Text(byte[] bytes, int offset, int length) {
+      this.bytes = bytes;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    @Override
+    public int length() {
+      return length;
+    }
+
+    @Override
+    public int charAt(int index) {
+      return bytes[offset + index] & 0xFF;
+    }
+
+    @Override
+    public String substring(int start, int end) {
+      return new String(bytes, offset + start, end - start, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Reader reader(int start, int end) {
+      if (end - start <= SMALL_VALUE_SIZE) {
+        // Cheaper than setting up a decoder
+        return new StringReader(substring(start, end));
+      }
+      return new InputStreamReader(new ByteArrayInputStream(bytes, offset + start, end - start),
+          StandardCharsets.UTF_8);
+    }
+  }
+}
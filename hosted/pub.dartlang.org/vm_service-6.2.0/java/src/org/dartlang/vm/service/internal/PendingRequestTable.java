@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock-free table of in-flight requests keyed by their integer request id.
+ * <p>
+ * Request ids are allocated sequentially, so each id is stored in the ring slot
+ * {@code id & (capacity - 1)}. A slot is only contended when more than {@code capacity} requests
+ * are outstanding; in that case the entry is stored in an overflow map instead.
+ */
+public class PendingRequestTable<V> {
+  private static final int DEFAULT_CAPACITY = 4096;
+
+  private static final class Slot<V> {
+    final int id;
+    final V value;
+
+    Slot(int id, V value) {
+      this.id = id;
+      this.value = value;
+    }
+  }
+
+  private final AtomicReferenceArray<Slot<V>> slots;
+
+  private final int mask;
+
+  /**
+   * Entries whose ring slot was occupied when they were added.
+   */
+  private final ConcurrentHashMap<Integer, V> overflow = new ConcurrentHashMap<>();
+
+  /**
+   * The number of entries in {@link #overflow}, used to avoid boxing the id on lookup when the
+   * overflow map is empty.
+   */
+  private final AtomicInteger overflowCount = new AtomicInteger();
+
+  private final AtomicInteger size = new AtomicInteger();
+
+  public PendingRequestTable() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * @param capacity the number of ring slots, rounded up to a power of two
+   */
+  public PendingRequestTable(int capacity) {
+    int n = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+    slots = new AtomicReferenceArray<>(n);
+    mask = n - 1;
+  }
+
+  /**
+   * Associate the given value with the given request id. The id must not already be in the table.
+   */
+  public void put(int id, V value) {
+    if (value == null) {
+      throw new IllegalArgumentException("value must not be null");
+    }
+    Slot<V> slot = new Slot<>(id, value);
+    if (!slots.compareAndSet(id & mask, null, slot)) {
+      overflowCount.incrementAndGet();
+      overflow.put(id, value);
+    }
+    size.incrementAndGet();
+  }
+
+  /**
+   * Return the value associated with the given request id without removing it, or {@code null}.
+   */
+  public V get(int id) {
+    Slot<V> slot = slots.get(id & mask);
+    if (slot != null && slot.id == id) {
+      return slot.value;
+    }
+    return overflowCount.get() > 0 ? overflow.get(id) : null;
+  }
+
+  /**
+   * Remove and return the value associated with the given request id, or return {@code null} if
+   * there is none. Only one caller can successfully remove a given entry.
+   */
+  public V remove(int id) {
+    int index = id & mask;
+    Slot<V> slot = slots.get(index);
+    if (slot != null && slot.id == id) {
+      if (slots.compareAndSet(index, slot, null)) {
+        size.decrementAndGet();
+        return slot.value;
+      }
+      return null;
+    }
+    if (overflowCount.get() > 0) {
+      V value = overflow.remove(id);
+      if (value != null) {
+        overflowCount.decrementAndGet();
+        size.decrementAndGet();
+        return value;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Remove the entry for the given request id only if it is currently mapped to the given value.
+   */
+  public boolean remove(int id, V value) {
+    int index = id & mask;
+    Slot<V> slot = slots.get(index);
+    if (slot != null && slot.id == id) {
+      if (slot.value == value && slots.compareAndSet(index, slot, null)) {
+        size.decrementAndGet();
+        return true;
+      }
+      return false;
+    }
+    if (overflowCount.get() > 0 && overflow.remove(id, value)) {
+      overflowCount.decrementAndGet();
+      size.decrementAndGet();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Return the values currently in the table without removing them.
+   */
+  public List<V> values() {
+    List<V> result = new ArrayList<>();
+    for (int index = 0; index < slots.length(); index++) {
+      Slot<V> slot = slots.get(index);
+      if (slot != null) {
+        result.add(slot.value);
+      }
+    }
+    if (overflowCount.get() > 0) {
+      result.addAll(overflow.values());
+    }
+    return result;
+  }
+
+  /**
+   * Remove and return all values currently in the table.
+   */
+  public List<V> removeAll() {
+    List<V> result = new ArrayList<>();
+    for (int index = 0; index < slots.length(); index++) {
+      Slot<V> slot = slots.getAndSet(index, null);
+      if (slot != null) {
+        size.decrementAndGet();
+        result.add(slot.value);
+      }
+    }
+    if (overflowCount.get() > 0) {
+      for (Integer id : overflow.keySet()) {
+        V value = overflow.remove(id);
+        if (value != null) {
+          overflowCount.decrementAndGet();
+          size.decrementAndGet();
+          result.add(value);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Return the number of requests in flight.
+   */
+  public int size() {
+    return size.get();
+  }
+}
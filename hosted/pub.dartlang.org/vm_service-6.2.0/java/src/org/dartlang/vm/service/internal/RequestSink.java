@@ -15,6 +15,8 @@ package org.dartlang.vm.service.internal;
 
 import com.google.gson.JsonObject;
 
+import java.util.List;
+
 /**
  * A destination for observatory requests.
  */
@@ -26,6 +28,18 @@ public interface RequestSink {
    */
   void add(JsonObject request);
 
+  /**
+   * Put requests into the sink. Sinks that can do so send the requests together, as a JSON-RPC
+   * batch.
+   *
+   * @param requests the requests to put, not {@code null}.
+   */
+  default void addAll(List<JsonObject> requests) {
+    for (JsonObject request : requests) {
+      add(request);
+    }
+  }
+
   /**
    * Close the communication channel.
    */
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.internal;
+
+import org.dartlang.vm.service.logging.Logging;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A hashed timer wheel driven by a single daemon thread. Scheduling and cancelling are O(1) and
+ * lock-free, which makes it suitable for arming a deadline on every request. Tasks are run on the
+ * timer thread and should be short.
+ */
+public class TimerWheel {
+  /**
+   * A handle to a scheduled task.
+   */
+  public interface Timeout {
+    /**
+     * Cancel the task. Return {@code true} if the task had neither run nor been cancelled before.
+     */
+    boolean cancel();
+  }
+
+  private static final int ST_INIT = 0;
+  private static final int ST_CANCELLED = 1;
+  private static final int ST_EXPIRED = 2;
+
+  private static TimerWheel defaultTimer;
+
+  /**
+   * Return the timer wheel shared by all VM service connections in this process.
+   */
+  public static synchronized TimerWheel getDefault() {
+    if (defaultTimer == null) {
+      defaultTimer = new TimerWheel(100, TimeUnit.MILLISECONDS, 512);
+    }
+    return defaultTimer;
+  }
+
+  private final class Entry implements Timeout {
+    final Runnable task;
+    final long deadline;
+    final AtomicInteger state = new AtomicInteger(ST_INIT);
+    long remainingRounds;
+    Entry next;
+    Entry prev;
+    Bucket bucket;
+
+    Entry(Runnable task, long deadline) {
+      this.task = task;
+      this.deadline = deadline;
+    }
+
+    @Override
+    public boolean cancel() {
+      if (!state.compareAndSet(ST_INIT, ST_CANCELLED)) {
+        return false;
+      }
+      cancelled.add(this);
+      return true;
+    }
+  }
+
+  /**
+   * A doubly linked list of entries, only accessed by the timer thread.
+   */
+  private static final class Bucket {
+    TimerWheel.Entry head;
+    TimerWheel.Entry tail;
+
+    void add(TimerWheel.Entry entry) {
+      entry.bucket = this;
+      if (head == null) {
+        head = tail = entry;
+      } else {
+        tail.next = entry;
+        entry.prev = tail;
+        tail = entry;
+      }
+    }
+
+    TimerWheel.Entry remove(TimerWheel.Entry entry) {
+      TimerWheel.Entry next = entry.next;
+      if (entry.prev != null) {
+        entry.prev.next = next;
+      }
+      if (entry.next != null) {
+        entry.next.prev = entry.prev;
+      }
+      if (entry == head) {
+        head = next;
+      }
+      if (entry == tail) {
+        tail = entry.prev;
+      }
+      entry.prev = null;
+      entry.next = null;
+      entry.bucket = null;
+      return next;
+    }
+  }
+
+  private final long tickNanos;
+  private final Bucket[] wheel;
+  private final int mask;
+
+  /**
+   * Entries scheduled since the last tick, not yet assigned to a bucket.
+   */
+  private final ConcurrentLinkedQueue<Entry> scheduled = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Entries cancelled since the last tick, to be unlinked from their bucket.
+   */
+  private final ConcurrentLinkedQueue<Entry> cancelled = new ConcurrentLinkedQueue<>();
+
+  private final long startTime = System.nanoTime();
+  private long tick;
+  private Thread thread;
+
+  /**
+   * @param tickDuration the resolution of the timer
+   * @param ticksPerWheel the number of buckets, rounded up to a power of two
+   */
+  public TimerWheel(long tickDuration, TimeUnit unit, int ticksPerWheel) {
+    tickNanos = Math.max(1, unit.toNanos(tickDuration));
+    int n = Integer.highestOneBit(Math.max(2, ticksPerWheel - 1)) << 1;
+    wheel = new Bucket[n];
+    for (int index = 0; index < n; index++) {
+      wheel[index] = new Bucket();
+    }
+    mask = n - 1;
+  }
+
+  /**
+   * Run the given task on the timer thread once the given delay has elapsed, unless the returned
+   * {@link Timeout} is cancelled first.
+   */
+  public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+    Entry entry = new Entry(task, System.nanoTime() - startTime + unit.toNanos(delay));
+    scheduled.add(entry);
+    ensureStarted();
+    return entry;
+  }
+
+  private synchronized void ensureStarted() {
+    if (thread == null) {
+      thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          runWorker();
+        }
+      }, "VM service timer");
+      thread.setDaemon(true);
+      thread.start();
+    }
+  }
+
+  private void runWorker() {
+    while (true) {
+      long deadline = tickNanos * (tick + 1);
+      long sleepNanos = deadline - (System.nanoTime() - startTime);
+      if (sleepNanos > 0) {
+        try {
+          TimeUnit.NANOSECONDS.sleep(sleepNanos);
+        } catch (InterruptedException e) {
+          return;
+        }
+        continue;
+      }
+      unlinkCancelled();
+      transferScheduled();
+      expire(wheel[(int) (tick & mask)]);
+      tick++;
+    }
+  }
+
+  private void unlinkCancelled() {
+    Entry entry;
+    while ((entry = cancelled.poll()) != null) {
+      if (entry.bucket != null) {
+        entry.bucket.remove(entry);
+      }
+    }
+  }
+
+  private void transferScheduled() {
+    Entry entry;
+    while ((entry = scheduled.poll()) != null) {
+      if (entry.state.get() != ST_INIT) {
+        continue;
+      }
+      long ticks = entry.deadline / tickNanos;
+      entry.remainingRounds = (ticks - tick) / wheel.length;
+      // Entries whose deadline has already passed are run on the current tick.
+      wheel[(int) (Math.max(ticks, tick) & mask)].add(entry);
+    }
+  }
+
+  private void expire(Bucket bucket) {
+    Entry entry = bucket.head;
+    while (entry != null) {
+      if (entry.remainingRounds <= 0) {
+        Entry next = bucket.remove(entry);
+        if (entry.state.compareAndSet(ST_INIT, ST_EXPIRED)) {
+          try {
+            entry.task.run();
+          } catch (Throwable e) {
+            Logging.getLogger().logError("Exception running timer task", e);
+          }
+        }
+        entry = next;
+      } else {
+        entry.remainingRounds--;
+        entry = entry.next;
+      }
+    }
+  }
+}
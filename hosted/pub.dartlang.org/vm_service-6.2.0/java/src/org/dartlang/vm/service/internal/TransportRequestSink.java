@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.internal;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.dartlang.vm.service.logging.Logging;
+import org.dartlang.vm.service.metrics.VmServiceMetrics;
+import org.dartlang.vm.service.transport.TransportConnection;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A {@link TransportConnection} based implementation of {@link RequestSink}.
+ */
+public class TransportRequestSink implements RequestSink {
+
+  private volatile TransportConnection connection;
+
+  private volatile VmServiceMetrics metrics = VmServiceMetrics.NULL;
+
+  public TransportRequestSink(TransportConnection connection) {
+    this.connection = connection;
+  }
+
+  /**
+   * Create a sink whose connection is set once it has been established. Requests added before
+   * then are dropped.
+   */
+  public TransportRequestSink() {
+  }
+
+  public void setConnection(TransportConnection connection) {
+    this.connection = connection;
+  }
+
+  /**
+   * Set the receiver of the number of bytes sent.
+   */
+  public void setMetrics(VmServiceMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  @Override
+  public void add(JsonObject json) {
+    send(json.toString());
+  }
+
+  /**
+   * Send the given requests in a single message, as a JSON-RPC batch.
+   */
+  @Override
+  public void addAll(List<JsonObject> requests) {
+    if (requests.size() == 1) {
+      add(requests.get(0));
+      return;
+    }
+    JsonArray batch = new JsonArray();
+    for (JsonObject request : requests) {
+      batch.add(request);
+    }
+    send(batch.toString());
+  }
+
+  private void send(String request) {
+    TransportConnection connection = this.connection;
+    if (connection == null) {
+      Logging.getLogger().logInformation("Dropped: " + request);
+      return;
+    }
+    if (Logging.getLogger().isInformationEnabled()) {
+      Logging.getLogger().logInformation("Sent: " + request);
+    }
+    if (metrics != VmServiceMetrics.NULL) {
+      metrics.bytesSent(VmServiceMetrics.encodedLength(request));
+    }
+    try {
+      connection.send(request);
+    } catch (IOException e) {
+      Logging.getLogger().logError("Failed to send request: " + request, e);
+    }
+  }
+
+  @Override
+  public void close() {
+    TransportConnection connection = this.connection;
+    if (connection != null) {
+      this.connection = null;
+      connection.close();
+    }
+  }
+}
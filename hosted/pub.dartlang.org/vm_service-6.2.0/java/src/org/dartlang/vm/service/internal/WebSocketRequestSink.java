@@ -13,10 +13,14 @@
  */
 package org.dartlang.vm.service.internal;
 
+import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import de.roderick.weberknecht.WebSocket;
 import de.roderick.weberknecht.WebSocketException;
 import org.dartlang.vm.service.logging.Logging;
+import org.dartlang.vm.service.metrics.VmServiceMetrics;
+
+import java.util.List;
 
 /**
  * An {@link WebSocket} based implementation of {@link RequestSink}.
@@ -25,18 +29,51 @@ public class WebSocketRequestSink implements RequestSink {
 
   private WebSocket webSocket;
 
+  private volatile VmServiceMetrics metrics = VmServiceMetrics.NULL;
+
   public WebSocketRequestSink(WebSocket webSocket) {
     this.webSocket = webSocket;
   }
 
+  /**
+   * Set the receiver of the number of bytes sent.
+   */
+  public void setMetrics(VmServiceMetrics metrics) {
+    this.metrics = metrics;
+  }
+
   @Override
   public void add(JsonObject json) {
-    String request = json.toString();
+    send(json.toString());
+  }
+
+  /**
+   * Send the given requests in a single frame, as a JSON-RPC batch.
+   */
+  @Override
+  public void addAll(List<JsonObject> requests) {
+    if (requests.size() == 1) {
+      add(requests.get(0));
+      return;
+    }
+    JsonArray batch = new JsonArray();
+    for (JsonObject request : requests) {
+      batch.add(request);
+    }
+    send(batch.toString());
+  }
+
+  private void send(String request) {
     if (webSocket == null) {
       Logging.getLogger().logInformation("Dropped: " + request);
       return;
     }
-    Logging.getLogger().logInformation("Sent: " + request);
+    if (Logging.getLogger().isInformationEnabled()) {
+      Logging.getLogger().logInformation("Sent: " + request);
+    }
+    if (metrics != VmServiceMetrics.NULL) {
+      metrics.bytesSent(VmServiceMetrics.encodedLength(request));
+    }
     try {
       webSocket.send(request);
     } catch (WebSocketException e) {
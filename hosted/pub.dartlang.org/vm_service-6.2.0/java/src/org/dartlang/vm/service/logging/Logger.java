@@ -13,6 +13,8 @@
  */
 package org.dartlang.vm.service.logging;
 
+import java.util.function.Supplier;
+
 /**
  * The interface {@code Logger} defines the behavior of objects that can be used to receive
  * information about errors. Implementations usually write this information to a file, but can also
@@ -39,10 +41,23 @@ public interface Logger {
     @Override
     public void logInformation(String message, Throwable exception) {
     }
+
+    @Override
+    public boolean isInformationEnabled() {
+      return false;
+    }
   }
 
   static final Logger NULL = new NullLogger();
 
+  /**
+   * Return {@code true} if informational messages are logged. Callers should check this before
+   * building a message that is expensive to create, such as one that includes a VM response.
+   */
+  default boolean isInformationEnabled() {
+    return true;
+  }
+
   /**
    * Log the given message as an error.
    *
@@ -72,4 +87,15 @@ public interface Logger {
    * @param exception the exception being logged
    */
   void logInformation(String message, Throwable exception);
+
+  /**
+   * Log an informational message that is only built if informational messages are logged.
+   *
+   * @param message a supplier of an explanation of why the error occurred or what it means
+   */
+  default void logInformation(Supplier<String> message) {
+    if (isInformationEnabled()) {
+      logInformation(message.get());
+    }
+  }
 }
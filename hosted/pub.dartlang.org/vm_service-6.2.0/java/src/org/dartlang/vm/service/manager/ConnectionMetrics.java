@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.manager;
+
+import org.dartlang.vm.service.metrics.VmServiceMetrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The measurements of a single {@link VmConnection}, which are also added to the measurements of
+ * all the connections of its manager.
+ */
+class ConnectionMetrics implements VmServiceMetrics {
+  private final VmServiceMetrics total;
+  final AtomicLong bytesReceived = new AtomicLong();
+  final AtomicLong bytesSent = new AtomicLong();
+  final AtomicLong events = new AtomicLong();
+  final AtomicLong requests = new AtomicLong();
+  final AtomicLong errors = new AtomicLong();
+  volatile long lastReceivedNanos = System.nanoTime();
+
+  ConnectionMetrics(VmServiceMetrics total) {
+    this.total = total;
+  }
+
+  @Override
+  public void bytesReceived(long count) {
+    bytesReceived.addAndGet(count);
+    lastReceivedNanos = System.nanoTime();
+    total.bytesReceived(count);
+  }
+
+  @Override
+  public void bytesSent(long count) {
+    bytesSent.addAndGet(count);
+    total.bytesSent(count);
+  }
+
+  @Override
+  public void eventDelivered(String streamId, long elapsedNanos) {
+    events.incrementAndGet();
+    total.eventDelivered(streamId, elapsedNanos);
+  }
+
+  @Override
+  public void requestFailed(String method, long elapsedNanos) {
+    errors.incrementAndGet();
+    total.requestFailed(method, elapsedNanos);
+  }
+
+  @Override
+  public void requestSent(String method, int pendingRequests) {
+    requests.incrementAndGet();
+    total.requestSent(method, pendingRequests);
+  }
+
+  @Override
+  public void responseReceived(String method, long latencyNanos, boolean error) {
+    if (error) {
+      errors.incrementAndGet();
+    }
+    total.responseReceived(method, latencyNanos, error);
+  }
+}
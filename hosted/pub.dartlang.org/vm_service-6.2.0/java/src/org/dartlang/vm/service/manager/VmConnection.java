@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.manager;
+
+import org.dartlang.vm.service.VmService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A connection to a VM managed by a {@link VmConnectionManager}, with its state and the
+ * measurements of its traffic.
+ */
+public class VmConnection {
+  public enum State {
+    /**
+     * The connection is being established.
+     */
+    CONNECTING,
+
+    /**
+     * The connection is established and {@link #getService()} can be used.
+     */
+    CONNECTED,
+
+    /**
+     * The connection could not be established, see {@link #getFailure()}.
+     */
+    FAILED,
+
+    /**
+     * The connection was established and has been closed.
+     */
+    CLOSED
+  }
+
+  private final String url;
+  final ConnectionMetrics metrics;
+  private volatile State state = State.CONNECTING;
+  private volatile VmService service;
+  private volatile Throwable failure;
+
+  VmConnection(String url, ConnectionMetrics metrics) {
+    this.url = url;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Close the connection.
+   */
+  public void disconnect() {
+    VmService service = this.service;
+    if (service != null) {
+      service.disconnect();
+    }
+  }
+
+  public long getBytesReceived() {
+    return metrics.bytesReceived.get();
+  }
+
+  public long getBytesSent() {
+    return metrics.bytesSent.get();
+  }
+
+  /**
+   * Return the number of requests that failed with an error returned by the VM, or without a
+   * response because they timed out or the connection was closed.
+   */
+  public long getErrorCount() {
+    return metrics.errors.get();
+  }
+
+  /**
+   * Return the number of events delivered to the listeners of the service.
+   */
+  public long getEventCount() {
+    return metrics.events.get();
+  }
+
+  /**
+   * Return the reason the connection could not be established, or {@code null}.
+   */
+  public Throwable getFailure() {
+    return failure;
+  }
+
+  /**
+   * Return the number of milliseconds since a message was last received from the VM.
+   */
+  public long getIdleMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - metrics.lastReceivedNanos);
+  }
+
+  /**
+   * Return the number of requests sent but not yet answered.
+   */
+  public int getPendingRequestCount() {
+    VmService service = this.service;
+    return service != null ? service.getPendingRequestCount() : 0;
+  }
+
+  public long getRequestCount() {
+    return metrics.requests.get();
+  }
+
+  /**
+   * Return the service used to interact with the VM, or {@code null} if the connection has not
+   * been established.
+   */
+  public VmService getService() {
+    return service;
+  }
+
+  public State getState() {
+    return state;
+  }
+
+  public String getUrl() {
+    return url;
+  }
+
+  void connected(VmService service) {
+    this.service = service;
+    this.state = State.CONNECTED;
+  }
+
+  void failed(Throwable failure) {
+    this.failure = failure;
+    this.state = State.FAILED;
+  }
+
+  void closed() {
+    this.state = State.CLOSED;
+  }
+
+  @Override
+  public String toString() {
+    return url + " " + state;
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.manager;
+
+import org.dartlang.vm.service.element.Event;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Interface used by {@link VmConnectionManager} to notify others of the events of all its
+ * connections, tagged with the connection they were received on.
+ */
+public interface VmConnectionListener {
+  /**
+   * Called when a connection is established, fails to be established or is closed.
+   */
+  void stateChanged(VmConnection connection);
+
+  /**
+   * Called when a VM event has been received.
+   *
+   * @param connection the connection to the VM that sent the event
+   * @param streamId   the stream identifier (e.g. {@link org.dartlang.vm.service.VmService#DEBUG_STREAM_ID}
+   * @param event      the event
+   */
+  void received(VmConnection connection, String streamId, Event event);
+
+  /**
+   * Called when a VM event with binary data, such as a heap snapshot chunk, has been received.
+   * The default implementation ignores the data.
+   */
+  default void received(VmConnection connection, String streamId, Event event, ByteBuffer data) {
+    received(connection, streamId, event);
+  }
+}
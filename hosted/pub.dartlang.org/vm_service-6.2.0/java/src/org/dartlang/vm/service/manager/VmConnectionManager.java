@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.manager;
+
+import org.dartlang.vm.service.VmService;
+import org.dartlang.vm.service.VmServiceBinaryListener;
+import org.dartlang.vm.service.element.Event;
+import org.dartlang.vm.service.logging.Logging;
+import org.dartlang.vm.service.metrics.VmServiceStatistics;
+import org.dartlang.vm.service.transport.NioWebSocketTransport;
+import org.dartlang.vm.service.transport.Transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Maintains connections to many VMs. Connections are established concurrently, at most a given
+ * number at a time, and share the I/O threads of a {@link Transport}. The events of all the
+ * connections are delivered to the {@link VmConnectionListener}s of the manager, tagged with their
+ * connection, and the traffic of all the connections is measured in {@link #getStatistics()}.
+ */
+public class VmConnectionManager implements Closeable {
+  private static final int DEFAULT_CONNECT_PARALLELISM = 16;
+
+  private final Transport transport;
+  private final int connectParallelism;
+
+  /**
+   * The connections waiting for one of the {@link #connectParallelism} connections being
+   * established to complete. Guarded by {@code this}.
+   */
+  private final Queue<Connect> waitingConnects = new ArrayDeque<>();
+  private int activeConnects;
+  private boolean closed;
+
+  private final Map<String, VmConnection> connections = new ConcurrentHashMap<>();
+  private final List<VmConnectionListener> listeners = new CopyOnWriteArrayList<>();
+  private final VmServiceStatistics statistics = new VmServiceStatistics();
+
+  /**
+   * Create a manager whose connections share {@link NioWebSocketTransport#getDefault()}.
+   */
+  public VmConnectionManager() throws IOException {
+    this(NioWebSocketTransport.getDefault(), DEFAULT_CONNECT_PARALLELISM);
+  }
+
+  /**
+   * Create a manager whose connections use the given transport, and that establishes at most the
+   * given number of connections at the same time.
+   */
+  public VmConnectionManager(Transport transport, int connectParallelism) {
+    if (connectParallelism < 1) {
+      throw new IllegalArgumentException("connectParallelism: " + connectParallelism);
+    }
+    this.transport = transport;
+    this.connectParallelism = connectParallelism;
+  }
+
+  public void addListener(VmConnectionListener listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(VmConnectionListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Connect to the VM at the given URL, unless a connection to it is already established or being
+   * established. The returned future is completed with the connection once it is established, or
+   * completed exceptionally if it cannot be.
+   *
+   * @throws IllegalStateException if the manager has been closed
+   */
+  public CompletableFuture<VmConnection> connect(final String url) {
+    final CompletableFuture<VmConnection> result = new CompletableFuture<>();
+    final VmConnection connection = new VmConnection(url, new ConnectionMetrics(statistics));
+    Connect connect = new Connect(url, connection, result);
+    synchronized (this) {
+      if (closed) {
+        throw new IllegalStateException("Connection manager closed");
+      }
+      VmConnection existing = connections.get(url);
+      if (existing != null && existing.getState() != VmConnection.State.FAILED
+          && existing.getState() != VmConnection.State.CLOSED) {
+        result.complete(existing);
+        return result;
+      }
+      connections.put(url, connection);
+      // Start the connection now, or once fewer than connectParallelism are being established
+      if (activeConnects == connectParallelism) {
+        waitingConnects.add(connect);
+        return result;
+      }
+      activeConnects++;
+    }
+    connect.run();
+    return result;
+  }
+
+  /**
+   * Connect to the VMs at the given URLs, see {@link #connect(String)}.
+   */
+  public List<CompletableFuture<VmConnection>> connectAll(Collection<String> urls) {
+    List<CompletableFuture<VmConnection>> result = new ArrayList<>(urls.size());
+    for (String url : urls) {
+      result.add(connect(url));
+    }
+    return result;
+  }
+
+  /**
+   * Return the connection to the VM at the given URL, or {@code null} if there is none.
+   */
+  public VmConnection getConnection(String url) {
+    return connections.get(url);
+  }
+
+  /**
+   * Return the connections of this manager, including those that failed or have been closed.
+   */
+  public Collection<VmConnection> getConnections() {
+    return Collections.unmodifiableCollection(connections.values());
+  }
+
+  /**
+   * Return the number of connections in the given state.
+   */
+  public int getConnectionCount(VmConnection.State state) {
+    int count = 0;
+    for (VmConnection connection : connections.values()) {
+      if (connection.getState() == state) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Return the measurements of the traffic of all the connections.
+   */
+  public VmServiceStatistics getStatistics() {
+    return statistics;
+  }
+
+  /**
+   * Forget the connections that failed or have been closed.
+   */
+  public void removeInactive() {
+    for (VmConnection connection : connections.values()) {
+      VmConnection.State state = connection.getState();
+      if (state == VmConnection.State.FAILED || state == VmConnection.State.CLOSED) {
+        connections.remove(connection.getUrl(), connection);
+      }
+    }
+  }
+
+  /**
+   * Close all connections. The manager cannot be used to establish more connections.
+   */
+  @Override
+  public void close() {
+    List<Connect> waiting;
+    synchronized (this) {
+      closed = true;
+      waiting = new ArrayList<>(waitingConnects);
+      waitingConnects.clear();
+    }
+    for (Connect connect : waiting) {
+      connect.done(null, new IOException("Connection manager closed"));
+    }
+    for (VmConnection connection : connections.values()) {
+      connection.disconnect();
+    }
+  }
+
+  /**
+   * Start the next waiting connection, if any, once a connection has been established or failed.
+   */
+  private void startNextConnect() {
+    Connect next;
+    synchronized (this) {
+      next = closed ? null : waitingConnects.poll();
+      if (next == null) {
+        activeConnects--;
+      }
+    }
+    if (next != null) {
+      next.run();
+    }
+  }
+
+  private void fireStateChanged(VmConnection connection) {
+    for (VmConnectionListener listener : listeners) {
+      try {
+        listener.stateChanged(connection);
+      } catch (Exception e) {
+        Logging.getLogger().logError("Exception notifying listener", e);
+      }
+    }
+  }
+
+  /**
+   * Establishes one connection, and completes its future.
+   */
+  private class Connect implements Runnable {
+    private final String url;
+    private final VmConnection connection;
+    private final CompletableFuture<VmConnection> result;
+
+    Connect(String url, VmConnection connection, CompletableFuture<VmConnection> result) {
+      this.url = url;
+      this.connection = connection;
+      this.result = result;
+    }
+
+    @Override
+    public void run() {
+      VmService service;
+      try {
+        // Measure and forward the traffic of the connection from its first message
+        service = VmService.connectAsync(url, transport, new Consumer<VmService>() {
+          @Override
+          public void accept(VmService service) {
+            service.setMetrics(connection.metrics);
+            service.addVmServiceListener(new FanInListener(connection));
+          }
+        });
+      } catch (RuntimeException e) {
+        done(null, e);
+        startNextConnect();
+        return;
+      }
+      service.whenConnected().whenComplete(new BiConsumer<VmService, Throwable>() {
+        @Override
+        public void accept(VmService service, Throwable exception) {
+          done(service, exception);
+          startNextConnect();
+        }
+      });
+    }
+
+    void done(VmService service, Throwable exception) {
+      if (exception instanceof CompletionException && exception.getCause() != null) {
+        exception = exception.getCause();
+      }
+      if (exception == null) {
+        // Connections established once the manager is closed are closed in turn, and the others
+        // are closed by close()
+        synchronized (VmConnectionManager.this) {
+          if (closed) {
+            exception = new IOException("Connection manager closed");
+          } else {
+            connection.connected(service);
+          }
+        }
+        if (exception != null) {
+          service.disconnect();
+        }
+      }
+      if (exception != null) {
+        connection.failed(exception);
+        fireStateChanged(connection);
+        result.completeExceptionally(exception);
+      } else {
+        fireStateChanged(connection);
+        result.complete(connection);
+      }
+    }
+  }
+
+  /**
+   * Forwards the events of one connection to the listeners of the manager.
+   */
+  private class FanInListener implements VmServiceBinaryListener {
+    private final VmConnection connection;
+
+    FanInListener(VmConnection connection) {
+      this.connection = connection;
+    }
+
+    @Override
+    public void connectionOpened() {
+    }
+
+    @Override
+    public void received(String streamId, Event event) {
+      for (VmConnectionListener listener : listeners) {
+        try {
+          listener.received(connection, streamId, event);
+        } catch (Exception e) {
+          Logging.getLogger().logError("Exception notifying listener", e);
+        }
+      }
+    }
+
+    @Override
+    public void received(String streamId, Event event, ByteBuffer data) {
+      for (VmConnectionListener listener : listeners) {
+        try {
+          listener.received(connection, streamId, event, data.duplicate());
+        } catch (Exception e) {
+          Logging.getLogger().logError("Exception notifying listener", e);
+        }
+      }
+    }
+
+    @Override
+    public void connectionClosed() {
+      // A connection that was never established is reported as failed by Connect
+      if (connection.getState() == VmConnection.State.CONNECTED) {
+        connection.closed();
+        fireStateChanged(connection);
+      }
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread safe histogram of durations, with one bucket per power of two nanoseconds. Recording a
+ * value is a few atomic increments, and percentiles are accurate to within a factor of two.
+ */
+public class LatencyHistogram {
+  private static final int BUCKET_COUNT = 64;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong totalNanos = new AtomicLong();
+  private final AtomicLong maxNanos = new AtomicLong();
+
+  public long getCount() {
+    return count.get();
+  }
+
+  public long getMaxNanos() {
+    return maxNanos.get();
+  }
+
+  /**
+   * Return the mean duration, or 0 if no duration has been recorded.
+   */
+  public long getMeanNanos() {
+    long n = count.get();
+    return n == 0 ? 0 : totalNanos.get() / n;
+  }
+
+  /**
+   * Return an upper bound of the given percentile, between 0 and 100, of the recorded durations,
+   * or 0 if no duration has been recorded.
+   */
+  public long getPercentileNanos(double percentile) {
+    long n = count.get();
+    if (n == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(n * percentile / 100);
+    long seen = 0;
+    for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+      seen += buckets.get(bucket);
+      if (seen >= rank) {
+        return Math.min((1L << bucket) - 1, maxNanos.get());
+      }
+    }
+    return maxNanos.get();
+  }
+
+  public long getTotalNanos() {
+    return totalNanos.get();
+  }
+
+  public void record(long nanos) {
+    if (nanos < 0) {
+      nanos = 0;
+    }
+    buckets.incrementAndGet(BUCKET_COUNT - Long.numberOfLeadingZeros(nanos));
+    count.incrementAndGet();
+    totalNanos.addAndGet(nanos);
+    long max;
+    while (nanos > (max = maxNanos.get())) {
+      if (maxNanos.compareAndSet(max, nanos)) {
+        break;
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "count " + getCount() + ", mean " + getMeanNanos() / 1000 + "us, p50 "
+        + getPercentileNanos(50) / 1000 + "us, p99 " + getPercentileNanos(99) / 1000 + "us, max "
+        + getMaxNanos() / 1000 + "us";
+  }
+}
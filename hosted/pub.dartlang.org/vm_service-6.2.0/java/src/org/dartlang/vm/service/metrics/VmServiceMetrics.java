@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.metrics;
+
+/**
+ * The interface {@code VmServiceMetrics} defines the behavior of objects that receive measurements
+ * of the traffic of a {@link org.dartlang.vm.service.VmService}. Methods are called on the threads
+ * sending requests and receiving messages, so implementations must be thread safe and fast.
+ */
+public interface VmServiceMetrics {
+
+  /**
+   * Implementation of {@link VmServiceMetrics} that does nothing.
+   */
+  class NullMetrics implements VmServiceMetrics {
+    @Override
+    public void bytesReceived(long count) {
+    }
+
+    @Override
+    public void bytesSent(long count) {
+    }
+
+    @Override
+    public void eventDelivered(String streamId, long elapsedNanos) {
+    }
+
+    @Override
+    public void requestFailed(String method, long elapsedNanos) {
+    }
+
+    @Override
+    public void requestSent(String method, int pendingRequests) {
+    }
+
+    @Override
+    public void responseReceived(String method, long latencyNanos, boolean error) {
+    }
+  }
+
+  static final VmServiceMetrics NULL = new NullMetrics();
+
+  /**
+   * Return the number of bytes of the UTF-8 encoding of the given text, the form in which text
+   * messages are exchanged with the VM, without encoding it.
+   */
+  static long encodedLength(CharSequence text) {
+    int length = text.length();
+    long count = length;
+    for (int i = 0; i < length; i++) {
+      char c = text.charAt(i);
+      if (c >= 0x800) {
+        // Surrogate pairs take 4 bytes, 2 for each char
+        count += Character.isSurrogate(c) ? 1 : 2;
+      } else if (c >= 0x80) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Record a message received from the VM, where {@code count} is the number of bytes of the
+   * message, UTF-8 encoded for a text message, excluding the framing of the transport.
+   */
+  void bytesReceived(long count);
+
+  /**
+   * Record a message sent to the VM, where {@code count} is the number of bytes of the UTF-8
+   * encoded message, excluding the framing of the transport.
+   */
+  void bytesSent(long count);
+
+  /**
+   * Record the time taken by the listeners to process an event.
+   */
+  void eventDelivered(String streamId, long elapsedNanos);
+
+  /**
+   * Record a request that failed without a response from the VM, because it timed out or the
+   * connection was closed, and the time since the request was sent.
+   */
+  void requestFailed(String method, long elapsedNanos);
+
+  /**
+   * Record a request, where {@code pendingRequests} is the number of requests waiting for a
+   * response, including this one.
+   */
+  void requestSent(String method, int pendingRequests);
+
+  /**
+   * Record the response to a request and the time since the request was sent.
+   */
+  void responseReceived(String method, long latencyNanos, boolean error);
+}
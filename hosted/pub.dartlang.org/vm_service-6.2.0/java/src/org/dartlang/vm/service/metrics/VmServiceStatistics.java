@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An implementation of {@link VmServiceMetrics} that accumulates request counts and latencies per
+ * method, event delivery times per stream, the bytes sent and received, and the maximum number of
+ * pending requests.
+ */
+public class VmServiceStatistics implements VmServiceMetrics {
+
+  /**
+   * The statistics of one method.
+   */
+  public static class MethodStatistics {
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    /**
+     * Return the number of responses that were errors, and of requests that failed without a
+     * response because they timed out or the connection was closed.
+     */
+    public long getErrorCount() {
+      return errorCount.get();
+    }
+
+    /**
+     * Return the latencies of the responses.
+     */
+    public LatencyHistogram getLatency() {
+      return latency;
+    }
+
+    public long getRequestCount() {
+      return requestCount.get();
+    }
+
+    @Override
+    public String toString() {
+      return "requests " + getRequestCount() + ", errors " + getErrorCount() + ", latency "
+          + latency;
+    }
+  }
+
+  private final ConcurrentMap<String, MethodStatistics> methods = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, LatencyHistogram> streams = new ConcurrentHashMap<>();
+  private final AtomicLong bytesReceived = new AtomicLong();
+  private final AtomicLong bytesSent = new AtomicLong();
+  private final AtomicInteger maxPendingRequests = new AtomicInteger();
+
+  @Override
+  public void bytesReceived(long count) {
+    bytesReceived.addAndGet(count);
+  }
+
+  @Override
+  public void bytesSent(long count) {
+    bytesSent.addAndGet(count);
+  }
+
+  @Override
+  public void eventDelivered(String streamId, long elapsedNanos) {
+    LatencyHistogram histogram = streams.get(streamId);
+    if (histogram == null) {
+      LatencyHistogram created = new LatencyHistogram();
+      histogram = streams.putIfAbsent(streamId, created);
+      if (histogram == null) {
+        histogram = created;
+      }
+    }
+    histogram.record(elapsedNanos);
+  }
+
+  public long getBytesReceived() {
+    return bytesReceived.get();
+  }
+
+  public long getBytesSent() {
+    return bytesSent.get();
+  }
+
+  /**
+   * Return the largest number of requests that were waiting for a response at the same time.
+   */
+  public int getMaxPendingRequests() {
+    return maxPendingRequests.get();
+  }
+
+  /**
+   * Return the statistics of each method, ordered by method name.
+   */
+  public Map<String, MethodStatistics> getMethodStatistics() {
+    return new TreeMap<>(methods);
+  }
+
+  /**
+   * Return the event delivery times of each stream, ordered by stream id.
+   */
+  public Map<String, LatencyHistogram> getStreamStatistics() {
+    return new TreeMap<>(streams);
+  }
+
+  @Override
+  public void requestFailed(String method, long elapsedNanos) {
+    getMethod(method).errorCount.incrementAndGet();
+  }
+
+  @Override
+  public void requestSent(String method, int pendingRequests) {
+    getMethod(method).requestCount.incrementAndGet();
+    int max;
+    while (pendingRequests > (max = maxPendingRequests.get())) {
+      if (maxPendingRequests.compareAndSet(max, pendingRequests)) {
+        break;
+      }
+    }
+  }
+
+  @Override
+  public void responseReceived(String method, long latencyNanos, boolean error) {
+    MethodStatistics statistics = getMethod(method);
+    if (error) {
+      statistics.errorCount.incrementAndGet();
+    }
+    statistics.latency.record(latencyNanos);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("bytes sent ").append(getBytesSent()).append(", received ")
+        .append(getBytesReceived()).append(", max pending requests ")
+        .append(getMaxPendingRequests()).append('\n');
+    for (Map.Entry<String, MethodStatistics> entry : getMethodStatistics().entrySet()) {
+      sb.append("  ").append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+    }
+    for (Map.Entry<String, LatencyHistogram> entry : getStreamStatistics().entrySet()) {
+      sb.append("  stream ").append(entry.getKey()).append(": ").append(entry.getValue())
+          .append('\n');
+    }
+    return sb.toString();
+  }
+
+  private MethodStatistics getMethod(String method) {
+    MethodStatistics statistics = methods.get(method);
+    if (statistics == null) {
+      MethodStatistics created = new MethodStatistics();
+      statistics = methods.putIfAbsent(method, created);
+      if (statistics == null) {
+        statistics = created;
+      }
+    }
+    return statistics;
+  }
+}
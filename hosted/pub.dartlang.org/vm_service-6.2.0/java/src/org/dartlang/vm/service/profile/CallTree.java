@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.profile;
+
+import org.dartlang.vm.service.element.ProfileFunction;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A call tree aggregated from CPU samples. Each node is an interned call stack: node 0 is the root,
+ * and every other node is a call of a function from the stack of its parent node. The nodes and
+ * their sample counts are stored in primitive arrays, and a parent always has a smaller id than
+ * its children.
+ *
+ * A tree built by {@link CpuProfileAggregator} is top-down: the children of the root are the
+ * outermost frames. {@link #invert()} returns the bottom-up tree, whose children of the root are
+ * the frames that were executing when the samples were taken.
+ */
+public class CallTree {
+  private static final int ROOT = 0;
+
+  private final FunctionTable functionTable;
+
+  private int nodeCount = 1;
+  private int[] parents = new int[64];
+  private int[] functions = new int[64];
+  private int[] selfCounts = new int[64];
+
+  /**
+   * Open addressing table from (parent, function) to child node, where 0 is an empty slot.
+   */
+  private int[] children = new int[128];
+
+  private int[] totalCounts;
+  private int[] functionSelfCounts;
+  private int[] functionTotalCounts;
+
+  CallTree(FunctionTable functionTable) {
+    this.functionTable = functionTable;
+    functions[ROOT] = -1;
+  }
+
+  /**
+   * Return the id of the function of the given node, or -1 for the root.
+   */
+  public int getFunction(int node) {
+    return functions[node];
+  }
+
+  /**
+   * Return the number of distinct functions in the samples.
+   */
+  public int getFunctionCount() {
+    return functionTable.size();
+  }
+
+  /**
+   * Return the name of the given function, qualified by its owning class.
+   */
+  public String getFunctionName(int function) {
+    return functionTable.getName(function);
+  }
+
+  /**
+   * Return the number of samples taken while the given function was executing.
+   */
+  public int getFunctionSelfCount(int function) {
+    computeFunctionCounts();
+    return functionSelfCounts[function];
+  }
+
+  /**
+   * Return the number of samples whose stack contains the given function. Recursive calls are
+   * counted once per sample.
+   */
+  public int getFunctionTotalCount(int function) {
+    computeFunctionCounts();
+    return functionTotalCounts[function];
+  }
+
+  public int getNodeCount() {
+    return nodeCount;
+  }
+
+  /**
+   * Return the parent of the given node, or -1 for the root.
+   */
+  public int getParent(int node) {
+    return node == ROOT ? -1 : parents[node];
+  }
+
+  public ProfileFunction getProfileFunction(int function) {
+    return functionTable.get(function);
+  }
+
+  /**
+   * Return the number of samples whose stack is exactly the stack of the given node.
+   */
+  public int getSelfCount(int node) {
+    return selfCounts[node];
+  }
+
+  /**
+   * Return the number of samples whose stack starts with the stack of the given node.
+   */
+  public int getTotalCount(int node) {
+    if (totalCounts == null) {
+      int[] counts = Arrays.copyOf(selfCounts, nodeCount);
+      for (int node1 = nodeCount - 1; node1 > ROOT; node1--) {
+        counts[parents[node1]] += counts[node1];
+      }
+      totalCounts = counts;
+    }
+    return totalCounts[node];
+  }
+
+  /**
+   * Return a new tree with the stack of every sample reversed.
+   */
+  public CallTree invert() {
+    CallTree result = new CallTree(functionTable);
+    for (int node = 1; node < nodeCount; node++) {
+      int count = selfCounts[node];
+      if (count == 0) {
+        continue;
+      }
+      int child = ROOT;
+      for (int frame = node; frame != ROOT; frame = parents[frame]) {
+        child = result.child(child, functions[frame]);
+      }
+      result.selfCounts[child] += count;
+    }
+    return result;
+  }
+
+  /**
+   * Add the samples of the given tree, which must have been built by the same
+   * {@link CpuProfileAggregator} call, to this tree.
+   */
+  public void merge(CallTree other) {
+    if (other.functionTable != functionTable) {
+      throw new IllegalArgumentException("Call trees do not share function ids");
+    }
+    int[] map = new int[other.nodeCount];
+    for (int node = 1; node < other.nodeCount; node++) {
+      int mapped = child(map[other.parents[node]], other.functions[node]);
+      map[node] = mapped;
+      selfCounts[mapped] += other.selfCounts[node];
+    }
+    selfCounts[ROOT] += other.selfCounts[ROOT];
+    modified();
+  }
+
+  /**
+   * Write the samples in the collapsed stack format used by flame graph tools: one line for each
+   * distinct stack, with the function names from the outermost frame separated by semicolons,
+   * followed by a space and the number of samples.
+   */
+  public void writeCollapsedStacks(Appendable out) throws IOException {
+    int[] path = new int[16];
+    for (int node = 1; node < nodeCount; node++) {
+      int count = selfCounts[node];
+      if (count == 0) {
+        continue;
+      }
+      int depth = 0;
+      for (int frame = node; frame != ROOT; frame = parents[frame]) {
+        if (depth == path.length) {
+          path = Arrays.copyOf(path, depth * 2);
+        }
+        path[depth++] = frame;
+      }
+      for (int i = depth - 1; i >= 0; i--) {
+        appendName(out, functionTable.getName(functions[path[i]]));
+        out.append(i > 0 ? ';' : ' ');
+      }
+      out.append(Integer.toString(count)).append('\n');
+    }
+  }
+
+  /**
+   * Add one sample with the given stack, where {@code stack[0]} is the outermost frame.
+   */
+  void addSample(int[] stack, int length) {
+    int node = ROOT;
+    for (int i = 0; i < length; i++) {
+      node = child(node, stack[i]);
+    }
+    selfCounts[node]++;
+  }
+
+  void modified() {
+    totalCounts = null;
+    functionSelfCounts = null;
+    functionTotalCounts = null;
+  }
+
+  /**
+   * Return the child of the given node for the given function, adding it if necessary.
+   */
+  private int child(int parent, int function) {
+    int mask = children.length - 1;
+    int slot = hash(parent, function) & mask;
+    for (;;) {
+      int node = children[slot];
+      if (node == 0) {
+        break;
+      }
+      if (parents[node] == parent && functions[node] == function) {
+        return node;
+      }
+      slot = (slot + 1) & mask;
+    }
+    if (nodeCount == parents.length) {
+      int capacity = nodeCount * 2;
+      parents = Arrays.copyOf(parents, capacity);
+      functions = Arrays.copyOf(functions, capacity);
+      selfCounts = Arrays.copyOf(selfCounts, capacity);
+    }
+    int node = nodeCount++;
+    parents[node] = parent;
+    functions[node] = function;
+    children[slot] = node;
+    // Keep the table at most half full
+    if (nodeCount * 2 > children.length) {
+      rehash();
+    }
+    return node;
+  }
+
+  private void rehash() {
+    int[] table = new int[children.length * 2];
+    int mask = table.length - 1;
+    for (int node = 1; node < nodeCount; node++) {
+      int slot = hash(parents[node], functions[node]) & mask;
+      while (table[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      table[slot] = node;
+    }
+    children = table;
+  }
+
+  private void computeFunctionCounts() {
+    if (functionTotalCounts != null) {
+      return;
+    }
+    int functionCount = functionTable.size();
+    int[] selfByFunction = new int[functionCount];
+    int[] totalByFunction = new int[functionCount];
+
+    // Build the children of each node
+    int[] firstChild = new int[nodeCount + 1];
+    for (int node = 1; node < nodeCount; node++) {
+      firstChild[parents[node] + 1]++;
+    }
+    for (int node = 0; node < nodeCount; node++) {
+      firstChild[node + 1] += firstChild[node];
+    }
+    int[] childNodes = new int[nodeCount];
+    int[] next = Arrays.copyOf(firstChild, nodeCount);
+    for (int node = 1; node < nodeCount; node++) {
+      childNodes[next[parents[node]]++] = node;
+    }
+
+    // Walk the tree, tracking how many frames of each function are on the current path.
+    // The stack holds a node when it is entered and its complement when it is left.
+    int[] active = new int[functionCount];
+    int[] stack = next;
+    int sp = 0;
+    for (int i = firstChild[ROOT]; i < firstChild[ROOT + 1]; i++) {
+      stack[sp++] = childNodes[i];
+    }
+    while (sp > 0) {
+      int entry = stack[--sp];
+      if (entry < 0) {
+        active[functions[~entry]]--;
+        continue;
+      }
+      int function = functions[entry];
+      selfByFunction[function] += selfCounts[entry];
+      if (active[function]++ == 0) {
+        totalByFunction[function] += getTotalCount(entry);
+      }
+      stack[sp++] = ~entry;
+      for (int i = firstChild[entry]; i < firstChild[entry + 1]; i++) {
+        stack[sp++] = childNodes[i];
+      }
+    }
+    functionSelfCounts = selfByFunction;
+    functionTotalCounts = totalByFunction;
+  }
+
+  private static void appendName(Appendable out, String name) throws IOException {
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      // Semicolons separate frames and the last space separates the count
+      out.append(c == ';' ? ':' : c == ' ' || c == '\n' ? '_' : c);
+    }
+  }
+
+  private static int hash(int parent, int function) {
+    int h = parent * 0x9E3779B9 + function;
+    return h ^ (h >>> 16);
+  }
+}
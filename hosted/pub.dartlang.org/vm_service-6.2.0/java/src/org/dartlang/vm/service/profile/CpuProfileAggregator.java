@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.profile;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.dartlang.vm.service.element.CpuSamples;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * {@link CpuProfileAggregator} aggregates the samples of one or more {@link CpuSamples} into a
+ * {@link CallTree}. The samples are read directly from the response JSON, without creating a
+ * {@link org.dartlang.vm.service.element.CpuSample} for each of them, and the samples of large or
+ * multiple captures are aggregated in parallel and then merged.
+ */
+public class CpuProfileAggregator {
+  /**
+   * The number of samples aggregated by one task.
+   */
+  private static final int SEGMENT_SIZE = 16 * 1024;
+
+  private String userTag;
+  private String vmTag;
+
+  /**
+   * Aggregate the samples of a single capture.
+   */
+  public CallTree aggregate(CpuSamples samples) {
+    return aggregate(Collections.singletonList(samples));
+  }
+
+  /**
+   * Aggregate the samples of the given captures, such as consecutive time windows, into one tree.
+   */
+  public CallTree aggregate(List<CpuSamples> captures) {
+    FunctionTable functionTable = new FunctionTable();
+    List<Segment> segments = new ArrayList<>();
+    for (CpuSamples capture : captures) {
+      int[] functionIds = functionTable.intern(capture.getFunctions());
+      JsonArray samples = capture.getJson().getAsJsonArray("samples");
+      int count = samples != null ? samples.size() : 0;
+      for (int from = 0; from < count; from += SEGMENT_SIZE) {
+        segments.add(new Segment(samples, from, Math.min(count, from + SEGMENT_SIZE), functionIds));
+      }
+    }
+    if (segments.isEmpty()) {
+      return new CallTree(functionTable);
+    }
+    if (segments.size() == 1) {
+      return aggregate(functionTable, segments.get(0));
+    }
+    return ForkJoinPool.commonPool().invoke(
+        new AggregateTask(functionTable, segments, 0, segments.size()));
+  }
+
+  /**
+   * Only aggregate the samples with the given user tag, or all samples if {@code null}.
+   */
+  public void setUserTag(String userTag) {
+    this.userTag = userTag;
+  }
+
+  /**
+   * Only aggregate the samples with the given VM tag, or all samples if {@code null}.
+   */
+  public void setVmTag(String vmTag) {
+    this.vmTag = vmTag;
+  }
+
+  private CallTree aggregate(FunctionTable functionTable, Segment segment) {
+    CallTree tree = new CallTree(functionTable);
+    int[] stack = new int[128];
+    for (int index = segment.from; index < segment.to; index++) {
+      JsonObject sample = segment.samples.get(index).getAsJsonObject();
+      if (!matches(sample, "userTag", userTag) || !matches(sample, "vmTag", vmTag)) {
+        continue;
+      }
+      JsonArray frames = sample.getAsJsonArray("stack");
+      int depth = frames != null ? frames.size() : 0;
+      if (depth > stack.length) {
+        stack = new int[Math.max(depth, stack.length * 2)];
+      }
+      // The sample stack starts with the innermost frame
+      for (int i = 0; i < depth; i++) {
+        stack[depth - 1 - i] = segment.functionIds[frames.get(i).getAsInt()];
+      }
+      tree.addSample(stack, depth);
+    }
+    return tree;
+  }
+
+  private static boolean matches(JsonObject sample, String name, String tag) {
+    if (tag == null) {
+      return true;
+    }
+    JsonElement value = sample.get(name);
+    return value != null && tag.equals(value.getAsString());
+  }
+
+  /**
+   * A range of the samples of one capture.
+   */
+  private static class Segment {
+    final JsonArray samples;
+    final int from;
+    final int to;
+    final int[] functionIds;
+
+    Segment(JsonArray samples, int from, int to, int[] functionIds) {
+      this.samples = samples;
+      this.from = from;
+      this.to = to;
+      this.functionIds = functionIds;
+    }
+  }
+
+  private class AggregateTask extends RecursiveTask<CallTree> {
+    private static final long serialVersionUID = 1L;
+
+    private final FunctionTable functionTable;
+    private final List<Segment> segments;
+    private final int from;
+    private final int to;
+
+    AggregateTask(FunctionTable functionTable, List<Segment> segments, int from, int to) {
+      this.functionTable = functionTable;
+      this.segments = segments;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected CallTree compute() {
+      if (to - from == 1) {
+        return aggregate(functionTable, segments.get(from));
+      }
+      int middle = (from + to) >>> 1;
+      AggregateTask left = new AggregateTask(functionTable, segments, from, middle);
+      left.fork();
+      CallTree right = new AggregateTask(functionTable, segments, middle, to).compute();
+      CallTree result = left.join();
+      result.merge(right);
+      return result;
+    }
+  }
+}
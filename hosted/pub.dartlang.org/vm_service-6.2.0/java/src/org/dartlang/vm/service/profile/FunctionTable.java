@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.profile;
+
+import com.google.common.collect.Maps;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.dartlang.vm.service.element.ElementList;
+import org.dartlang.vm.service.element.ProfileFunction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns the {@link ProfileFunction}s of one or more {@link
+ * org.dartlang.vm.service.element.CpuSamples} so that the functions of different captures share
+ * one id space. Not thread safe: functions are interned before the samples are aggregated.
+ */
+class FunctionTable {
+  private final Map<String, Integer> ids = Maps.newHashMap();
+  private final List<ProfileFunction> functions = new ArrayList<>();
+  private final List<String> names = new ArrayList<>();
+
+  ProfileFunction get(int id) {
+    return functions.get(id);
+  }
+
+  String getName(int id) {
+    return names.get(id);
+  }
+
+  /**
+   * Intern the given functions and return the id of each function, indexed by its position in
+   * the list.
+   */
+  int[] intern(ElementList<ProfileFunction> list) {
+    int[] result = new int[list.size()];
+    int index = 0;
+    for (ProfileFunction function : list) {
+      JsonObject json = function.getJson();
+      String key = key(json.get("function"));
+      Integer id = ids.get(key);
+      if (id == null) {
+        id = functions.size();
+        ids.put(key, id);
+        functions.add(function);
+        names.add(name(json.get("function")));
+      }
+      result[index++] = id;
+    }
+    return result;
+  }
+
+  int size() {
+    return functions.size();
+  }
+
+  private static String key(JsonElement function) {
+    if (function != null && function.isJsonObject()) {
+      JsonElement id = function.getAsJsonObject().get("id");
+      if (id != null) {
+        return id.getAsString();
+      }
+    }
+    return String.valueOf(function);
+  }
+
+  /**
+   * Return the name of the function qualified by its owning class, if any.
+   */
+  private static String name(JsonElement function) {
+    if (function == null || !function.isJsonObject()) {
+      return "<unknown>";
+    }
+    JsonObject json = function.getAsJsonObject();
+    String name = json.has("name") ? json.get("name").getAsString() : "<unknown>";
+    JsonElement owner = json.get("owner");
+    if (owner != null && owner.isJsonObject()) {
+      JsonObject ownerJson = owner.getAsJsonObject();
+      if ("@Class".equals(typeOf(ownerJson)) && ownerJson.has("name")) {
+        return ownerJson.get("name").getAsString() + "." + name;
+      }
+    }
+    return name;
+  }
+
+  private static String typeOf(JsonObject json) {
+    JsonElement type = json.get("type");
+    return type != null ? type.getAsString() : null;
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.source;
+
+import org.dartlang.vm.service.VmService;
+import org.dartlang.vm.service.VmServiceListener;
+import org.dartlang.vm.service.element.Event;
+import org.dartlang.vm.service.element.IsolateRef;
+import org.dartlang.vm.service.element.Script;
+import org.dartlang.vm.service.element.ScriptRef;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * A per isolate cache of {@link Script}s and their {@link TokenPosIndex}es. Each script is
+ * requested once, the first time it or its index is asked for, and its index is built once, so
+ * that mapping many stack frames or coverage ranges costs a binary search each rather than a
+ * request and a walk of the token position table.
+ * <p>
+ * The scripts of an isolate are discarded when it is reloaded or exits, which the cache learns
+ * from the events of the {@link VmService#ISOLATE_STREAM_ID} stream that the client must be
+ * listening to.
+ */
+public class ScriptCache implements VmServiceListener {
+  private final VmService service;
+
+  /**
+   * The scripts requested for each isolate, keyed by isolate id and then by script id. The map of
+   * an isolate is replaced when it is reloaded, so that a script requested before the reload is not
+   * added to the map used after it.
+   */
+  private final Map<String, Map<String, CachedScript>> isolates = new ConcurrentHashMap<>();
+
+  /**
+   * Create a cache and add it as a listener of the given service.
+   */
+  public ScriptCache(VmService service) {
+    this.service = service;
+    service.addVmServiceListener(this);
+  }
+
+  /**
+   * Discard all scripts and stop listening to the service.
+   */
+  public void dispose() {
+    service.removeVmServiceListener(this);
+    isolates.clear();
+  }
+
+  /**
+   * Return a future that is completed with the script with the given id.
+   */
+  public CompletableFuture<Script> getScript(String isolateId, String scriptId) {
+    return copy(getCachedScript(isolateId, scriptId).script);
+  }
+
+  /**
+   * Return a future that is completed with the source of the script with the given id.
+   */
+  public CompletableFuture<String> getSource(String isolateId, String scriptId) {
+    return getCachedScript(isolateId, scriptId).script.thenApply(new Function<Script, String>() {
+      @Override
+      public String apply(Script script) {
+        return script.getSource();
+      }
+    });
+  }
+
+  /**
+   * Return a future that is completed with the token position index of the script with the given
+   * id.
+   */
+  public CompletableFuture<TokenPosIndex> getIndex(String isolateId, String scriptId) {
+    return copy(getCachedScript(isolateId, scriptId).getIndex());
+  }
+
+  /**
+   * Return a function that maps a script of the given isolate to its token position index, such
+   * as is used by {@link org.dartlang.vm.service.coverage.CoverageMap}. The function waits for
+   * scripts that have not been received yet, and so must not be called on the thread processing
+   * messages from the VM.
+   */
+  public Function<ScriptRef, TokenPosIndex> getIndexes(final String isolateId) {
+    return new Function<ScriptRef, TokenPosIndex>() {
+      @Override
+      public TokenPosIndex apply(ScriptRef scriptRef) {
+        return getIndex(isolateId, scriptRef.getId()).join();
+      }
+    };
+  }
+
+  /**
+   * Discard the scripts of the given isolate.
+   */
+  public void invalidate(String isolateId) {
+    isolates.remove(isolateId);
+  }
+
+  @Override
+  public void connectionOpened() {
+  }
+
+  @Override
+  public void received(String streamId, Event event) {
+    IsolateRef isolate = event.getIsolate();
+    if (isolate == null) {
+      return;
+    }
+    switch (event.getKind()) {
+      case IsolateExit:
+      case IsolateReload:
+        invalidate(isolate.getId());
+        return;
+      default:
+    }
+  }
+
+  @Override
+  public void connectionClosed() {
+    isolates.clear();
+  }
+
+  /**
+   * Return a future completed with the result of the given cached future, so that a caller
+   * cancelling it does not affect the other callers.
+   */
+  private static <T> CompletableFuture<T> copy(CompletableFuture<T> future) {
+    return future.thenApply(new Function<T, T>() {
+      @Override
+      public T apply(T result) {
+        return result;
+      }
+    });
+  }
+
+  private CachedScript getCachedScript(final String isolateId, final String scriptId) {
+    Map<String, CachedScript> scripts = isolates.get(isolateId);
+    if (scripts == null) {
+      scripts = new ConcurrentHashMap<>();
+      Map<String, CachedScript> previous = isolates.putIfAbsent(isolateId, scripts);
+      if (previous != null) {
+        scripts = previous;
+      }
+    }
+    CachedScript cached = scripts.get(scriptId);
+    if (cached != null) {
+      return cached;
+    }
+    final CompletableFuture<Script> script = new CompletableFuture<>();
+    cached = new CachedScript(script);
+    CachedScript previous = scripts.putIfAbsent(scriptId, cached);
+    if (previous != null) {
+      return previous;
+    }
+
+    // Send the request only once the entry is in place, and forget it if the request fails
+    final Map<String, CachedScript> requestedIn = scripts;
+    final CachedScript entry = cached;
+    service.getScriptAsync(isolateId, scriptId).whenComplete(new BiConsumer<Script, Throwable>() {
+      @Override
+      public void accept(Script result, Throwable exception) {
+        if (exception != null) {
+          requestedIn.remove(scriptId, entry);
+          script.completeExceptionally(exception);
+        } else {
+          script.complete(result);
+        }
+      }
+    });
+    return cached;
+  }
+
+  private static class CachedScript {
+    final CompletableFuture<Script> script;
+    private CompletableFuture<TokenPosIndex> index;
+
+    CachedScript(CompletableFuture<Script> script) {
+      this.script = script;
+    }
+
+    synchronized CompletableFuture<TokenPosIndex> getIndex() {
+      if (index == null) {
+        index = script.thenApply(new Function<Script, TokenPosIndex>() {
+          @Override
+          public TokenPosIndex apply(Script script) {
+            return TokenPosIndex.of(script);
+          }
+        });
+      }
+      return index;
+    }
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.source;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import org.dartlang.vm.service.element.Script;
+
+import java.util.Arrays;
+
+/**
+ * A compact index of the token positions of a {@link Script}, built from
+ * {@link Script#getTokenPosTable()}. The positions are held in a sorted int array, so mapping a
+ * token position to a line and column is a binary search. The reverse mapping, from a line and
+ * column to a token position, is built the first time it is used.
+ */
+public class TokenPosIndex {
+  private static final TokenPosIndex EMPTY = new TokenPosIndex(new int[0], new int[0], new int[0]);
+
+  /**
+   * Build the index of the given script. If the script has no token position table, the index is
+   * empty.
+   */
+  public static TokenPosIndex of(Script script) {
+    return of(script.getJson().getAsJsonArray("tokenPosTable"));
+  }
+
+  /**
+   * Build an index from a token position table, where each entry is a line number followed by
+   * pairs of token position and column number.
+   */
+  public static TokenPosIndex of(JsonArray tokenPosTable) {
+    if (tokenPosTable == null) {
+      return EMPTY;
+    }
+    int count = 0;
+    for (JsonElement entry : tokenPosTable) {
+      count += (entry.getAsJsonArray().size() - 1) / 2;
+    }
+    // Pack each (position, index) into a long so a single sort orders all three arrays
+    long[] order = new long[count];
+    int[] lines = new int[count];
+    int[] columns = new int[count];
+    int index = 0;
+    for (JsonElement element : tokenPosTable) {
+      JsonArray entry = element.getAsJsonArray();
+      int line = entry.get(0).getAsInt();
+      for (int i = 1; i + 1 < entry.size(); i += 2) {
+        order[index] = ((long) entry.get(i).getAsInt() << 32) | index;
+        lines[index] = line;
+        columns[index] = entry.get(i + 1).getAsInt();
+        index++;
+      }
+    }
+    Arrays.sort(order);
+    int[] sortedPositions = new int[count];
+    int[] sortedLines = new int[count];
+    int[] sortedColumns = new int[count];
+    for (int i = 0; i < count; i++) {
+      int from = (int) order[i];
+      sortedPositions[i] = (int) (order[i] >> 32);
+      sortedLines[i] = lines[from];
+      sortedColumns[i] = columns[from];
+    }
+    return new TokenPosIndex(sortedPositions, sortedLines, sortedColumns);
+  }
+
+  private final int[] positions;
+  private final int[] lines;
+  private final int[] columns;
+
+  /**
+   * The line and column of each token packed into a long, in ascending order, or {@code null} if
+   * the reverse mapping has not been built yet.
+   */
+  private volatile long[] lineColumns;
+
+  /**
+   * The token position of each entry in {@link #lineColumns}.
+   */
+  private volatile int[] lineColumnPositions;
+
+  private TokenPosIndex(int[] positions, int[] lines, int[] columns) {
+    this.positions = positions;
+    this.lines = lines;
+    this.columns = columns;
+  }
+
+  /**
+   * Return the column of the token at or before the given token position, or -1 if there is no
+   * such token.
+   */
+  public int getColumn(int tokenPos) {
+    int index = floor(tokenPos);
+    return index >= 0 ? columns[index] : -1;
+  }
+
+  /**
+   * Return the line of the token at or before the given token position, or -1 if there is no such
+   * token.
+   */
+  public int getLine(int tokenPos) {
+    int index = floor(tokenPos);
+    return index >= 0 ? lines[index] : -1;
+  }
+
+  /**
+   * Return the position of the first token on the given line, or -1 if there is no token on that
+   * line.
+   */
+  public int getTokenPos(int line) {
+    return getTokenPos(line, 0);
+  }
+
+  /**
+   * Return the position of the first token on the given line at or after the given column, or -1
+   * if there is no such token.
+   */
+  public int getTokenPos(int line, int column) {
+    long[] keys = lineColumns;
+    if (keys == null) {
+      keys = buildLineColumns();
+    }
+    long key = pack(line, Math.max(column, 0));
+    int index = Arrays.binarySearch(keys, key);
+    if (index < 0) {
+      index = -index - 1;
+    }
+    // Several tokens may share a line and column
+    while (index > 0 && keys[index - 1] == key) {
+      index--;
+    }
+    if (index == keys.length || (int) (keys[index] >> 32) != line) {
+      return -1;
+    }
+    return lineColumnPositions[index];
+  }
+
+  /**
+   * Return the number of tokens in the index.
+   */
+  public int size() {
+    return positions.length;
+  }
+
+  /**
+   * Build the reverse mapping. Concurrent callers may each build it, but they build the same one.
+   */
+  private long[] buildLineColumns() {
+    int count = positions.length;
+    long[] keys = new long[count];
+    boolean sorted = true;
+    for (int i = 0; i < count; i++) {
+      keys[i] = pack(lines[i], columns[i]);
+      sorted &= i == 0 || keys[i - 1] <= keys[i];
+    }
+    if (sorted) {
+      // Token positions are normally source offsets, so the tokens are already in line order
+      lineColumnPositions = positions;
+      lineColumns = keys;
+      return keys;
+    }
+    long[] sortedKeys = keys.clone();
+    Arrays.sort(sortedKeys);
+    // Place each token after the tokens on an earlier line or column, and after the earlier tokens
+    // on the same line and column, counted in placed at the first slot of their line and column
+    int[] sortedPositions = new int[count];
+    int[] placed = new int[count];
+    for (int i = 0; i < count; i++) {
+      int slot = Arrays.binarySearch(sortedKeys, keys[i]);
+      while (slot > 0 && sortedKeys[slot - 1] == keys[i]) {
+        slot--;
+      }
+      sortedPositions[slot + placed[slot]++] = positions[i];
+    }
+    lineColumnPositions = sortedPositions;
+    lineColumns = sortedKeys;
+    return sortedKeys;
+  }
+
+  private static long pack(int line, int column) {
+    return ((long) line << 32) | (column & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Return the index of the last token whose position is at or before the given position.
+   */
+  private int floor(int tokenPos) {
+    int index = Arrays.binarySearch(positions, tokenPos);
+    return index >= 0 ? index : -index - 2;
+  }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.timeline;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonWriter;
+import org.dartlang.vm.service.element.Event;
+import org.dartlang.vm.service.element.Timeline;
+import org.dartlang.vm.service.element.TimelineEvent;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@link ChromeTraceWriter} writes timeline events to a channel in the Chrome Trace Event Format,
+ * as they are received from {@link org.dartlang.vm.service.VmService#getVMTimeline} or on the
+ * {@link org.dartlang.vm.service.VmService#TIMELINE_STREAM_ID} stream. Events are serialized into
+ * a fixed size buffer that is written to the channel whenever it fills up, so the memory used does
+ * not grow with the length of the capture.
+ *
+ * The output is a JSON object whose {@code traceEvents} member is the array of events. If the
+ * writer is not closed, the output is truncated in the middle of that array, which trace viewers
+ * generally still load.
+ */
+public class ChromeTraceWriter implements Closeable, Flushable {
+  private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+  private static final Gson gson = new Gson();
+
+  /**
+   * Open a writer that replaces the contents of the given file.
+   */
+  public static ChromeTraceWriter open(Path path) throws IOException {
+    return new ChromeTraceWriter(FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+  }
+
+  private final WritableByteChannel channel;
+  private final ChannelWriter out;
+  private final JsonWriter jsonWriter;
+  private long eventCount;
+  private boolean closed;
+
+  public ChromeTraceWriter(WritableByteChannel channel) throws IOException {
+    this(channel, DEFAULT_BUFFER_SIZE);
+  }
+
+  public ChromeTraceWriter(WritableByteChannel channel, int bufferSize) throws IOException {
+    this.channel = channel;
+    this.out = new ChannelWriter(channel, bufferSize);
+    this.jsonWriter = new JsonWriter(out);
+    // Each event is written as a separate top level value
+    this.jsonWriter.setLenient(true);
+    out.write("{\"traceEvents\":[");
+  }
+
+  /**
+   * Write the trace terminator, flush the buffered events and close the channel.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      out.write("]}\n");
+      out.flush();
+    } finally {
+      channel.close();
+    }
+  }
+
+  /**
+   * Write the buffered events to the channel.
+   */
+  @Override
+  public synchronized void flush() throws IOException {
+    checkOpen();
+    out.flush();
+  }
+
+  /**
+   * Return the number of events written so far.
+   */
+  public synchronized long getEventCount() {
+    return eventCount;
+  }
+
+  /**
+   * Write the events of a {@link Event} received on the Timeline stream. Other events are ignored.
+   */
+  public void write(Event event) throws IOException {
+    JsonElement events = event.getJson().get("timelineEvents");
+    if (events != null && events.isJsonArray()) {
+      writeAll(events.getAsJsonArray());
+    }
+  }
+
+  /**
+   * Write the events of a {@link Timeline}, such as one window of a capture retrieved with
+   * successive calls to {@link org.dartlang.vm.service.VmService#getVMTimeline}.
+   */
+  public void write(Timeline timeline) throws IOException {
+    JsonElement events = timeline.getJson().get("traceEvents");
+    if (events != null && events.isJsonArray()) {
+      writeAll(events.getAsJsonArray());
+    }
+  }
+
+  public synchronized void write(TimelineEvent event) throws IOException {
+    checkOpen();
+    writeEvent(event.getJson());
+  }
+
+  private synchronized void writeAll(JsonArray events) throws IOException {
+    checkOpen();
+    for (JsonElement event : events) {
+      writeEvent(event);
+    }
+  }
+
+  private void writeEvent(JsonElement event) throws IOException {
+    if (eventCount++ > 0) {
+      out.write(',');
+    }
+    gson.toJson(event, jsonWriter);
+  }
+
+  private void checkOpen() throws IOException {
+    if (closed) {
+      throw new IOException("Trace writer closed");
+    }
+  }
+
+  /**
+   * A {@link Writer} that encodes characters as UTF-8 into a buffer which is written to a channel
+   * when it is full.
+   */
+  private static class ChannelWriter extends Writer {
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final CharBuffer chars;
+    private final ByteBuffer bytes;
+
+    ChannelWriter(WritableByteChannel channel, int bufferSize) {
+      this.channel = channel;
+      this.chars = CharBuffer.allocate(Math.max(bufferSize / 4, 16));
+      this.bytes = ByteBuffer.allocateDirect(Math.max(bufferSize, 64));
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+      if (!chars.hasRemaining()) {
+        encode();
+      }
+      chars.put((char) c);
+    }
+
+    @Override
+    public void write(char[] buffer, int offset, int length) throws IOException {
+      while (length > 0) {
+        if (!chars.hasRemaining()) {
+          encode();
+        }
+        int n = Math.min(length, chars.remaining());
+        chars.put(buffer, offset, n);
+        offset += n;
+        length -= n;
+      }
+    }
+
+    @Override
+    public void write(String str, int offset, int length) throws IOException {
+      while (length > 0) {
+        if (!chars.hasRemaining()) {
+          encode();
+        }
+        int n = Math.min(length, chars.remaining());
+        chars.put(str, offset, offset + n);
+        offset += n;
+        length -= n;
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      encode();
+      writeBytes();
+    }
+
+    @Override
+    public void close() throws IOException {
+      flush();
+    }
+
+    /**
+     * Encode the buffered characters, leaving an unpaired high surrogate in the buffer.
+     */
+    private void encode() throws IOException {
+      chars.flip();
+      for (;;) {
+        CoderResult result = encoder.encode(chars, bytes, false);
+        if (result.isOverflow()) {
+          writeBytes();
+        } else if (result.isUnderflow()) {
+          break;
+        } else {
+          result.throwException();
+        }
+      }
+      chars.compact();
+    }
+
+    private void writeBytes() throws IOException {
+      bytes.flip();
+      while (bytes.hasRemaining()) {
+        channel.write(bytes);
+      }
+      bytes.clear();
+    }
+  }
+}
@@ -0,0 +1,581 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.transport;
+
+import org.dartlang.vm.service.logging.Logging;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.DataFormatException;
+
+/**
+ * A client websocket connection (RFC 6455) driven by a {@link SelectorLoop}. The opening handshake
+ * is performed on the connecting thread, after which the frames are read on the thread of the loop
+ * and written on the sending thread, or on the loop when the socket cannot take them at once.
+ * <p>
+ * The payload of a frame is consumed as it arrives, and inflated if the message is compressed, so
+ * a large frame does not have to fit in the read buffer.
+ */
+class NioWebSocketConnection implements TransportConnection {
+  private static final String GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+  private static final int MAX_HANDSHAKE_SIZE = 16 * 1024;
+  private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * The size above which the buffer of a received message is discarded rather than reused.
+   */
+  private static final int MAX_RETAINED_MESSAGE_SIZE = 1024 * 1024;
+
+  private static final int OPCODE_CONTINUATION = 0x0;
+  private static final int OPCODE_TEXT = 0x1;
+  private static final int OPCODE_BINARY = 0x2;
+  private static final int OPCODE_CLOSE = 0x8;
+  private static final int OPCODE_PING = 0x9;
+  private static final int OPCODE_PONG = 0xA;
+
+  private static final int CLOSE_NORMAL = 1000;
+  private static final int CLOSE_PROTOCOL_ERROR = 1002;
+
+  private static final SecureRandom random = new SecureRandom();
+
+  private final SocketChannel channel;
+  private final SelectorLoop loop;
+  private final TransportHandler handler;
+  private final PerMessageDeflate deflate;
+  private final AtomicBoolean closed = new AtomicBoolean();
+  private SelectionKey key;
+
+  // Read state, accessed on the thread of the loop
+  private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+  private boolean inPayload;
+  private boolean fin;
+  private int opcode;
+  private long remaining;
+  private byte[] mask;
+  private int maskIndex;
+  private int messageOpcode = -1;
+  private boolean messageCompressed;
+  private MessageBuffer message = new MessageBuffer();
+  private final ByteArrayOutputStream control = new ByteArrayOutputStream(125);
+
+  // Write state, guarded by writeQueue
+  private final ArrayDeque<ByteBuffer> writeQueue = new ArrayDeque<>();
+  private boolean closeSent;
+
+  private NioWebSocketConnection(SocketChannel channel, SelectorLoop loop, TransportHandler handler,
+      PerMessageDeflate deflate) {
+    this.channel = channel;
+    this.loop = loop;
+    this.handler = handler;
+    this.deflate = deflate;
+  }
+
+  /**
+   * Connect to the given {@code ws} URI, perform the opening handshake and start reading frames on
+   * the given loop.
+   */
+  static NioWebSocketConnection open(URI uri, SelectorLoop loop, TransportHandler handler,
+      int timeoutMillis) throws IOException {
+    if (!"ws".equals(uri.getScheme())) {
+      throw new IOException("Unsupported URL scheme: " + uri.getScheme());
+    }
+    int port = uri.getPort() != -1 ? uri.getPort() : 80;
+    SocketChannel channel = SocketChannel.open();
+    try {
+      channel.socket().setTcpNoDelay(true);
+      channel.socket().connect(new InetSocketAddress(uri.getHost(), port), timeoutMillis);
+      channel.socket().setSoTimeout(timeoutMillis);
+      PerMessageDeflate deflate = handshake(uri, channel);
+      channel.configureBlocking(false);
+      final NioWebSocketConnection connection =
+          new NioWebSocketConnection(channel, loop, handler, deflate);
+      handler.onOpen();
+      loop.execute(new Runnable() {
+        @Override
+        public void run() {
+          connection.register();
+        }
+      });
+      return connection;
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Send the opening handshake on the given blocking channel and read the response, leaving any
+   * frame that follows it unread.
+   */
+  private static PerMessageDeflate handshake(URI uri, SocketChannel channel) throws IOException {
+    byte[] nonce = new byte[16];
+    random.nextBytes(nonce);
+    String key = Base64.getEncoder().encodeToString(nonce);
+    String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+    if (uri.getRawQuery() != null) {
+      path += "?" + uri.getRawQuery();
+    }
+    String host = uri.getPort() != -1 ? uri.getHost() + ":" + uri.getPort() : uri.getHost();
+    String request = "GET " + path + " HTTP/1.1\r\n"
+        + "Host: " + host + "\r\n"
+        + "Upgrade: websocket\r\n"
+        + "Connection: Upgrade\r\n"
+        + "Sec-WebSocket-Key: " + key + "\r\n"
+        + "Sec-WebSocket-Version: 13\r\n"
+        + "Sec-WebSocket-Extensions: " + PerMessageDeflate.EXTENSION + "\r\n"
+        + "\r\n";
+    ByteBuffer buffer = ByteBuffer.wrap(request.getBytes(StandardCharsets.US_ASCII));
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+
+    // Read the response one byte at a time, so that no frame is read with it
+    InputStream in = channel.socket().getInputStream();
+    StringBuilder response = new StringBuilder();
+    while (!endsWith(response, "\r\n\r\n")) {
+      int b = in.read();
+      if (b == -1) {
+        throw new IOException("Connection closed during handshake: " + uri);
+      }
+      if (response.length() == MAX_HANDSHAKE_SIZE) {
+        throw new IOException("Handshake response too large: " + uri);
+      }
+      response.append((char) b);
+    }
+
+    String[] lines = response.toString().split("\r\n");
+    String[] status = lines[0].split(" ", 3);
+    if (status.length < 2 || !"101".equals(status[1])) {
+      throw new IOException("Handshake failed: " + lines[0]);
+    }
+    String upgrade = null;
+    String accept = null;
+    String extensions = null;
+    for (int i = 1; i < lines.length; i++) {
+      int colon = lines[i].indexOf(':');
+      if (colon <= 0) {
+        continue;
+      }
+      String name = lines[i].substring(0, colon).trim().toLowerCase(Locale.ROOT);
+      String value = lines[i].substring(colon + 1).trim();
+      switch (name) {
+        case "upgrade":
+          upgrade = value;
+          break;
+        case "sec-websocket-accept":
+          accept = value;
+          break;
+        case "sec-websocket-extensions":
+          extensions = extensions == null ? value : extensions + ", " + value;
+          break;
+        default:
+      }
+    }
+    if (!"websocket".equalsIgnoreCase(upgrade)) {
+      throw new IOException("Handshake failed, missing upgrade: " + uri);
+    }
+    if (!acceptKey(key).equals(accept)) {
+      throw new IOException("Handshake failed, invalid Sec-WebSocket-Accept: " + accept);
+    }
+    return PerMessageDeflate.negotiate(extensions);
+  }
+
+  private static boolean endsWith(StringBuilder builder, String suffix) {
+    int start = builder.length() - suffix.length();
+    return start >= 0 && builder.indexOf(suffix, start) == start;
+  }
+
+  private static String acceptKey(String key) {
+    try {
+      MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+      byte[] digest = sha1.digest((key + GUID).getBytes(StandardCharsets.US_ASCII));
+      return Base64.getEncoder().encodeToString(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override
+  public void send(String message) throws IOException {
+    byte[] payload = message.getBytes(StandardCharsets.UTF_8);
+    synchronized (writeQueue) {
+      if (closeSent) {
+        throw new ClosedChannelException();
+      }
+      // Compress while holding the lock, so that messages are queued in compression order
+      byte[] compressed = deflate != null ? deflate.deflate(payload) : null;
+      if (compressed != null) {
+        enqueue(frame(OPCODE_TEXT, true, compressed));
+      } else {
+        enqueue(frame(OPCODE_TEXT, false, payload));
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    sendClose(CLOSE_NORMAL);
+  }
+
+  /**
+   * Send a close frame with the given status, after which the channel is closed once the queued
+   * frames have been written.
+   */
+  private void sendClose(int status) {
+    boolean written;
+    synchronized (writeQueue) {
+      if (closeSent) {
+        return;
+      }
+      byte[] payload = {(byte) (status >> 8), (byte) status};
+      try {
+        enqueue(frame(OPCODE_CLOSE, false, payload));
+      } catch (IOException e) {
+        // The channel has been closed
+      }
+      closeSent = true;
+      written = writeQueue.isEmpty();
+    }
+    if (written) {
+      closeChannel();
+    }
+  }
+
+  /**
+   * Queue the given frame and write as much of the queue as the socket accepts. Called while
+   * holding the lock on {@link #writeQueue}.
+   */
+  private void enqueue(ByteBuffer frame) throws IOException {
+    boolean wasEmpty = writeQueue.isEmpty();
+    writeQueue.add(frame);
+    if (!wasEmpty) {
+      // The loop is waiting for the socket to accept the frames ahead of this one
+      return;
+    }
+    try {
+      writeQueued();
+    } catch (IOException e) {
+      closeChannel();
+      throw e;
+    }
+    if (!writeQueue.isEmpty()) {
+      loop.execute(new Runnable() {
+        @Override
+        public void run() {
+          if (key != null && key.isValid()) {
+            key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+          }
+        }
+      });
+    }
+  }
+
+  private void writeQueued() throws IOException {
+    ByteBuffer frame;
+    while ((frame = writeQueue.peek()) != null) {
+      channel.write(frame);
+      if (frame.hasRemaining()) {
+        return;
+      }
+      writeQueue.poll();
+    }
+  }
+
+  /**
+   * Return a masked frame holding the given payload.
+   */
+  private static ByteBuffer frame(int opcode, boolean compressed, byte[] payload) {
+    int length = payload.length;
+    int lengthSize = length < 126 ? 0 : length < 0x10000 ? 2 : 8;
+    ByteBuffer frame = ByteBuffer.allocate(2 + lengthSize + 4 + length);
+    frame.put((byte) (0x80 | (compressed ? 0x40 : 0) | opcode));
+    if (lengthSize == 0) {
+      frame.put((byte) (0x80 | length));
+    } else if (lengthSize == 2) {
+      frame.put((byte) (0x80 | 126));
+      frame.putShort((short) length);
+    } else {
+      frame.put((byte) (0x80 | 127));
+      frame.putLong(length);
+    }
+    byte[] mask = new byte[4];
+    random.nextBytes(mask);
+    frame.put(mask);
+    for (int i = 0; i < length; i++) {
+      frame.put((byte) (payload[i] ^ mask[i & 3]));
+    }
+    frame.flip();
+    return frame;
+  }
+
+  private void register() {
+    try {
+      key = channel.register(loop.getSelector(), SelectionKey.OP_READ, this);
+    } catch (IOException e) {
+      Logging.getLogger().logError("Failed to register connection", e);
+      closeChannel();
+    }
+  }
+
+  /**
+   * Called on the thread of the loop when the channel is ready.
+   */
+  void handle(SelectionKey key) {
+    if (key.isValid() && key.isWritable()) {
+      boolean close = false;
+      synchronized (writeQueue) {
+        try {
+          writeQueued();
+          if (writeQueue.isEmpty()) {
+            close = closeSent;
+            key.interestOps(SelectionKey.OP_READ);
+          }
+        } catch (IOException e) {
+          close = true;
+        }
+      }
+      if (close) {
+        closeChannel();
+        return;
+      }
+    }
+    if (key.isValid() && key.isReadable()) {
+      read();
+    }
+  }
+
+  private void read() {
+    try {
+      while (true) {
+        int count = channel.read(readBuffer);
+        if (count < 0) {
+          closeChannel();
+          return;
+        }
+        readBuffer.flip();
+        parse(readBuffer);
+        readBuffer.compact();
+        if (count == 0 || closed.get()) {
+          return;
+        }
+      }
+    } catch (ProtocolException | DataFormatException e) {
+      Logging.getLogger().logError("Invalid websocket frame", e);
+      sendClose(CLOSE_PROTOCOL_ERROR);
+    } catch (IOException e) {
+      closeChannel();
+    }
+  }
+
+  /**
+   * Consume the frames in the given buffer, leaving an incomplete frame header in it.
+   */
+  private void parse(ByteBuffer buffer) throws DataFormatException, ProtocolException {
+    while (!closed.get()) {
+      if (!inPayload && !parseHeader(buffer)) {
+        return;
+      }
+      int count = (int) Math.min(remaining, buffer.remaining());
+      if (count > 0) {
+        consumePayload(buffer.array(), buffer.arrayOffset() + buffer.position(), count);
+        buffer.position(buffer.position() + count);
+        remaining -= count;
+      }
+      if (remaining > 0) {
+        return;
+      }
+      inPayload = false;
+      endFrame();
+    }
+  }
+
+  private boolean parseHeader(ByteBuffer buffer) throws ProtocolException {
+    if (buffer.remaining() < 2) {
+      return false;
+    }
+    int position = buffer.position();
+    int b0 = buffer.get(position) & 0xFF;
+    int b1 = buffer.get(position + 1) & 0xFF;
+    int length = b1 & 0x7F;
+    boolean masked = (b1 & 0x80) != 0;
+    int lengthSize = length == 126 ? 2 : length == 127 ? 8 : 0;
+    if (buffer.remaining() < 2 + lengthSize + (masked ? 4 : 0)) {
+      return false;
+    }
+    buffer.position(position + 2);
+    fin = (b0 & 0x80) != 0;
+    opcode = b0 & 0x0F;
+    remaining = lengthSize == 0 ? length : lengthSize == 2 ? buffer.getShort() & 0xFFFF : buffer.getLong();
+    if (remaining < 0) {
+      throw new ProtocolException("Invalid frame length");
+    }
+    if (masked) {
+      mask = new byte[4];
+      buffer.get(mask);
+      maskIndex = 0;
+    } else {
+      mask = null;
+    }
+    boolean compressed = (b0 & 0x40) != 0;
+    if ((b0 & 0x30) != 0) {
+      // No extension uses RSV2 or RSV3
+      throw new ProtocolException("Unexpected reserved bits");
+    }
+    if (opcode > OPCODE_PONG) {
+      throw new ProtocolException("Unknown opcode: " + opcode);
+    }
+    if (opcode >= OPCODE_CLOSE) {
+      if (!fin || remaining > 125 || compressed) {
+        throw new ProtocolException("Invalid control frame");
+      }
+      control.reset();
+    } else if (opcode == OPCODE_CONTINUATION) {
+      if (messageOpcode == -1 || compressed) {
+        throw new ProtocolException("Unexpected continuation frame");
+      }
+    } else if (opcode == OPCODE_TEXT || opcode == OPCODE_BINARY) {
+      if (messageOpcode != -1) {
+        throw new ProtocolException("Expected continuation frame");
+      }
+      if (compressed && deflate == null) {
+        throw new ProtocolException("Unexpected compressed frame");
+      }
+      messageOpcode = opcode;
+      messageCompressed = compressed;
+    } else {
+      throw new ProtocolException("Unknown opcode: " + opcode);
+    }
+    inPayload = true;
+    return true;
+  }
+
+  private void consumePayload(byte[] bytes, int offset, int length) throws DataFormatException {
+    if (mask != null) {
+      for (int i = offset; i < offset + length; i++) {
+        bytes[i] ^= mask[maskIndex++ & 3];
+      }
+    }
+    if (opcode >= OPCODE_CLOSE) {
+      control.write(bytes, offset, length);
+    } else if (messageCompressed) {
+      deflate.inflate(bytes, offset, length, message);
+    } else {
+      message.write(bytes, offset, length);
+    }
+  }
+
+  private void endFrame() throws DataFormatException {
+    switch (opcode) {
+      case OPCODE_CLOSE:
+        byte[] status = control.toByteArray();
+        sendClose(status.length >= 2 ? ((status[0] & 0xFF) << 8) | (status[1] & 0xFF) : CLOSE_NORMAL);
+        return;
+      case OPCODE_PING:
+        byte[] payload = control.toByteArray();
+        synchronized (writeQueue) {
+          if (!closeSent) {
+            try {
+              enqueue(frame(OPCODE_PONG, false, payload));
+            } catch (IOException e) {
+              // The channel has been closed
+            }
+          }
+        }
+        return;
+      case OPCODE_PONG:
+        return;
+      default:
+    }
+    if (!fin) {
+      return;
+    }
+    if (messageCompressed) {
+      deflate.endInflate(message);
+    }
+    int type = messageOpcode;
+    messageOpcode = -1;
+    try {
+      if (type == OPCODE_TEXT) {
+        handler.onText(message.contents());
+      } else {
+        handler.onBinary(ByteBuffer.wrap(message.toByteArray()));
+      }
+    } catch (RuntimeException e) {
+      Logging.getLogger().logError("Exception handling message", e);
+    }
+    if (message.size() > MAX_RETAINED_MESSAGE_SIZE) {
+      message = new MessageBuffer();
+    } else {
+      message.reset();
+    }
+  }
+
+  /**
+   * Close the channel and notify the handler, once.
+   */
+  private void closeChannel() {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+    synchronized (writeQueue) {
+      closeSent = true;
+      writeQueue.clear();
+    }
+    try {
+      channel.close();
+    } catch (IOException e) {
+      Logging.getLogger().logError("Failed to close websocket", e);
+    }
+    // Notify the handler from the loop, after the frame being parsed, if any, has been handled
+    loop.execute(new Runnable() {
+      @Override
+      public void run() {
+        if (deflate != null) {
+          synchronized (writeQueue) {
+            deflate.end();
+          }
+        }
+        handler.onClose();
+      }
+    });
+  }
+
+  /**
+   * A {@link ByteArrayOutputStream} whose content can be decoded without a copy.
+   */
+  private static class MessageBuffer extends ByteArrayOutputStream {
+    /**
+     * Return the bytes written so far, without copying them.
+     */
+    ByteBuffer contents() {
+      return ByteBuffer.wrap(buf, 0, count);
+    }
+  }
+}
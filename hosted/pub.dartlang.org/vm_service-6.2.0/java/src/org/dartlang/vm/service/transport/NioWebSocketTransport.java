@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.transport;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A non-blocking websocket {@link Transport} for {@code ws} URIs. The connections of a transport
+ * share a fixed number of threads, each waiting on a {@link java.nio.channels.Selector} for the
+ * sockets of its connections, so that one process can be connected to many VMs with a handful of
+ * threads. The transport supports binary messages and negotiates the permessage-deflate extension.
+ * {@code wss} URIs are connected through a {@link WeberknechtTransport} instead, with a thread per
+ * connection, since TLS is not implemented over the shared threads.
+ * <p>
+ * Messages are handled on the thread of their connection, which is shared with other connections,
+ * so handlers should not block. Consider
+ * {@link org.dartlang.vm.service.VmService#setEventDispatch} for listeners that do.
+ */
+public class NioWebSocketTransport implements Transport {
+  private static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 10000;
+
+  private static NioWebSocketTransport defaultTransport;
+
+  /**
+   * Return the transport shared by all connections that do not ask for another one. Its threads
+   * are daemon threads and are never stopped.
+   */
+  public static synchronized NioWebSocketTransport getDefault() throws IOException {
+    if (defaultTransport == null) {
+      int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+      defaultTransport = new NioWebSocketTransport(threads);
+    }
+    return defaultTransport;
+  }
+
+  private final SelectorLoop[] loops;
+  private final AtomicInteger nextLoop = new AtomicInteger();
+  private final Transport secureTransport = new WeberknechtTransport();
+  private volatile int connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT_MILLIS;
+
+  /**
+   * Create a transport whose connections are served by the given number of threads.
+   */
+  public NioWebSocketTransport(int threads) throws IOException {
+    if (threads < 1) {
+      throw new IllegalArgumentException("threads: " + threads);
+    }
+    loops = new SelectorLoop[threads];
+    for (int i = 0; i < threads; i++) {
+      loops[i] = new SelectorLoop("VM service websocket " + (i + 1));
+    }
+  }
+
+  /**
+   * Set the number of milliseconds to wait for a connection to be established and for the
+   * response to the opening handshake.
+   */
+  public void setConnectTimeout(int millis) {
+    connectTimeoutMillis = millis;
+  }
+
+  @Override
+  public TransportConnection connect(URI uri, TransportHandler handler) throws IOException {
+    if ("wss".equals(uri.getScheme())) {
+      return secureTransport.connect(uri, handler);
+    }
+    SelectorLoop loop = loops[(nextLoop.getAndIncrement() & Integer.MAX_VALUE) % loops.length];
+    return NioWebSocketConnection.open(uri, loop, handler, connectTimeoutMillis);
+  }
+
+  /**
+   * Stop the threads of this transport. Connections that are still open stop receiving messages
+   * and their handlers are not notified.
+   */
+  public void shutdown() {
+    for (SelectorLoop loop : loops) {
+      loop.shutdown();
+    }
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The state of the permessage-deflate extension (RFC 7692) negotiated for a websocket connection.
+ * Received messages are inflated as their frames arrive. Sent messages are compressed unless the
+ * server limits the window of the client to less than the 32K used by {@link Deflater}, in which
+ * case they are sent uncompressed, as the extension allows.
+ */
+class PerMessageDeflate {
+  static final String EXTENSION = "permessage-deflate";
+
+  /**
+   * The end of the empty stored block that terminates the deflated data of each message, which is
+   * removed by the sender.
+   */
+  private static final byte[] TAIL = {0, 0, (byte) 0xFF, (byte) 0xFF};
+
+  /**
+   * The smallest message worth compressing.
+   */
+  private static final int MIN_DEFLATE_SIZE = 256;
+
+  private final Inflater inflater = new Inflater(true);
+  private final Deflater deflater;
+  private final boolean resetInflater;
+  private final boolean resetDeflater;
+
+  /**
+   * The buffers used to inflate on the thread reading the connection, and to deflate on the
+   * threads sending messages, which are serialized by the connection.
+   */
+  private final byte[] inflateBuffer = new byte[16 * 1024];
+  private final byte[] deflateBuffer = new byte[16 * 1024];
+
+  private PerMessageDeflate(boolean compress, boolean resetInflater, boolean resetDeflater) {
+    this.deflater = compress ? new Deflater(Deflater.DEFAULT_COMPRESSION, true) : null;
+    this.resetInflater = resetInflater;
+    this.resetDeflater = resetDeflater;
+  }
+
+  /**
+   * Return the state of the extension accepted by the server in the given
+   * {@code Sec-WebSocket-Extensions} header, or {@code null} if it was not accepted.
+   *
+   * @throws IOException if the server accepted the extension with parameters that were not offered
+   */
+  static PerMessageDeflate negotiate(String extensions) throws IOException {
+    if (extensions == null) {
+      return null;
+    }
+    for (String extension : extensions.split(",")) {
+      String[] params = extension.split(";");
+      if (!EXTENSION.equalsIgnoreCase(params[0].trim())) {
+        continue;
+      }
+      boolean compress = true;
+      boolean resetInflater = false;
+      boolean resetDeflater = false;
+      for (int i = 1; i < params.length; i++) {
+        String[] param = params[i].split("=", 2);
+        String name = param[0].trim().toLowerCase(Locale.ROOT);
+        String value = param.length > 1 ? param[1].trim().replace("\"", "") : null;
+        switch (name) {
+          case "server_no_context_takeover":
+            resetInflater = true;
+            break;
+          case "client_no_context_takeover":
+            resetDeflater = true;
+            break;
+          case "server_max_window_bits":
+            break;
+          case "client_max_window_bits":
+            compress = value == null || "15".equals(value);
+            break;
+          default:
+            throw new IOException("Unsupported " + EXTENSION + " parameter: " + params[i]);
+        }
+      }
+      return new PerMessageDeflate(compress, resetInflater, resetDeflater);
+    }
+    return null;
+  }
+
+  /**
+   * Inflate part of the payload of a compressed message into the given buffer.
+   */
+  void inflate(byte[] bytes, int offset, int length, ByteArrayOutputStream out)
+      throws DataFormatException {
+    if (length == 0 || inflater.finished()) {
+      return;
+    }
+    inflater.setInput(bytes, offset, length);
+    while (true) {
+      int count = inflater.inflate(inflateBuffer);
+      out.write(inflateBuffer, 0, count);
+      if (count < inflateBuffer.length && inflater.needsInput()) {
+        return;
+      }
+      if (count == 0) {
+        if (inflater.needsDictionary()) {
+          throw new DataFormatException("Unexpected dictionary");
+        }
+        // The sender ended the deflated data, ignore any trailing bytes
+        return;
+      }
+    }
+  }
+
+  /**
+   * Inflate the rest of a compressed message once all its frames have been received.
+   */
+  void endInflate(ByteArrayOutputStream out) throws DataFormatException {
+    if (!inflater.finished()) {
+      inflate(TAIL, 0, TAIL.length, out);
+    }
+    if (resetInflater || inflater.finished()) {
+      inflater.reset();
+    }
+  }
+
+  /**
+   * Return the compressed payload of the given message, or {@code null} if it is to be sent
+   * uncompressed.
+   */
+  byte[] deflate(byte[] message) {
+    if (deflater == null || message.length < MIN_DEFLATE_SIZE) {
+      return null;
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream(message.length / 2);
+    deflater.setInput(message);
+    int count;
+    do {
+      count = deflater.deflate(deflateBuffer, 0, deflateBuffer.length, Deflater.SYNC_FLUSH);
+      out.write(deflateBuffer, 0, count);
+    } while (count == deflateBuffer.length);
+    if (resetDeflater) {
+      deflater.reset();
+    }
+    // Remove the empty stored block written by the flush
+    byte[] result = out.toByteArray();
+    return Arrays.copyOf(result, result.length - TAIL.length);
+  }
+
+  /**
+   * Release the native resources of the compressor and decompressor.
+   */
+  void end() {
+    inflater.end();
+    if (deflater != null) {
+      deflater.end();
+    }
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.transport;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link Transport} that records the messages exchanged over the connections of another
+ * transport with a {@link TrafficRecorder}, for example to replay a debugging session with
+ * {@link org.dartlang.vm.service.TrafficReplay}.
+ */
+public class RecordingTransport implements Transport {
+  private final Transport transport;
+  private final TrafficRecorder recorder;
+
+  public RecordingTransport(Transport transport, TrafficRecorder recorder) {
+    this.transport = transport;
+    this.recorder = recorder;
+  }
+
+  public TrafficRecorder getRecorder() {
+    return recorder;
+  }
+
+  @Override
+  public TransportConnection connect(URI uri, final TransportHandler handler) throws IOException {
+    recorder.connected(uri);
+    final TransportConnection connection = transport.connect(uri, new TransportHandler() {
+      @Override
+      public void onOpen() {
+        handler.onOpen();
+      }
+
+      @Override
+      public void onText(String message) {
+        recorder.received(message);
+        handler.onText(message);
+      }
+
+      @Override
+      public void onText(ByteBuffer utf8) {
+        recorder.receivedText(utf8);
+        handler.onText(utf8);
+      }
+
+      @Override
+      public void onBinary(ByteBuffer message) {
+        recorder.received(message);
+        handler.onBinary(message);
+      }
+
+      @Override
+      public void onClose() {
+        recorder.closed();
+        handler.onClose();
+      }
+    });
+    return new TransportConnection() {
+      @Override
+      public void send(String message) throws IOException {
+        recorder.sent(message);
+        connection.send(message);
+      }
+
+      @Override
+      public void close() {
+        connection.close();
+      }
+    };
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.transport;
+
+import org.dartlang.vm.service.logging.Logging;
+
+import java.io.IOException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A thread that waits on a {@link Selector} for the connections registered with it to become
+ * readable or writable, and runs the tasks given to it from other threads.
+ */
+class SelectorLoop implements Runnable {
+  private final Selector selector;
+  private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+  SelectorLoop(String name) throws IOException {
+    selector = Selector.open();
+    Thread thread = new Thread(this, name);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  Selector getSelector() {
+    return selector;
+  }
+
+  /**
+   * Run the given task on the thread of this loop.
+   */
+  void execute(Runnable task) {
+    tasks.add(task);
+    selector.wakeup();
+  }
+
+  /**
+   * Stop the thread of this loop. The connections registered with it are not notified.
+   */
+  void shutdown() {
+    try {
+      selector.close();
+    } catch (IOException e) {
+      Logging.getLogger().logError("Failed to close selector", e);
+    }
+  }
+
+  @Override
+  public void run() {
+    try {
+      while (true) {
+        selector.select();
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+          try {
+            task.run();
+          } catch (RuntimeException e) {
+            Logging.getLogger().logError("Exception in selector task", e);
+          }
+        }
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+          try {
+            ((NioWebSocketConnection) key.attachment()).handle(key);
+          } catch (RuntimeException e) {
+            Logging.getLogger().logError("Exception handling connection", e);
+          }
+        }
+      }
+    } catch (ClosedSelectorException e) {
+      // The loop was shut down
+    } catch (IOException e) {
+      Logging.getLogger().logError("Selector failed", e);
+    }
+  }
+}
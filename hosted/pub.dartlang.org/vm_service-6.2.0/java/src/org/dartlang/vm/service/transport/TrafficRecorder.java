@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.transport;
+
+import org.dartlang.vm.service.logging.Logging;
+import org.dartlang.vm.service.transport.TrafficRecording.Kind;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends the messages exchanged with a VM service to a file, to be read with
+ * {@link TrafficRecording#read(Path)}. Messages are recorded by connecting through a
+ * {@link RecordingTransport}.
+ * <p>
+ * The file starts with a header. Each recorder appends a {@link Kind#SESSION} record, followed by
+ * one record per message or change of connection state: the kind of the record in one byte, the
+ * time since the previous record in microseconds and the length of the content as variable length
+ * numbers, and the content, which for text messages is UTF-8 encoded. Records are buffered, and
+ * written when the buffer is full, when a connection closes and when the recorder is flushed or
+ * closed. If the file cannot be written, the error is logged and recording stops, without
+ * affecting the connections.
+ */
+public class TrafficRecorder implements Closeable {
+  static final int MAGIC = 0x564d5352;
+  static final int VERSION = 1;
+
+  private final DataOutputStream out;
+
+  /**
+   * The {@link System#nanoTime()} of the last {@link Kind#CONNECTED} or {@link Kind#SESSION}
+   * record. Guarded by {@code this}.
+   */
+  private long startNanos = System.nanoTime();
+
+  /**
+   * The time of the last record in microseconds since {@link #startNanos}. Guarded by
+   * {@code this}.
+   */
+  private long lastMicros;
+
+  /**
+   * {@code true} once the recorder has been closed or could not write. Guarded by {@code this}.
+   */
+  private boolean stopped;
+
+  /**
+   * Open the given file, creating it if it does not exist, and append the recorded messages to it.
+   *
+   * @throws IOException if the file cannot be opened
+   */
+  public TrafficRecorder(Path file) throws IOException {
+    boolean empty = !Files.exists(file) || Files.size(file) == 0;
+    out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file,
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND), 1 << 16));
+    if (empty) {
+      out.writeInt(MAGIC);
+      out.writeByte(VERSION);
+    }
+    // Separate the requests of this session from those of the sessions already in the file
+    write(Kind.SESSION, System.currentTimeMillis() * 1000, new byte[0]);
+  }
+
+  /**
+   * Record the start of a connection to the given URI.
+   */
+  public synchronized void connected(URI uri) {
+    startNanos = System.nanoTime();
+    lastMicros = 0;
+    write(Kind.CONNECTED, System.currentTimeMillis() * 1000,
+        uri.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Record a text message sent to the VM.
+   */
+  public void sent(String message) {
+    byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+    synchronized (this) {
+      write(Kind.SENT, nextDelta(), bytes);
+    }
+  }
+
+  /**
+   * Record a text message received from the VM.
+   */
+  public void received(String message) {
+    byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+    synchronized (this) {
+      write(Kind.RECEIVED, nextDelta(), bytes);
+    }
+  }
+
+  /**
+   * Record a UTF-8 encoded text message received from the VM. The position of the buffer is not
+   * changed.
+   */
+  public void receivedText(ByteBuffer utf8) {
+    byte[] bytes = new byte[utf8.remaining()];
+    utf8.duplicate().get(bytes);
+    synchronized (this) {
+      write(Kind.RECEIVED, nextDelta(), bytes);
+    }
+  }
+
+  /**
+   * Record a binary message received from the VM. The position of the buffer is not changed.
+   */
+  public void received(ByteBuffer message) {
+    byte[] bytes = new byte[message.remaining()];
+    message.duplicate().get(bytes);
+    synchronized (this) {
+      write(Kind.RECEIVED_BINARY, nextDelta(), bytes);
+    }
+  }
+
+  /**
+   * Record the end of a connection, and write the buffered records to the file.
+   */
+  public synchronized void closed() {
+    write(Kind.CLOSED, nextDelta(), new byte[0]);
+    flush();
+  }
+
+  /**
+   * Write the buffered records to the file.
+   */
+  public synchronized void flush() {
+    if (stopped) {
+      return;
+    }
+    try {
+      out.flush();
+    } catch (IOException e) {
+      failed(e);
+    }
+  }
+
+  /**
+   * Write the buffered records to the file and close it. Later messages are not recorded.
+   */
+  @Override
+  public synchronized void close() {
+    if (stopped) {
+      return;
+    }
+    stopped = true;
+    try {
+      out.close();
+    } catch (IOException e) {
+      Logging.getLogger().logError("Failed to close VM service traffic recording", e);
+    }
+  }
+
+  private long nextDelta() {
+    long micros = (System.nanoTime() - startNanos) / 1000;
+    long delta = Math.max(0, micros - lastMicros);
+    lastMicros += delta;
+    return delta;
+  }
+
+  private void write(Kind kind, long time, byte[] payload) {
+    if (stopped) {
+      return;
+    }
+    try {
+      out.writeByte(kind.ordinal());
+      writeVarLong(time);
+      writeVarLong(payload.length);
+      out.write(payload);
+    } catch (IOException e) {
+      failed(e);
+    }
+  }
+
+  private void writeVarLong(long value) throws IOException {
+    while ((value & ~0x7fL) != 0) {
+      out.writeByte((int) (value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte((int) value);
+  }
+
+  private void failed(IOException e) {
+    Logging.getLogger().logError("Failed to write VM service traffic recording", e);
+    stopped = true;
+    try {
+      out.close();
+    } catch (IOException ignored) {
+      // The first error has been logged
+    }
+  }
+}
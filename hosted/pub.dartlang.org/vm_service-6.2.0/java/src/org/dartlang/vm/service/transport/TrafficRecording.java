@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.transport;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The messages exchanged with a VM service, as written by a {@link TrafficRecorder}.
+ */
+public class TrafficRecording {
+  /**
+   * The kinds of records in a recording.
+   */
+  public enum Kind {
+    /**
+     * The start of a connection. The text of the record is the URI of the connection, and its
+     * time is the wall clock time in microseconds since the epoch.
+     */
+    CONNECTED,
+
+    /**
+     * A text message sent to the VM.
+     */
+    SENT,
+
+    /**
+     * A text message received from the VM.
+     */
+    RECEIVED,
+
+    /**
+     * A binary message received from the VM.
+     */
+    RECEIVED_BINARY,
+
+    /**
+     * The end of a connection.
+     */
+    CLOSED,
+
+    /**
+     * The start of the records written by a {@link TrafficRecorder}, which appends to an existing
+     * file. The ids of the requests of different sessions are unrelated. The time of the record
+     * is the wall clock time in microseconds since the epoch.
+     */
+    SESSION
+  }
+
+  /**
+   * A message or change of connection state.
+   */
+  public static class Record {
+    private final Kind kind;
+    private final long timeMicros;
+    private final byte[] payload;
+
+    Record(Kind kind, long timeMicros, byte[] payload) {
+      this.kind = kind;
+      this.timeMicros = timeMicros;
+      this.payload = payload;
+    }
+
+    public Kind getKind() {
+      return kind;
+    }
+
+    /**
+     * The time of this record in microseconds since the start of its connection, or since the
+     * epoch for a {@link Kind#CONNECTED} or {@link Kind#SESSION} record.
+     */
+    public long getTimeMicros() {
+      return timeMicros;
+    }
+
+    /**
+     * The content of a binary message. The buffer is read-only and shares the content of this
+     * record.
+     */
+    public ByteBuffer getData() {
+      return ByteBuffer.wrap(payload).asReadOnlyBuffer();
+    }
+
+    /**
+     * The content of a text message, or the URI of a {@link Kind#CONNECTED} record.
+     */
+    public String getText() {
+      return new String(payload, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The number of bytes in the content of this record.
+     */
+    public int getSize() {
+      return payload.length;
+    }
+  }
+
+  /**
+   * Read the recording in the given file. A record that was being written when the recording
+   * process stopped is ignored.
+   *
+   * @throws IOException if the file cannot be read or is not a recording
+   */
+  public static TrafficRecording read(Path file) throws IOException {
+    try (InputStream in = Files.newInputStream(file)) {
+      return read(in);
+    }
+  }
+
+  /**
+   * Read a recording from the given stream, which is not closed.
+   *
+   * @throws IOException if the stream cannot be read or does not contain a recording
+   */
+  public static TrafficRecording read(InputStream stream) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16));
+    int magic;
+    int version;
+    try {
+      magic = in.readInt();
+      version = in.readUnsignedByte();
+    } catch (EOFException e) {
+      throw new IOException("Not a VM service traffic recording", e);
+    }
+    if (magic != TrafficRecorder.MAGIC) {
+      throw new IOException("Not a VM service traffic recording");
+    }
+    if (version != TrafficRecorder.VERSION) {
+      throw new IOException("Unsupported recording version " + version);
+    }
+    Kind[] kinds = Kind.values();
+    List<Record> records = new ArrayList<>();
+    long time = 0;
+    while (true) {
+      int kindIndex = in.read();
+      if (kindIndex < 0) {
+        break;
+      }
+      if (kindIndex >= kinds.length) {
+        throw new IOException("Invalid record kind " + kindIndex + " after " + records.size()
+            + " records");
+      }
+      Kind kind = kinds[kindIndex];
+      byte[] payload;
+      long delta;
+      try {
+        delta = readVarLong(in);
+        payload = new byte[(int) readVarLong(in)];
+        in.readFully(payload);
+      } catch (EOFException e) {
+        break;
+      }
+      if (kind == Kind.CONNECTED || kind == Kind.SESSION) {
+        records.add(new Record(kind, delta, payload));
+        time = 0;
+      } else {
+        time += delta;
+        records.add(new Record(kind, time, payload));
+      }
+    }
+    return new TrafficRecording(records);
+  }
+
+  private static long readVarLong(DataInputStream in) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = in.readUnsignedByte();
+      value |= (long) (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Invalid variable length number");
+  }
+
+  private final List<Record> records;
+
+  private TrafficRecording(List<Record> records) {
+    this.records = Collections.unmodifiableList(records);
+  }
+
+  /**
+   * The records of this recording, in the order they were written.
+   */
+  public List<Record> getRecords() {
+    return records;
+  }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.transport;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * A means of exchanging messages with a VM service, such as a websocket implementation.
+ */
+public interface Transport {
+  /**
+   * Open a connection to the given URI and return once it can be used to send messages. The
+   * messages received on the connection are passed to the given handler.
+   *
+   * @throws IOException if the connection cannot be established
+   */
+  TransportConnection connect(URI uri, TransportHandler handler) throws IOException;
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.transport;
+
+import java.io.IOException;
+
+/**
+ * A connection opened by a {@link Transport}.
+ */
+public interface TransportConnection {
+  /**
+   * Send the given text message.
+   *
+   * @throws IOException if the connection is closed or the message cannot be sent
+   */
+  void send(String message) throws IOException;
+
+  /**
+   * Close the connection. The {@link TransportHandler} is notified once the connection is closed.
+   */
+  void close();
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.transport;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The receiver of the messages and state changes of a {@link TransportConnection}. The methods
+ * are called on a thread owned by the transport, one at a time and in the order the messages are
+ * received.
+ */
+public interface TransportHandler {
+  /**
+   * Called once the connection has been established.
+   */
+  void onOpen();
+
+  /**
+   * Called when a text message has been received.
+   */
+  void onText(String message);
+
+  /**
+   * Called when a text message has been received, by transports that receive it UTF-8 encoded, so
+   * that it can be decoded without first being copied to a {@link String}. The remaining bytes of
+   * the buffer are the message, and are only valid until this method returns. By default, the
+   * message is decoded and passed to {@link #onText(String)}.
+   */
+  default void onText(ByteBuffer utf8) {
+    onText(StandardCharsets.UTF_8.decode(utf8).toString());
+  }
+
+  /**
+   * Called when a binary message has been received. The buffer is not reused by the transport.
+   */
+  void onBinary(ByteBuffer message);
+
+  /**
+   * Called once when the connection has been closed, by either side or because of an error.
+   */
+  void onClose();
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.transport;
+
+import de.roderick.weberknecht.WebSocket;
+import de.roderick.weberknecht.WebSocketEventHandler;
+import de.roderick.weberknecht.WebSocketException;
+import de.roderick.weberknecht.WebSocketMessage;
+import org.dartlang.vm.service.logging.Logging;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * A {@link Transport} based on the weberknecht {@link WebSocket}, which reads each connection on a
+ * dedicated thread and only supports text messages.
+ */
+public class WeberknechtTransport implements Transport {
+  @Override
+  public TransportConnection connect(URI uri, final TransportHandler handler) throws IOException {
+    final WebSocket webSocket;
+    try {
+      webSocket = new WebSocket(uri);
+    } catch (WebSocketException e) {
+      throw new IOException("Failed to create websocket: " + uri, e);
+    }
+    webSocket.setEventHandler(new WebSocketEventHandler() {
+      @Override
+      public void onClose() {
+        handler.onClose();
+      }
+
+      @Override
+      public void onMessage(WebSocketMessage message) {
+        handler.onText(message.getText());
+      }
+
+      @Override
+      public void onOpen() {
+        handler.onOpen();
+      }
+
+      @Override
+      public void onPing() {
+      }
+
+      @Override
+      public void onPong() {
+      }
+    });
+
+    //noinspection TryWithIdenticalCatches
+    try {
+      webSocket.connect();
+    } catch (WebSocketException e) {
+      throw new IOException("Failed to connect: " + uri, e);
+    } catch (ArrayIndexOutOfBoundsException e) {
+      // The weberknecht can occasionally throw an array index exception if a connect terminates on initial connect
+      // (de.roderick.weberknecht.WebSocket.connect, WebSocket.java:126).
+      throw new IOException("Failed to connect: " + uri, e);
+    }
+
+    return new TransportConnection() {
+      @Override
+      public void send(String message) throws IOException {
+        try {
+          webSocket.send(message);
+        } catch (WebSocketException e) {
+          throw new IOException("Failed to send message", e);
+        }
+      }
+
+      @Override
+      public void close() {
+        try {
+          webSocket.close();
+        } catch (WebSocketException e) {
+          Logging.getLogger().logError("Failed to close websocket", e);
+        }
+      }
+    };
+  }
+}
@@ -0,0 +1,378 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service;
+
+import com.google.gson.JsonObject;
+import org.dartlang.vm.service.element.Event;
+import org.dartlang.vm.service.element.EventKind;
+import org.dartlang.vm.service.element.RPCError;
+import org.dartlang.vm.service.element.Response;
+import org.dartlang.vm.service.fake.FakePayloads;
+import org.dartlang.vm.service.fake.FakeVmServiceServer;
+import org.dartlang.vm.service.internal.EventDispatcher;
+import org.dartlang.vm.service.transport.NioWebSocketTransport;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exercises the client against a {@link FakeVmServiceServer} over the NIO transport, without a
+ * Dart SDK: request batching, deduplication, reconnection, and binary and fragmented messages.
+ * Exits with a non-zero status on the first failed check.
+ */
+public class FakeVmServiceTest {
+  private static final long TIMEOUT_SECONDS = 10;
+
+  private static FakeVmServiceServer server;
+  private static VmService vmService;
+
+  public static void main(String[] args) throws IOException {
+    server = new FakeVmServiceServer();
+    server.respond("echo", new FakeVmServiceServer.Handler() {
+      @Override
+      public JsonObject handle(JsonObject params) {
+        JsonObject result = new JsonObject();
+        result.addProperty("type", "Success");
+        result.add("text", params.get("text"));
+        return result;
+      }
+    });
+    server.respond("getObject", FakePayloads.listInstance(10));
+
+    try {
+      testBatchIsOneMessage();
+      testDeduplication();
+      testReconnect();
+      testBinaryMessage();
+      testFragmentedMessages();
+      testCoalescingKeepsPauseEvents();
+      System.out.println("Test Complete");
+    } finally {
+      vmDisconnect();
+      server.close();
+    }
+  }
+
+  /**
+   * The requests of a batch scope are sent to the VM as a single message.
+   */
+  private static void testBatchIsOneMessage() throws IOException {
+    vmConnect();
+    vmService.enableRequestBatching(0, TimeUnit.MILLISECONDS);
+    long messages = server.getMessageCount();
+    long requests = server.getRequestCount();
+    List<CompletableFuture<JsonObject>> responses = new ArrayList<>();
+    vmService.beginBatch();
+    for (int index = 0; index < 5; index++) {
+      responses.add(echo("batch " + index));
+    }
+    vmService.endBatch();
+    for (int index = 0; index < 5; index++) {
+      check(get(responses.get(index)).get("text").getAsString().equals("batch " + index),
+          "Unexpected response to batched request " + index);
+    }
+    check(server.getRequestCount() - requests == 5, "Expected 5 requests");
+    check(server.getMessageCount() - messages == 1,
+        "Expected 1 message but received " + (server.getMessageCount() - messages));
+    vmDisconnect();
+    System.out.println("Batch sent as one message");
+  }
+
+  /**
+   * Identical requests made while the first is waiting share its response, and cancelling one of
+   * them, or its timing out, does not affect the others.
+   */
+  private static void testDeduplication() throws IOException {
+    vmConnect();
+    server.setLatency(200, TimeUnit.MILLISECONDS);
+    long requests = server.getRequestCount();
+    CompletableFuture<Response> first = vmService.getObjectAsync("isolates/1", "objects/list");
+    CompletableFuture<Response> second = vmService.getObjectAsync("isolates/1", "objects/list");
+    CompletableFuture<Response> cancelled = vmService.getObjectAsync("isolates/1", "objects/list");
+    cancelled.cancel(false);
+    check(get(first).getJson().equals(get(second).getJson()), "Expected the same response");
+    check(server.getRequestCount() - requests == 1,
+        "Expected 1 request but sent " + (server.getRequestCount() - requests));
+
+    // Cancelling the only consumer forgets the request
+    CompletableFuture<Response> alone = vmService.getObjectAsync("isolates/1", "objects/other");
+    alone.cancel(false);
+    check(vmService.getPendingRequestCount() == 0, "Expected no pending request");
+    check(get(vmService.getObjectAsync("isolates/1", "objects/other")) != null,
+        "Expected a response after cancelling");
+
+    // A request sharing the response keeps its own timeout
+    CompletableFuture<Response> leader = vmService.getObjectAsync("isolates/1", "objects/list");
+    vmService.setRequestTimeout(50, TimeUnit.MILLISECONDS);
+    CompletableFuture<Response> follower = vmService.getObjectAsync("isolates/1", "objects/list");
+    vmService.setRequestTimeout(0, TimeUnit.MILLISECONDS);
+    try {
+      get(follower);
+      check(false, "Expected the request sharing the response to time out");
+    } catch (RPCException e) {
+      check(e.getError().getCode() == RPCError.REQUEST_TIMEOUT,
+          "Unexpected error " + e.getError().getCode());
+    }
+    check(get(leader) != null, "Expected a response after the shared request timed out");
+    server.setLatency(0, TimeUnit.MILLISECONDS);
+    vmDisconnect();
+    System.out.println("Deduplicated requests answered");
+  }
+
+  /**
+   * When the connection is dropped, the requests without side effects that were waiting for a
+   * response are sent again once it is re-established, the others fail, and the streams are
+   * listened to again.
+   */
+  private static void testReconnect() throws IOException {
+    vmConnect();
+    vmService.enableReconnect(20, 200, TimeUnit.MILLISECONDS);
+    get(vmService.streamListenAsync(VmService.DEBUG_STREAM_ID));
+    server.setLatency(500, TimeUnit.MILLISECONDS);
+    long requests = server.getRequestCount();
+    CompletableFuture<Response> replayed = vmService.getObjectAsync("isolates/1", "objects/list");
+    CompletableFuture<JsonObject> failed = echo("side effect");
+    waitFor(new Condition() {
+      @Override
+      public boolean isTrue() {
+        return server.getRequestCount() - requests == 2;
+      }
+    }, "Requests not received");
+    server.dropConnections();
+
+    check(get(replayed) != null, "Expected a response to the replayed request");
+    check(server.getRequestCount() - requests >= 3, "Expected the request to be sent again");
+    try {
+      get(failed);
+      check(false, "Expected the request with side effects to fail");
+    } catch (RPCException e) {
+      check(e.getError().getCode() == RPCError.CONNECTION_CLOSED,
+          "Unexpected error " + e.getError().getCode());
+    }
+    server.setLatency(0, TimeUnit.MILLISECONDS);
+    waitFor(new Condition() {
+      @Override
+      public boolean isTrue() {
+        return server.sendEvent(VmService.DEBUG_STREAM_ID,
+            FakePayloads.event("Resume", 1, 0)) == 1;
+      }
+    }, "Stream not listened to after reconnecting");
+    check(!vmService.isReconnecting(), "Expected the connection to be re-established");
+    vmDisconnect();
+    System.out.println("Reconnected and replayed");
+  }
+
+  /**
+   * The data of a binary event is delivered to binary listeners.
+   */
+  private static void testBinaryMessage() throws IOException {
+    vmConnect();
+    BinaryListener listener = new BinaryListener();
+    vmService.addVmServiceListener(listener);
+    get(vmService.streamListenAsync("HeapSnapshot"));
+    byte[] data = data(100000);
+    server.sendBinaryEvent("HeapSnapshot", FakePayloads.event("HeapSnapshot", 1, 0), data);
+    check(Arrays.equals(get(listener.data), data), "Unexpected binary event data");
+    vmDisconnect();
+    System.out.println("Binary event received");
+  }
+
+  /**
+   * Messages split into continuation frames, possibly in the middle of a character, are
+   * reassembled.
+   */
+  private static void testFragmentedMessages() throws IOException {
+    server.setFragmentSize(1000);
+    try {
+      vmConnect();
+      StringBuilder text = new StringBuilder();
+      while (text.length() < 100000) {
+        text.append("fragment \u00e9\u4e2d\ud83d\ude00 ").append(text.length());
+      }
+      check(get(echo(text.toString())).get("text").getAsString().equals(text.toString()),
+          "Unexpected fragmented text response");
+
+      BinaryListener listener = new BinaryListener();
+      vmService.addVmServiceListener(listener);
+      get(vmService.streamListenAsync("HeapSnapshot"));
+      byte[] data = data(10000);
+      server.sendBinaryEvent("HeapSnapshot", FakePayloads.event("HeapSnapshot", 1, 0), data);
+      check(Arrays.equals(get(listener.data), data), "Unexpected fragmented binary event data");
+      vmDisconnect();
+    } finally {
+      server.setFragmentSize(0);
+    }
+    System.out.println("Fragmented messages reassembled");
+  }
+
+  /**
+   * When the event queue of a stream is full of pause events, a coalescable event is discarded
+   * rather than any of them.
+   */
+  private static void testCoalescingKeepsPauseEvents() throws IOException {
+    vmConnect();
+    final int capacity = 4;
+    vmService.setEventDispatch(VmService.DEBUG_STREAM_ID, capacity,
+        EventDispatcher.OverflowPolicy.COALESCE);
+    final CountDownLatch release = new CountDownLatch(1);
+    final List<EventKind> kinds = Collections.synchronizedList(new ArrayList<EventKind>());
+    vmService.addVmServiceListener(new VmServiceListener() {
+      @Override
+      public void connectionOpened() {
+      }
+
+      @Override
+      public void received(String streamId, Event event) {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          // ignored
+        }
+        kinds.add(event.getKind());
+      }
+
+      @Override
+      public void connectionClosed() {
+      }
+    });
+    get(vmService.streamListenAsync(VmService.DEBUG_STREAM_ID));
+
+    // The listener holds the first event, and the others fill the queue
+    final int pauseCount = capacity + 1;
+    for (int index = 0; index < pauseCount; index++) {
+      server.sendEvent(VmService.DEBUG_STREAM_ID, FakePayloads.event("PauseBreakpoint", 1, index));
+    }
+    server.sendEvent(VmService.DEBUG_STREAM_ID, FakePayloads.event("Inspect", 1, pauseCount));
+    // Messages are processed in order, so the events have been queued once this is answered
+    get(echo("events queued"));
+    release.countDown();
+
+    waitFor(new Condition() {
+      @Override
+      public boolean isTrue() {
+        return kinds.size() >= pauseCount;
+      }
+    }, "Expected " + pauseCount + " events");
+    check(Collections.frequency(kinds, EventKind.PauseBreakpoint) == pauseCount,
+        "Expected every pause event but received " + kinds);
+    vmDisconnect();
+    System.out.println("Pause events kept while coalescing");
+  }
+
+  private interface Condition {
+    boolean isTrue();
+  }
+
+  /**
+   * Completes its future with the data of the first binary event received.
+   */
+  private static class BinaryListener implements VmServiceBinaryListener {
+    final CompletableFuture<byte[]> data = new CompletableFuture<>();
+
+    @Override
+    public void connectionOpened() {
+    }
+
+    @Override
+    public void received(String streamId, Event event) {
+    }
+
+    @Override
+    public void received(String streamId, Event event, ByteBuffer bytes) {
+      byte[] copy = new byte[bytes.remaining()];
+      bytes.get(copy);
+      data.complete(copy);
+    }
+
+    @Override
+    public void connectionClosed() {
+    }
+  }
+
+  private static void check(boolean condition, String errMsg) {
+    if (!condition) {
+      showErrorAndExit(errMsg);
+    }
+  }
+
+  private static byte[] data(int length) {
+    byte[] data = new byte[length];
+    for (int index = 0; index < length; index++) {
+      data[index] = (byte) (index * 31);
+    }
+    return data;
+  }
+
+  private static CompletableFuture<JsonObject> echo(String text) {
+    JsonObject params = new JsonObject();
+    params.addProperty("text", text);
+    return vmService.callServiceExtensionAsync("isolates/1", "echo", params);
+  }
+
+  /**
+   * Return the value of the given future, or throw the {@link RPCException} it failed with.
+   */
+  private static <T> T get(CompletableFuture<T> future) {
+    try {
+      return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RPCException) {
+        throw (RPCException) e.getCause();
+      }
+      showErrorAndExit("Request failed: " + e.getCause());
+    } catch (Exception e) {
+      showErrorAndExit("No response: " + e);
+    }
+    return null;
+  }
+
+  private static void showErrorAndExit(String errMsg) {
+    System.out.println(errMsg);
+    System.out.flush();
+    System.exit(1);
+  }
+
+  private static void vmConnect() throws IOException {
+    vmService = VmService.connect(server.getUrl(), NioWebSocketTransport.getDefault());
+  }
+
+  private static void vmDisconnect() {
+    if (vmService != null) {
+      vmService.disconnect();
+      vmService = null;
+    }
+  }
+
+  private static void waitFor(Condition condition, String errMsg) {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+    while (!condition.isTrue()) {
+      if (System.nanoTime() > deadline) {
+        showErrorAndExit(errMsg);
+      }
+      try {
+        Thread.sleep(10);
+      } catch (InterruptedException e) {
+        // ignored
+      }
+    }
+  }
+}
@@ -25,6 +25,10 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class VmServiceTest {
   private static File dartVm;
@@ -132,6 +136,7 @@ public class VmServiceTest {
     vmGetVersion();
     ElementList<IsolateRef> isolates = vmGetVmIsolates();
     Isolate sampleIsolate = vmGetIsolate(isolates.get(0));
+    vmGetIsolatesAsync(isolates);
     Library rootLib = vmGetLibrary(sampleIsolate, sampleIsolate.getRootLib());
     vmGetScript(sampleIsolate, rootLib.getScripts().get(0));
     vmCallServiceExtension(sampleIsolate);
@@ -328,7 +333,7 @@ public class VmServiceTest {
   @SuppressWarnings("SameParameterValue")
   private static void vmAddBreakpoint(Isolate isolate, ScriptRef script, int lineNum) {
     final OpLatch latch = new OpLatch();
-    vmService.addBreakpoint(isolate.getId(), script.getId(), lineNum, new BreakpointConsumer() {
+    vmService.addBreakpoint(isolate.getId(), script.getId(), lineNum, new AddBreakpointConsumer() {
       @Override
       public void onError(RPCError error) {
         showRPCError(error);
@@ -340,6 +345,11 @@ public class VmServiceTest {
         System.out.println("  BreakpointNumber:" + response.getBreakpointNumber());
         latch.opComplete();
       }
+
+      @Override
+      public void received(Sentinel response) {
+        showSentinel(response);
+      }
     });
     latch.waitAndAssertOpComplete();
   }
@@ -395,7 +405,7 @@ public class VmServiceTest {
     System.out.println("Getting coverage information for " + isolate.getId());
     final long startTime = System.currentTimeMillis();
     final ResultLatch<SourceReport> latch = new ResultLatch<>();
-    vmService.getSourceReport(isolate.getId(), Collections.singletonList(SourceReportKind.Coverage), new SourceReportConsumer() {
+    vmService.getSourceReport(isolate.getId(), Collections.singletonList(SourceReportKind.Coverage), new GetSourceReportConsumer() {
       @Override
       public void onError(RPCError error) {
         showRPCError(error);
@@ -408,6 +418,11 @@ public class VmServiceTest {
         System.out.println("  Range count: " + response.getRanges().size());
         latch.setValue(response);
       }
+
+      @Override
+      public void received(Sentinel response) {
+        showSentinel(response);
+      }
     });
     return latch.getValue();
   }
@@ -443,6 +458,30 @@ public class VmServiceTest {
     return latch.getValue();
   }
 
+  private static void vmGetIsolatesAsync(ElementList<IsolateRef> isolates) {
+    List<CompletableFuture<Response>> futures = new ArrayList<>();
+    for (IsolateRef isolate : isolates) {
+      futures.add(vmService.getIsolateAsync(isolate.getId()));
+    }
+    try {
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+      for (CompletableFuture<Response> future : futures) {
+        Response response = future.get();
+        if (!(response instanceof Isolate)) {
+          showErrorAndExit("Expected isolate but received " + response.getType());
+        }
+        System.out.println("Received Isolate response (async): " + ((Isolate) response).getName());
+      }
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RPCException) {
+        showRPCError(((RPCException) e.getCause()).getError());
+      }
+      showErrorAndExit("Failed to get isolates: " + e.getCause());
+    } catch (InterruptedException | TimeoutException e) {
+      showErrorAndExit("Failed to get isolates: " + e);
+    }
+  }
+
   private static Library vmGetLibrary(Isolate isolateId, LibraryRef library) {
     final ResultLatch<Library> latch = new ResultLatch<>();
     vmService.getLibrary(isolateId.getId(), library.getId(), new GetLibraryConsumer() {
@@ -496,7 +535,7 @@ public class VmServiceTest {
 
   private static void vmGetStack(Isolate isolate) {
     final ResultLatch<Stack> latch = new ResultLatch<>();
-    vmService.getStack(isolate.getId(), new StackConsumer() {
+    vmService.getStack(isolate.getId(), new GetStackConsumer() {
       @Override
       public void onError(RPCError error) {
         showRPCError(error);
@@ -506,6 +545,11 @@ public class VmServiceTest {
       public void received(Stack stack) {
         latch.setValue(stack);
       }
+
+      @Override
+      public void received(Sentinel response) {
+        showSentinel(response);
+      }
     });
     Stack stack = latch.getValue();
     System.out.println("Received Stack response");
@@ -587,7 +631,7 @@ public class VmServiceTest {
   private static void vmPauseOnException(IsolateRef isolate, ExceptionPauseMode mode) {
     System.out.println("Request pause on exception: " + mode);
     final OpLatch latch = new OpLatch();
-    vmService.setExceptionPauseMode(isolate.getId(), mode, new SuccessConsumer() {
+    vmService.setExceptionPauseMode(isolate.getId(), mode, new SetExceptionPauseModeConsumer() {
       @Override
       public void onError(RPCError error) {
         showRPCError(error);
@@ -598,13 +642,18 @@ public class VmServiceTest {
         System.out.println("Successfully set pause on exception");
         latch.opComplete();
       }
+
+      @Override
+      public void received(Sentinel response) {
+        showSentinel(response);
+      }
     });
     latch.waitAndAssertOpComplete();
   }
 
   private static void vmResume(IsolateRef isolateRef, final StepOption step) {
     final String id = isolateRef.getId();
-    vmService.resume(id, step, null, new SuccessConsumer() {
+    vmService.resume(id, step, null, new ResumeConsumer() {
       @Override
       public void onError(RPCError error) {
         showRPCError(error);
@@ -618,6 +667,11 @@ public class VmServiceTest {
           System.out.println("Step " + step + " isolate " + id);
         }
       }
+
+      @Override
+      public void received(Sentinel response) {
+        showSentinel(response);
+      }
     });
     // Do not wait for confirmation, but display error if it occurs
   }
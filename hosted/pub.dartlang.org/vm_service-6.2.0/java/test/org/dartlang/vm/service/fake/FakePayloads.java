@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.fake;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.util.Random;
+
+/**
+ * Builds VM service responses and events for a {@link FakeVmServiceServer}, from tiny to very
+ * large. The contents are derived from a seed, so that a given payload is the same on every run.
+ */
+public class FakePayloads {
+  private FakePayloads() {
+  }
+
+  public static JsonObject success() {
+    JsonObject success = new JsonObject();
+    success.addProperty("type", "Success");
+    return success;
+  }
+
+  /**
+   * Return a VM with the given name and the given number of runnable isolates.
+   */
+  public static JsonObject vm(String name, int isolateCount) {
+    JsonObject vm = new JsonObject();
+    vm.addProperty("type", "VM");
+    vm.addProperty("name", name);
+    vm.addProperty("architectureBits", 64);
+    vm.addProperty("hostCPU", "fake");
+    vm.addProperty("operatingSystem", "linux");
+    vm.addProperty("targetCPU", "x64");
+    vm.addProperty("version", "fake");
+    vm.addProperty("pid", 1);
+    vm.addProperty("startTime", 0);
+    JsonArray isolates = new JsonArray();
+    for (int index = 0; index < isolateCount; index++) {
+      isolates.add(isolateRef(index));
+    }
+    vm.add("isolates", isolates);
+    vm.add("isolateGroups", new JsonArray());
+    vm.add("systemIsolates", new JsonArray());
+    vm.add("systemIsolateGroups", new JsonArray());
+    return vm;
+  }
+
+  public static JsonObject isolateRef(int index) {
+    JsonObject isolate = new JsonObject();
+    isolate.addProperty("type", "@Isolate");
+    isolate.addProperty("id", "isolates/" + index);
+    isolate.addProperty("name", "isolate" + index);
+    isolate.addProperty("number", String.valueOf(index));
+    isolate.addProperty("isSystemIsolate", false);
+    return isolate;
+  }
+
+  /**
+   * Return an event of the given kind for the given isolate.
+   */
+  public static JsonObject event(String kind, int isolateIndex, long timestamp) {
+    JsonObject event = new JsonObject();
+    event.addProperty("type", "Event");
+    event.addProperty("kind", kind);
+    event.add("isolate", isolateRef(isolateIndex));
+    event.addProperty("timestamp", timestamp);
+    return event;
+  }
+
+  /**
+   * Return a CPU profile of the given number of samples, whose stacks are up to the given depth and
+   * refer to the given number of functions. Each sample takes about 60 bytes plus 5 per frame.
+   */
+  public static JsonObject cpuSamples(int sampleCount, int functionCount, int maxStackDepth,
+      long seed) {
+    Random random = new Random(seed);
+    JsonArray functions = new JsonArray();
+    for (int index = 0; index < functionCount; index++) {
+      JsonObject function = new JsonObject();
+      function.addProperty("type", "@Function");
+      function.addProperty("id", "functions/" + index);
+      function.addProperty("name", "function" + index);
+      function.add("owner", libraryRef(index % 16));
+      function.addProperty("static", false);
+      function.addProperty("const", false);
+      JsonObject profileFunction = new JsonObject();
+      profileFunction.addProperty("kind", "Dart");
+      profileFunction.addProperty("inclusiveTicks", 0);
+      profileFunction.addProperty("exclusiveTicks", 0);
+      profileFunction.addProperty("resolvedUrl", "file:///lib" + index % 16 + ".dart");
+      profileFunction.add("function", function);
+      functions.add(profileFunction);
+    }
+    JsonArray samples = new JsonArray();
+    for (int index = 0; index < sampleCount; index++) {
+      JsonArray stack = new JsonArray();
+      int depth = 1 + random.nextInt(maxStackDepth);
+      for (int frame = 0; frame < depth; frame++) {
+        stack.add(new JsonPrimitive(random.nextInt(functionCount)));
+      }
+      JsonObject sample = new JsonObject();
+      sample.addProperty("tid", 1 + index % 4);
+      sample.addProperty("timestamp", 1000L * index);
+      sample.add("stack", stack);
+      samples.add(sample);
+    }
+    JsonObject cpuSamples = new JsonObject();
+    cpuSamples.addProperty("type", "CpuSamples");
+    cpuSamples.addProperty("samplePeriod", 1000);
+    cpuSamples.addProperty("maxStackDepth", maxStackDepth);
+    cpuSamples.addProperty("sampleCount", sampleCount);
+    cpuSamples.addProperty("timeSpan", sampleCount / 1000.0);
+    cpuSamples.addProperty("timeOriginMicros", 0);
+    cpuSamples.addProperty("timeExtentMicros", 1000L * sampleCount);
+    cpuSamples.addProperty("pid", 1);
+    cpuSamples.add("functions", functions);
+    cpuSamples.add("samples", samples);
+    return cpuSamples;
+  }
+
+  /**
+   * Return a list instance with the given number of integer elements. Each element takes about
+   * 120 bytes.
+   */
+  public static JsonObject listInstance(int length) {
+    JsonObject intClass = classRef(1, "_Smi");
+    JsonArray elements = new JsonArray();
+    for (int index = 0; index < length; index++) {
+      JsonObject element = new JsonObject();
+      element.addProperty("type", "@Instance");
+      element.addProperty("kind", "Int");
+      element.addProperty("id", "objects/int-" + index);
+      element.add("class", intClass);
+      element.addProperty("valueAsString", String.valueOf(index));
+      elements.add(element);
+    }
+    JsonObject instance = new JsonObject();
+    instance.addProperty("type", "Instance");
+    instance.addProperty("kind", "List");
+    instance.addProperty("id", "objects/list");
+    instance.add("class", classRef(2, "_List"));
+    instance.addProperty("length", length);
+    instance.addProperty("size", 16 + 8 * length);
+    instance.add("elements", elements);
+    return instance;
+  }
+
+  /**
+   * Return a coverage and possible breakpoints report of one script, with the given number of
+   * ranges of the given number of token positions each. Each position takes about 6 bytes.
+   */
+  public static JsonObject sourceReport(int rangeCount, int positionsPerRange, long seed) {
+    Random random = new Random(seed);
+    JsonArray ranges = new JsonArray();
+    int position = 0;
+    for (int index = 0; index < rangeCount; index++) {
+      int startPos = position;
+      JsonArray hits = new JsonArray();
+      JsonArray misses = new JsonArray();
+      JsonArray possibleBreakpoints = new JsonArray();
+      for (int count = 0; count < positionsPerRange; count++) {
+        position += 1 + random.nextInt(8);
+        (random.nextInt(4) == 0 ? misses : hits).add(new JsonPrimitive(position));
+        possibleBreakpoints.add(new JsonPrimitive(position));
+      }
+      JsonObject coverage = new JsonObject();
+      coverage.add("hits", hits);
+      coverage.add("misses", misses);
+      JsonObject range = new JsonObject();
+      range.addProperty("scriptIndex", 0);
+      range.addProperty("startPos", startPos);
+      range.addProperty("endPos", position);
+      range.addProperty("compiled", true);
+      range.add("coverage", coverage);
+      range.add("possibleBreakpoints", possibleBreakpoints);
+      ranges.add(range);
+      position += 10;
+    }
+    JsonObject script = new JsonObject();
+    script.addProperty("type", "@Script");
+    script.addProperty("id", "scripts/0");
+    script.addProperty("uri", "file:///main.dart");
+    JsonArray scripts = new JsonArray();
+    scripts.add(script);
+    JsonObject report = new JsonObject();
+    report.addProperty("type", "SourceReport");
+    report.add("ranges", ranges);
+    report.add("scripts", scripts);
+    return report;
+  }
+
+  private static JsonObject classRef(int index, String name) {
+    JsonObject classRef = new JsonObject();
+    classRef.addProperty("type", "@Class");
+    classRef.addProperty("id", "classes/" + index);
+    classRef.addProperty("name", name);
+    return classRef;
+  }
+
+  private static JsonObject libraryRef(int index) {
+    JsonObject library = new JsonObject();
+    library.addProperty("type", "@Library");
+    library.addProperty("id", "libraries/" + index);
+    library.addProperty("name", "lib" + index);
+    library.addProperty("uri", "file:///lib" + index + ".dart");
+    return library;
+  }
+}
@@ -0,0 +1,560 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.fake;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.dartlang.vm.service.VmService;
+import org.dartlang.vm.service.transport.TrafficRecording;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * An in-process stand-in for the VM service, used to test and measure the client without a Dart
+ * SDK. It accepts websocket connections on the loopback interface and answers JSON-RPC requests,
+ * including batches, with scripted or recorded responses, after an optional latency. Events can be
+ * sent to the connections listening to their streams, one at a time or in floods.
+ * <p>
+ * Requests are answered, in order of precedence, by a recorded response for the same method and
+ * parameters, a recorded response for the same method, a {@link Handler} given to
+ * {@link #respond(String, Handler)}, or the built-in handling of {@code getVersion}, {@code getVM},
+ * {@code streamListen} and {@code streamCancel}. Other requests fail with a "Method not found"
+ * error.
+ */
+public class FakeVmServiceServer implements Closeable {
+  /**
+   * Computes the result of a request from its parameters.
+   */
+  public interface Handler {
+    JsonObject handle(JsonObject params) throws RpcFailure;
+  }
+
+  /**
+   * Thrown by a {@link Handler} to answer a request with an error.
+   */
+  public static class RpcFailure extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    private final int code;
+
+    public RpcFailure(int code, String message) {
+      super(message);
+      this.code = code;
+    }
+
+    public int getCode() {
+      return code;
+    }
+  }
+
+  public static final int METHOD_NOT_FOUND = -32601;
+  public static final int STREAM_ALREADY_SUBSCRIBED = 103;
+  public static final int STREAM_NOT_SUBSCRIBED = 104;
+
+  /**
+   * Start a server on the given port, or on any free port if 0, answering with the responses
+   * recorded in the given file, if any, until the process is stopped. The file is either a
+   * {@link TrafficRecording} or has one recorded response per line.
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    FakeVmServiceServer server =
+        new FakeVmServiceServer(args.length > 0 ? Integer.parseInt(args[0]) : 0);
+    if (args.length > 1) {
+      TrafficRecording recording = null;
+      try {
+        recording = TrafficRecording.read(Paths.get(args[1]));
+      } catch (IOException e) {
+        // Not a traffic recording
+      }
+      if (recording != null) {
+        server.addRecordedResponses(recording);
+      } else {
+        try (Reader reader = new FileReader(args[1])) {
+          server.addRecordedResponses(reader);
+        }
+      }
+    }
+    System.out.println("Serving " + server.getUrl());
+    Thread.currentThread().join();
+  }
+
+  /**
+   * A connection accepted by this server.
+   */
+  private class Connection implements Runnable {
+    final FakeWebSocket webSocket;
+
+    /**
+     * The streams that the client of this connection listens to.
+     */
+    final Set<String> streams = ConcurrentHashMap.newKeySet();
+
+    Connection(FakeWebSocket webSocket) {
+      this.webSocket = webSocket;
+    }
+
+    @Override
+    public void run() {
+      try {
+        webSocket.handshake();
+        String message;
+        while ((message = webSocket.readText()) != null) {
+          receive(this, message);
+        }
+      } catch (IOException e) {
+        // The connection has been closed or dropped
+      } finally {
+        webSocket.close();
+        connections.remove(this);
+      }
+    }
+
+    void send(String message) {
+      try {
+        webSocket.sendText(message);
+      } catch (IOException e) {
+        webSocket.close();
+      }
+    }
+  }
+
+  private final ServerSocket serverSocket;
+  private final List<Connection> connections = new CopyOnWriteArrayList<>();
+  private final Map<String, Handler> handlers = new ConcurrentHashMap<>();
+
+  /**
+   * The recorded response members, {@code result} or {@code error}, keyed by method followed by
+   * parameters, or by method alone.
+   */
+  private final Map<String, JsonObject> recordedResponses = new ConcurrentHashMap<>();
+
+  private final ScheduledExecutorService scheduler;
+  private final AtomicLong requestCount = new AtomicLong();
+  private final AtomicLong messageCount = new AtomicLong();
+  private volatile long latencyNanos;
+  private volatile int fragmentSize;
+
+  /**
+   * Start a server on any free port of the loopback interface.
+   */
+  public FakeVmServiceServer() throws IOException {
+    this(0);
+  }
+
+  /**
+   * Start a server on the given port of the loopback interface.
+   */
+  public FakeVmServiceServer(int port) throws IOException {
+    serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    final ThreadFactory threadFactory = new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "Fake VM service");
+        thread.setDaemon(true);
+        return thread;
+      }
+    };
+    scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    threadFactory.newThread(new Runnable() {
+      @Override
+      public void run() {
+        while (!serverSocket.isClosed()) {
+          Socket socket;
+          try {
+            socket = serverSocket.accept();
+          } catch (IOException e) {
+            return;
+          }
+          try {
+            FakeWebSocket webSocket = new FakeWebSocket(socket);
+            webSocket.setFragmentSize(fragmentSize);
+            Connection connection = new Connection(webSocket);
+            connections.add(connection);
+            threadFactory.newThread(connection).start();
+          } catch (IOException e) {
+            closeQuietly(socket);
+          }
+        }
+      }
+    }).start();
+  }
+
+  /**
+   * Return the URL that clients connect to, for {@link VmService#connect(String)}.
+   */
+  public String getUrl() {
+    return "ws://127.0.0.1:" + getPort() + "/ws";
+  }
+
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  /**
+   * Return the number of clients that are connected.
+   */
+  public int getConnectionCount() {
+    return connections.size();
+  }
+
+  /**
+   * Return the number of requests received, counting each request of a batch.
+   */
+  public long getRequestCount() {
+    return requestCount.get();
+  }
+
+  /**
+   * Return the number of messages received, counting a batch of requests as one message.
+   */
+  public long getMessageCount() {
+    return messageCount.get();
+  }
+
+  /**
+   * Answer the requests for the given method with the given result.
+   */
+  public void respond(String method, final JsonObject result) {
+    respond(method, new Handler() {
+      @Override
+      public JsonObject handle(JsonObject params) {
+        return result;
+      }
+    });
+  }
+
+  /**
+   * Answer the requests for the given method with the result computed by the given handler. The
+   * handler is called by the thread reading the connection of the request.
+   */
+  public void respond(String method, Handler handler) {
+    handlers.put(method, handler);
+  }
+
+  /**
+   * Answer the requests for the given method with the given error.
+   */
+  public void respondError(String method, final int code, final String message) {
+    respond(method, new Handler() {
+      @Override
+      public JsonObject handle(JsonObject params) throws RpcFailure {
+        throw new RpcFailure(code, message);
+      }
+    });
+  }
+
+  /**
+   * Add the recorded responses read from the given reader, one JSON object per line, with the
+   * {@code method} and optionally the {@code params} of the request, and either the
+   * {@code result} or the {@code error} of the response. A response without parameters answers
+   * the requests for its method whose parameters match no other response.
+   */
+  public void addRecordedResponses(Reader reader) throws IOException {
+    BufferedReader lines = new BufferedReader(reader);
+    JsonParser parser = new JsonParser();
+    String line;
+    while ((line = lines.readLine()) != null) {
+      if (line.trim().isEmpty()) {
+        continue;
+      }
+      JsonObject exchange = parser.parse(line).getAsJsonObject();
+      addRecordedResponse(exchange.get("method").getAsString(),
+          exchange.has("params") ? exchange.getAsJsonObject("params") : null, exchange);
+    }
+  }
+
+  /**
+   * Add the responses to the requests sent in the given recording, so that the session it recorded
+   * can be repeated against this server. Events and requests without a recorded response are
+   * ignored.
+   */
+  public void addRecordedResponses(TrafficRecording recording) {
+    JsonParser parser = new JsonParser();
+    Map<String, JsonObject> requests = new HashMap<>();
+    for (TrafficRecording.Record record : recording.getRecords()) {
+      if (record.getKind() == TrafficRecording.Kind.SESSION) {
+        // The ids of the requests of another session start again from 1
+        requests.clear();
+        continue;
+      }
+      if (record.getKind() != TrafficRecording.Kind.SENT
+          && record.getKind() != TrafficRecording.Kind.RECEIVED) {
+        continue;
+      }
+      JsonElement message;
+      try {
+        message = parser.parse(record.getText());
+      } catch (RuntimeException e) {
+        continue;
+      }
+      Iterable<JsonElement> messages;
+      if (message.isJsonArray()) {
+        messages = message.getAsJsonArray();
+      } else {
+        JsonArray single = new JsonArray();
+        single.add(message);
+        messages = single;
+      }
+      for (JsonElement each : messages) {
+        if (!each.isJsonObject() || !each.getAsJsonObject().has("id")) {
+          continue;
+        }
+        JsonObject json = each.getAsJsonObject();
+        String id = json.get("id").getAsString();
+        if (record.getKind() == TrafficRecording.Kind.SENT) {
+          if (json.has("method")) {
+            requests.put(id, json);
+          }
+        } else if (!json.has("method")) {
+          JsonObject request = requests.remove(id);
+          if (request != null) {
+            JsonObject params = request.has("params") ? request.getAsJsonObject("params")
+                : new JsonObject();
+            addRecordedResponse(request.get("method").getAsString(), params, json);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Answer the requests for the given method and parameters, or for the given method if the
+   * parameters are {@code null}, with the {@code result} or {@code error} of the given response.
+   */
+  public void addRecordedResponse(String method, JsonObject params, JsonObject response) {
+    JsonObject members = new JsonObject();
+    if (response.has("error")) {
+      members.add("error", response.get("error"));
+    } else {
+      members.add("result", response.get("result"));
+    }
+    recordedResponses.put(params != null ? method + params : method, members);
+  }
+
+  /**
+   * Delay each response by the given time, which is 0 by default. Responses remain in order.
+   */
+  public void setLatency(long latency, TimeUnit unit) {
+    latencyNanos = unit.toNanos(latency);
+  }
+
+  /**
+   * Send the messages of subsequent and existing connections in frames of at most the given number
+   * of bytes, to exercise the reassembly of fragmented messages by the client, or in a single frame
+   * each if 0, which is the default.
+   */
+  public void setFragmentSize(int size) {
+    fragmentSize = size;
+    for (Connection connection : connections) {
+      connection.webSocket.setFragmentSize(size);
+    }
+  }
+
+  /**
+   * Send the given event to the clients listening to the given stream.
+   *
+   * @return the number of clients the event was sent to
+   */
+  public int sendEvent(String streamId, JsonObject event) {
+    String message = null;
+    int count = 0;
+    for (Connection connection : connections) {
+      if (connection.streams.contains(streamId)) {
+        if (message == null) {
+          message = notification(streamId, event).toString();
+        }
+        connection.send(message);
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Send the given number of events, created by the given factory from their index, to the clients
+   * listening to the given stream, as fast as the connections accept them.
+   */
+  public void floodEvents(String streamId, int count, IntFunction<JsonObject> eventFactory) {
+    for (int index = 0; index < count; index++) {
+      sendEvent(streamId, eventFactory.apply(index));
+    }
+  }
+
+  /**
+   * Send the given event with the given binary data, as for a heap snapshot, to the clients
+   * listening to the given stream.
+   */
+  public void sendBinaryEvent(String streamId, JsonObject event, byte[] data) {
+    byte[] metadata = notification(streamId, event).toString().getBytes(StandardCharsets.UTF_8);
+    ByteBuffer message = ByteBuffer.allocate(4 + metadata.length + data.length);
+    message.order(ByteOrder.LITTLE_ENDIAN).putInt(4 + metadata.length).put(metadata).put(data);
+    for (Connection connection : connections) {
+      if (connection.streams.contains(streamId)) {
+        try {
+          connection.webSocket.sendBinary(message.array());
+        } catch (IOException e) {
+          connection.webSocket.close();
+        }
+      }
+    }
+  }
+
+  /**
+   * Close the connections of all clients without a closing handshake, as if the network failed.
+   */
+  public void dropConnections() {
+    for (Connection connection : connections) {
+      connection.webSocket.close();
+    }
+  }
+
+  /**
+   * Stop accepting connections and close the connections of all clients.
+   */
+  @Override
+  public void close() {
+    closeQuietly(serverSocket);
+    dropConnections();
+    scheduler.shutdownNow();
+  }
+
+  private void receive(final Connection connection, String message) {
+    messageCount.incrementAndGet();
+    JsonElement json = new JsonParser().parse(message);
+    final String response;
+    if (json.isJsonArray()) {
+      JsonArray responses = new JsonArray();
+      for (JsonElement request : json.getAsJsonArray()) {
+        responses.add(answer(connection, request.getAsJsonObject()));
+      }
+      response = responses.toString();
+    } else {
+      response = answer(connection, json.getAsJsonObject()).toString();
+    }
+    long latency = latencyNanos;
+    if (latency == 0) {
+      connection.send(response);
+      return;
+    }
+    scheduler.schedule(new Runnable() {
+      @Override
+      public void run() {
+        connection.send(response);
+      }
+    }, latency, TimeUnit.NANOSECONDS);
+  }
+
+  private JsonObject answer(Connection connection, JsonObject request) {
+    requestCount.incrementAndGet();
+    String method = request.get("method").getAsString();
+    JsonObject params =
+        request.has("params") ? request.getAsJsonObject("params") : new JsonObject();
+    JsonObject response = new JsonObject();
+    response.addProperty("jsonrpc", "2.0");
+    response.add("id", request.get("id"));
+    JsonObject recorded = recordedResponses.get(method + params);
+    if (recorded == null) {
+      recorded = recordedResponses.get(method);
+    }
+    if (recorded != null) {
+      for (Map.Entry<String, JsonElement> entry : recorded.entrySet()) {
+        response.add(entry.getKey(), entry.getValue());
+      }
+      return response;
+    }
+    try {
+      response.add("result", handle(connection, method, params));
+    } catch (RpcFailure e) {
+      JsonObject error = new JsonObject();
+      error.addProperty("code", e.getCode());
+      error.addProperty("message", e.getMessage());
+      response.add("error", error);
+    }
+    return response;
+  }
+
+  private JsonObject handle(Connection connection, String method, JsonObject params)
+      throws RpcFailure {
+    Handler handler = handlers.get(method);
+    if (handler != null) {
+      return handler.handle(params);
+    }
+    switch (method) {
+      case "getVersion":
+        JsonObject version = new JsonObject();
+        version.addProperty("type", "Version");
+        version.addProperty("major", VmService.versionMajor);
+        version.addProperty("minor", VmService.versionMinor);
+        return version;
+      case "getVM":
+        return FakePayloads.vm("fake", 0);
+      case "streamListen":
+        if (!connection.streams.add(params.get("streamId").getAsString())) {
+          throw new RpcFailure(STREAM_ALREADY_SUBSCRIBED, "Stream already subscribed");
+        }
+        return FakePayloads.success();
+      case "streamCancel":
+        if (!connection.streams.remove(params.get("streamId").getAsString())) {
+          throw new RpcFailure(STREAM_NOT_SUBSCRIBED, "Stream not subscribed");
+        }
+        return FakePayloads.success();
+      default:
+        throw new RpcFailure(METHOD_NOT_FOUND, "Method not found");
+    }
+  }
+
+  private static JsonObject notification(String streamId, JsonObject event) {
+    JsonObject params = new JsonObject();
+    params.addProperty("streamId", streamId);
+    params.add("event", event);
+    JsonObject notification = new JsonObject();
+    notification.addProperty("jsonrpc", "2.0");
+    notification.addProperty("method", "streamNotify");
+    notification.add("params", params);
+    return notification;
+  }
+
+  private static void closeQuietly(Closeable closeable) {
+    try {
+      closeable.close();
+    } catch (IOException e) {
+      // ignored
+    }
+  }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.fake;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ProtocolException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * The server side of a websocket connection accepted by a {@link FakeVmServiceServer}. Messages
+ * are read by the thread calling {@link #readText()}, and may be sent by any thread. Extensions
+ * such as compression are not negotiated.
+ */
+class FakeWebSocket implements Closeable {
+  private static final String ACCEPT_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+  private static final int OPCODE_CONTINUATION = 0;
+  private static final int OPCODE_TEXT = 1;
+  private static final int OPCODE_BINARY = 2;
+  private static final int OPCODE_CLOSE = 8;
+  private static final int OPCODE_PING = 9;
+  private static final int OPCODE_PONG = 10;
+
+  private final Socket socket;
+  private final InputStream in;
+  private final OutputStream out;
+
+  /**
+   * The largest payload of the frames of a message sent, or 0 to send each message in one frame.
+   */
+  private volatile int fragmentSize;
+
+  FakeWebSocket(Socket socket) throws IOException {
+    this.socket = socket;
+    socket.setTcpNoDelay(true);
+    in = new BufferedInputStream(socket.getInputStream());
+    out = new BufferedOutputStream(socket.getOutputStream(), 64 * 1024);
+  }
+
+  /**
+   * Read the opening handshake of the client and accept it.
+   */
+  void handshake() throws IOException {
+    String key = null;
+    String line = readLine();
+    if (!line.startsWith("GET ")) {
+      throw new ProtocolException("Unexpected request: " + line);
+    }
+    while (!(line = readLine()).isEmpty()) {
+      int colon = line.indexOf(':');
+      if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase("Sec-WebSocket-Key")) {
+        key = line.substring(colon + 1).trim();
+      }
+    }
+    if (key == null) {
+      throw new ProtocolException("Missing Sec-WebSocket-Key");
+    }
+    String accept;
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-1");
+      accept = Base64.getEncoder().encodeToString(
+          digest.digest((key + ACCEPT_GUID).getBytes(StandardCharsets.US_ASCII)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+    String response = "HTTP/1.1 101 Switching Protocols\r\n" + "Upgrade: websocket\r\n"
+        + "Connection: Upgrade\r\n" + "Sec-WebSocket-Accept: " + accept + "\r\n\r\n";
+    synchronized (out) {
+      out.write(response.getBytes(StandardCharsets.US_ASCII));
+      out.flush();
+    }
+  }
+
+  /**
+   * Return the next text message, or {@code null} once the connection has been closed. Binary
+   * messages are ignored, and pings are answered.
+   */
+  String readText() throws IOException {
+    ByteArrayOutputStream message = new ByteArrayOutputStream();
+    int messageOpcode = OPCODE_TEXT;
+    while (true) {
+      int first = in.read();
+      if (first < 0) {
+        return null;
+      }
+      int second = readByte();
+      boolean fin = (first & 0x80) != 0;
+      int opcode = first & 0x0F;
+      long length = second & 0x7F;
+      if (length == 126) {
+        length = (readByte() << 8) | readByte();
+      } else if (length == 127) {
+        length = 0;
+        for (int index = 0; index < 8; index++) {
+          length = (length << 8) | readByte();
+        }
+      }
+      if (length > Integer.MAX_VALUE) {
+        throw new ProtocolException("Frame too large: " + length);
+      }
+      byte[] mask = (second & 0x80) != 0 ? readFully(4) : null;
+      byte[] payload = readFully((int) length);
+      if (mask != null) {
+        for (int index = 0; index < payload.length; index++) {
+          payload[index] ^= mask[index & 3];
+        }
+      }
+      switch (opcode) {
+        case OPCODE_CLOSE:
+          sendFrame(OPCODE_CLOSE, payload);
+          close();
+          return null;
+        case OPCODE_PING:
+          sendFrame(OPCODE_PONG, payload);
+          continue;
+        case OPCODE_PONG:
+          continue;
+        case OPCODE_CONTINUATION:
+          break;
+        default:
+          messageOpcode = opcode;
+          message.reset();
+      }
+      message.write(payload);
+      if (fin) {
+        if (messageOpcode == OPCODE_TEXT) {
+          return new String(message.toByteArray(), StandardCharsets.UTF_8);
+        }
+        message.reset();
+      }
+    }
+  }
+
+  void setFragmentSize(int fragmentSize) {
+    this.fragmentSize = fragmentSize;
+  }
+
+  void sendText(String text) throws IOException {
+    sendMessage(OPCODE_TEXT, text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  void sendBinary(byte[] data) throws IOException {
+    sendMessage(OPCODE_BINARY, data);
+  }
+
+  /**
+   * Send the given message, split into continuation frames of at most {@link #fragmentSize}
+   * bytes if it is set. Fragments may end in the middle of a UTF-8 encoded character.
+   */
+  private void sendMessage(int opcode, byte[] payload) throws IOException {
+    int size = fragmentSize;
+    if (size <= 0 || payload.length <= size) {
+      sendFrame(opcode, payload);
+      return;
+    }
+    synchronized (out) {
+      for (int offset = 0; offset < payload.length; offset += size) {
+        int length = Math.min(size, payload.length - offset);
+        writeFrame(offset == 0 ? opcode : OPCODE_CONTINUATION, offset + length == payload.length,
+            payload, offset, length);
+      }
+      out.flush();
+    }
+  }
+
+  private void sendFrame(int opcode, byte[] payload) throws IOException {
+    synchronized (out) {
+      writeFrame(opcode, true, payload, 0, payload.length);
+      out.flush();
+    }
+  }
+
+  private void writeFrame(int opcode, boolean fin, byte[] payload, int offset, int length)
+      throws IOException {
+    out.write((fin ? 0x80 : 0) | opcode);
+    if (length < 126) {
+      out.write(length);
+    } else if (length < 65536) {
+      out.write(126);
+      out.write(length >>> 8);
+      out.write(length);
+    } else {
+      out.write(127);
+      for (int shift = 56; shift >= 0; shift -= 8) {
+        out.write((int) ((long) length >>> shift));
+      }
+    }
+    out.write(payload, offset, length);
+  }
+
+  /**
+   * Close the connection without a closing handshake.
+   */
+  @Override
+  public void close() {
+    try {
+      socket.close();
+    } catch (IOException e) {
+      // ignored
+    }
+  }
+
+  private int readByte() throws IOException {
+    int value = in.read();
+    if (value < 0) {
+      throw new EOFException();
+    }
+    return value;
+  }
+
+  private byte[] readFully(int length) throws IOException {
+    byte[] result = new byte[length];
+    int offset = 0;
+    while (offset < length) {
+      int count = in.read(result, offset, length - offset);
+      if (count < 0) {
+        throw new EOFException();
+      }
+      offset += count;
+    }
+    return result;
+  }
+
+  private String readLine() throws IOException {
+    StringBuilder line = new StringBuilder();
+    int value;
+    while ((value = readByte()) != '\n') {
+      if (value != '\r') {
+        line.append((char) value);
+      }
+    }
+    return line.toString();
+  }
+}
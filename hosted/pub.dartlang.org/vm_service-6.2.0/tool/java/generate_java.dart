@@ -48,6 +48,10 @@ a single instance of {@link VmService}.
 Calls to {@link VmService} should not be nested.
 More specifically, you should not make any calls to {@link VmService}
 from within any {@link Consumer} method.
+<br/>
+Each RPC is also available as an <code>...Async</code> method returning a
+{@link CompletableFuture}, which is completed with the response or completed
+exceptionally with an {@link RPCException}.
 ''';
 
 late Api api;
@@ -153,6 +157,7 @@ class Api extends Member with ApiParseUtil {
       writer.addImport('com.google.gson.JsonObject');
       writer.addImport('com.google.gson.JsonPrimitive');
       writer.addImport('java.util.List');
+      writer.addImport('java.util.concurrent.CompletableFuture');
 
       writer.addImport('$servicePackage.consumer.*');
       writer.addImport('$servicePackage.element.*');
@@ -180,34 +185,83 @@ class Api extends Member with ApiParseUtil {
               'The minor version number of the protocol supported by this client.');
       for (var m in methods) {
         m.generateVmServiceMethod(writer);
+        m.generateVmServiceAsyncMethod(writer);
         if (m.hasOptionalArgs) {
           m.generateVmServiceMethod(writer, includeOptional: true);
+          m.generateVmServiceAsyncMethod(writer, includeOptional: true);
         }
       }
 
-      writer.addMethod('forwardResponse', [
-        JavaMethodArg('consumer', 'Consumer'),
+      writer.addImport('java.util.Collection');
+      writer.addImport('java.util.HashMap');
+      writer.addImport('java.util.Map');
+      writer.addField('responseForwarders', 'Map<String, ResponseForwarder>',
+          modifiers: 'private static final',
+          value: 'createResponseForwarders()',
+          javadoc: 'The {@link ResponseForwarder} for each method, used to '
+              'forward a response to its consumer with a single lookup.');
+
+      writer.addMethod('createResponseForwarders', [],
+          (StatementWriter writer) {
+        writer.addLine('final Map<String, ResponseForwarder> forwarders = '
+            'new HashMap<>();');
+        writer.addLine('ResponseForwarder forwarder;');
+
+        var methodsByConsumer = <String, List<Method>>{};
+        for (var m in methods) {
+          methodsByConsumer.putIfAbsent(m.consumerTypeName, () => []).add(m);
+        }
+        for (var consumerTypeName in methodsByConsumer.keys.toList()..sort()) {
+          var consumerMethods = methodsByConsumer[consumerTypeName]!;
+          consumerMethods.first.generateResponseForwarder(writer);
+          var names = consumerMethods.map((m) => m.name).toList()..sort();
+          for (var name in names) {
+            writer.addLine('forwarders.put("$name", forwarder);');
+          }
+        }
+        writer.addLine('return forwarders;');
+      },
+          modifiers: 'private static',
+          returnType: 'Map<String, ResponseForwarder>');
+
+      writer.addMethod('getResponseForwarder', [
+        JavaMethodArg('method', 'String'),
+      ], (StatementWriter writer) {
+        writer.addLine('return responseForwarders.get(method);');
+      }, modifiers: null, returnType: 'ResponseForwarder', isOverride: true);
+
+      writer.addMethod('getResponseForwarders', [], (StatementWriter writer) {
+        writer.addLine('return responseForwarders.values();');
+      },
+          modifiers: null,
+          returnType: 'Collection<ResponseForwarder>',
+          isOverride: true);
+
+      writer.addMethod('createResponse', [
         JavaMethodArg('responseType', 'String'),
         JavaMethodArg('json', 'JsonObject')
       ], (StatementWriter writer) {
-        var generatedForwards = Set<String>();
-
-        var sorted = methods.toList()
-          ..sort((m1, m2) {
-            return m1.consumerTypeName.compareTo(m2.consumerTypeName);
-          });
-        for (var m in sorted) {
-          if (generatedForwards.add(m.consumerTypeName)) {
-            m.generateVmServiceForward(writer);
+        var responseTypes = <String, Type>{};
+        for (var m in methods) {
+          for (var t in m.allReturnTypes) {
+            responseTypes[t!.rawName!] = t;
           }
         }
-        writer.addLine('if (consumer instanceof ServiceExtensionConsumer) {');
-        writer
-            .addLine('  ((ServiceExtensionConsumer) consumer).received(json);');
-        writer.addLine('  return;');
+        writer.addLine('switch (responseType) {');
+        for (var rawName in responseTypes.keys.toList()..sort()) {
+          var responseName =
+              classNameFor(responseTypes[rawName]!.elementTypeName!);
+          writer.addLine('  case "$rawName":');
+          writer.addLine('    return new $responseName(json);');
+        }
+        writer.addLine('  default:');
+        writer.addLine('    return null;');
         writer.addLine('}');
-        writer.addLine('logUnknownResponse(consumer, json);');
-      }, modifiers: null, isOverride: true);
+      },
+          modifiers: 'static',
+          returnType: 'Response',
+          javadoc: 'Return a new element of the given response type, '
+              'or {@code null} if the type is unknown to this client.');
 
       writer.addMethod("convertMapToJsonObject", [
         JavaMethodArg('map', 'Map<String, String>')
@@ -529,23 +583,44 @@ class Method extends Member {
     });
   }
 
-  void generateVmServiceForward(StatementWriter writer) {
-    var consumerName = classNameFor(consumerTypeName);
-    writer.addLine('if (consumer instanceof $consumerName) {');
+  /// The declared return types of this method and all of their subtypes,
+  /// sorted by name.
+  List<Type?> get allReturnTypes {
     List<Type?> types = List.from(returnType.types.map((ref) => ref.type));
     for (int index = 0; index < types.length; ++index) {
       types.addAll(types[index]!.subtypes);
     }
     types.sort((t1, t2) => t1!.name!.compareTo(t2!.name!));
-    for (var t in types) {
+    return types;
+  }
+
+  /// The type with which the future returned by the async variant of this
+  /// method is completed.
+  String get futureTypeName {
+    if (returnType.isMultipleReturns) return 'Response';
+    return returnType.types.first.javaBoxedName!;
+  }
+
+  void generateResponseForwarder(StatementWriter writer) {
+    var consumerName = classNameFor(consumerTypeName);
+    writer.addLine(
+        'forwarder = new ResponseForwarder($consumerName.class) {');
+    writer.addLine('  @Override');
+    writer.addLine('  boolean forward(Consumer consumer, String responseType, '
+        'JsonObject json) {');
+    writer.addLine('    switch (responseType) {');
+    for (var t in allReturnTypes) {
       var responseName = classNameFor(t!.elementTypeName!);
-      writer.addLine('  if (responseType.equals("${t.rawName}")) {');
-      writer.addLine(
-          '    (($consumerName) consumer).received(new $responseName(json));');
-      writer.addLine('    return;');
-      writer.addLine('  }');
+      writer.addLine('      case "${t.rawName}":');
+      writer.addLine('        (($consumerName) consumer)'
+          '.received(new $responseName(json));');
+      writer.addLine('        return true;');
     }
-    writer.addLine('}');
+    writer.addLine('      default:');
+    writer.addLine('        return false;');
+    writer.addLine('    }');
+    writer.addLine('  }');
+    writer.addLine('};');
   }
 
   void generateVmServiceMethod(TypeWriter writer, {includeOptional = false}) {
@@ -557,6 +632,70 @@ class Method extends Member {
 //      javadoc = javadoc.trim();
 //    }
 
+    if (args.any((MethodArg arg) => (arg.type.name == 'Map'))) {
+      writer.addImport('java.util.Map');
+    }
+
+    List<JavaMethodArg> javaMethodArgs = _javaMethodArgs(includeOptional);
+    javaMethodArgs
+        .add(JavaMethodArg('consumer', classNameFor(consumerTypeName)));
+    writer.addMethod(name, javaMethodArgs, (StatementWriter writer) {
+      _generateParams(writer, includeOptional);
+      writer.addLine('request("$name", params, consumer);');
+    }, javadoc: _javadoc(includeOptional));
+  }
+
+  void generateVmServiceAsyncMethod(TypeWriter writer,
+      {includeOptional = false}) {
+    var javadoc = StringBuffer(_javadoc(includeOptional).trimRight());
+    if (returnType.isMultipleReturns) {
+      javadoc.writeln();
+      javadoc.write('@return a future completed with one of ');
+      javadoc.write(joinLast(
+          returnType.types.map((t) => '{@link ${t.javaBoxedName}}'),
+          ', ',
+          ' or '));
+    }
+
+    writer.addMethod('${name}Async', _javaMethodArgs(includeOptional),
+        (StatementWriter writer) {
+      _generateParams(writer, includeOptional);
+      writer.addLine(
+          'return requestAsync("$name", params, $futureTypeName.class);');
+    },
+        javadoc: javadoc.toString(),
+        returnType: 'CompletableFuture<$futureTypeName>');
+  }
+
+  void _generateParams(StatementWriter writer, bool includeOptional) {
+    writer.addLine('final JsonObject params = new JsonObject();');
+    for (MethodArg arg in args) {
+      if (!includeOptional && arg.optional) continue;
+      var name = arg.name;
+      String op = arg.optional ? 'if (${name} != null) ' : '';
+      if (arg.isEnumType) {
+        writer.addLine('${op}params.addProperty("$name", $name.name());');
+      } else if (arg.type.name == 'Map') {
+        writer
+            .addLine('${op}params.add("$name", convertMapToJsonObject($name));');
+      } else if (arg.type.arrayDepth > 0) {
+        writer.addLine(
+            '${op}params.add("$name", convertIterableToJsonArray($name));');
+      } else {
+        writer.addLine('${op}params.addProperty("$name", $name);');
+      }
+    }
+  }
+
+  List<JavaMethodArg> _javaMethodArgs(bool includeOptional) {
+    List<MethodArg> mthArgs = args;
+    if (!includeOptional) {
+      mthArgs = mthArgs.toList()..removeWhere((a) => a.optional);
+    }
+    return List.from(mthArgs.map((a) => a.asJavaMethodArg));
+  }
+
+  String _javadoc(bool includeOptional) {
     // Update method docs
     var javadoc = StringBuffer(docs == null ? '' : docs!);
     bool firstParamDoc = true;
@@ -576,40 +715,7 @@ class Method extends Member {
         javadoc.writeln('@param ${a.name} $paramDoc');
       }
     }
-
-    if (args.any((MethodArg arg) => (arg.type.name == 'Map'))) {
-      writer.addImport('java.util.Map');
-    }
-
-    List<MethodArg> mthArgs = args;
-    if (!includeOptional) {
-      mthArgs = mthArgs.toList()..removeWhere((a) => a.optional);
-    }
-
-    List<JavaMethodArg> javaMethodArgs =
-        List.from(mthArgs.map((a) => a.asJavaMethodArg));
-    javaMethodArgs
-        .add(JavaMethodArg('consumer', classNameFor(consumerTypeName)));
-    writer.addMethod(name, javaMethodArgs, (StatementWriter writer) {
-      writer.addLine('final JsonObject params = new JsonObject();');
-      for (MethodArg arg in args) {
-        if (!includeOptional && arg.optional) continue;
-        var name = arg.name;
-        String op = arg.optional ? 'if (${name} != null) ' : '';
-        if (arg.isEnumType) {
-          writer.addLine('${op}params.addProperty("$name", $name.name());');
-        } else if (arg.type.name == 'Map') {
-          writer.addLine(
-              '${op}params.add("$name", convertMapToJsonObject($name));');
-        } else if (arg.type.arrayDepth > 0) {
-          writer.addLine(
-              '${op}params.add("$name", convertIterableToJsonArray($name));');
-        } else {
-          writer.addLine('${op}params.addProperty("$name", $name);');
-        }
-      }
-      writer.addLine('request("$name", params, consumer);');
-    }, javadoc: javadoc.toString());
+    return javadoc.toString();
   }
 
   void _parse(Token? token) {
@@ -936,6 +1042,46 @@ class TypeField extends Member {
         returnType: returnType,
         isOverride: overrides,
       );
+
+      TypeRef valueType = type.valueType!;
+      if (valueType.name == 'int' && valueType.isArray) {
+        generatePrimitiveAccessors(writer, valueType.arrayDepth > 1);
+      }
+    }
+  }
+
+  /// Generate accessors for an int array member that do not box the values.
+  void generatePrimitiveAccessors(TypeWriter writer, bool nested) {
+    String nullable = optional ? '\n\nCan return <code>null</code>.' : '';
+    writer.addMethod(
+      '${accessorName}AsArray',
+      [],
+      (StatementWriter writer) {
+        writer.addLine(nested
+            ? 'return getArrayArrayInt("$name");'
+            : 'return getArrayInt("$name");');
+      },
+      javadoc: nested
+          ? 'Same as {@link #$accessorName()}, as arrays of primitive ints. The '
+              'arrays are decoded once for this element and shared by later '
+              'calls, so they must not be modified.$nullable'
+          : 'Same as {@link #$accessorName()}, as an array of primitive ints. The '
+              'array is decoded once for this element and shared by later calls, '
+              'so it must not be modified.$nullable',
+      returnType: nested ? 'int[][]' : 'int[]',
+    );
+    if (!nested) {
+      writer.addMethod(
+        '${accessorName}Iterator',
+        [],
+        (StatementWriter writer) {
+          writer.addImport('java.util.PrimitiveIterator');
+          writer.addLine('return iterateInt("$name");');
+        },
+        javadoc: 'Same as {@link #$accessorName()}, as an iterator over '
+            'primitive ints.$nullable',
+        returnType: 'PrimitiveIterator.OfInt',
+      );
     }
   }
 }
@@ -1102,14 +1248,19 @@ class TypeRef {
           writer.addLine('');
         }
         writer.addLine(
-            'return new ElementList<$javaBoxedName>(json.get("$propertyName").getAsJsonArray()) {');
-        writer.addLine('  @Override');
+            'ElementList<$javaBoxedName> list = getDecoded("$propertyName");');
+        writer.addLine('if (list == null) {');
+        writer.addLine(
+            '  list = putDecoded("$propertyName", new ElementList<$javaBoxedName>(json.get("$propertyName").getAsJsonArray()) {');
+        writer.addLine('    @Override');
         writer.addLine(
-            '  protected $javaBoxedName basicGet(JsonArray array, int index) {');
+            '    protected $javaBoxedName basicGet(JsonArray array, int index) {');
         writer.addLine(
-            '    return new $javaBoxedName(array.get(index).getAsJsonObject());');
-        writer.addLine('  }');
-        writer.addLine('};');
+            '      return new $javaBoxedName(array.get(index).getAsJsonObject());');
+        writer.addLine('    }');
+        writer.addLine('  });');
+        writer.addLine('}');
+        writer.addLine('return list;');
       } else {
         if (canBeSentinel) {
           writer.addImport('com.google.gson.JsonElement');
@@ -1126,12 +1277,12 @@ class TypeRef {
                 'JsonObject obj = (JsonObject) json.get("$propertyName");');
             writer.addLine('if (obj == null) return null;');
             if ((name != 'InstanceRef') && (name != 'Instance')) {
-              writer.addLine(
-                  'final String type = json.get("type").getAsString();');
+              writer.addLine('final String type = obj.has("type") ? '
+                  'obj.get("type").getAsString() : null;');
               writer.addLine(
                   'if ("Instance".equals(type) || "@Instance".equals(type)) {');
               writer.addLine(
-                  '  final String kind = json.get("kind").getAsString();');
+                  '  final String kind = obj.get("kind").getAsString();');
               writer.addLine('  if ("Null".equals(kind)) return null;');
               writer.addLine('}');
             }